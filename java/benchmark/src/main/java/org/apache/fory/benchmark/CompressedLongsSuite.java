@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.benchmark;
+
+import java.util.Random;
+import org.apache.fory.Fory;
+import org.apache.fory.memory.MemoryBuffer;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compare raw and compressed serialization of <code>long[]</code> enabled by {@link
+ * org.apache.fory.config.ForyBuilder#withLongArrayCompressed}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@CompilerControl(value = CompilerControl.Mode.INLINE)
+public class CompressedLongsSuite {
+
+  @State(Scope.Thread)
+  public static class LongsState {
+    @Param({"1024", "65536"})
+    public int arraySize;
+
+    // timestamps: sorted with small gaps, range: unsorted in a small range.
+    @Param({"timestamps", "range", "random"})
+    public String distribution;
+
+    public long[] longs;
+    public Fory rawFory;
+    public Fory compressedFory;
+    public MemoryBuffer buffer;
+    public byte[] rawBytes;
+    public byte[] compressedBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      Random random = new Random(7);
+      longs = new long[arraySize];
+      long ts = 1700000000000L;
+      for (int i = 0; i < arraySize; i++) {
+        switch (distribution) {
+          case "timestamps":
+            ts += random.nextInt(1000);
+            longs[i] = ts;
+            break;
+          case "range":
+            longs[i] = ts + random.nextInt(1 << 16);
+            break;
+          default:
+            longs[i] = random.nextLong();
+        }
+      }
+      rawFory = Fory.builder().requireClassRegistration(false).build();
+      compressedFory =
+          Fory.builder().withLongArrayCompressed(true).requireClassRegistration(false).build();
+      buffer = MemoryBuffer.newHeapBuffer(arraySize * 9 + 32);
+      rawBytes = rawFory.serialize(longs);
+      compressedBytes = compressedFory.serialize(longs);
+      System.out.printf(
+          "%n%s raw size %d, compressed size %d%n",
+          distribution, rawBytes.length, compressedBytes.length);
+    }
+  }
+
+  @Benchmark
+  public Object rawSerialize(LongsState state) {
+    state.buffer.writerIndex(0);
+    state.rawFory.serialize(state.buffer, state.longs);
+    return state.buffer;
+  }
+
+  @Benchmark
+  public Object compressedSerialize(LongsState state) {
+    state.buffer.writerIndex(0);
+    state.compressedFory.serialize(state.buffer, state.longs);
+    return state.buffer;
+  }
+
+  @Benchmark
+  public Object rawDeserialize(LongsState state) {
+    return state.rawFory.deserialize(state.rawBytes);
+  }
+
+  @Benchmark
+  public Object compressedDeserialize(LongsState state) {
+    return state.compressedFory.deserialize(state.compressedBytes);
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      String commandLine =
+          "org.apache.fory.*CompressedLongsSuite.* -f 1 -wi 3 -i 3 -t 1 -w 2s -r 2s -rf csv";
+      System.out.println(commandLine);
+      args = commandLine.split(" ");
+    }
+    Main.main(args);
+  }
+}
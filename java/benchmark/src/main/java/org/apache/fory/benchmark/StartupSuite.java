@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.fory.Fory;
+import org.apache.fory.benchmark.data.MediaContent;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.config.Language;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to first serialization in a fresh JVM.
+ *
+ * <p>Serializers for {@code precompiled} mode are generated at build time by {@link
+ * org.apache.fory.builder.CodecPrecompiler} using {@link ForyFactory}, see {@code
+ * precompile-fory-serializers} execution in benchmark pom.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupSuite {
+  /** Builder of fory used in {@code jit} and {@code precompiled} mode. */
+  public static ForyBuilder builder() {
+    return Fory.builder()
+        .withLanguage(Language.JAVA)
+        .requireClassRegistration(false)
+        .withRefTracking(false);
+  }
+
+  public static class ForyFactory implements Supplier<Fory> {
+    @Override
+    public Fory get() {
+      return builder().build();
+    }
+  }
+
+  @Param({"interpreter", "jit", "precompiled"})
+  public String mode;
+
+  @Benchmark
+  public Object firstSerialization() {
+    ForyBuilder builder = builder();
+    switch (mode) {
+      case "interpreter":
+        builder.withCodegen(false);
+        break;
+      case "jit":
+        // Disable precompiled serializers by making config different from the precompiled ones.
+        builder.withNumberCompressed(false);
+        break;
+      case "precompiled":
+        break;
+      default:
+        throw new IllegalArgumentException(mode);
+    }
+    Fory fory = builder.build();
+    return fory.serialize(new MediaContent().populate(false));
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      String commandLine = "org.apache.fory.*StartupSuite.* -rf csv";
+      System.out.println(commandLine);
+      args = commandLine.split(" ");
+    }
+    Main.main(args);
+  }
+}
@@ -71,19 +71,80 @@ public class ThreadPoolForySuite {
     struct.f8 = 8;
   }
 
+  private ThreadSafeFory threadLocalFory =
+      Fory.builder()
+          .withLanguage(Language.JAVA)
+          .requireClassRegistration(false)
+          .withJdkClassSerializableCheck(false)
+          .withCompatibleMode(CompatibleMode.COMPATIBLE)
+          .withAsyncCompilation(true)
+          .withRefTracking(true)
+          .buildThreadSafeFory();
+
   @Benchmark()
   @Threads(10000)
   public void testObjectPool(Blackhole bh) {
     bh.consume(fory.serialize(struct));
   }
 
+  // Pool lease/return scaling with thread count, compared against the thread local baseline which
+  // never contends.
+
+  @Benchmark
+  @Threads(1)
+  public void testObjectPool1Thread(Blackhole bh) {
+    bh.consume(fory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void testObjectPool8Threads(Blackhole bh) {
+    bh.consume(fory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void testObjectPool32Threads(Blackhole bh) {
+    bh.consume(fory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(128)
+  public void testObjectPool128Threads(Blackhole bh) {
+    bh.consume(fory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void testThreadLocal1Thread(Blackhole bh) {
+    bh.consume(threadLocalFory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void testThreadLocal8Threads(Blackhole bh) {
+    bh.consume(threadLocalFory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void testThreadLocal32Threads(Blackhole bh) {
+    bh.consume(threadLocalFory.serialize(struct));
+  }
+
+  @Benchmark
+  @Threads(128)
+  public void testThreadLocal128Threads(Blackhole bh) {
+    bh.consume(threadLocalFory.serialize(struct));
+  }
+
   @TearDown
   public void tearDown() {}
 
   public static void main(String[] args) throws IOException {
     if (args.length == 0) {
       String commandLine =
-          "org.apache.fory.*ObjectPoolBenchmark.* -f 1 -wi 0 -i 5 -w 2s -r 2s -rf csv";
+          "org.apache.fory.*ThreadPoolForySuite.* -f 1 -wi 3 -i 5 -bm thrpt -rf csv";
       System.out.println(commandLine);
       args = commandLine.split(" ");
     }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.fory.Fory;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.config.Language;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialize from 100k concurrent virtual threads, every virtual thread serializes an object once.
+ * Requires JDK21+ to run with virtual threads, a fixed platform thread pool is used on older JDKs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadForySuite {
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadForySuite.class);
+
+  @Param({"threadLocal", "pool", "sharedPool"})
+  public String foryType;
+
+  @Param({"100000"})
+  public int numThreads;
+
+  private ThreadSafeFory fory;
+  private StructBenchmark.NumericStruct struct;
+
+  @Setup
+  public void setup() {
+    ForyBuilder builder =
+        Fory.builder()
+            .withLanguage(Language.JAVA)
+            .requireClassRegistration(false)
+            .withRefTracking(false);
+    switch (foryType) {
+      case "threadLocal":
+        fory = builder.buildThreadLocalFory();
+        break;
+      case "pool":
+        int cores = Runtime.getRuntime().availableProcessors();
+        fory = builder.buildThreadSafeForyPool(cores, cores * 2);
+        break;
+      case "sharedPool":
+        fory = builder.buildSharedPoolFory();
+        break;
+      default:
+        throw new IllegalArgumentException(foryType);
+    }
+    struct = StructBenchmark.NumericStruct.build();
+    fory.serialize(struct);
+  }
+
+  @Benchmark
+  public Object serialize() throws InterruptedException {
+    ExecutorService executor = newExecutor();
+    for (int i = 0; i < numThreads; i++) {
+      executor.execute(() -> fory.serialize(struct));
+    }
+    executor.shutdown();
+    if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+      throw new IllegalStateException("Serialization not finished");
+    }
+    return executor;
+  }
+
+  private static ExecutorService newExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Virtual threads are not supported, fallback to platform threads.");
+      return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      String commandLine = "org.apache.fory.*VirtualThreadForySuite.* -f 1 -wi 3 -i 5 -rf csv";
+      System.out.println(commandLine);
+      args = commandLine.split(" ");
+    }
+    Main.main(args);
+  }
+}
@@ -23,7 +23,9 @@ import java.io.OutputStream;
 import java.util.function.Function;
 import org.apache.fory.io.ForyInputStream;
 import org.apache.fory.io.ForyReadableChannel;
+import org.apache.fory.memory.MemoryAllocator;
 import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.meta.Projection;
 import org.apache.fory.serializer.BufferCallback;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.serializer.SerializerFactory;
@@ -120,6 +122,13 @@ public interface BaseFory {
   /** Serialize data into buffer. */
   MemoryBuffer serialize(MemoryBuffer buffer, Object obj);
 
+  /**
+   * Serialize <code>obj</code> to a buffer allocated by <code>allocator</code>, which saves the
+   * copy to a byte array. The returned buffer must be released by {@link MemoryAllocator#release}
+   * after its data is consumed, e.g. written to a socket.
+   */
+  MemoryBuffer serialize(Object obj, MemoryAllocator allocator);
+
   /** Serialize <code>obj</code> to a <code>buffer</code>. */
   MemoryBuffer serialize(MemoryBuffer buffer, Object obj, BufferCallback callback);
 
@@ -134,6 +143,14 @@ public interface BaseFory {
 
   Object deserialize(byte[] bytes, Iterable<MemoryBuffer> outOfBandBuffers);
 
+  /**
+   * Deserialize an object of <code>type</code> and read only fields in <code>projection</code>,
+   * other fields are skipped and left as default values.
+   */
+  <T> T deserialize(byte[] bytes, Class<T> type, Projection projection);
+
+  <T> T deserialize(MemoryBuffer buffer, Class<T> type, Projection projection);
+
   /**
    * Deserialize <code>obj</code> from a off-heap buffer specified by <code>address</code> and
    * <code>size</code>.
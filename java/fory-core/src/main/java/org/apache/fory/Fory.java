@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.fory.annotation.Internal;
 import org.apache.fory.builder.JITContext;
 import org.apache.fory.collection.IdentityMap;
 import org.apache.fory.config.CompatibleMode;
@@ -38,12 +39,16 @@ import org.apache.fory.config.ForyBuilder;
 import org.apache.fory.config.Language;
 import org.apache.fory.config.LongEncoding;
 import org.apache.fory.io.ForyInputStream;
+import org.apache.fory.io.ForyOutputStream;
 import org.apache.fory.io.ForyReadableChannel;
 import org.apache.fory.logging.Logger;
 import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.memory.MemoryAllocator;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.MemoryUtils;
 import org.apache.fory.meta.MetaCompressor;
+import org.apache.fory.meta.Projection;
+import org.apache.fory.metrics.MetricsListener;
 import org.apache.fory.resolver.ClassInfo;
 import org.apache.fory.resolver.ClassInfoHolder;
 import org.apache.fory.resolver.ClassResolver;
@@ -57,6 +62,8 @@ import org.apache.fory.resolver.XtypeResolver;
 import org.apache.fory.serializer.ArraySerializers;
 import org.apache.fory.serializer.BufferCallback;
 import org.apache.fory.serializer.BufferObject;
+import org.apache.fory.serializer.MetaSharedSerializer;
+import org.apache.fory.serializer.ParallelSegments;
 import org.apache.fory.serializer.PrimitiveSerializers.LongSerializer;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.serializer.SerializerFactory;
@@ -98,6 +105,8 @@ public final class Fory implements BaseFory {
   private static final boolean isLittleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
   private static final byte BITMAP = isLittleEndian ? isLittleEndianFlag : 0;
   private static final short MAGIC_NUMBER = 0x62D4;
+  // Written in place of meta start offset if class defs are written inline with class ids.
+  private static final int CLASS_DEFS_INLINED = -2;
 
   private final Config config;
   private final boolean refTracking;
@@ -110,6 +119,7 @@ public final class Fory implements BaseFory {
   private final ClassLoader classLoader;
   private final JITContext jitContext;
   private MemoryBuffer buffer;
+  private ForyOutputStream streamOutput;
   private final StringSerializer stringSerializer;
   private final ArrayListSerializer arrayListSerializer;
   private final HashMapSerializer hashMapSerializer;
@@ -126,6 +136,10 @@ public final class Fory implements BaseFory {
   private final boolean copyRefTracking;
   private final IdentityMap<Object, Object> originToCopyMap;
   private int classDefEndOffset;
+  private ThreadSafeFory segmentWorkers;
+  private final MetricsListener metricsListener;
+  private final int metricsSampleMask;
+  private int metricsCounter;
 
   public Fory(ForyBuilder builder, ClassLoader classLoader) {
     // Avoid set classLoader in `ForyBuilder`, which won't be clear when
@@ -137,8 +151,11 @@ public final class Fory implements BaseFory {
     this.shareMeta = config.isMetaShareEnabled();
     compressInt = config.compressInt();
     longEncoding = config.longEncoding();
+    metricsListener = config.getMetricsListener();
+    // `timeSampleInterval` is checked to be a power of two by `ForyBuilder`.
+    metricsSampleMask = metricsListener == null ? 0 : metricsListener.timeSampleInterval() - 1;
     if (refTracking) {
-      this.refResolver = new MapRefResolver();
+      this.refResolver = new MapRefResolver(config.isAdaptiveRefTracking());
     } else {
       this.refResolver = new NoRefResolver();
     }
@@ -297,6 +314,17 @@ public final class Fory implements BaseFory {
     return serialize(buffer, obj, null);
   }
 
+  @Override
+  public MemoryBuffer serialize(Object obj, MemoryAllocator allocator) {
+    MemoryBuffer buffer = allocator.allocate();
+    try {
+      return serialize(buffer, obj, null);
+    } catch (Throwable t) {
+      allocator.release(buffer);
+      throw t;
+    }
+  }
+
   @Override
   public MemoryBuffer serialize(MemoryBuffer buffer, Object obj, BufferCallback callback) {
     if (crossLanguage) {
@@ -321,6 +349,7 @@ public final class Fory implements BaseFory {
       if (depth != 0) {
         throwDepthSerializationException();
       }
+      jitContext.runPromotedJITTasks();
       if (!crossLanguage) {
         write(buffer, obj);
       } else {
@@ -394,7 +423,7 @@ public final class Fory implements BaseFory {
     int startOffset = buffer.writerIndex();
     boolean shareMeta = config.isMetaShareEnabled();
     if (shareMeta) {
-      buffer.writeInt32(-1); // preserve 4-byte for meta start offsets.
+      writeMetaStartOffsetPlaceholder(buffer);
     }
     // reduce caller stack
     if (!refResolver.writeRefOrNull(buffer, obj)) {
@@ -413,8 +442,11 @@ public final class Fory implements BaseFory {
     buffer.writeByte((byte) Language.JAVA.ordinal());
     int startOffset = buffer.writerIndex();
     boolean shareMeta = config.isMetaShareEnabled();
+    int flushBarrier = 0;
     if (shareMeta) {
       buffer.writeInt32(-1); // preserve 4-byte for meta start offsets.
+      // meta start offset will be patched, keep it in buffer for streaming write.
+      flushBarrier = buffer.holdFlushBarrier(startOffset);
     }
     xwriteRef(buffer, obj);
     MetaContext metaContext = serializationContext.getMetaContext();
@@ -422,6 +454,22 @@ public final class Fory implements BaseFory {
       buffer.putInt32(startOffset, buffer.writerIndex() - startOffset - 4);
       classResolver.writeClassDefs(buffer);
     }
+    if (shareMeta) {
+      buffer.releaseFlushBarrier(flushBarrier);
+    }
+  }
+
+  /**
+   * Preserve 4-byte for meta start offsets. Data written into a streaming buffer may be flushed
+   * before all class defs are known, so class defs are written inline with class ids instead.
+   */
+  private void writeMetaStartOffsetPlaceholder(MemoryBuffer buffer) {
+    if (buffer.getStreamWriter() != null) {
+      buffer.writeInt32(CLASS_DEFS_INLINED);
+      classResolver.setWriteClassDefsInline(true);
+    } else {
+      buffer.writeInt32(-1);
+    }
   }
 
   /** Serialize a nullable referencable object to <code>buffer</code>. */
@@ -446,6 +494,10 @@ public final class Fory implements BaseFory {
     if (serializer.needToWriteRef()) {
       if (!refResolver.writeRefOrNull(buffer, obj)) {
         classResolver.writeClassInfo(buffer, classInfo);
+        if (metricsListener != null) {
+          writeDataWithMetrics(buffer, classInfo, obj);
+          return;
+        }
         depth++;
         serializer.write(buffer, obj);
         depth--;
@@ -456,6 +508,10 @@ public final class Fory implements BaseFory {
       } else {
         buffer.writeByte(Fory.NOT_NULL_VALUE_FLAG);
         classResolver.writeClassInfo(buffer, classInfo);
+        if (metricsListener != null) {
+          writeDataWithMetrics(buffer, classInfo, obj);
+          return;
+        }
         depth++;
         serializer.write(buffer, obj);
         depth--;
@@ -534,6 +590,10 @@ public final class Fory implements BaseFory {
 
   public void writeNonRef(MemoryBuffer buffer, Object obj, ClassInfo classInfo) {
     classResolver.writeClassInfo(buffer, classInfo);
+    if (metricsListener != null) {
+      writeDataWithMetrics(buffer, classInfo, obj);
+      return;
+    }
     Serializer serializer = classInfo.getSerializer();
     depth++;
     serializer.write(buffer, obj);
@@ -615,6 +675,27 @@ public final class Fory implements BaseFory {
 
   /** Write not null data to buffer. */
   private void writeData(MemoryBuffer buffer, ClassInfo classInfo, Object obj) {
+    if (metricsListener == null) {
+      doWriteData(buffer, classInfo, obj);
+    } else {
+      writeDataWithMetrics(buffer, classInfo, obj);
+    }
+  }
+
+  private void writeDataWithMetrics(MemoryBuffer buffer, ClassInfo classInfo, Object obj) {
+    int writerIndex = buffer.writerIndex();
+    long nanos = -1;
+    if ((metricsCounter++ & metricsSampleMask) == 0) {
+      long start = System.nanoTime();
+      doWriteData(buffer, classInfo, obj);
+      nanos = System.nanoTime() - start;
+    } else {
+      doWriteData(buffer, classInfo, obj);
+    }
+    metricsListener.onWrite(classInfo.getCls(), buffer.writerIndex() - writerIndex, nanos);
+  }
+
+  private void doWriteData(MemoryBuffer buffer, ClassInfo classInfo, Object obj) {
     switch (classInfo.getClassId()) {
       case ClassResolver.BOOLEAN_CLASS_ID:
         buffer.writeBoolean((Boolean) obj);
@@ -718,6 +799,8 @@ public final class Fory implements BaseFory {
       } else {
         size = buffer.readVarUint32();
       }
+      // make sure the whole buffer object is available for streaming or mapped buffer.
+      buffer.checkReadableBytes(size);
       MemoryBuffer slice = buffer.slice(buffer.readerIndex(), size);
       buffer.readerIndex(buffer.readerIndex() + size);
       return slice;
@@ -834,11 +917,45 @@ public final class Fory implements BaseFory {
    */
   @Override
   public Object deserialize(MemoryBuffer buffer, Iterable<MemoryBuffer> outOfBandBuffers) {
+    return deserializeInternal(buffer, outOfBandBuffers, null);
+  }
+
+  /**
+   * Deserialize an object of <code>type</code> from a <code>buffer</code>, only fields in <code>
+   * projection</code> are read and other fields are skipped. Unread fields are left as default
+   * values.
+   *
+   * <p>Projection is resolved by class def of serialized objects, which requires {@link
+   * CompatibleMode#COMPATIBLE} with meta share enabled.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T deserialize(MemoryBuffer buffer, Class<T> type, Projection projection) {
+    Preconditions.checkNotNull(projection);
+    Preconditions.checkArgument(
+        !crossLanguage && shareMeta && config.getCompatibleMode() == CompatibleMode.COMPATIBLE,
+        "Projection requires java compatible mode with meta share enabled");
+    generics.pushGenericType(classResolver.buildGenericType(type));
+    try {
+      return (T) deserializeInternal(buffer, null, projection);
+    } finally {
+      generics.popGenericType();
+    }
+  }
+
+  @Override
+  public <T> T deserialize(byte[] bytes, Class<T> type, Projection projection) {
+    return deserialize(MemoryUtils.wrap(bytes), type, projection);
+  }
+
+  private Object deserializeInternal(
+      MemoryBuffer buffer, Iterable<MemoryBuffer> outOfBandBuffers, Projection projection) {
     try {
       jitContext.lock();
       if (depth != 0) {
         throwDepthDeserializationException();
       }
+      jitContext.runPromotedJITTasks();
       if (crossLanguage) {
         short magicNumber = buffer.readInt16();
         assert magicNumber == MAGIC_NUMBER
@@ -879,6 +996,10 @@ public final class Fory implements BaseFory {
       Object obj;
       if (isTargetXLang) {
         obj = xreadRef(buffer);
+      } else if (projection != null) {
+        obj =
+            MetaSharedSerializer.readProjectedRef(
+                this, buffer, classResolver.nilClassInfoHolder(), projection);
       } else {
         obj = readRef(buffer);
       }
@@ -894,6 +1015,48 @@ public final class Fory implements BaseFory {
     }
   }
 
+  /**
+   * Read a payload written by {@link #serialize(Object)} which is nested in the root object being
+   * read, such as a segment of {@link ParallelSegments} read without segment workers. Class defs
+   * and meta strings of the nested payload are independent of the enclosing payload, whose read
+   * meta is cleared, so it can only be called when no more meta of the enclosing payload will be
+   * read. Ref tracking must be disabled since refs are not isolated.
+   */
+  public Object readNestedPayload(MemoryBuffer buffer) {
+    Preconditions.checkArgument(!refTracking, "Nested payload can't be read with ref tracking");
+    byte bitmap = buffer.readByte();
+    if ((bitmap & isNilFlag) == isNilFlag) {
+      return null;
+    }
+    Preconditions.checkArgument(
+        (bitmap & (isCrossLanguageFlag | isOutOfBandFlag)) == 0,
+        "Nested payload must be java data without out-of-band buffers");
+    int enclosingClassDefEndOffset = classDefEndOffset;
+    boolean enclosingClassDefsInline = classResolver.isReadClassDefsInline();
+    resetNestedRead();
+    try {
+      if (shareMeta) {
+        readClassDefs(buffer);
+      }
+      Object obj = readRef(buffer);
+      if (classDefEndOffset != -1) {
+        buffer.readerIndex(classDefEndOffset);
+      }
+      return obj;
+    } finally {
+      resetNestedRead();
+      classDefEndOffset = enclosingClassDefEndOffset;
+      classResolver.setReadClassDefsInline(enclosingClassDefsInline);
+    }
+  }
+
+  private void resetNestedRead() {
+    classResolver.resetRead();
+    metaStringResolver.resetRead();
+    serializationContext.resetRead();
+    classDefEndOffset = -1;
+  }
+
   @Override
   public Object deserialize(ForyInputStream inputStream) {
     return deserialize(inputStream, null);
@@ -1008,6 +1171,9 @@ public final class Fory implements BaseFory {
 
   /** Class should be read already. */
   public Object readData(MemoryBuffer buffer, ClassInfo classInfo) {
+    if (metricsListener != null) {
+      return readDataWithMetrics(buffer, classInfo);
+    }
     depth++;
     Serializer<?> serializer = classInfo.getSerializer();
     Object read = serializer.read(buffer);
@@ -1016,6 +1182,29 @@ public final class Fory implements BaseFory {
   }
 
   private Object readDataInternal(MemoryBuffer buffer, ClassInfo classInfo) {
+    if (metricsListener == null) {
+      return doReadData(buffer, classInfo);
+    } else {
+      return readDataWithMetrics(buffer, classInfo);
+    }
+  }
+
+  private Object readDataWithMetrics(MemoryBuffer buffer, ClassInfo classInfo) {
+    int readerIndex = buffer.readerIndex();
+    long nanos = -1;
+    Object obj;
+    if ((metricsCounter++ & metricsSampleMask) == 0) {
+      long start = System.nanoTime();
+      obj = doReadData(buffer, classInfo);
+      nanos = System.nanoTime() - start;
+    } else {
+      obj = doReadData(buffer, classInfo);
+    }
+    metricsListener.onRead(classInfo.getCls(), buffer.readerIndex() - readerIndex, nanos);
+    return obj;
+  }
+
+  private Object doReadData(MemoryBuffer buffer, ClassInfo classInfo) {
     switch (classInfo.getClassId()) {
       case ClassResolver.BOOLEAN_CLASS_ID:
         return buffer.readBoolean();
@@ -1159,9 +1348,10 @@ public final class Fory implements BaseFory {
       if (depth != 0) {
         throwDepthSerializationException();
       }
+      jitContext.runPromotedJITTasks();
       if (config.isMetaShareEnabled()) {
         int startOffset = buffer.writerIndex();
-        buffer.writeInt32(-1); // preserve 4-byte for meta start offsets.
+        writeMetaStartOffsetPlaceholder(buffer);
         if (!refResolver.writeRefOrNull(buffer, obj)) {
           ClassInfo classInfo = classResolver.getOrUpdateClassInfo(obj.getClass());
           classResolver.writeClassInfo(buffer, classInfo);
@@ -1208,6 +1398,7 @@ public final class Fory implements BaseFory {
       if (depth != 0) {
         throwDepthDeserializationException();
       }
+      jitContext.runPromotedJITTasks();
       if (shareMeta) {
         readClassDefs(buffer);
       }
@@ -1293,6 +1484,7 @@ public final class Fory implements BaseFory {
       if (depth != 0) {
         throwDepthSerializationException();
       }
+      jitContext.runPromotedJITTasks();
       write(buffer, obj);
     } catch (StackOverflowError t) {
       throw processStackOverflowError(t);
@@ -1331,6 +1523,7 @@ public final class Fory implements BaseFory {
       if (depth != 0) {
         throwDepthDeserializationException();
       }
+      jitContext.runPromotedJITTasks();
       if (shareMeta) {
         readClassDefs(buffer);
       }
@@ -1528,6 +1721,23 @@ public final class Fory implements BaseFory {
       function.accept(buf);
       MemoryUtils.wrap(buf, (ByteArrayOutputStream) outputStream);
       buf.pointTo(oldBytes, 0, oldBytes.length);
+    } else if (config.streamWriteBufferSize() > 0 && !crossLanguage) {
+      ForyOutputStream streamOutput = this.streamOutput;
+      if (streamOutput == null) {
+        streamOutput =
+            this.streamOutput = new ForyOutputStream(outputStream, config.streamWriteBufferSize());
+      } else {
+        streamOutput.reset(outputStream);
+      }
+      try {
+        function.accept(streamOutput.getBuffer());
+        streamOutput.flush();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        // release the target stream.
+        streamOutput.reset(null);
+      }
     } else {
       buf.writerIndex(0);
       function.accept(buf);
@@ -1552,6 +1762,10 @@ public final class Fory implements BaseFory {
     if (relativeClassDefOffset == -1) {
       return;
     }
+    if (relativeClassDefOffset == CLASS_DEFS_INLINED) {
+      classResolver.setReadClassDefsInline(true);
+      return;
+    }
     int readerIndex = buffer.readerIndex();
     buffer.readerIndex(readerIndex + relativeClassDefOffset);
     classResolver.readClassDefs(buffer);
@@ -1618,6 +1832,24 @@ public final class Fory implements BaseFory {
     return bufferCallback;
   }
 
+  /**
+   * Returns the fory which serializes segments of large collections in parallel, or null if
+   * parallel serialization is not supported by this instance.
+   */
+  public ThreadSafeFory getSegmentWorkers() {
+    return segmentWorkers;
+  }
+
+  /**
+   * Set the fory which serializes segments of large collections in parallel. The workers must be
+   * configured and registered in the same way as this instance, and must not lease this instance
+   * when it's serializing.
+   */
+  @Internal
+  public void setSegmentWorkers(ThreadSafeFory segmentWorkers) {
+    this.segmentWorkers = segmentWorkers;
+  }
+
   public boolean isPeerOutOfBandEnabled() {
     return peerOutOfBandEnabled;
   }
@@ -30,8 +30,10 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.apache.fory.annotation.Internal;
 import org.apache.fory.io.ForyInputStream;
 import org.apache.fory.io.ForyReadableChannel;
+import org.apache.fory.memory.MemoryAllocator;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.meta.Projection;
 import org.apache.fory.serializer.BufferCallback;
 import org.apache.fory.util.LoaderBinding;
 import org.apache.fory.util.LoaderBinding.StagingType;
@@ -117,6 +119,11 @@ public class ThreadLocalFory extends AbstractThreadSafeFory {
     return bindingThreadLocal.get().get().serialize(buffer, obj);
   }
 
+  @Override
+  public MemoryBuffer serialize(Object obj, MemoryAllocator allocator) {
+    return bindingThreadLocal.get().get().serialize(obj, allocator);
+  }
+
   @Override
   public MemoryBuffer serialize(MemoryBuffer buffer, Object obj, BufferCallback callback) {
     return bindingThreadLocal.get().get().serialize(buffer, obj, callback);
@@ -147,6 +154,16 @@ public class ThreadLocalFory extends AbstractThreadSafeFory {
     return bindingThreadLocal.get().get().deserialize(bytes, outOfBandBuffers);
   }
 
+  @Override
+  public <T> T deserialize(byte[] bytes, Class<T> type, Projection projection) {
+    return bindingThreadLocal.get().get().deserialize(bytes, type, projection);
+  }
+
+  @Override
+  public <T> T deserialize(MemoryBuffer buffer, Class<T> type, Projection projection) {
+    return bindingThreadLocal.get().get().deserialize(buffer, type, projection);
+  }
+
   @Override
   public Object deserialize(long address, int size) {
     return bindingThreadLocal.get().get().deserialize(address, size);
@@ -98,6 +98,7 @@ import org.apache.fory.codegen.Expression.ListExpression;
 import org.apache.fory.codegen.Expression.Literal;
 import org.apache.fory.codegen.Expression.Reference;
 import org.apache.fory.codegen.Expression.Return;
+import org.apache.fory.codegen.Expression.StaticInvoke;
 import org.apache.fory.codegen.Expression.While;
 import org.apache.fory.codegen.ExpressionUtils;
 import org.apache.fory.codegen.ExpressionVisitor.ExprHolder;
@@ -119,6 +120,8 @@ import org.apache.fory.serializer.StringSerializer;
 import org.apache.fory.serializer.collection.AbstractCollectionSerializer;
 import org.apache.fory.serializer.collection.AbstractMapSerializer;
 import org.apache.fory.serializer.collection.CollectionFlags;
+import org.apache.fory.serializer.collection.PackedPrimitiveElements;
+import org.apache.fory.type.Descriptor;
 import org.apache.fory.type.GenericType;
 import org.apache.fory.type.TypeUtils;
 import org.apache.fory.util.GraalvmSupport;
@@ -183,10 +186,16 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     jitCallbackUpdateFields = new HashMap<>();
   }
 
+  private boolean precompiled;
+
   // Must be static to be shared across the whole process life.
   private static final Map<String, Map<String, Integer>> idGenerator = new ConcurrentHashMap<>();
 
   public String codecClassName(Class<?> beanClass) {
+    if (precompiled) {
+      return PrecompiledCodecs.codecClassName(
+          fory, beanClass, precompiledCodecKind(), precompiledCodecKey());
+    }
     String name = ReflectionUtils.getClassNameWithoutPackage(beanClass).replace("$", "_");
     StringBuilder nameBuilder = new StringBuilder(name);
     if (fory.trackingRef()) {
@@ -221,6 +230,24 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
 
   protected abstract String codecSuffix();
 
+  /** Codec kind used in precompiled codec name, see {@link PrecompiledCodecs}. */
+  protected String precompiledCodecKind() {
+    return codecSuffix();
+  }
+
+  /** Extra key for precompiled codec name, see {@link PrecompiledCodecs}. */
+  protected long precompiledCodecKey() {
+    return 0;
+  }
+
+  /**
+   * Generate codec with a name which is stable across processes, so it can be compiled ahead of
+   * time, see {@link CodecPrecompiler}.
+   */
+  void setPrecompiled(boolean precompiled) {
+    this.precompiled = precompiled;
+  }
+
   protected <T> T fory(Function<Fory, T> function) {
     return fory.getJITContext().asyncVisitFory(function);
   }
@@ -240,6 +267,7 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     ctx.addField(ctx.type(Fory.class), FORY_NAME);
     Expression encodeExpr = buildEncodeExpression();
     Expression decodeExpr = buildDecodeExpression();
+    Expression copyExpr = buildCopyExpression();
     String constructorCode =
         StringUtils.format(
             ""
@@ -266,11 +294,26 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
         Object.class,
         ROOT_OBJECT_NAME);
     ctx.overrideMethod("read", decodeCode, Object.class, MemoryBuffer.class, BUFFER_NAME);
+    if (copyExpr != null) {
+      ctx.clearExprState();
+      String copyCode = copyExpr.genCode(ctx).code();
+      copyCode = ctx.optimizeMethodCode(copyCode);
+      ctx.overrideMethod("copy", copyCode, Object.class, Object.class, ROOT_OBJECT_NAME);
+    }
     registerJITNotifyCallback();
     ctx.addConstructor(constructorCode, Fory.class, "fory", Class.class, POJO_CLASS_TYPE_NAME);
     return ctx.genCode();
   }
 
+  /**
+   * Returns an expression that deep copies the object passed to generated {@code copy} method, or
+   * null if the generated serializer should fall back to {@link
+   * org.apache.fory.serializer.AbstractObjectSerializer#copy}.
+   */
+  protected Expression buildCopyExpression() {
+    return null;
+  }
+
   protected static class InvokeHint {
     public boolean genNewMethod;
     public Set<Expression> cutPoints = new HashSet<>();
@@ -408,10 +451,47 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     }
   }
 
+  /** Returns an expression that serialize a field value which may be null or tracked by ref. */
+  protected Expression serializeField(
+      Expression fieldValue, Expression buffer, Descriptor descriptor) {
+    TypeRef<?> typeRef = descriptor.getTypeRef();
+    if (needWriteRef(typeRef)) {
+      return new If(
+          not(writeFieldRefOrNull(buffer, fieldValue, descriptor)),
+          serializeForNotNull(fieldValue, buffer, typeRef, null, false));
+    }
+    return serializeForNullable(fieldValue, buffer, typeRef, descriptor.isNullable());
+  }
+
   protected Expression writeRefOrNull(Expression buffer, Expression object) {
     return inlineInvoke(refResolverRef, "writeRefOrNull", PRIMITIVE_BOOLEAN_TYPE, buffer, object);
   }
 
+  /**
+   * Returns an expression which writes ref or null flag of a field value. If adaptive ref tracking
+   * is enabled, the field is registered as a ref site so that whether its values are tracked can
+   * be decided by the field instead of the value type.
+   */
+  protected Expression writeFieldRefOrNull(
+      Expression buffer, Expression object, Descriptor descriptor) {
+    if (!fory.getConfig().isAdaptiveRefTracking()) {
+      return writeRefOrNull(buffer, object);
+    }
+    String site = descriptor.getDeclaringClass() + "." + descriptor.getName();
+    String name =
+        refSiteFieldNames.computeIfAbsent(site, k -> ctx.newName(descriptor.getName() + "RefSite"));
+    Reference siteRef =
+        getOrCreateField(
+            false,
+            int.class,
+            name,
+            () ->
+                new Invoke(
+                    refResolverRef, "registerRefSite", PRIMITIVE_INT_TYPE, Literal.ofString(site)));
+    return inlineInvoke(
+        refResolverRef, "writeRefOrNull", PRIMITIVE_BOOLEAN_TYPE, buffer, object, siteRef);
+  }
+
   protected Expression serializeForNotNull(
       Expression inputObject, Expression buffer, TypeRef<?> typeRef) {
     boolean genNewMethod = useCollectionSerialization(typeRef) || useMapSerialization(typeRef);
@@ -659,6 +739,7 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
   }
 
   private final Map<TypeRef<?>, String> namesForSharedGenericTypeFields = new HashMap<>();
+  private final Map<String, String> refSiteFieldNames = new HashMap<>();
 
   protected Expression getGenericTypeField(TypeRef<?> typeRef) {
     // create a field name from generic type, so multiple call of same generic type will reuse the
@@ -870,9 +951,18 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
       } else {
         Literal hasNullFlag = ofInt(CollectionFlags.HAS_NULL);
         Expression hasNull = eq(new BitAnd(flags, hasNullFlag), hasNullFlag, "hasNull");
-        builder.add(
-            hasNull,
-            writeContainerElements(elementType, false, null, hasNull, buffer, collection, size));
+        Expression writeElements =
+            writeContainerElements(elementType, false, null, hasNull, buffer, collection, size);
+        String packedFunc = packedElementsFunc(elemClass);
+        if (packedFunc != null) {
+          writeElements =
+              new If(
+                  hasNull,
+                  writeElements,
+                  new StaticInvoke(
+                      PackedPrimitiveElements.class, "write" + packedFunc, buffer, collection));
+        }
+        builder.add(hasNull, writeElements);
       }
     } else {
       Literal flag = ofInt(CollectionFlags.NOT_SAME_TYPE);
@@ -1044,6 +1134,30 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     }
   }
 
+  /**
+   * Returns the suffix of {@link PackedPrimitiveElements} read/write methods for non-null elements
+   * of <code>elemClass</code>, or null if those elements can't be packed.
+   */
+  private String packedElementsFunc(Class<?> elemClass) {
+    if (elemClass == Integer.class) {
+      return fory.compressInt() ? "VarInt32s" : "Int32s";
+    } else if (elemClass == Long.class) {
+      switch (fory.longEncoding()) {
+        case SLI:
+          return "SliInt64s";
+        case LE_RAW_BYTES:
+          return "Int64s";
+        default:
+          return "VarInt64s";
+      }
+    } else if (elemClass == Float.class) {
+      return "Float32s";
+    } else if (elemClass == Double.class) {
+      return "Float64s";
+    }
+    return null;
+  }
+
   private Expression writeContainerElement(
       Expression buffer,
       Expression elem,
@@ -1148,7 +1262,6 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     Expression entry = cast(inlineInvoke(iterator, "next", OBJECT_TYPE), MAP_ENTRY_TYPE, "entry");
     boolean keyMonomorphic = isMonomorphic(keyType);
     boolean valueMonomorphic = isMonomorphic(valueType);
-    boolean inline = keyMonomorphic && valueMonomorphic;
     Class<?> keyTypeRawType = keyType.getRawType();
     Class<?> valueTypeRawType = valueType.getRawType();
     boolean trackingKeyRef = fory(fory -> fory.getClassResolver().needToWriteRef(keyType));
@@ -1206,7 +1319,7 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
               return new ListExpression(
                   new Assign(entry, writeNullChunk),
                   new If(
-                      neqNull(entry), inline ? writeChunk : new Assign(entry, inline(writeChunk))));
+                      neqNull(entry), new Assign(entry, inline(writeChunk))));
             });
 
     return new If(not(inlineInvoke(map, "isEmpty", PRIMITIVE_BOOLEAN_TYPE)), whileAction);
@@ -1257,6 +1370,15 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     Expression chunkSizeOffset =
         subtract(
             inlineInvoke(buffer, "writerIndex", PRIMITIVE_INT_TYPE), ofInt(1), "chunkSizeOffset");
+    // chunk header and size will be patched, keep them in buffer for streaming write.
+    Expression flushBarrier =
+        new Invoke(
+            buffer,
+            "holdFlushBarrier",
+            "flushBarrier",
+            PRIMITIVE_INT_TYPE,
+            false,
+            subtract(chunkSizeOffset, ofInt(1)));
     expressions.add(
         key,
         value,
@@ -1264,6 +1386,7 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
         valueTypeExpr,
         writePlaceHolder,
         chunkSizeOffset,
+        flushBarrier,
         writePlaceHolder,
         chunkSizeOffset);
 
@@ -1273,7 +1396,6 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
     boolean trackingValueRef = fory(fory -> fory.getClassResolver().needToWriteRef(valueType));
     Expression keyWriteRef = Literal.ofBoolean(trackingKeyRef);
     Expression valueWriteRef = Literal.ofBoolean(trackingValueRef);
-    boolean inline = keyMonomorphic && valueMonomorphic;
     if (keyMonomorphic && valueMonomorphic) {
       keySerializer = getOrCreateSerializer(keyTypeRawType);
       valueSerializer = getOrCreateSerializer(valueTypeRawType);
@@ -1436,23 +1558,28 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
                               tryInlineCast(inlineInvoke(entry, "getKey", OBJECT_TYPE), keyType)),
                           new Assign(value, invokeInline(entry, "getValue", valueType))),
                       list(new Assign(entry, new Literal(null, MAP_ENTRY_TYPE)), new Break())),
-                  new If(eq(chunkSize, ofInt(MAX_CHUNK_SIZE)), new Break()));
+                  new If(
+                      or(
+                          eq(chunkSize, ofInt(MAX_CHUNK_SIZE)),
+                          inlineInvoke(buffer, "isFlushBlocked", PRIMITIVE_BOOLEAN_TYPE)),
+                      new Break()));
             });
-    expressions.add(writeLoop, new Invoke(buffer, "putByte", chunkSizeOffset, chunkSize));
-    if (!inline) {
-      expressions.add(new Return(entry));
-      // method too big, spilt it into a new method.
-      // Generate similar signature as `AbstractMapSerializer.writeJavaChunk`(
-      //   MemoryBuffer buffer,
-      //   Entry<Object, Object> entry,
-      //   Iterator<Entry<Object, Object>> iterator,
-      //   Serializer keySerializer,
-      //   Serializer valueSerializer
-      //  )
-      Set<Expression> params = ofHashSet(buffer, entry, iterator);
-      return invokeGenerated(ctx, params, expressions, "writeChunk", false);
-    }
-    return expressions;
+    expressions.add(
+        writeLoop,
+        new Invoke(buffer, "putByte", chunkSizeOffset, chunkSize),
+        new Invoke(buffer, "releaseFlushBarrier", flushBarrier));
+    expressions.add(new Return(entry));
+    // method too big even for monomorphic key/value once the flush barrier is held around the
+    // chunk, always spilt it into a new method.
+    // Generate similar signature as `AbstractMapSerializer.writeJavaChunk`(
+    //   MemoryBuffer buffer,
+    //   Entry<Object, Object> entry,
+    //   Iterator<Entry<Object, Object>> iterator,
+    //   Serializer keySerializer,
+    //   Serializer valueSerializer
+    //  )
+    Set<Expression> params = ofHashSet(buffer, entry, iterator);
+    return invokeGenerated(ctx, params, expressions, "writeChunk", false);
   }
 
   protected Expression readRefOrNull(Expression buffer) {
@@ -1693,9 +1820,22 @@ public abstract class BaseObjectCodecBuilder extends CodecBuilder {
       } else {
         Literal hasNullFlag = ofInt(CollectionFlags.HAS_NULL);
         Expression hasNull = eq(new BitAnd(flags.inline(), hasNullFlag), hasNullFlag, "hasNull");
-        builder.add(
-            hasNull,
-            readContainerElements(elementType, false, null, hasNull, buffer, collection, size));
+        Expression readElements =
+            readContainerElements(elementType, false, null, hasNull, buffer, collection, size);
+        String packedFunc = packedElementsFunc(elemClass);
+        if (packedFunc != null) {
+          readElements =
+              new If(
+                  hasNull,
+                  readElements,
+                  new StaticInvoke(
+                      PackedPrimitiveElements.class,
+                      "read" + packedFunc,
+                      buffer,
+                      collection,
+                      size));
+        }
+        builder.add(hasNull, readElements);
       }
     } else {
       Literal notSameTypeFlag = ofInt(CollectionFlags.NOT_SAME_TYPE);
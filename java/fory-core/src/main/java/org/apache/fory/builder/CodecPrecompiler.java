@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.builder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import org.apache.fory.Fory;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.codegen.CompileUnit;
+import org.apache.fory.codegen.JaninoUtils;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.meta.ClassDef;
+import org.apache.fory.reflect.TypeRef;
+import org.apache.fory.resolver.FieldResolver;
+import org.apache.fory.serializer.CodegenSerializer;
+
+/**
+ * Generate jit serializers ahead of time, so that no code needs to be generated and compiled by
+ * janino when the application starts.
+ *
+ * <p>The generated class files and an index of them are written to an output directory which
+ * should be packaged with the bean classes, such as {@code target/classes}. At runtime, {@link
+ * org.apache.fory.resolver.ClassResolver} uses a precompiled serializer if it was generated for the
+ * same class with the same config, and falls back to jit otherwise. It can be invoked in build by
+ * {@code exec-maven-plugin} using {@link #main}:
+ *
+ * <pre>{@code
+ * java org.apache.fory.builder.CodecPrecompiler <outputDir> <foryFactoryClass> <class>...
+ * }</pre>
+ *
+ * <p>where {@code foryFactoryClass} implements {@code Supplier<Fory>} and returns a {@link Fory}
+ * configured and registered the same way as the application does.
+ */
+public class CodecPrecompiler {
+  private static final Logger LOG = LoggerFactory.getLogger(CodecPrecompiler.class);
+
+  public static List<String> precompile(Fory fory, Path outputDir, Class<?>... classes) {
+    return precompile(fory, outputDir, Arrays.asList(classes));
+  }
+
+  /**
+   * Generate and compile serializers of <code>classes</code> for <code>fory</code> config into
+   * <code>outputDir</code>, returns names of generated serializer classes.
+   */
+  public static List<String> precompile(
+      Fory fory, Path outputDir, Collection<Class<?>> classes) {
+    if (PrecompiledCodecs.FORY_VERSION == null) {
+      throw new IllegalStateException("Can't precompile serializers for unknown fory version");
+    }
+    List<String> names = new ArrayList<>();
+    for (Class<?> cls : classes) {
+      if (!CodegenSerializer.supportCodegenForJavaSerialization(cls)) {
+        LOG.warn("Skip precompiling {} since it doesn't support jit serialization", cls);
+        continue;
+      }
+      ClassLoader loader = cls.getClassLoader();
+      if (loader == null) {
+        loader = fory.getClassLoader();
+      }
+      for (BaseObjectCodecBuilder codecBuilder : createCodecBuilders(fory, cls)) {
+        codecBuilder.setPrecompiled(true);
+        CompileUnit unit =
+            new CompileUnit(
+                CodeGenerator.getPackage(cls),
+                codecBuilder.codecClassName(cls),
+                codecBuilder::genCode);
+        Map<String, byte[]> classFiles = JaninoUtils.toBytecode(loader, unit);
+        for (Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+          write(outputDir.resolve(entry.getKey()), entry.getValue());
+        }
+        names.add(codecBuilder.codecQualifiedClassName(cls));
+      }
+    }
+    Path indexPath = outputDir.resolve(PrecompiledCodecs.INDEX_RESOURCE);
+    TreeSet<String> index = new TreeSet<>(names);
+    try {
+      if (Files.exists(indexPath)) {
+        index.addAll(Files.readAllLines(indexPath, StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Read %s failed", indexPath), e);
+    }
+    write(indexPath, String.join("\n", index).getBytes(StandardCharsets.UTF_8));
+    LOG.info("Precompiled {} serializers into {}", names.size(), outputDir);
+    return names;
+  }
+
+  private static List<BaseObjectCodecBuilder> createCodecBuilders(Fory fory, Class<?> cls) {
+    List<BaseObjectCodecBuilder> builders = new ArrayList<>();
+    if (fory.getCompatibleMode() == CompatibleMode.SCHEMA_CONSISTENT) {
+      builders.add(new ObjectCodecBuilder(cls, fory));
+    } else if (fory.getConfig().isMetaShareEnabled()) {
+      builders.add(new ObjectCodecBuilder(cls, fory));
+      ClassDef classDef = ClassDef.buildClassDef(fory, cls);
+      builders.add(new MetaSharedCodecBuilder(TypeRef.of(cls), fory, classDef));
+    } else {
+      FieldResolver resolver = FieldResolver.of(fory, cls, true, false);
+      builders.add(
+          new CompatibleCodecBuilder(
+              TypeRef.of(cls), fory, resolver, Generated.GeneratedSerializer.class));
+    }
+    return builders;
+  }
+
+  private static void write(Path path, byte[] bytes) {
+    try {
+      Files.createDirectories(path.getParent());
+      Files.write(path, bytes);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Write %s failed", path), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      String msg = "Usage: CodecPrecompiler <outputDir> <foryFactoryClass> <class> [<class>...]";
+      LOG.error(msg);
+      throw new IllegalArgumentException(msg);
+    }
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    Supplier<Fory> factory =
+        (Supplier<Fory>) loader.loadClass(args[1]).getDeclaredConstructor().newInstance();
+    Fory fory = factory.get();
+    List<Class<?>> classes = new ArrayList<>();
+    for (int i = 2; i < args.length; i++) {
+      classes.add(Class.forName(args[i], false, loader));
+    }
+    precompile(fory, Paths.get(args[0]), classes);
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.fory.resolver.FieldResolver;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.util.ClassLoaderUtils;
 import org.apache.fory.util.Preconditions;
+import org.apache.fory.util.StringUtils;
 
 /** Codec util to create and load jit serializer class. */
 public class CodecUtils {
@@ -69,12 +70,21 @@ public class CodecUtils {
   @SuppressWarnings("unchecked")
   static <T> Class<? extends Serializer<T>> loadOrGenCodecClass(
       Class<T> beanClass, Fory fory, BaseObjectCodecBuilder codecBuilder) {
+    boolean cacheable =
+        StringUtils.isNotBlank(CodeGenerator.getCodeCacheDir())
+            && PrecompiledCodecs.FORY_VERSION != null;
+    if (cacheable) {
+      // Name of precompiled codec is derived from everything generated code depends on, so the
+      // compiled class can be reused by other processes.
+      codecBuilder.setPrecompiled(true);
+    }
     // use genCodeFunc to avoid gen code repeatedly
     CompileUnit compileUnit =
         new CompileUnit(
             CodeGenerator.getPackage(beanClass),
             codecBuilder.codecClassName(beanClass),
             codecBuilder::genCode);
+    compileUnit.setCacheable(cacheable);
     CodeGenerator codeGenerator;
     ClassLoader beanClassClassLoader =
         beanClass.getClassLoader() == null
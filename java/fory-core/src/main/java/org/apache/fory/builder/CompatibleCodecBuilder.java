@@ -318,7 +318,8 @@ public class CompatibleCodecBuilder extends BaseObjectCodecBuilder {
                                               fieldValue, buffer, descriptor.getTypeRef()));
                                     }
                                     return new If(
-                                        ExpressionUtils.not(writeRefOrNull(buffer, fieldValue)),
+                                        ExpressionUtils.not(
+                                            writeFieldRefOrNull(buffer, fieldValue, descriptor)),
                                         writeFieldValue);
                                   },
                                   "writeField",
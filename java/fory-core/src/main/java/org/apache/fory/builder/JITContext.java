@@ -24,7 +24,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import org.apache.fory.Fory;
@@ -32,6 +31,7 @@ import org.apache.fory.annotation.Internal;
 import org.apache.fory.codegen.CodeGenerator;
 import org.apache.fory.config.Config;
 import org.apache.fory.memory.Platform;
+import org.apache.fory.metrics.MetricsListener;
 import org.apache.fory.util.Preconditions;
 
 /** A context for managing jit serialization code generation in async multithreaded environment. */
@@ -40,11 +40,24 @@ public class JITContext {
   private final boolean asyncCompilationEnabled;
   // ReentrantLock used Atomic internally first and used thread queue if failed.
   // So it's unnecessary to build atomic locks by fory again.
+  // Janino compilation of jit tasks runs concurrently outside this lock, but their results are
+  // applied under it, since async serialization holds it and `ClassResolver` isn't thread safe.
   private final ReentrantLock jitLock;
   // state for recursive jit fory visit.
   private int foryVisitState;
   private int numRunningTask;
   private final Map<Object, List<NotifyCallback>> hasJITResult;
+  // jit tasks waiting for a compiler thread, guarded by itself instead of `jitLock`
+  // so that picking next task won't contend with serialization.
+  private final List<JITTask> pendingTasks;
+  private final Map<Object, JITHotness> pendingHotness;
+  private final int jitInvocationThreshold;
+  private final long jitBytesThreshold;
+  private int numDeferredTypes;
+  private int numTieredUpTypes;
+  // jit tasks promoted by tiered compilation in sync mode, which are compiled at the start of next
+  // top-level serialization instead of inside the serializer which promoted them.
+  private final List<JITTask> promotedTasks;
 
   public JITContext(Fory fory) {
     this.fory = fory;
@@ -53,6 +66,11 @@ public class JITContext {
     // It's ok the cost for fail lock is slightly higher than no-fair lock.
     jitLock = new ReentrantLock(true);
     hasJITResult = new HashMap<>();
+    pendingTasks = new ArrayList<>();
+    pendingHotness = new HashMap<>();
+    promotedTasks = new ArrayList<>();
+    jitInvocationThreshold = fory.getConfig().getJITInvocationThreshold();
+    jitBytesThreshold = fory.getConfig().getJITBytesThreshold();
   }
 
   /**
@@ -67,6 +85,7 @@ public class JITContext {
    * @param callback will be invoked when jit finished. Note that this callback is protected by a
    *     lock and unnecessary to be thread safe.
    * @see Config#isAsyncCompilationEnabled()
+   * @see Config#isTieredCompilationEnabled()
    */
   @Internal
   public <T> T registerSerializerJITCallback(
@@ -74,51 +93,28 @@ public class JITContext {
     try {
       lock();
       if (fory.getConfig().isCodeGenEnabled()) {
-        // add `isAsyncVisitingFory()` check so nested object field serializers will
-        // be jit-serializers too. Otherwise, we need to switch these field serializers
-        // in jit-serializers, which is tricking.
-        // TODO(chaokunyang) Submit nested object field serializers jit task to executor,
-        //  and update serializer field when jit finished.
-        if (fory.getConfig().isAsyncCompilationEnabled() && !isAsyncVisitingFory()) {
-          // TODO(chaokunyang) stash callbacks and submit jit task if the serialization speed
-          // is really needed.
-          ExecutorService compilationService = CodeGenerator.getCompilationService();
+        // Nested object field serializers registered while a jit serializer is being generated
+        // are submitted to executor too, so a big type graph won't be compiled under `jitLock`
+        // in one task. The generated outer serializer declares those serializer fields as
+        // non-final since `hasJITResult` returns true for them, and will update the fields
+        // by `NotifyCallback` when nested jit finished. Callbacks without an id can't be
+        // notified, so they are still compiled synchronously in nested case. Meta shared
+        // callbacks have their class def as id, their jit results are set to the class info of
+        // that class def, which is looked up by generated serializers for every read.
+        if (fory.getConfig().isTieredCompilationEnabled() && callback.id() != null) {
+          // Interpreter serializer will promote the task by `JITHotness` when it's hot enough,
+          // generated serializers referencing it will be updated by `NotifyCallback` then.
+          hasJITResult.put(callback.id(), new ArrayList<>());
+          deferJITTask(callback.id(), () -> runJITAction(jitAction, callback));
+          return interpreterModeAction.call();
+        } else if (fory.getConfig().isAsyncCompilationEnabled()
+            && (!isAsyncVisitingFory() || callback.id() != null)) {
           hasJITResult.put(callback.id(), new ArrayList<>());
           numRunningTask++;
-          compilationService.execute(
-              () -> {
-                try {
-                  T result = jitAction.call();
-                  try {
-                    lock();
-                    callback.onSuccess(result);
-                    for (NotifyCallback notifyCallback : hasJITResult.get(callback.id())) {
-                      notifyCallback.onNotifyResult(result);
-                    }
-                  } finally {
-                    numRunningTask--;
-                    if (numRunningTask == 0) {
-                      hasJITResult.clear();
-                    }
-                    unlock();
-                  }
-                } catch (Throwable t) {
-                  try {
-                    lock();
-                    callback.onFailure(t);
-                    // ignore onNotifyResult in failed case.
-                  } finally {
-                    numRunningTask--;
-                    if (numRunningTask == 0) {
-                      hasJITResult.clear();
-                    }
-                    unlock();
-                  }
-                }
-              });
+          submitJITTask(callback.id(), () -> runJITAction(jitAction, callback));
           return interpreterModeAction.call();
         } else {
-          return jitAction.call();
+          return callJITAction(jitAction);
         }
       } else {
         return interpreterModeAction.call();
@@ -131,6 +127,177 @@ public class JITContext {
     }
   }
 
+  private <T> T callJITAction(Callable<T> jitAction) throws Exception {
+    MetricsListener metricsListener = fory.getConfig().getMetricsListener();
+    if (metricsListener == null) {
+      return jitAction.call();
+    }
+    long start = System.nanoTime();
+    T result = jitAction.call();
+    long nanos = System.nanoTime() - start;
+    if (result != null) {
+      Class<?> cls = result instanceof Class ? (Class<?>) result : result.getClass();
+      metricsListener.onJITCompile(cls, nanos);
+    }
+    return result;
+  }
+
+  private <T> void runJITAction(Callable<T> jitAction, SerializerJITCallback<T> callback) {
+    try {
+      T result = callJITAction(jitAction);
+      try {
+        lock();
+        callback.onSuccess(result);
+        List<NotifyCallback> notifyCallbacks = hasJITResult.remove(callback.id());
+        if (notifyCallbacks != null) {
+          for (NotifyCallback notifyCallback : notifyCallbacks) {
+            notifyCallback.onNotifyResult(result);
+          }
+        }
+      } finally {
+        finishJITTask();
+        unlock();
+      }
+    } catch (Throwable t) {
+      try {
+        lock();
+        // ignore onNotifyResult in failed case, callbacks registered later will be missed.
+        hasJITResult.remove(callback.id());
+        callback.onFailure(t);
+      } finally {
+        finishJITTask();
+        unlock();
+      }
+    }
+  }
+
+  private void finishJITTask() {
+    numRunningTask--;
+    if (numRunningTask == 0 && numDeferredTypes == 0) {
+      hasJITResult.clear();
+    }
+  }
+
+  private void submitJITTask(Object id, Runnable task) {
+    JITTask jitTask = new JITTask(id, task);
+    synchronized (pendingTasks) {
+      pendingTasks.add(jitTask);
+      if (id != null) {
+        pendingHotness.put(id, jitTask.hotness);
+      }
+    }
+    // Every submission schedules one execution, but which pending task it runs is decided when
+    // the compiler thread picks it up, so types used most by interpreter mode are compiled first.
+    CodeGenerator.getCompilationService().execute(this::runHottestJITTask);
+  }
+
+  private void deferJITTask(Object id, Runnable task) {
+    JITTask jitTask = new JITTask(id, task);
+    jitTask.hotness.deferredTask = jitTask;
+    synchronized (pendingTasks) {
+      pendingHotness.put(id, jitTask.hotness);
+    }
+    numDeferredTypes++;
+  }
+
+  // Invoked by interpreter serializer, which is protected by `jitLock` in async mode.
+  private void promoteJITTask(JITTask jitTask) {
+    numDeferredTypes--;
+    numTieredUpTypes++;
+    numRunningTask++;
+    if (asyncCompilationEnabled) {
+      synchronized (pendingTasks) {
+        pendingTasks.add(jitTask);
+      }
+      CodeGenerator.getCompilationService().execute(this::runHottestJITTask);
+    } else {
+      promotedTasks.add(jitTask);
+    }
+  }
+
+  /**
+   * Compile jit serializers promoted by tiered compilation in sync mode. Invoked by fory at the
+   * start of top-level serialization and deserialization, so that compilation and serializer
+   * updates never happen in the middle of a serializer.
+   */
+  @Internal
+  public void runPromotedJITTasks() {
+    if (promotedTasks.isEmpty()) {
+      return;
+    }
+    List<JITTask> tasks = new ArrayList<>(promotedTasks);
+    promotedTasks.clear();
+    for (JITTask jitTask : tasks) {
+      synchronized (pendingTasks) {
+        pendingHotness.remove(jitTask.id);
+      }
+      jitTask.task.run();
+    }
+  }
+
+  private void runHottestJITTask() {
+    JITTask jitTask = null;
+    synchronized (pendingTasks) {
+      int index = -1;
+      long maxHotness = -1;
+      for (int i = 0; i < pendingTasks.size(); i++) {
+        // Tasks with same hotness are executed in submission order.
+        long hotness = pendingTasks.get(i).hotness.get();
+        if (hotness > maxHotness) {
+          maxHotness = hotness;
+          index = i;
+        }
+      }
+      if (index >= 0) {
+        jitTask = pendingTasks.remove(index);
+        if (jitTask.id != null) {
+          pendingHotness.remove(jitTask.id);
+        }
+      }
+    }
+    if (jitTask != null) {
+      jitTask.task.run();
+    }
+  }
+
+  /**
+   * Returns the counter of invocations of interpreter mode serializer for <code>id</code> whose jit
+   * serializer is waiting for compilation, or null if no jit task is pending for <code>id</code>.
+   * Interpreter serializers increment the counter so hotter types are compiled first.
+   */
+  @Internal
+  public JITHotness getPendingJITHotness(Object id) {
+    synchronized (pendingTasks) {
+      return pendingHotness.get(id);
+    }
+  }
+
+  /**
+   * Returns number of types which are still serialized by interpreter mode since their invocations
+   * haven't reached the thresholds of tiered compilation. Every such type saves the metaspace and
+   * compilation time of its generated serializer.
+   *
+   * @see Config#isTieredCompilationEnabled()
+   */
+  public int getNumDeferredTypes() {
+    try {
+      lock();
+      return numDeferredTypes;
+    } finally {
+      unlock();
+    }
+  }
+
+  /** Returns number of types whose jit are triggered by tiered compilation thresholds. */
+  public int getNumTieredUpTypes() {
+    try {
+      lock();
+      return numTieredUpTypes;
+    } finally {
+      unlock();
+    }
+  }
+
   /** Subscribe jit notify callback to be invoked after target jit finished. */
   public void registerJITNotifyCallback(Object id, NotifyCallback notifyCallback) {
     Preconditions.checkNotNull(id);
@@ -231,4 +398,59 @@ public class JITContext {
      */
     void onNotifyMissed();
   }
+
+  /**
+   * Invocation counter of an interpreter mode serializer. Updates are plain and racy, they may be
+   * lost or observed late by compiler threads, which is fine since it's only a scheduling hint.
+   * For types whose jit is deferred by tiered compilation, updates are protected by the caller's
+   * serialization, and jit will be triggered once thresholds are reached.
+   */
+  @Internal
+  public static final class JITHotness {
+    private long count;
+    private long bytes;
+    // non-null if jit is deferred until tiered compilation thresholds are reached.
+    private JITTask deferredTask;
+
+    /**
+     * Record an invocation of interpreter mode serializer.
+     *
+     * @param numBytes bytes written or read by this invocation.
+     */
+    public void record(int numBytes) {
+      count++;
+      JITTask deferredTask = this.deferredTask;
+      if (deferredTask != null) {
+        bytes += numBytes;
+        deferredTask.tierUpIfHot();
+      }
+    }
+
+    public long get() {
+      return count;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+  }
+
+  private final class JITTask {
+    private final Object id;
+    private final Runnable task;
+    private final JITHotness hotness = new JITHotness();
+
+    private JITTask(Object id, Runnable task) {
+      this.id = id;
+      this.task = task;
+    }
+
+    private void tierUpIfHot() {
+      if ((jitInvocationThreshold > 0 && hotness.count >= jitInvocationThreshold)
+          || (jitBytesThreshold > 0 && hotness.bytes >= jitBytesThreshold)) {
+        hotness.deferredTask = null;
+        promoteJITTask(this);
+      }
+    }
+  }
 }
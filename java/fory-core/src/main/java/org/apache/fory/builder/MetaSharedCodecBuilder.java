@@ -38,6 +38,7 @@ import org.apache.fory.reflect.TypeRef;
 import org.apache.fory.serializer.CodegenSerializer;
 import org.apache.fory.serializer.MetaSharedSerializer;
 import org.apache.fory.serializer.ObjectSerializer;
+import org.apache.fory.serializer.ObjectSizePrefix;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.serializer.Serializers;
 import org.apache.fory.type.Descriptor;
@@ -102,6 +103,16 @@ public class MetaSharedCodecBuilder extends ObjectCodecBuilder {
     return "MetaShared" + id;
   }
 
+  @Override
+  protected String precompiledCodecKind() {
+    return "MetaShared";
+  }
+
+  @Override
+  protected long precompiledCodecKey() {
+    return classDef.getId();
+  }
+
   @Override
   public String genCode() {
     ctx.setPackage(CodeGenerator.getPackage(beanClass));
@@ -185,6 +196,23 @@ public class MetaSharedCodecBuilder extends ObjectCodecBuilder {
     return new Expression.NewInstance(beanType, params);
   }
 
+  @Override
+  protected Expression skipFieldValue(Expression buffer, Descriptor descriptor) {
+    if (descriptor.getField() == null
+        && ObjectSizePrefix.canSkip(fory.getConfig())
+        && objectCodecOptimizer.descriptorGrouper.getOtherDescriptors().contains(descriptor)) {
+      // Field doesn't exist in current class, skip object by size prefix if possible.
+      return new Expression.StaticInvoke(
+          MetaSharedSerializer.class,
+          "skipFieldValue",
+          foryRef,
+          buffer,
+          addClassInfoHolderField(descriptor.getRawType()),
+          Literal.ofBoolean(descriptor.isNullable()));
+    }
+    return null;
+  }
+
   @Override
   protected Expression setFieldValue(Expression bean, Descriptor descriptor, Expression value) {
     if (descriptor.getField() == null) {
@@ -22,6 +22,8 @@ package org.apache.fory.builder;
 import static org.apache.fory.codegen.Code.LiteralValue.FalseLiteral;
 import static org.apache.fory.codegen.Expression.Invoke.inlineInvoke;
 import static org.apache.fory.codegen.ExpressionUtils.add;
+import static org.apache.fory.codegen.ExpressionUtils.neqNull;
+import static org.apache.fory.codegen.ExpressionUtils.nullValue;
 import static org.apache.fory.collection.Collections.ofHashSet;
 import static org.apache.fory.type.TypeUtils.OBJECT_ARRAY_TYPE;
 import static org.apache.fory.type.TypeUtils.OBJECT_TYPE;
@@ -31,6 +33,7 @@ import static org.apache.fory.type.TypeUtils.PRIMITIVE_LONG_TYPE;
 import static org.apache.fory.type.TypeUtils.PRIMITIVE_VOID_TYPE;
 import static org.apache.fory.type.TypeUtils.getRawType;
 import static org.apache.fory.type.TypeUtils.getSizeOfPrimitiveType;
+import static org.apache.fory.type.TypeUtils.isBoxed;
 import static org.apache.fory.type.TypeUtils.isPrimitive;
 
 import java.util.ArrayList;
@@ -45,6 +48,7 @@ import org.apache.fory.Fory;
 import org.apache.fory.codegen.Code;
 import org.apache.fory.codegen.CodegenContext;
 import org.apache.fory.codegen.Expression;
+import org.apache.fory.codegen.Expression.If;
 import org.apache.fory.codegen.Expression.Inlineable;
 import org.apache.fory.codegen.Expression.Invoke;
 import org.apache.fory.codegen.Expression.ListExpression;
@@ -57,6 +61,7 @@ import org.apache.fory.codegen.ExpressionVisitor;
 import org.apache.fory.memory.Platform;
 import org.apache.fory.reflect.TypeRef;
 import org.apache.fory.serializer.ObjectSerializer;
+import org.apache.fory.serializer.ObjectSizePrefix;
 import org.apache.fory.serializer.PrimitiveSerializers.LongSerializer;
 import org.apache.fory.type.Descriptor;
 import org.apache.fory.type.DescriptorGrouper;
@@ -154,6 +159,23 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
     ListExpression expressions = new ListExpression();
     Expression bean = tryCastIfPublic(inputObject, beanType, ctx.newName(beanClass));
     expressions.add(bean);
+    boolean sizePrefixed = fory.getConfig().isObjectSizePrefixEnabled();
+    Expression sizeIndex = null;
+    Expression flushBarrier = null;
+    if (sizePrefixed) {
+      sizeIndex =
+          new StaticInvoke(
+              ObjectSizePrefix.class,
+              "writePlaceholder",
+              "sizeIndex",
+              PRIMITIVE_INT_TYPE,
+              false,
+              buffer);
+      flushBarrier =
+          new Invoke(
+              buffer, "holdFlushBarrier", "flushBarrier", PRIMITIVE_INT_TYPE, false, sizeIndex);
+      expressions.add(sizeIndex, flushBarrier);
+    }
     if (fory.checkClassVersion()) {
       expressions.add(new Invoke(buffer, "writeInt32", classVersionHash));
     }
@@ -172,6 +194,10 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
     for (Descriptor d : objectCodecOptimizer.descriptorGrouper.getMapDescriptors()) {
       expressions.add(serializeGroup(Collections.singletonList(d), bean, buffer, false));
     }
+    if (sizePrefixed) {
+      expressions.add(
+          new StaticInvoke(ObjectSizePrefix.class, "writeSize", buffer, sizeIndex, flushBarrier));
+    }
     return expressions;
   }
 
@@ -207,9 +233,7 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
             // `bean` will be replaced by `Reference` to cut-off expr dependency.
             Expression fieldValue = getFieldValue(bean, d);
             walkPath.add(d.getDeclaringClass() + d.getName());
-            boolean nullable = d.isNullable();
-            Expression fieldExpr =
-                serializeForNullable(fieldValue, buffer, d.getTypeRef(), nullable);
+            Expression fieldExpr = serializeField(fieldValue, buffer, d);
             walkPath.removeLast();
             groupExpressions.add(fieldExpr);
           }
@@ -435,6 +459,11 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
   public Expression buildDecodeExpression() {
     Reference buffer = new Reference(BUFFER_NAME, bufferTypeRef, false);
     ListExpression expressions = new ListExpression();
+    if (fory.getConfig().isObjectSizePrefixEnabled()) {
+      // Size is only used by readers which skip the data.
+      expressions.add(
+          new Invoke(buffer, "increaseReaderIndex", Literal.ofInt(ObjectSizePrefix.SIZE_BYTES)));
+    }
     if (fory.checkClassVersion()) {
       expressions.add(checkClassVersion(buffer));
     }
@@ -485,6 +514,70 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
     return expressions;
   }
 
+  /**
+   * Return an expression that deep copies java bean of type {@link CodecBuilder#beanClass}. Fields
+   * are read and written directly, primitive/boxed/string values are shared, and values of final
+   * field types are copied by their serializer without looking up class info.
+   */
+  @Override
+  protected Expression buildCopyExpression() {
+    if (isRecord || isInterface || objectCodecOptimizer == null) {
+      return null;
+    }
+    if (beanClass.getClassLoader() == null) {
+      // jdk classes may live in packages not exported to the generated codec, such as
+      // `sun.net.www.protocol.http.Handler`, keep copying them by reflection.
+      return null;
+    }
+    for (Descriptor d : objectCodecOptimizer.descriptorGrouper.getSortedDescriptors()) {
+      if (d.getField() == null) {
+        return null;
+      }
+    }
+    Reference inputObject = new Reference(ROOT_OBJECT_NAME, OBJECT_TYPE, false);
+    ListExpression expressions = new ListExpression();
+    Expression bean = tryCastIfPublic(inputObject, beanType, ctx.newName(beanClass));
+    Expression newBean = newBean();
+    expressions.add(bean);
+    expressions.add(newBean);
+    if (fory.copyTrackingRef()) {
+      expressions.add(new Invoke(foryRef, "reference", inputObject, newBean));
+    }
+    for (List<Descriptor> group : objectCodecOptimizer.copyGroups) {
+      expressions.add(copyGroup(group, bean, newBean));
+    }
+    expressions.add(new Expression.Return(newBean));
+    return expressions;
+  }
+
+  private Expression copyGroup(List<Descriptor> group, Expression bean, Expression newBean) {
+    SerializableSupplier<Expression> exprSupplier =
+        () -> {
+          ListExpression groupExpressions = new ListExpression();
+          for (Descriptor d : group) {
+            // `bean` and `newBean` will be replaced by `Reference` to cut-off expr dependency.
+            Expression fieldValue = getFieldValue(bean, d);
+            Expression copiedValue = copyFieldValue(fieldValue, d.getRawType());
+            groupExpressions.add(
+                setFieldValue(newBean, d, tryInlineCast(copiedValue, d.getTypeRef())));
+          }
+          return groupExpressions;
+        };
+    return objectCodecOptimizer.invokeGenerated(exprSupplier, "copyFields");
+  }
+
+  private Expression copyFieldValue(Expression fieldValue, Class<?> rawType) {
+    if (isPrimitive(rawType) || isBoxed(rawType) || rawType == String.class) {
+      return fieldValue;
+    }
+    if (!isMonomorphic(rawType)) {
+      return new Invoke(foryRef, "copyObject", OBJECT_TYPE, fieldValue);
+    }
+    Expression copiedValue =
+        new Invoke(foryRef, "copyObject", OBJECT_TYPE, fieldValue, getOrCreateSerializer(rawType));
+    return new If(neqNull(fieldValue), copiedValue, nullValue(OBJECT_TYPE), false);
+  }
+
   private void deserializeReadGroup(
       List<List<Descriptor>> readGroups,
       int numGroups,
@@ -557,6 +650,11 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
           ListExpression groupExpressions = new ListExpression();
           // use Reference to cut-off expr dependency.
           for (Descriptor d : group) {
+            Expression skipAction = skipFieldValue(buffer, d);
+            if (skipAction != null) {
+              groupExpressions.add(skipAction);
+              continue;
+            }
             ExpressionVisitor.ExprHolder exprHolder = ExpressionVisitor.ExprHolder.of("bean", bean);
             walkPath.add(d.getDeclaringClass() + d.getName());
             boolean nullable = d.isNullable();
@@ -587,6 +685,11 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
     ListExpression groupExpressions = new ListExpression();
     // use Reference to cut-off expr dependency.
     for (Descriptor d : group) {
+      Expression skipAction = skipFieldValue(buffer, d);
+      if (skipAction != null) {
+        groupExpressions.add(skipAction);
+        continue;
+      }
       boolean nullable = d.isNullable();
       Expression v = deserializeForNullable(buffer, d.getTypeRef(), expr -> expr, nullable);
       Expression action = setFieldValue(bean, d, tryInlineCast(v, d.getTypeRef()));
@@ -595,6 +698,14 @@ public class ObjectCodecBuilder extends BaseObjectCodecBuilder {
     return groupExpressions;
   }
 
+  /**
+   * Returns an expression which skips value of field <code>descriptor</code> without reading it,
+   * or null if the value should be read.
+   */
+  protected Expression skipFieldValue(Expression buffer, Descriptor descriptor) {
+    return null;
+  }
+
   private Expression checkClassVersion(Expression buffer) {
     return new StaticInvoke(
         ObjectSerializer.class,
@@ -74,6 +74,7 @@ public class ObjectCodecOptimizer extends ExpressionOptimizer {
   final List<List<Descriptor>> finalReadGroups = new ArrayList<>();
   final List<List<Descriptor>> otherWriteGroups = new ArrayList<>();
   final List<List<Descriptor>> otherReadGroups = new ArrayList<>();
+  final List<List<Descriptor>> copyGroups = new ArrayList<>();
 
   ObjectCodecOptimizer(
       Class<?> cls,
@@ -131,6 +132,33 @@ public class ObjectCodecOptimizer extends ExpressionOptimizer {
         decs.f0 = decs.f0.subList(endIndex, decs.f0.size());
       }
     }
+    buildCopyGroups();
+  }
+
+  /**
+   * Primitive and boxed fields are copied by a plain read/write, so more of them can be put into a
+   * single copy method than fields which need a nested copy call.
+   */
+  private void buildCopyGroups() {
+    List<Descriptor> directCopyDescriptors =
+        new ArrayList<>(descriptorGrouper.getPrimitiveDescriptors());
+    directCopyDescriptors.addAll(descriptorGrouper.getBoxedDescriptors());
+    List<Descriptor> nestedCopyDescriptors =
+        new ArrayList<>(descriptorGrouper.getFinalDescriptors());
+    nestedCopyDescriptors.addAll(descriptorGrouper.getOtherDescriptors());
+    nestedCopyDescriptors.addAll(descriptorGrouper.getCollectionDescriptors());
+    nestedCopyDescriptors.addAll(descriptorGrouper.getMapDescriptors());
+    addGroups(directCopyDescriptors, 18, copyGroups);
+    addGroups(nestedCopyDescriptors, 5, copyGroups);
+  }
+
+  private static void addGroups(
+      List<Descriptor> descriptors, int groupSize, List<List<Descriptor>> groups) {
+    while (!descriptors.isEmpty()) {
+      int endIndex = Math.min(groupSize, descriptors.size());
+      groups.add(descriptors.subList(0, endIndex));
+      descriptors = descriptors.subList(endIndex, descriptors.size());
+    }
   }
 
   Expression invokeGenerated(
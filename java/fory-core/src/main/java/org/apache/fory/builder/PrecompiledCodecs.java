@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.builder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.fory.Fory;
+import org.apache.fory.annotation.Internal;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.collection.Tuple2;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.reflect.ReflectionUtils;
+import org.apache.fory.reflect.TypeRef;
+import org.apache.fory.resolver.ClassResolver;
+import org.apache.fory.serializer.Serializer;
+import org.apache.fory.type.Descriptor;
+import org.apache.fory.type.TypeUtils;
+import org.apache.fory.util.MurmurHash3;
+import org.apache.fory.util.StringUtils;
+
+/**
+ * Lookup of serializer classes generated ahead of time by {@link CodecPrecompiler}.
+ *
+ * <p>A precompiled codec has a name derived from the bean class, the {@link
+ * org.apache.fory.config.Config#getStableConfigHash stable config hash}, the {@link #classStructure
+ * resolved field descriptors} of the bean class and {@link #FORY_VERSION fory version}, so a
+ * precompiled codec is only picked up when it's generated for the same class with the same config.
+ * Names of all precompiled codecs are listed in {@link #INDEX_RESOURCE}, which is checked before
+ * loading a class to avoid class loading misses for classes which aren't precompiled.
+ */
+@Internal
+public class PrecompiledCodecs {
+  private static final Logger LOG = LoggerFactory.getLogger(PrecompiledCodecs.class);
+
+  public static final String INDEX_RESOURCE = "META-INF/fory/precompiled-codecs";
+
+  /**
+   * Version of fory which generated code depends on: the release version, or a hash of fory
+   * classes for builds without a version in the jar manifest. Null if neither is available, in
+   * which case precompiled codecs and the code cache are disabled.
+   */
+  public static final String FORY_VERSION = foryVersion();
+
+  private static String foryVersion() {
+    String version = Fory.class.getPackage().getImplementationVersion();
+    if (version != null) {
+      return version;
+    }
+    try {
+      URL location = Fory.class.getProtectionDomain().getCodeSource().getLocation();
+      Path path = Paths.get(location.toURI());
+      long hash = 17;
+      if (Files.isDirectory(path)) {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(path)) {
+          files =
+              stream
+                  .filter(p -> p.toString().endsWith(".class"))
+                  .sorted()
+                  .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+          hash = hash * 31 + hashBytes(path.relativize(file).toString().getBytes(UTF_8));
+          hash = hash * 31 + hashBytes(Files.readAllBytes(file));
+        }
+      } else {
+        hash = hashBytes(Files.readAllBytes(path));
+      }
+      return "build-" + Long.toHexString(hash);
+    } catch (Exception e) {
+      LOG.warn("Fory version is unknown, precompiled codecs and code cache are disabled", e);
+      return null;
+    }
+  }
+
+  private static long hashBytes(byte[] bytes) {
+    return MurmurHash3.murmurhash3_x64_128(bytes, 0, bytes.length, 47)[0];
+  }
+
+  // Generic types such as `class Node extends ArrayList<Node>` can nest without end.
+  private static final int MAX_TYPE_DEPTH = 8;
+
+  // Values don't reference classloader, so `WeakHashMap` works here.
+  private static final WeakHashMap<ClassLoader, Set<String>> indexCache = new WeakHashMap<>();
+
+  /**
+   * Returns the simple name of precompiled codec class.
+   *
+   * @param codecKind codec kind such as {@code Compatible} or {@code MetaShared}
+   * @param codecKey additional key which make generated code different, such as class def id
+   */
+  public static String codecClassName(
+      Fory fory, Class<?> beanClass, String codecKind, long codecKey) {
+    String name = ReflectionUtils.getClassNameWithoutPackage(beanClass).replace("$", "_");
+    String str =
+        String.join(
+            "|",
+            FORY_VERSION,
+            String.valueOf(fory.getConfig().getStableConfigHash()),
+            codecKind,
+            String.valueOf(codecKey),
+            classStructure(fory, beanClass));
+    long hash = hashBytes(str.getBytes(UTF_8));
+    return name
+        + (fory.trackingRef() ? "ForyRef" : "Fory")
+        + "Codec"
+        + codecKind
+        + "_"
+        + Long.toHexString(hash);
+  }
+
+  public static String codecQualifiedClassName(
+      Fory fory, Class<?> beanClass, String codecKind, long codecKey) {
+    String pkg = CodeGenerator.getPackage(beanClass);
+    String name = codecClassName(fory, beanClass, codecKind, codecKey);
+    return StringUtils.isBlank(pkg) ? name : pkg + "." + name;
+  }
+
+  /**
+   * Returns a string which identifies the resolved field descriptors of <code>cls</code> and its
+   * super classes as consumed by codegen, generated codec must be regenerated when this string
+   * changed. Besides field names and types, this covers annotations, nullability and ref tracking
+   * of fields, and whether field types and their element types are monomorphic, which decides
+   * whether generated code inlines their serializers.
+   */
+  public static String classStructure(Fory fory, Class<?> cls) {
+    return fory.getJITContext().asyncVisitFory(f -> buildClassStructure(f, cls));
+  }
+
+  private static String buildClassStructure(Fory fory, Class<?> cls) {
+    ClassResolver classResolver = fory.getClassResolver();
+    StringBuilder builder = new StringBuilder(cls.getName()).append('{');
+    for (Descriptor descriptor : classResolver.getFieldDescriptors(cls, true)) {
+      builder
+          .append(descriptor.getModifiers())
+          .append(' ')
+          .append(descriptor.getDeclaringClass())
+          .append('.')
+          .append(descriptor.getName())
+          .append(':');
+      appendType(classResolver, descriptor.getTypeRef(), builder, 0);
+      builder.append(descriptor.isNullable() ? " nullable" : "");
+      builder.append(descriptor.isTrackingRef() ? " trackingRef" : "");
+      Field field = descriptor.getField();
+      if (field != null) {
+        Annotation[] annotations = field.getDeclaredAnnotations();
+        Arrays.sort(annotations, Comparator.comparing(a -> a.annotationType().getName()));
+        for (Annotation annotation : annotations) {
+          builder.append(" @").append(annotation.annotationType().getName());
+        }
+      }
+      builder.append(';');
+    }
+    return builder.append('}').toString();
+  }
+
+  private static void appendType(
+      ClassResolver classResolver, TypeRef<?> typeRef, StringBuilder builder, int depth) {
+    Class<?> cls = typeRef.getRawType();
+    builder.append(typeRef.getType().getTypeName());
+    builder.append(classResolver.isMonomorphic(cls) ? "#mono" : "#poly");
+    builder.append(classResolver.needToWriteRef(typeRef) ? "#ref" : "");
+    if (depth >= MAX_TYPE_DEPTH) {
+      return;
+    }
+    if (cls.isArray()) {
+      builder.append('<');
+      appendType(classResolver, typeRef.getComponentType(), builder, depth + 1);
+      builder.append('>');
+    } else if (TypeUtils.isCollection(cls)) {
+      builder.append('<');
+      appendType(classResolver, TypeUtils.getElementType(typeRef), builder, depth + 1);
+      builder.append('>');
+    } else if (TypeUtils.isMap(cls)) {
+      Tuple2<TypeRef<?>, TypeRef<?>> keyValueType = TypeUtils.getMapKeyValueType(typeRef);
+      builder.append('<');
+      appendType(classResolver, keyValueType.f0, builder, depth + 1);
+      builder.append(',');
+      appendType(classResolver, keyValueType.f1, builder, depth + 1);
+      builder.append('>');
+    }
+  }
+
+  /**
+   * Load precompiled codec class for <code>beanClass</code> from fory classloader or bean
+   * classloader, returns null if not exists.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Class<? extends Serializer<T>> loadCodecClass(
+      Fory fory, Class<T> beanClass, String codecKind, long codecKey) {
+    if (FORY_VERSION == null) {
+      return null;
+    }
+    ClassLoader foryLoader = fory.getClassLoader();
+    ClassLoader beanLoader = beanClass.getClassLoader();
+    ClassLoader[] loaders =
+        foryLoader == beanLoader
+            ? new ClassLoader[] {foryLoader}
+            : new ClassLoader[] {foryLoader, beanLoader};
+    String className = null;
+    for (ClassLoader loader : loaders) {
+      if (loader == null) {
+        continue;
+      }
+      Set<String> index = getIndex(loader);
+      if (index.isEmpty()) {
+        continue;
+      }
+      if (className == null) {
+        className = codecQualifiedClassName(fory, beanClass, codecKind, codecKey);
+      }
+      if (index.contains(className)) {
+        try {
+          return (Class<? extends Serializer<T>>) loader.loadClass(className);
+        } catch (ClassNotFoundException | LinkageError e) {
+          LOG.warn("Load precompiled codec {} failed, fallback to jit", className, e);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static Set<String> getIndex(ClassLoader loader) {
+    synchronized (indexCache) {
+      Set<String> index = indexCache.get(loader);
+      if (index == null) {
+        index = readIndex(loader);
+        indexCache.put(loader, index);
+      }
+      return index;
+    }
+  }
+
+  private static Set<String> readIndex(ClassLoader loader) {
+    Set<String> names = new HashSet<>();
+    try {
+      Enumeration<URL> resources = loader.getResources(INDEX_RESOURCE);
+      while (resources.hasMoreElements()) {
+        URL url = resources.nextElement();
+        try (InputStream stream = url.openStream();
+            BufferedReader reader =
+                new BufferedReader(new InputStreamReader(stream, UTF_8))) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+              names.add(line);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Read precompiled codecs index from {} failed", loader, e);
+    }
+    return names.isEmpty() ? Collections.emptySet() : names;
+  }
+}
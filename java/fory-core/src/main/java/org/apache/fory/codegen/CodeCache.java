@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.util.StringUtils;
+
+/**
+ * A persistent cache of compiled classes in {@link CodeGenerator#getCodeCacheDir()}, so that
+ * classes don't need to be compiled by janino again after process restarts.
+ *
+ * <p>The cache is content addressed by class name: only {@link CompileUnit#isCacheable cacheable}
+ * units, whose class name is derived from everything the generated code depends on, are cached.
+ * All classes compiled for a unit are stored in a single {@code <qualified class name>.classes}
+ * file, which is written to a temp file and moved in place, so concurrent processes sharing the
+ * directory never read a partial file.
+ */
+class CodeCache {
+  private static final Logger LOG = LoggerFactory.getLogger(CodeCache.class);
+
+  private static final int MAGIC = 0x46435943;
+  private static final String FILE_SUFFIX = ".classes";
+
+  /** Returns cached classes for all units, or null if cache is disabled or any unit is missed. */
+  static Map<String, byte[]> load(List<CompileUnit> units) {
+    Path dir = getCacheDir(units);
+    if (dir == null) {
+      return null;
+    }
+    Map<String, byte[]> classes = new HashMap<>();
+    for (CompileUnit unit : units) {
+      Path path = dir.resolve(unit.getQualifiedClassName() + FILE_SUFFIX);
+      if (!Files.exists(path)) {
+        return null;
+      }
+      try (DataInputStream in =
+          new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+        if (in.readInt() != MAGIC) {
+          LOG.warn("Ignore invalid code cache file {}", path);
+          return null;
+        }
+        int numClasses = in.readInt();
+        for (int i = 0; i < numClasses; i++) {
+          String name = in.readUTF();
+          byte[] bytes = new byte[in.readInt()];
+          in.readFully(bytes);
+          classes.put(name, bytes);
+        }
+      } catch (IOException e) {
+        LOG.warn("Read code cache file {} failed", path, e);
+        return null;
+      }
+    }
+    LOG.info("Load {} from code cache {}", units, dir);
+    return classes;
+  }
+
+  /** Store compiled <code>classes</code> of units, failures are logged and ignored. */
+  static void store(List<CompileUnit> units, Map<String, byte[]> classes) {
+    Path dir = getCacheDir(units);
+    if (dir == null) {
+      return;
+    }
+    for (CompileUnit unit : units) {
+      // Classes of a unit are the main class and its nested classes.
+      String prefix = unit.getQualifiedClassName().replace('.', '/');
+      Map<String, byte[]> unitClasses = new HashMap<>();
+      for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+        String name = entry.getKey();
+        if (name.equals(prefix + ".class") || name.startsWith(prefix + "$")) {
+          unitClasses.put(name, entry.getValue());
+        }
+      }
+      Path path = dir.resolve(unit.getQualifiedClassName() + FILE_SUFFIX);
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(unitClasses.size());
+        for (Map.Entry<String, byte[]> entry : unitClasses.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeInt(entry.getValue().length);
+          out.write(entry.getValue());
+        }
+        out.flush();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, unit.mainClassName, ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        try {
+          Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (IOException e) {
+        LOG.warn("Write code cache file {} failed", path, e);
+      }
+    }
+  }
+
+  private static Path getCacheDir(List<CompileUnit> units) {
+    String dir = CodeGenerator.getCodeCacheDir();
+    if (StringUtils.isBlank(dir)) {
+      return null;
+    }
+    for (CompileUnit unit : units) {
+      if (!unit.isCacheable()) {
+        return null;
+      }
+    }
+    return Paths.get(dir);
+  }
+}
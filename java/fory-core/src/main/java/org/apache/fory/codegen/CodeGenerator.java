@@ -58,6 +58,7 @@ public class CodeGenerator {
 
   private static final String CODE_DIR_KEY = "FORY_CODE_DIR";
   private static final String DELETE_CODE_ON_EXIT_KEY = "FORY_DELETE_CODE_ON_EXIT";
+  private static final String CODE_CACHE_DIR_KEY = "FORY_CODE_CACHE_DIR";
 
   // This is the default value of HugeMethodLimit in the OpenJDK HotSpot JVM,
   // beyond which methods will be rejected from JIT compilation
@@ -141,8 +142,12 @@ public class CodeGenerator {
       compileState.lock.unlock();
     } else {
       try {
-        classes =
-            JaninoUtils.toBytecode(parentClassLoader, compileUnits.toArray(new CompileUnit[0]));
+        classes = CodeCache.load(compileUnits);
+        if (classes == null) {
+          classes =
+              JaninoUtils.toBytecode(parentClassLoader, compileUnits.toArray(new CompileUnit[0]));
+          CodeCache.store(compileUnits, classes);
+        }
         compileState.result = classes;
         compileState.finished = true;
       } finally {
@@ -355,6 +360,14 @@ public class CodeGenerator {
     return System.getProperty(CODE_DIR_KEY, System.getenv(CODE_DIR_KEY));
   }
 
+  /**
+   * Returns the directory where compiled classes of {@link CompileUnit#isCacheable cacheable}
+   * units are stored and reused across processes, or null if the cache is disabled.
+   */
+  public static String getCodeCacheDir() {
+    return System.getProperty(CODE_CACHE_DIR_KEY, System.getenv(CODE_CACHE_DIR_KEY));
+  }
+
   static boolean deleteCodeOnExit() {
     boolean deleteCodeOnExit = StringUtils.isBlank(getCodeDir());
     String deleteCodeOnExitStr =
@@ -33,6 +33,7 @@ public class CompileUnit {
   String mainClassName;
   private String code;
   private Supplier<String> genCodeFunc;
+  private boolean cacheable;
 
   public CompileUnit(String pkg, String mainClassName, String code) {
     this.pkg = pkg;
@@ -57,6 +58,19 @@ public class CompileUnit {
     return code;
   }
 
+  /**
+   * Whether compiled classes of this unit can be stored in {@link CodeGenerator#getCodeCacheDir()}
+   * and reused by other processes. Only units whose class name identifies generated code, such as
+   * {@link org.apache.fory.builder.PrecompiledCodecs precompiled codec names}, can be cached.
+   */
+  public boolean isCacheable() {
+    return cacheable;
+  }
+
+  public void setCacheable(boolean cacheable) {
+    this.cacheable = cacheable;
+  }
+
   public String getQualifiedClassName() {
     if (StringUtils.isNotBlank(pkg)) {
       return pkg + "." + mainClassName;
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.collection;
+
+import static org.apache.fory.collection.ForyObjectMap.MASK_NUMBER;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import org.apache.fory.annotation.Internal;
+
+/**
+ * An identity map from object to non-negative int value based on linear probing, which is
+ * specialized for tracking written references.
+ *
+ * <p>Every slot stores a generation stamp alongside its value, a slot is occupied only if its stamp
+ * equals current generation. So {@link #reset} doesn't need to zero the whole table, which
+ * dominates serialization time for big object graphs. Instead slots used by current generation are
+ * recorded, and only their keys are released by {@link #reset}, which is proportional to the size
+ * instead of the capacity of the map.
+ */
+@Internal
+@SuppressWarnings("unchecked")
+public final class StampedIdentityObjectIntMap<K> {
+  public int size;
+
+  private K[] keyTable;
+  // high 32 bits: generation stamp; low 32 bits: value.
+  private long[] stampedValues;
+  // slots used by current generation, the first `size` elements are valid.
+  private int[] usedSlots;
+  private final float loadFactor;
+  private int threshold;
+  private int shift;
+  private int mask;
+  // Start from 1 so that zero-filled slots are empty.
+  private int generation = 1;
+  private MapStatistics stat;
+
+  public StampedIdentityObjectIntMap(int initialCapacity, float loadFactor) {
+    if (loadFactor <= 0f || loadFactor >= 1f) {
+      throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+    }
+    this.loadFactor = loadFactor;
+    stat = new MapStatistics();
+    allocate(ForyObjectMap.tableSize(initialCapacity, loadFactor));
+  }
+
+  private void allocate(int tableSize) {
+    threshold = (int) (tableSize * loadFactor);
+    mask = tableSize - 1;
+    shift = Long.numberOfLeadingZeros(mask);
+    keyTable = (K[]) new Object[tableSize];
+    stampedValues = new long[tableSize];
+    usedSlots = new int[threshold + 1];
+  }
+
+  private int place(K item) {
+    // identity hash is cached in object header, multiply it to spread sequential hashes.
+    return (int) (System.identityHashCode(item) * MASK_NUMBER >>> shift);
+  }
+
+  private long stamp(int value) {
+    return ((long) generation << 32) | (value & 0xFFFFFFFFL);
+  }
+
+  /**
+   * If key doesn't exist in map, put it and return {@link Integer#MIN_VALUE}, otherwise don't
+   * update map, just return previous value.
+   */
+  public int putOrGet(K key, int value) {
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int generation = this.generation;
+    int mask = this.mask;
+    for (int i = place(key); ; i = i + 1 & mask) {
+      long stampedValue = stampedValues[i];
+      if ((int) (stampedValue >>> 32) != generation) {
+        keyTable[i] = key;
+        stampedValues[i] = stamp(value);
+        usedSlots[size] = i;
+        if (++size >= threshold) {
+          resize(keyTable.length << 1);
+        }
+        return Integer.MIN_VALUE;
+      }
+      if (keyTable[i] == key) {
+        return (int) stampedValue;
+      }
+    }
+  }
+
+  public int profilingPutOrGet(K key, int value) {
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int generation = this.generation;
+    int mask = this.mask;
+    for (int i = place(key); ; i = i + 1 & mask) {
+      stat.totalProbeProfiled++;
+      long stampedValue = stampedValues[i];
+      boolean empty = (int) (stampedValue >>> 32) != generation;
+      if (empty || keyTable[i] == key) {
+        int probed = stat.totalProbeProfiled - stat.lastProbeProfiled;
+        stat.maxProbeProfiled = Math.max(probed, stat.maxProbeProfiled);
+        stat.lastProbeProfiled = stat.totalProbeProfiled;
+        if (!empty) {
+          return (int) stampedValue;
+        }
+        keyTable[i] = key;
+        stampedValues[i] = stamp(value);
+        usedSlots[size] = i;
+        if (++size >= threshold) {
+          resize(keyTable.length << 1);
+        }
+        return Integer.MIN_VALUE;
+      }
+    }
+  }
+
+  public int get(K key, int defaultValue) {
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int generation = this.generation;
+    int mask = this.mask;
+    for (int i = place(key); ; i = i + 1 & mask) {
+      long stampedValue = stampedValues[i];
+      if ((int) (stampedValue >>> 32) != generation) {
+        return defaultValue;
+      }
+      if (keyTable[i] == key) {
+        return (int) stampedValue;
+      }
+    }
+  }
+
+  public void put(K key, int value) {
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int generation = this.generation;
+    int mask = this.mask;
+    for (int i = place(key); ; i = i + 1 & mask) {
+      if ((int) (stampedValues[i] >>> 32) != generation) {
+        keyTable[i] = key;
+        stampedValues[i] = stamp(value);
+        usedSlots[size] = i;
+        if (++size >= threshold) {
+          resize(keyTable.length << 1);
+        }
+        return;
+      }
+      if (keyTable[i] == key) {
+        stampedValues[i] = stamp(value);
+        return;
+      }
+    }
+  }
+
+  private void resize(int newSize) {
+    K[] oldKeyTable = this.keyTable;
+    long[] oldStampedValues = this.stampedValues;
+    int[] oldUsedSlots = this.usedSlots;
+    int size = this.size;
+    allocate(newSize);
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int[] usedSlots = this.usedSlots;
+    int mask = this.mask;
+    // new table is zero-filled, keep stamps of current generation.
+    for (int n = 0; n < size; n++) {
+      int i = oldUsedSlots[n];
+      K key = oldKeyTable[i];
+      int j = place(key);
+      while (stampedValues[j] != 0) {
+        j = j + 1 & mask;
+      }
+      keyTable[j] = key;
+      stampedValues[j] = oldStampedValues[i];
+      usedSlots[n] = j;
+    }
+  }
+
+  /**
+   * Remove all entries by starting a new generation, keys of removed entries are released in time
+   * proportional to the number of entries.
+   */
+  public void reset() {
+    K[] keyTable = this.keyTable;
+    int[] usedSlots = this.usedSlots;
+    for (int n = 0, size = this.size; n < size; n++) {
+      keyTable[usedSlots[n]] = null;
+    }
+    size = 0;
+    if (++generation == 0) {
+      // generation wrapped, stamps of old generations may collide with new ones.
+      Arrays.fill(stampedValues, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Remove all entries, and shrink table if it's much bigger than <code>maximumCapacity</code>
+   * entries need.
+   */
+  public void resetApproximate(int maximumCapacity) {
+    int tableSize =
+        ForyObjectMap.nextPowerOfTwo(Math.max(2, (int) (maximumCapacity / loadFactor + 1)));
+    if (keyTable.length <= tableSize) {
+      reset();
+    } else {
+      size = 0;
+      generation = 1;
+      allocate(tableSize);
+    }
+  }
+
+  /** Remove all entries and release all keys. */
+  public void clear() {
+    size = 0;
+    generation = 1;
+    ObjectArray.clearObjectArray(keyTable, 0, keyTable.length);
+    Arrays.fill(stampedValues, 0);
+  }
+
+  public void forEach(BiConsumer<? super K, Integer> action) {
+    K[] keyTable = this.keyTable;
+    long[] stampedValues = this.stampedValues;
+    int generation = this.generation;
+    for (int i = 0, n = keyTable.length; i < n; i++) {
+      long stampedValue = stampedValues[i];
+      if ((int) (stampedValue >>> 32) == generation) {
+        action.accept(keyTable[i], (int) stampedValue);
+      }
+    }
+  }
+
+  public MapStatistics getAndResetStatistics() {
+    MapStatistics result = stat;
+    stat = new MapStatistics();
+    return result;
+  }
+}
@@ -20,14 +20,17 @@
 package org.apache.fory.config;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.fory.Fory;
 import org.apache.fory.meta.MetaCompressor;
+import org.apache.fory.metrics.MetricsListener;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.serializer.TimeSerializers;
+import org.apache.fory.util.MurmurHash3;
 import org.apache.fory.util.Preconditions;
 
 /** Config for fory, all {@link Fory} related config can be found here. */
@@ -36,6 +39,7 @@ public class Config implements Serializable {
   private final String name;
   private final Language language;
   private final boolean trackingRef;
+  private final boolean adaptiveRefTracking;
   private final boolean basicTypesRefIgnored;
   private final boolean stringRefIgnored;
   private final boolean timeRefIgnored;
@@ -50,24 +54,34 @@ public class Config implements Serializable {
   private final boolean compressInt;
   private final boolean compressLong;
   private final LongEncoding longEncoding;
+  private final boolean compressIntArray;
+  private final boolean compressLongArray;
+  private final boolean objectSizePrefixEnabled;
+  private final int parallelSerializationThreshold;
   private final boolean requireClassRegistration;
   private final boolean suppressClassRegistrationWarnings;
   private final boolean registerGuavaTypes;
   private final boolean metaShareEnabled;
   private final boolean scopedMetaShareEnabled;
   private final MetaCompressor metaCompressor;
+  private final transient MetricsListener metricsListener;
   private final boolean asyncCompilationEnabled;
+  private final int jitInvocationThreshold;
+  private final long jitBytesThreshold;
   private final boolean deserializeNonexistentClass;
   private final boolean scalaOptimizationEnabled;
   private transient int configHash;
+  private transient long stableConfigHash;
   private final boolean deserializeNonexistentEnumValueAsNull;
   private final boolean serializeEnumByName;
   private final int bufferSizeLimitBytes;
+  private final int streamWriteBufferSize;
 
   public Config(ForyBuilder builder) {
     name = builder.name;
     language = builder.language;
     trackingRef = builder.trackingRef;
+    adaptiveRefTracking = trackingRef && builder.adaptiveRefTracking;
     basicTypesRefIgnored = !trackingRef || builder.basicTypesRefIgnored;
     stringRefIgnored = !trackingRef || builder.stringRefIgnored;
     timeRefIgnored = !trackingRef || builder.timeRefIgnored;
@@ -77,6 +91,10 @@ public class Config implements Serializable {
     compressInt = builder.compressInt;
     longEncoding = builder.longEncoding;
     compressLong = longEncoding != LongEncoding.LE_RAW_BYTES;
+    compressIntArray = builder.compressIntArray;
+    compressLongArray = builder.compressLongArray;
+    objectSizePrefixEnabled = builder.objectSizePrefixEnabled;
+    parallelSerializationThreshold = builder.parallelSerializationThreshold;
     requireClassRegistration = builder.requireClassRegistration;
     suppressClassRegistrationWarnings = builder.suppressClassRegistrationWarnings;
     registerGuavaTypes = builder.registerGuavaTypes;
@@ -88,6 +106,7 @@ public class Config implements Serializable {
     metaShareEnabled = builder.metaShareEnabled;
     scopedMetaShareEnabled = builder.scopedMetaShareEnabled;
     metaCompressor = builder.metaCompressor;
+    metricsListener = builder.metricsListener;
     deserializeNonexistentClass = builder.deserializeNonexistentClass;
     if (deserializeNonexistentClass) {
       Preconditions.checkArgument(
@@ -97,10 +116,13 @@ public class Config implements Serializable {
               + "to automatically resolve class schemas.");
     }
     asyncCompilationEnabled = builder.asyncCompilationEnabled;
+    jitInvocationThreshold = builder.jitInvocationThreshold;
+    jitBytesThreshold = builder.jitBytesThreshold;
     scalaOptimizationEnabled = builder.scalaOptimizationEnabled;
     deserializeNonexistentEnumValueAsNull = builder.deserializeNonexistentEnumValueAsNull;
     serializeEnumByName = builder.serializeEnumByName;
     bufferSizeLimitBytes = builder.bufferSizeLimitBytes;
+    streamWriteBufferSize = builder.streamWriteBufferSize;
   }
 
   /** Returns the name for Fory serialization. */
@@ -116,6 +138,15 @@ public class Config implements Serializable {
     return trackingRef;
   }
 
+  /**
+   * Whether track types and fields never shared in sampled serializations by a cheaper cache.
+   *
+   * @see ForyBuilder#withAdaptiveRefTracking
+   */
+  public boolean isAdaptiveRefTracking() {
+    return adaptiveRefTracking;
+  }
+
   /**
    * Returns true if copy value by ref, and false copy by value.
    *
@@ -197,10 +228,44 @@ public class Config implements Serializable {
     return longEncoding;
   }
 
+  /** Whether compress <code>int[]</code> by delta or frame of reference bit-packing. */
+  public boolean compressIntArray() {
+    return compressIntArray;
+  }
+
+  /** Whether compress <code>long[]</code> by delta or frame of reference bit-packing. */
+  public boolean compressLongArray() {
+    return compressLongArray;
+  }
+
+  /**
+   * Whether to write a 4-byte size before the fields of beans serialized by {@link
+   * org.apache.fory.serializer.ObjectSerializer} and its generated codecs.
+   */
+  public boolean isObjectSizePrefixEnabled() {
+    return objectSizePrefixEnabled;
+  }
+
+  /**
+   * Root collections and object arrays with more elements than this threshold are serialized in
+   * parallel, 0 means disabled.
+   */
+  public int parallelSerializationThreshold() {
+    return parallelSerializationThreshold;
+  }
+
   public int bufferSizeLimitBytes() {
     return bufferSizeLimitBytes;
   }
 
+  /**
+   * Returns buffer size for streaming write, serialized data will be flushed to stream every time
+   * this size of data are buffered. Returns 0 if streaming write is disabled.
+   */
+  public int streamWriteBufferSize() {
+    return streamWriteBufferSize;
+  }
+
   public boolean requireClassRegistration() {
     return requireClassRegistration;
   }
@@ -245,6 +310,15 @@ public class Config implements Serializable {
     return metaCompressor;
   }
 
+  /**
+   * Returns the {@link MetricsListener} notified of per-type serialization metrics, or null if
+   * metrics are disabled. The listener doesn't affect serialized data or generated code, so it's
+   * not part of config equality.
+   */
+  public MetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
   /**
    * Whether deserialize/skip data of un-existed class. If not enabled, an exception will be thrown
    * if class not exist.
@@ -271,6 +345,36 @@ public class Config implements Serializable {
     return asyncCompilationEnabled;
   }
 
+  /**
+   * Whether enable tiered compilation. If enabled, a type will be serialized by interpreter mode
+   * serializer first, and its jit serializer will be generated only after its interpreter
+   * serializer is invoked {@link #getJITInvocationThreshold} times or has processed {@link
+   * #getJITBytesThreshold} bytes. Rarely used types won't cost metaspace and compilation time.
+   */
+  public boolean isTieredCompilationEnabled() {
+    return codeGenEnabled && (jitInvocationThreshold > 0 || jitBytesThreshold > 0);
+  }
+
+  /**
+   * Returns invocations of interpreter mode serializer needed to trigger jit for a type, 0 if no
+   * invocations threshold.
+   *
+   * @see #isTieredCompilationEnabled
+   */
+  public int getJITInvocationThreshold() {
+    return jitInvocationThreshold;
+  }
+
+  /**
+   * Returns bytes processed by interpreter mode serializer needed to trigger jit for a type, 0 if
+   * no bytes threshold.
+   *
+   * @see #isTieredCompilationEnabled
+   */
+  public long getJITBytesThreshold() {
+    return jitBytesThreshold;
+  }
+
   /** Whether enable scala-specific serialization optimization. */
   public boolean isScalaOptimizationEnabled() {
     return scalaOptimizationEnabled;
@@ -287,6 +391,7 @@ public class Config implements Serializable {
     Config config = (Config) o;
     return name == config.name
         && trackingRef == config.trackingRef
+        && adaptiveRefTracking == config.adaptiveRefTracking
         && basicTypesRefIgnored == config.basicTypesRefIgnored
         && stringRefIgnored == config.stringRefIgnored
         && timeRefIgnored == config.timeRefIgnored
@@ -298,7 +403,12 @@ public class Config implements Serializable {
         && writeNumUtf16BytesForUtf8Encoding == config.writeNumUtf16BytesForUtf8Encoding
         && compressInt == config.compressInt
         && compressLong == config.compressLong
+        && compressIntArray == config.compressIntArray
+        && compressLongArray == config.compressLongArray
+        && objectSizePrefixEnabled == config.objectSizePrefixEnabled
+        && parallelSerializationThreshold == config.parallelSerializationThreshold
         && bufferSizeLimitBytes == config.bufferSizeLimitBytes
+        && streamWriteBufferSize == config.streamWriteBufferSize
         && requireClassRegistration == config.requireClassRegistration
         && suppressClassRegistrationWarnings == config.suppressClassRegistrationWarnings
         && registerGuavaTypes == config.registerGuavaTypes
@@ -306,6 +416,8 @@ public class Config implements Serializable {
         && scopedMetaShareEnabled == config.scopedMetaShareEnabled
         && Objects.equals(metaCompressor, config.metaCompressor)
         && asyncCompilationEnabled == config.asyncCompilationEnabled
+        && jitInvocationThreshold == config.jitInvocationThreshold
+        && jitBytesThreshold == config.jitBytesThreshold
         && deserializeNonexistentClass == config.deserializeNonexistentClass
         && scalaOptimizationEnabled == config.scalaOptimizationEnabled
         && language == config.language
@@ -320,6 +432,7 @@ public class Config implements Serializable {
         name,
         language,
         trackingRef,
+        adaptiveRefTracking,
         basicTypesRefIgnored,
         stringRefIgnored,
         timeRefIgnored,
@@ -334,7 +447,12 @@ public class Config implements Serializable {
         compressInt,
         compressLong,
         longEncoding,
+        compressIntArray,
+        compressLongArray,
+        objectSizePrefixEnabled,
+        parallelSerializationThreshold,
         bufferSizeLimitBytes,
+        streamWriteBufferSize,
         requireClassRegistration,
         suppressClassRegistrationWarnings,
         registerGuavaTypes,
@@ -342,6 +460,8 @@ public class Config implements Serializable {
         scopedMetaShareEnabled,
         metaCompressor,
         asyncCompilationEnabled,
+        jitInvocationThreshold,
+        jitBytesThreshold,
         deserializeNonexistentClass,
         scalaOptimizationEnabled);
   }
@@ -357,4 +477,49 @@ public class Config implements Serializable {
     }
     return configHash;
   }
+
+  /**
+   * Returns a hash of this config which is same across processes, unlike {@link #getConfigHash}
+   * which is only unique in current process. Options which don't affect generated serializer code,
+   * such as name and async compilation, are excluded.
+   */
+  public long getStableConfigHash() {
+    if (stableConfigHash == 0) {
+      String str =
+          String.join(
+              ",",
+              String.valueOf(language),
+              String.valueOf(trackingRef),
+              String.valueOf(adaptiveRefTracking),
+              String.valueOf(basicTypesRefIgnored),
+              String.valueOf(stringRefIgnored),
+              String.valueOf(timeRefIgnored),
+              String.valueOf(copyRef),
+              String.valueOf(checkClassVersion),
+              String.valueOf(compatibleMode),
+              String.valueOf(checkJdkClassSerializable),
+              defaultJDKStreamSerializerType.getName(),
+              String.valueOf(compressString),
+              String.valueOf(writeNumUtf16BytesForUtf8Encoding),
+              String.valueOf(compressInt),
+              String.valueOf(compressLong),
+              String.valueOf(longEncoding),
+              String.valueOf(compressIntArray),
+              String.valueOf(compressLongArray),
+              String.valueOf(objectSizePrefixEnabled),
+              String.valueOf(parallelSerializationThreshold),
+              String.valueOf(requireClassRegistration),
+              String.valueOf(registerGuavaTypes),
+              String.valueOf(metaShareEnabled),
+              String.valueOf(scopedMetaShareEnabled),
+              metaCompressor.getClass().getName(),
+              String.valueOf(deserializeNonexistentClass),
+              String.valueOf(scalaOptimizationEnabled),
+              String.valueOf(deserializeNonexistentEnumValueAsNull),
+              String.valueOf(serializeEnumByName));
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      stableConfigHash = MurmurHash3.murmurhash3_x64_128(bytes, 0, bytes.length, 47)[0];
+    }
+    return stableConfigHash;
+  }
 }
@@ -29,6 +29,8 @@ import org.apache.fory.logging.LoggerFactory;
 import org.apache.fory.memory.Platform;
 import org.apache.fory.meta.DeflaterMetaCompressor;
 import org.apache.fory.meta.MetaCompressor;
+import org.apache.fory.metrics.MetricsListener;
+import org.apache.fory.pool.SharedPoolFory;
 import org.apache.fory.pool.ThreadPoolFory;
 import org.apache.fory.reflect.ReflectionUtils;
 import org.apache.fory.resolver.ClassResolver;
@@ -38,6 +40,7 @@ import org.apache.fory.serializer.Serializer;
 import org.apache.fory.serializer.TimeSerializers;
 import org.apache.fory.serializer.collection.GuavaCollectionSerializers;
 import org.apache.fory.util.GraalvmSupport;
+import org.apache.fory.util.Preconditions;
 
 /** Builder class to config and create {@link Fory}. */
 // Method naming style for this builder:
@@ -61,6 +64,7 @@ public final class ForyBuilder {
   boolean checkClassVersion = false;
   Language language = Language.JAVA;
   boolean trackingRef = false;
+  boolean adaptiveRefTracking = false;
   boolean copyRef = false;
   boolean basicTypesRefIgnored = true;
   boolean stringRefIgnored = true;
@@ -68,6 +72,10 @@ public final class ForyBuilder {
   ClassLoader classLoader;
   boolean compressInt = true;
   public LongEncoding longEncoding = LongEncoding.SLI;
+  boolean compressIntArray = false;
+  boolean compressLongArray = false;
+  boolean objectSizePrefixEnabled = false;
+  int parallelSerializationThreshold = 0;
   boolean compressString = false;
   Boolean writeNumUtf16BytesForUtf8Encoding;
   CompatibleMode compatibleMode = CompatibleMode.SCHEMA_CONSISTENT;
@@ -79,13 +87,17 @@ public final class ForyBuilder {
   boolean codeGenEnabled = true;
   Boolean deserializeNonexistentClass;
   boolean asyncCompilationEnabled = false;
+  int jitInvocationThreshold = 0;
+  long jitBytesThreshold = 0;
   boolean registerGuavaTypes = true;
   boolean scalaOptimizationEnabled = false;
   boolean suppressClassRegistrationWarnings = true;
   boolean deserializeNonexistentEnumValueAsNull = false;
   boolean serializeEnumByName = false;
   int bufferSizeLimitBytes = 128 * 1024;
+  int streamWriteBufferSize = 0;
   MetaCompressor metaCompressor = new DeflaterMetaCompressor();
+  MetricsListener metricsListener;
 
   public ForyBuilder() {}
 
@@ -107,6 +119,19 @@ public final class ForyBuilder {
     return this;
   }
 
+  /**
+   * Whether track refs adaptively for types and fields whose values are never shared, which takes
+   * effect only when ref tracking is enabled. Serializations will be sampled to find such types
+   * and fields of generated serializers, then their values will be tracked by a direct-mapped
+   * identity cache instead of the written objects identity map, which saves ref tracking cost for
+   * mostly tree-shaped object graphs. Sharing and circular references are still detected on every
+   * write, and serialized data is readable by any fory with ref tracking enabled.
+   */
+  public ForyBuilder withAdaptiveRefTracking(boolean adaptiveRefTracking) {
+    this.adaptiveRefTracking = adaptiveRefTracking;
+    return this;
+  }
+
   /**
    * Whether track {@link Fory#copy(Object)} shared or circular references.
    *
@@ -183,6 +208,70 @@ public final class ForyBuilder {
     return this;
   }
 
+  /**
+   * Whether compress <code>int[]</code> by zigzag delta or frame of reference bit-packing. The
+   * encoding is selected per array by sampling its elements, and arrays which can't be compressed
+   * well are still written as raw bytes. Disabled by default, and takes no effect when a buffer
+   * callback is set for out-of-band serialization or in cross-language mode.
+   */
+  public ForyBuilder withIntArrayCompressed(boolean intArrayCompressed) {
+    this.compressIntArray = intArrayCompressed;
+    return this;
+  }
+
+  /**
+   * Whether compress <code>long[]</code> by zigzag delta or frame of reference bit-packing, which
+   * suits sorted timestamps and ids well.
+   *
+   * @see #withIntArrayCompressed
+   */
+  public ForyBuilder withLongArrayCompressed(boolean longArrayCompressed) {
+    this.compressLongArray = longArrayCompressed;
+    return this;
+  }
+
+  /**
+   * Whether to write the byte size of bean fields before them as a fixed 4-byte int32, which is
+   * patched in place after the fields are written. Readers in meta share mode skip a nested object
+   * whose fields are unknown to or not wanted by them by this size without parsing it, if ref
+   * tracking is disabled.
+   *
+   * <p>The size is written by {@link org.apache.fory.serializer.ObjectSerializer}, its generated
+   * codecs and the serializers of classes which don't exist in the reader, which covers beans in
+   * schema consistent mode and in compatible mode with meta share. {@link
+   * org.apache.fory.serializer.CompatibleSerializer} used by compatible mode without meta share
+   * writes field types itself and doesn't write the size.
+   *
+   * <p>Every bean costs 4 extra bytes, which can double the size of small beans, and a bean is
+   * held in the buffer until it is written fully when serializing to an {@link
+   * java.io.OutputStream}. Enable it only when readers skip nested objects, such as with evolved
+   * schemas or projections. There is no size threshold or per-type switch, since a reader must
+   * know whether the size is present before reading the bean. Serialized data is not compatible
+   * between different settings of this option.
+   */
+  public ForyBuilder withObjectSizePrefix(boolean objectSizePrefix) {
+    this.objectSizePrefixEnabled = objectSizePrefix;
+    return this;
+  }
+
+  /**
+   * Serialize root collections and object arrays with more than <code>threshold</code> elements in
+   * parallel, 0 disables it. Elements are split into segments which are serialized by separate
+   * {@link Fory} instances on a {@link java.util.concurrent.ForkJoinPool}, then deserialized in
+   * parallel too. Tasks run in the pool of current thread if it's a fork join worker, otherwise in
+   * the common pool.
+   *
+   * <p>Only {@link #buildSharedPoolFory}, which leases identically registered instances without
+   * blocking, serializes in parallel. Other forys with this option read the segments one after
+   * another. Ref tracking must be disabled since segments can't share refs. Serialized data is not
+   * compatible between different settings of this option.
+   */
+  public ForyBuilder withParallelSerialization(int threshold) {
+    Preconditions.checkArgument(threshold >= 0, "threshold must be non-negative: %s", threshold);
+    this.parallelSerializationThreshold = threshold;
+    return this;
+  }
+
   /** Whether compress string for small size. */
   public ForyBuilder withStringCompressed(boolean stringCompressed) {
     this.compressString = stringCompressed;
@@ -211,6 +300,24 @@ public final class ForyBuilder {
     return this;
   }
 
+  /**
+   * Sets buffer size for streaming write. If positive, {@link
+   * Fory#serialize(java.io.OutputStream, Object)} will flush serialized data to the stream every
+   * time this size of data are buffered, instead of buffering the whole serialized data in memory.
+   * Class definitions for meta share will be written inline with the serialized data in this mode,
+   * since the written data can't be patched anymore.
+   *
+   * <p>The default is 0, which disables streaming write.
+   */
+  public ForyBuilder withStreamWriteBufferSize(int streamWriteBufferSize) {
+    Preconditions.checkArgument(
+        streamWriteBufferSize >= 0,
+        "streamWriteBufferSize must be non-negative: %s",
+        streamWriteBufferSize);
+    this.streamWriteBufferSize = streamWriteBufferSize;
+    return this;
+  }
+
   /**
    * Set classloader for fory to load classes, this classloader can't up updated. Fory will cache
    * the class meta data, if classloader can be updated, there may be class meta collision if
@@ -314,6 +421,27 @@ public final class ForyBuilder {
     return this;
   }
 
+  /**
+   * Set a listener to be notified of the type, size and sampled latency of every serialized and
+   * deserialized object, and the duration of JIT compilations. Bytes and latencies of an object
+   * include its nested objects. The listener is invoked by serialization threads and the JIT
+   * thread concurrently, so it must be thread safe. Metrics are disabled by default and cost
+   * nothing then. {@link MetricsListener#timeSampleInterval()} must be a power of two.
+   *
+   * @see org.apache.fory.metrics.SerializationMetrics
+   */
+  public ForyBuilder withMetricsListener(MetricsListener metricsListener) {
+    if (metricsListener != null) {
+      int interval = metricsListener.timeSampleInterval();
+      Preconditions.checkArgument(
+          interval > 0 && (interval & (interval - 1)) == 0,
+          "timeSampleInterval must be a power of two: %s",
+          interval);
+    }
+    this.metricsListener = metricsListener;
+    return this;
+  }
+
   /**
    * Whether deserialize/skip data of un-existed class.
    *
@@ -348,6 +476,29 @@ public final class ForyBuilder {
     return this;
   }
 
+  /**
+   * Enable tiered compilation: serialize a type by interpreter mode first, and generate its jit
+   * serializer only after its interpreter serializer is invoked <code>invocationThreshold</code>
+   * times or has written/read <code>bytesThreshold</code> bytes, whichever comes first. A threshold
+   * of 0 is ignored, and tiered compilation is disabled if both are 0. Jit will be executed in
+   * compiler threads if {@link #withAsyncCompilation async compilation} is enabled too, otherwise
+   * it's executed at the start of next top-level serialization or deserialization.
+   *
+   * @see Config#isTieredCompilationEnabled()
+   * @see org.apache.fory.builder.JITContext#getNumDeferredTypes()
+   */
+  public ForyBuilder withTieredCompilation(int invocationThreshold, long bytesThreshold) {
+    Preconditions.checkArgument(
+        invocationThreshold >= 0,
+        "invocationThreshold must be non-negative: %s",
+        invocationThreshold);
+    Preconditions.checkArgument(
+        bytesThreshold >= 0, "bytesThreshold must be non-negative: %s", bytesThreshold);
+    this.jitInvocationThreshold = invocationThreshold;
+    this.jitBytesThreshold = bytesThreshold;
+    return this;
+  }
+
   /** Whether enable scala-specific serialization optimization. */
   public ForyBuilder withScalaOptimizationEnabled(boolean enableScalaOptimization) {
     this.scalaOptimizationEnabled = enableScalaOptimization;
@@ -381,6 +532,21 @@ public final class ForyBuilder {
       stringRefIgnored = true;
       longEncoding = LongEncoding.PVL;
       compressInt = true;
+      compressIntArray = false;
+      compressLongArray = false;
+      if (objectSizePrefixEnabled) {
+        LOG.warn("Object size prefix is for java serialization only, disable it for {}", language);
+        objectSizePrefixEnabled = false;
+      }
+      if (parallelSerializationThreshold > 0) {
+        LOG.warn(
+            "Parallel serialization is for java serialization only, disable it for {}", language);
+        parallelSerializationThreshold = 0;
+      }
+    }
+    if (trackingRef && parallelSerializationThreshold > 0) {
+      LOG.warn("Parallel serialization doesn't support ref tracking, disable it.");
+      parallelSerializationThreshold = 0;
     }
     if (ENABLE_CLASS_REGISTRATION_FORCIBLY) {
       if (!requireClassRegistration) {
@@ -486,6 +652,31 @@ public final class ForyBuilder {
     return threadSafeFory;
   }
 
+  /**
+   * Build thread safe fory backed by {@link SharedPoolFory}, which is suitable for a large number
+   * of short-lived threads such as virtual threads.
+   */
+  public ThreadSafeFory buildSharedPoolFory() {
+    return buildSharedPoolFory(SharedPoolFory.DEFAULT_MAX_IDLE_SIZE);
+  }
+
+  /**
+   * Build thread safe fory backed by {@link SharedPoolFory}.
+   *
+   * @param maxIdleSize max number of idle fory instances retained for reuse
+   * @return SharedPoolFory
+   */
+  public ThreadSafeFory buildSharedPoolFory(int maxIdleSize) {
+    Preconditions.checkArgument(maxIdleSize > 0, "maxIdleSize must be positive: %s", maxIdleSize);
+    finish();
+    ClassLoader loader = this.classLoader;
+    this.classLoader = null;
+    ThreadSafeFory threadSafeFory =
+        new SharedPoolFory(classLoader -> newFory(this, classLoader), maxIdleSize);
+    threadSafeFory.setClassLoader(loader);
+    return threadSafeFory;
+  }
+
   /**
    * Build pooled ThreadSafeFory.
    *
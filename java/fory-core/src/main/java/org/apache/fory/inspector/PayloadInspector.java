@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.inspector;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.apache.fory.Fory;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.config.Language;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.resolver.MetaContext;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * Inspect payloads without the serialized classes, and attribute bytes to classes and fields.
+ * Payloads must be serialized with meta share enabled, which is the default of {@link
+ * CompatibleMode#COMPATIBLE}, so that objects can be decoded from the class defs in payloads. User
+ * classes are hidden from the inspector even if they are on the classpath, JDK classes such as
+ * strings and collections are read as leaves whose bytes are counted in the enclosing field.
+ *
+ * <pre>{@code
+ * PayloadInspector inspector =
+ *     new PayloadInspector(Fory.builder().withCompatibleMode(CompatibleMode.COMPATIBLE));
+ * PayloadNode root = inspector.inspect(bytes);
+ * System.out.println(root);
+ * }</pre>
+ *
+ * <p>Payloads with classes registered by id, out-of-band buffers or parallel serialized segments
+ * are not supported. This class is not thread safe.
+ *
+ * @see PayloadStats
+ */
+public class PayloadInspector {
+  static final String ROOT_TYPE_NAME = "<payload>";
+
+  private final ClassLoader classLoader;
+  private final Fory fory;
+  private final MetaContext metaContext;
+
+  /**
+   * Create an inspector for payloads serialized by {@link Fory} instances created from <code>
+   * builder</code>, which must use same options which affect serialized data, such as ref
+   * tracking, number compression and meta share. Options to read classes which don't exist are
+   * set on the builder.
+   */
+  public PayloadInspector(ForyBuilder builder) {
+    // Parent of system class loader can load JDK classes only.
+    classLoader = ClassLoader.getSystemClassLoader().getParent();
+    fory =
+        builder
+            .withDeserializeNonexistentClass(true)
+            .requireClassRegistration(false)
+            .suppressClassRegistrationWarnings(true)
+            .withCodegen(false)
+            .withClassLoader(classLoader)
+            .build();
+    Preconditions.checkArgument(
+        fory.getConfig().getLanguage() == Language.JAVA && fory.getConfig().isMetaShareEnabled(),
+        "Only java payloads with meta share enabled can be inspected");
+    // Class defs are shared across payloads if meta share is not scoped, so payloads must be
+    // inspected in the order they are serialized.
+    metaContext = fory.getConfig().isScopedMetaShareEnabled() ? null : new MetaContext();
+  }
+
+  public PayloadNode inspect(byte[] bytes) {
+    return inspect(MemoryUtils.wrap(bytes));
+  }
+
+  /** Read a payload from <code>buffer</code> and return the tree of its objects and fields. */
+  public PayloadNode inspect(MemoryBuffer buffer) {
+    PayloadRecorder recorder = new PayloadRecorder(buffer.readerIndex());
+    Thread thread = Thread.currentThread();
+    ClassLoader contextClassLoader = thread.getContextClassLoader();
+    // Classes are loaded from context class loader too, hide user classes from it.
+    thread.setContextClassLoader(classLoader);
+    try {
+      if (metaContext != null) {
+        fory.getSerializationContext().setMetaContext(metaContext);
+      }
+      fory.getSerializationContext().add(PayloadRecorder.class, recorder);
+      fory.deserialize(buffer);
+    } finally {
+      thread.setContextClassLoader(contextClassLoader);
+    }
+    return recorder.finish(buffer.readerIndex());
+  }
+
+  /**
+   * Inspect payload files and print bytes per type and field path. Serialization options can be
+   * set by a class implementing <code>Supplier&lt;ForyBuilder&gt;</code>, compatible mode is used
+   * by default.
+   */
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args) throws Exception {
+    boolean printTree = false;
+    String builderFactory = null;
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--tree")) {
+        printTree = true;
+      } else if (args[i].equals("--builder") && i + 1 < args.length) {
+        builderFactory = args[++i];
+      } else {
+        files.add(Paths.get(args[i]));
+      }
+    }
+    if (files.isEmpty()) {
+      System.err.println(
+          "Usage: PayloadInspector [--tree] [--builder <builderFactoryClass>] <file> [<file>...]");
+      System.exit(1);
+    }
+    ForyBuilder builder;
+    if (builderFactory == null) {
+      builder = Fory.builder().withCompatibleMode(CompatibleMode.COMPATIBLE);
+    } else {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      builder =
+          ((Supplier<ForyBuilder>)
+                  loader.loadClass(builderFactory).getDeclaredConstructor().newInstance())
+              .get();
+    }
+    PayloadInspector inspector = new PayloadInspector(builder);
+    PayloadStats stats = new PayloadStats();
+    for (Path file : files) {
+      PayloadNode root = inspector.inspect(Files.readAllBytes(file));
+      if (printTree) {
+        System.out.println(file);
+        System.out.print(root);
+      }
+      stats.add(root);
+    }
+    System.out.print(stats);
+  }
+}
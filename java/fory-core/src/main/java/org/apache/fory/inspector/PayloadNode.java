@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.inspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node of the tree built by {@link PayloadInspector}. An object node holds the fields of an
+ * object whose class is decoded from its class def, and a field node holds the objects nested in
+ * the field value. Offsets are reader indexes of the inspected buffer. Bytes of a node include its
+ * children, bytes of an object don't include its class info and ref flag, which are counted in the
+ * enclosing field.
+ */
+public final class PayloadNode {
+  private final String typeName;
+  private final String fieldName;
+  private final int offset;
+  private int size;
+  private final List<PayloadNode> children = new ArrayList<>();
+
+  PayloadNode(String typeName, String fieldName, int offset) {
+    this.typeName = typeName;
+    this.fieldName = fieldName;
+    this.offset = offset;
+  }
+
+  /** Returns class name of an object node, or null for a field node. */
+  public String getTypeName() {
+    return typeName;
+  }
+
+  /** Returns field name of a field node, or null for an object node. */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  public boolean isField() {
+    return fieldName != null;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  void setSize(int size) {
+    this.size = size;
+  }
+
+  public List<PayloadNode> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  void addChild(PayloadNode child) {
+    children.add(child);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    appendTo(builder, 0);
+    return builder.toString();
+  }
+
+  private void appendTo(StringBuilder builder, int indent) {
+    for (int i = 0; i < indent; i++) {
+      builder.append("  ");
+    }
+    builder.append(isField() ? "." + fieldName : typeName);
+    builder.append(" [").append(offset).append(", ").append(offset + size).append(") ");
+    builder.append(size).append(" bytes\n");
+    for (PayloadNode child : children) {
+      child.appendTo(builder, indent + 1);
+    }
+  }
+}
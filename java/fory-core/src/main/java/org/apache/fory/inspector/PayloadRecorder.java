@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.inspector;
+
+import java.util.ArrayList;
+import org.apache.fory.annotation.Internal;
+import org.apache.fory.resolver.SerializationContext;
+
+/**
+ * Records byte ranges of objects and fields when they are read, then builds a {@link PayloadNode}
+ * tree. It's set in {@link SerializationContext} by {@link PayloadInspector} and invoked by the
+ * serializers of classes decoded from class defs.
+ */
+@Internal
+public final class PayloadRecorder {
+  private final PayloadNode root;
+  private final ArrayList<PayloadNode> stack = new ArrayList<>();
+
+  PayloadRecorder(int offset) {
+    root = new PayloadNode(PayloadInspector.ROOT_TYPE_NAME, null, offset);
+    stack.add(root);
+  }
+
+  public void enterObject(String typeName, int offset) {
+    push(new PayloadNode(typeName, null, offset));
+  }
+
+  /** Enter a field, the field name is qualified by its declaring class. */
+  public void enterField(String qualifiedFieldName, int offset) {
+    String fieldName = qualifiedFieldName.substring(qualifiedFieldName.lastIndexOf('.') + 1);
+    push(new PayloadNode(null, fieldName, offset));
+  }
+
+  /** Exit the object or field entered lastly. */
+  public void exit(int endOffset) {
+    PayloadNode node = stack.remove(stack.size() - 1);
+    node.setSize(endOffset - node.getOffset());
+  }
+
+  private void push(PayloadNode node) {
+    stack.get(stack.size() - 1).addChild(node);
+    stack.add(node);
+  }
+
+  PayloadNode finish(int endOffset) {
+    root.setSize(endOffset - root.getOffset());
+    return root;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.inspector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates bytes of many inspected payloads per field path and per type. A field path starts
+ * with the class name of a top-level object, followed by names of the fields from it, e.g. <code>
+ * com.example.Order.items.price</code> for the <code>price</code> field of all objects in the
+ * <code>items</code> collection. This class is not thread safe.
+ *
+ * <pre>{@code
+ * PayloadStats stats = new PayloadStats();
+ * for (byte[] sample : samples) {
+ *   stats.add(inspector.inspect(sample));
+ * }
+ * System.out.println(stats);
+ * }</pre>
+ */
+public class PayloadStats {
+  private final Map<String, Entry> fieldStats = new HashMap<>();
+  private final Map<String, Entry> typeStats = new HashMap<>();
+  private long numPayloads;
+  private long totalBytes;
+
+  /** Add a tree returned by {@link PayloadInspector#inspect}. */
+  public void add(PayloadNode root) {
+    numPayloads++;
+    totalBytes += root.getSize();
+    for (PayloadNode child : root.getChildren()) {
+      addObject(child, child.getTypeName());
+    }
+  }
+
+  private void addObject(PayloadNode object, String path) {
+    record(typeStats, object.getTypeName(), object.getSize());
+    for (PayloadNode field : object.getChildren()) {
+      String fieldPath = path + "." + field.getFieldName();
+      record(fieldStats, fieldPath, field.getSize());
+      for (PayloadNode nested : field.getChildren()) {
+        addObject(nested, fieldPath);
+      }
+    }
+  }
+
+  private static void record(Map<String, Entry> stats, String key, int bytes) {
+    Entry entry = stats.computeIfAbsent(key, Entry::new);
+    entry.count++;
+    entry.bytes += bytes;
+  }
+
+  public long getNumPayloads() {
+    return numPayloads;
+  }
+
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /** Returns stats per field path, sorted by bytes in descending order. */
+  public List<Entry> getFieldStats() {
+    return sorted(fieldStats);
+  }
+
+  /** Returns stats per type of top-level and nested objects, sorted by bytes descending. */
+  public List<Entry> getTypeStats() {
+    return sorted(typeStats);
+  }
+
+  private static List<Entry> sorted(Map<String, Entry> stats) {
+    List<Entry> entries = new ArrayList<>(stats.values());
+    entries.sort((e1, e2) -> Long.compare(e2.bytes, e1.bytes));
+    return entries;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(numPayloads).append(" payloads, ").append(totalBytes).append(" bytes\n");
+    builder.append("Types:\n");
+    for (Entry entry : getTypeStats()) {
+      builder.append("  ").append(entry).append('\n');
+    }
+    builder.append("Fields:\n");
+    for (Entry entry : getFieldStats()) {
+      builder.append("  ").append(entry).append('\n');
+    }
+    return builder.toString();
+  }
+
+  /** Bytes of a field path or type. */
+  public static final class Entry {
+    private final String name;
+    private long count;
+    private long bytes;
+
+    private Entry(String name) {
+      this.name = name;
+    }
+
+    /** Returns the field path or class name. */
+    public String getName() {
+      return name;
+    }
+
+    /** Returns number of occurrences. */
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns total bytes of all occurrences. */
+    public long getBytes() {
+      return bytes;
+    }
+
+    @Override
+    public String toString() {
+      return name + ": " + bytes + " bytes, " + count + " times";
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A buffered output stream by fory which flushes data to the wrapped {@link OutputStream} when its
+ * buffer reaches the high-water mark, instead of growing the buffer to hold the whole serialized
+ * data. Do not write to the original {@link OutputStream} before this stream is flushed.
+ *
+ * <p>Note that bytes which may still be patched by serializers are retained in the buffer until
+ * patched, see {@link MemoryBuffer#holdFlushBarrier}.
+ */
+@NotThreadSafe
+public class ForyOutputStream extends OutputStream implements ForyStreamWriter {
+  private OutputStream stream;
+  private final int bufferSize;
+  private final MemoryBuffer buffer;
+
+  public ForyOutputStream(OutputStream stream) {
+    this(stream, 4096);
+  }
+
+  /**
+   * Create a stream which writes data to {@code stream}.
+   *
+   * @param stream stream to write data to.
+   * @param bufferSize high-water mark of the buffer, data will be flushed to {@code stream} when
+   *     it's reached.
+   */
+  public ForyOutputStream(OutputStream stream, int bufferSize) {
+    Preconditions.checkArgument(bufferSize > 0, "bufferSize must be positive: %s", bufferSize);
+    this.stream = stream;
+    this.bufferSize = bufferSize;
+    this.buffer = MemoryBuffer.newHeapBuffer(bufferSize, this);
+  }
+
+  @Override
+  public void writeToStream(byte[] src, int offset, int length) {
+    try {
+      stream.write(src, offset, length);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public MemoryBuffer getBuffer() {
+    return buffer;
+  }
+
+  public OutputStream getStream() {
+    return stream;
+  }
+
+  /**
+   * Discard all buffered data and switch to write data to {@code stream}. Buffered data should be
+   * flushed by {@link #flush()} before this call if they are needed.
+   */
+  public void reset(OutputStream stream) {
+    this.stream = stream;
+    byte[] heapMemory = buffer.getHeapMemory();
+    if (heapMemory.length > bufferSize) {
+      heapMemory = new byte[bufferSize];
+    }
+    buffer.initHeapBuffer(heapMemory, 0, heapMemory.length);
+    buffer.writerIndex(0);
+    buffer.releaseFlushBarrier(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Write all buffered data to the wrapped stream and rewind the buffer, do not invoke this method
+   * if the serialization for an object didn't finish.
+   */
+  public void flushBuffer() {
+    buffer.flushToStream();
+    if (buffer.size() > bufferSize) {
+      // buffer may grow when a single write is bigger than `bufferSize`.
+      buffer.initHeapBuffer(new byte[bufferSize], 0, bufferSize);
+    }
+  }
+
+  @Override
+  public void write(int b) {
+    buffer.writeByte(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    buffer.writeBytes(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    stream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flushBuffer();
+    stream.close();
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import java.io.OutputStream;
+import org.apache.fory.memory.MemoryBuffer;
+
+/**
+ * A streaming writer to make {@link MemoryBuffer} to support streaming writing. When the buffer is
+ * full, written data will be flushed to this writer instead of growing the buffer, so the memory
+ * used by serialization is bounded by the buffer size instead of the serialized data size.
+ *
+ * @see MemoryBuffer#newHeapBuffer(int, ForyStreamWriter)
+ */
+public interface ForyStreamWriter {
+
+  /**
+   * Write {@code length} bytes of {@code src} starting from {@code offset} to the underlying
+   * stream. The bytes can't be modified by the {@link MemoryBuffer} anymore after this call.
+   */
+  void writeToStream(byte[] src, int offset, int length);
+
+  /**
+   * Returns the underlying {@link MemoryBuffer}. This method will return same instance of buffer
+   * for same {@link ForyStreamWriter} instance.
+   */
+  MemoryBuffer getBuffer();
+
+  /**
+   * Create a {@link ForyOutputStream} from the provided {@link OutputStream}. Note that written
+   * data are buffered in the returned {@link ForyOutputStream}, invoke {@link
+   * ForyOutputStream#flush()} to write them to the provided {@link OutputStream}.
+   */
+  static ForyOutputStream of(OutputStream stream) {
+    return new ForyOutputStream(stream);
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.fory.BaseFory;
+import org.apache.fory.exception.DeserializationException;
+import org.apache.fory.memory.ByteBufferUtil;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.Platform;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A reader to deserialize a sequence of objects from a file by memory mapping, which supports files
+ * larger than 2GB. The file is mapped by windows, every window starts at an object boundary and
+ * grows when an object crosses the window end, so no file data will be copied to heap except the
+ * deserialized objects. Every object must be smaller than 2GB.
+ *
+ * <p>{@link java.nio.ByteBuffer} and other {@link org.apache.fory.serializer.BufferObject}s
+ * serialized in-band are deserialized as slices of the mapping without copy, they are still valid
+ * after this reader is closed.
+ *
+ * <pre>{@code
+ * try (MappedForyReader reader = MappedForyReader.open(path)) {
+ *   while (reader.hasRemaining()) {
+ *     Object o = reader.deserialize(fory);
+ *   }
+ * }
+ * }</pre>
+ */
+@NotThreadSafe
+public class MappedForyReader implements ForyStreamReader, Closeable {
+  public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final int windowSize;
+  private final MemoryBuffer buffer;
+  // file position of `buffer` index 0.
+  private long windowStart;
+
+  /** Create a reader which reads objects from current position of <code>channel</code>. */
+  public MappedForyReader(FileChannel channel) throws IOException {
+    this(channel, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Create a reader which reads objects from current position of <code>channel</code>. Note that
+   * the provided channel will be owned by the returned reader.
+   *
+   * @param windowSize default size of every mapping, a mapping will be bigger if an object doesn't
+   *     fit in it.
+   */
+  public MappedForyReader(FileChannel channel, int windowSize) throws IOException {
+    Preconditions.checkArgument(windowSize > 0, "windowSize must be positive: %s", windowSize);
+    this.channel = channel;
+    this.windowSize = windowSize;
+    fileSize = channel.size();
+    windowStart = channel.position();
+    if (windowStart < fileSize) {
+      MappedByteBuffer mapping = map(windowStart, Math.min(windowSize, fileSize - windowStart));
+      buffer = MemoryBuffer.fromDirectByteBuffer(mapping, mapping.capacity(), this);
+    } else {
+      buffer = MemoryBuffer.fromByteArray(new byte[0], 0, 0, this);
+    }
+  }
+
+  public static MappedForyReader open(Path path) throws IOException {
+    return new MappedForyReader(FileChannel.open(path, StandardOpenOption.READ));
+  }
+
+  /** Returns whether there is unread data in the file. */
+  public boolean hasRemaining() {
+    return position() < fileSize;
+  }
+
+  /** Returns file position of next object. */
+  public long position() {
+    return windowStart + buffer.readerIndex();
+  }
+
+  /** Deserialize next object in the file. */
+  public Object deserialize(BaseFory fory) {
+    startObject();
+    return fory.deserialize(buffer);
+  }
+
+  /** Deserialize next object in the file, which is serialized by {@code serializeJavaObject}. */
+  public <T> T deserializeJavaObject(BaseFory fory, Class<T> cls) {
+    startObject();
+    return fory.deserializeJavaObject(buffer, cls);
+  }
+
+  /** Returns an iterator which deserializes remaining objects lazily. */
+  public Iterator<Object> iterator(BaseFory fory) {
+    return new Iterator<Object>() {
+      @Override
+      public boolean hasNext() {
+        return hasRemaining();
+      }
+
+      @Override
+      public Object next() {
+        if (!hasRemaining()) {
+          throw new NoSuchElementException();
+        }
+        return deserialize(fory);
+      }
+    };
+  }
+
+  private void startObject() {
+    MemoryBuffer buffer = this.buffer;
+    int readerIndex = buffer.readerIndex();
+    // Move window to object start if not much data left in current window. Window won't be moved
+    // inside an object, so that buffer indexes saved by deserialization are still valid.
+    if (readerIndex > 0
+        && buffer.size() - readerIndex < windowSize / 2
+        && windowStart + buffer.size() < fileSize) {
+      long start = windowStart + readerIndex;
+      remap(start, Math.min(windowSize, fileSize - start));
+      buffer.readerIndex(0);
+    }
+  }
+
+  @Override
+  public int fillBuffer(int minFillSize) {
+    MemoryBuffer buffer = this.buffer;
+    int size = buffer.size();
+    long required = (long) size + minFillSize;
+    if (windowStart + required > fileSize) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Read %d bytes from position %d exceeds file size %d",
+              minFillSize, windowStart + size, fileSize));
+    }
+    if (required > Integer.MAX_VALUE) {
+      throw new DeserializationException(
+          String.format(
+              "Object at position %d is bigger than 2GB, which can't be mapped",
+              windowStart + buffer.readerIndex()));
+    }
+    long newSize = Math.max(required, Math.min((long) size + windowSize, Integer.MAX_VALUE));
+    newSize = Math.min(newSize, fileSize - windowStart);
+    int readerIndex = buffer.readerIndex();
+    remap(windowStart, newSize);
+    buffer.readerIndex(readerIndex);
+    return (int) (newSize - size);
+  }
+
+  private void remap(long start, long size) {
+    MappedByteBuffer mapping = map(start, size);
+    // Previous mapping will be unmapped when it's not referenced by any deserialized buffer.
+    buffer.initDirectBuffer(ByteBufferUtil.getAddress(mapping), (int) size, mapping);
+    windowStart = start;
+  }
+
+  private MappedByteBuffer map(long start, long size) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    } catch (IOException e) {
+      throw new DeserializationException("Failed to map file at position " + start, e);
+    }
+  }
+
+  @Override
+  public void readTo(byte[] dst, int dstIndex, int length) {
+    MemoryBuffer buf = buffer;
+    buf.checkReadableBytes(length);
+    buf.readBytes(dst, dstIndex, length);
+  }
+
+  @Override
+  public void readToUnsafe(Object target, long targetPointer, int numBytes) {
+    MemoryBuffer buf = buffer;
+    buf.checkReadableBytes(numBytes);
+    Platform.copyMemory(null, buf.getUnsafeReaderAddress(), target, targetPointer, numBytes);
+    buf.increaseReaderIndex(numBytes);
+  }
+
+  @Override
+  public void readToByteBuffer(ByteBuffer dst, int length) {
+    MemoryBuffer buf = buffer;
+    buf.checkReadableBytes(length);
+    buf.read(dst, length);
+  }
+
+  @Override
+  public int readToByteBuffer(ByteBuffer dst) {
+    int length = (int) Math.min(dst.remaining(), fileSize - position());
+    readToByteBuffer(dst, length);
+    return length;
+  }
+
+  @Override
+  public MemoryBuffer getBuffer() {
+    return buffer;
+  }
+
+  /** Close the file channel, deserialized buffers backed by the mappings are still valid. */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * An output which holds serialized data in a chain of fixed-size segments instead of a single
+ * growing array. Data are written to {@link #getBuffer()} as usual, when the buffer is full,
+ * written data are moved to the segments instead of reallocating the buffer and copying all data
+ * written so far. So every byte is copied only once, and no contiguous array of the whole payload
+ * is needed, which makes it suitable for building payloads of hundreds of megabytes:
+ *
+ * <pre>{@code
+ * SegmentedOutput output = new SegmentedOutput();
+ * fory.serialize(output.getBuffer(), obj);
+ * output.writeTo(channel);
+ * }</pre>
+ *
+ * <p>Note that data of a single serialization are limited to {@link Integer#MAX_VALUE} bytes, but
+ * multiple objects can be serialized to the same output.
+ */
+@NotThreadSafe
+public class SegmentedOutput implements ForyStreamWriter, Iterable<ByteBuffer> {
+  public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+  private final int segmentSize;
+  private final MemoryBuffer buffer;
+  private final List<byte[]> segments = new ArrayList<>();
+  private byte[] current;
+  // Number of bytes in `current` segment.
+  private int position;
+  private long flushedBytes;
+
+  public SegmentedOutput() {
+    this(DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Create an output whose data are held in segments of {@code segmentSize} bytes. The buffer for
+   * serialization has the same initial size.
+   */
+  public SegmentedOutput(int segmentSize) {
+    Preconditions.checkArgument(segmentSize > 0, "segmentSize must be positive: %s", segmentSize);
+    this.segmentSize = segmentSize;
+    this.buffer = MemoryBuffer.newHeapBuffer(segmentSize, this);
+  }
+
+  @Override
+  public void writeToStream(byte[] src, int offset, int length) {
+    flushedBytes += length;
+    byte[] current = this.current;
+    int position = this.position;
+    if (current != null && length <= segmentSize - position) {
+      System.arraycopy(src, offset, current, position, length);
+      this.position = position + length;
+      return;
+    }
+    writeSlow(src, offset, length);
+  }
+
+  // Write bytes which straddle segment boundaries.
+  private void writeSlow(byte[] src, int offset, int length) {
+    byte[] current = this.current;
+    int position = this.position;
+    while (length > 0) {
+      if (current == null || position == segmentSize) {
+        current = new byte[segmentSize];
+        segments.add(current);
+        position = 0;
+      }
+      int numBytes = Math.min(length, segmentSize - position);
+      System.arraycopy(src, offset, current, position, numBytes);
+      position += numBytes;
+      offset += numBytes;
+      length -= numBytes;
+    }
+    this.current = current;
+    this.position = position;
+  }
+
+  @Override
+  public MemoryBuffer getBuffer() {
+    return buffer;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Move all data written to {@link #getBuffer()} to the segments, do not invoke this method if
+   * the serialization for an object didn't finish.
+   */
+  public void flush() {
+    buffer.flushToStream();
+    if (buffer.size() > segmentSize) {
+      // buffer may grow when a single write is bigger than `segmentSize`.
+      buffer.initHeapBuffer(new byte[segmentSize], 0, segmentSize);
+    }
+  }
+
+  /** Returns number of bytes written to this output, written data will be flushed first. */
+  public long size() {
+    flush();
+    return flushedBytes;
+  }
+
+  /** Returns number of segments, data in {@link #getBuffer()} are not counted until flushed. */
+  public int numSegments() {
+    return segments.size();
+  }
+
+  /**
+   * Returns all data as {@link ByteBuffer}s wrapping the segments without copy, written data will
+   * be flushed first. The returned buffers are invalid after {@link #reset()}.
+   */
+  public ByteBuffer[] toByteBuffers() {
+    flush();
+    int numSegments = segments.size();
+    ByteBuffer[] buffers = new ByteBuffer[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      buffers[i] = wrapSegment(i);
+    }
+    return buffers;
+  }
+
+  private ByteBuffer wrapSegment(int index) {
+    int length = index == segments.size() - 1 ? position : segmentSize;
+    return ByteBuffer.wrap(segments.get(index), 0, length);
+  }
+
+  /**
+   * Returns an iterator of {@link ByteBuffer}s wrapping the segments without copy, written data
+   * will be flushed first.
+   */
+  @Override
+  public Iterator<ByteBuffer> iterator() {
+    flush();
+    return new Iterator<ByteBuffer>() {
+      private final int numSegments = segments.size();
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < numSegments;
+      }
+
+      @Override
+      public ByteBuffer next() {
+        return wrapSegment(index++);
+      }
+    };
+  }
+
+  /**
+   * Write all data to {@code channel} by gathering writes, written data will be flushed first. The
+   * channel should be in blocking mode, otherwise this method will spin until all data are written.
+   *
+   * @return number of bytes written.
+   */
+  public long writeTo(GatheringByteChannel channel) throws IOException {
+    ByteBuffer[] buffers = toByteBuffers();
+    long written = 0;
+    int index = 0;
+    while (index < buffers.length) {
+      written += channel.write(buffers, index, buffers.length - index);
+      while (index < buffers.length && !buffers[index].hasRemaining()) {
+        index++;
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Returns all data as a single array, written data will be flushed first. This copies all data
+   * and should be used for small payloads only.
+   */
+  public byte[] toByteArray() {
+    flush();
+    Preconditions.checkArgument(
+        flushedBytes <= Integer.MAX_VALUE - 8, "Data size %s exceeds max array size", flushedBytes);
+    byte[] bytes = new byte[(int) flushedBytes];
+    int offset = 0;
+    for (ByteBuffer buf : toByteBuffers()) {
+      int length = buf.remaining();
+      System.arraycopy(buf.array(), 0, bytes, offset, length);
+      offset += length;
+    }
+    return bytes;
+  }
+
+  /** Discard all data of this output, including data not flushed yet. */
+  public void reset() {
+    byte[] heapMemory = buffer.getHeapMemory();
+    if (heapMemory.length > segmentSize) {
+      heapMemory = new byte[segmentSize];
+    }
+    buffer.initHeapBuffer(heapMemory, 0, heapMemory.length);
+    buffer.writerIndex(0);
+    buffer.releaseFlushBarrier(Integer.MAX_VALUE);
+    segments.clear();
+    current = null;
+    position = 0;
+    flushedBytes = 0;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.memory;
+
+/**
+ * Allocator of off-heap {@link MemoryBuffer}s. Buffers allocated by an allocator grow into memory
+ * allocated by the same allocator, and must be released to it once their data is consumed.
+ *
+ * @see PooledMemoryAllocator
+ */
+public interface MemoryAllocator {
+  /** Allocate a buffer of at least <code>size</code> bytes. */
+  MemoryBuffer allocate(int size);
+
+  /** Allocate a buffer whose size is chosen by the allocator, used when data size is unknown. */
+  MemoryBuffer allocate();
+
+  /**
+   * Move data of <code>buffer</code> to memory of at least <code>length</code> bytes, then release
+   * previous memory. Invoked by the buffer when it's not big enough.
+   */
+  void grow(MemoryBuffer buffer, int length);
+
+  /** Release memory of <code>buffer</code>, which can't be used anymore. */
+  void release(MemoryBuffer buffer);
+}
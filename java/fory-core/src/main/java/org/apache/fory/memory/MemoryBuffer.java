@@ -26,6 +26,7 @@ import java.util.Arrays;
 import org.apache.fory.annotation.CodegenInvoke;
 import org.apache.fory.io.AbstractStreamReader;
 import org.apache.fory.io.ForyStreamReader;
+import org.apache.fory.io.ForyStreamWriter;
 import sun.misc.Unsafe;
 
 /**
@@ -88,6 +89,16 @@ public final class MemoryBuffer {
   private int readerIndex;
   private int writerIndex;
   private final ForyStreamReader streamReader;
+  // If not null, written data will be flushed to this writer instead of growing the buffer. Indexes
+  // are kept unchanged after flush: `heapOffset` will be `-flushedBytes`, so that index `i` is
+  // mapped to `heapMemory[i - flushedBytes]`.
+  private ForyStreamWriter streamWriter;
+  // Data at and after this index can't be flushed to `streamWriter` since they may be patched.
+  private int flushBarrier = Integer.MAX_VALUE;
+  // Whether last flush stopped at `flushBarrier` and the buffer has to hold data after it.
+  private boolean flushBlocked;
+  // If not null, the buffer grows into memory allocated by this allocator instead of a heap buffer.
+  private MemoryAllocator allocator;
 
   /**
    * Creates a new memory buffer that represents the memory of the byte array.
@@ -264,6 +275,11 @@ public final class MemoryBuffer {
     }
   }
 
+  /** Returns the allocator of this buffer, or null if it's not allocated by an allocator. */
+  public MemoryAllocator getAllocator() {
+    return allocator;
+  }
+
   /**
    * Returns the byte array of on-heap memory buffers.
    *
@@ -482,7 +498,7 @@ public final class MemoryBuffer {
   }
 
   // CHECKSTYLE.OFF:MethodName
-  private int _unsafeGetInt32(int index) {
+  public int _unsafeGetInt32(int index) {
     // CHECKSTYLE.ON:MethodName
     int v = UNSAFE.getInt(heapMemory, address + index);
     return LITTLE_ENDIAN ? v : Integer.reverseBytes(v);
@@ -514,14 +530,14 @@ public final class MemoryBuffer {
   }
 
   // CHECKSTYLE.OFF:MethodName
-  long _unsafeGetInt64(int index) {
+  public long _unsafeGetInt64(int index) {
     // CHECKSTYLE.ON:MethodName
     long v = UNSAFE.getLong(heapMemory, address + index);
     return LITTLE_ENDIAN ? v : Long.reverseBytes(v);
   }
 
   // CHECKSTYLE.OFF:MethodName
-  private void _unsafePutInt64(int index, long value) {
+  public void _unsafePutInt64(int index, long value) {
     // CHECKSTYLE.ON:MethodName
     if (!LITTLE_ENDIAN) {
       value = Long.reverseBytes(value);
@@ -1229,7 +1245,10 @@ public final class MemoryBuffer {
     writerIndex = newIdx;
   }
 
-  /** For off-heap buffer, this will make a heap buffer internally. */
+  /**
+   * For off-heap buffer, this will make a heap buffer internally, unless the buffer is allocated by
+   * a {@link MemoryAllocator}.
+   */
   public void grow(int neededSize) {
     int length = writerIndex + neededSize;
     if (length > size) {
@@ -1237,7 +1256,10 @@ public final class MemoryBuffer {
     }
   }
 
-  /** For off-heap buffer, this will make a heap buffer internally. */
+  /**
+   * For off-heap buffer, this will make a heap buffer internally, unless the buffer is allocated by
+   * a {@link MemoryAllocator}.
+   */
   public void ensure(int length) {
     if (length > size) {
       growBuffer(length);
@@ -1245,6 +1267,14 @@ public final class MemoryBuffer {
   }
 
   private void growBuffer(int length) {
+    if (streamWriter != null) {
+      growStreamBuffer(length);
+      return;
+    }
+    if (allocator != null) {
+      allocator.grow(this, length);
+      return;
+    }
     int newSize =
         length < BUFFER_GROW_STEP_THRESHOLD
             ? length << 2
@@ -1254,6 +1284,89 @@ public final class MemoryBuffer {
     initHeapBuffer(data, 0, data.length);
   }
 
+  private void growStreamBuffer(int length) {
+    byte[] heapMemory = this.heapMemory;
+    int flushedIndex = -heapOffset;
+    int flushEnd = Math.min(writerIndex, flushBarrier);
+    flushBlocked = flushEnd < writerIndex;
+    if (flushEnd > flushedIndex) {
+      int numBytes = flushEnd - flushedIndex;
+      streamWriter.writeToStream(heapMemory, 0, numBytes);
+      System.arraycopy(heapMemory, numBytes, heapMemory, 0, writerIndex - flushEnd);
+      flushedIndex = flushEnd;
+    }
+    int neededSize = length - flushedIndex;
+    if (neededSize > heapMemory.length) {
+      int newSize =
+          neededSize < BUFFER_GROW_STEP_THRESHOLD
+              ? neededSize << 1
+              : (int) Math.min(neededSize * 1.5d, Integer.MAX_VALUE - 8);
+      heapMemory = Arrays.copyOf(heapMemory, newSize);
+    }
+    if ((long) flushedIndex + heapMemory.length > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+          String.format(
+              "Streaming write exceeds max size %d of a single serialization, flushed %d bytes",
+              Integer.MAX_VALUE, flushedIndex));
+    }
+    initHeapBuffer(heapMemory, -flushedIndex, flushedIndex + heapMemory.length);
+  }
+
+  /**
+   * Write all written data to the {@link ForyStreamWriter} of this buffer, then rewind the buffer
+   * so that indexes start from zero again. Do not invoke this method if written data may still be
+   * patched.
+   */
+  public void flushToStream() {
+    checkArgument(streamWriter != null, "Not a streaming buffer");
+    int flushedIndex = -heapOffset;
+    if (writerIndex > flushedIndex) {
+      streamWriter.writeToStream(heapMemory, 0, writerIndex - flushedIndex);
+    }
+    initHeapBuffer(heapMemory, 0, heapMemory.length);
+    writerIndex = 0;
+    readerIndex = 0;
+    flushBarrier = Integer.MAX_VALUE;
+    flushBlocked = false;
+  }
+
+  /**
+   * Prevent data at and after {@code index} from being flushed to the {@link ForyStreamWriter} of
+   * this buffer, so that they can still be patched by {@code putXXX} methods. This is a no-op for
+   * buffers without a stream writer. The returned value must be passed to {@link
+   * #releaseFlushBarrier} after patch finished.
+   *
+   * @return previous flush barrier.
+   */
+  public int holdFlushBarrier(int index) {
+    int barrier = flushBarrier;
+    if (index < barrier) {
+      flushBarrier = index;
+    }
+    return barrier;
+  }
+
+  /**
+   * Returns true if last flush to the {@link ForyStreamWriter} stopped at the flush barrier, and
+   * the buffer has to hold data after it. Writers holding a flush barrier should patch and release
+   * it as early as possible in such case. This is always false for buffers without a stream writer.
+   */
+  public boolean isFlushBlocked() {
+    return flushBlocked;
+  }
+
+  /** Restore flush barrier returned by {@link #holdFlushBarrier}. */
+  public void releaseFlushBarrier(int barrier) {
+    flushBarrier = barrier;
+    if (barrier == Integer.MAX_VALUE) {
+      flushBlocked = false;
+    }
+  }
+
+  public ForyStreamWriter getStreamWriter() {
+    return streamWriter;
+  }
+
   // -------------------------------------------------------------------------
   //                          Read Methods
   // -------------------------------------------------------------------------
@@ -2650,6 +2763,20 @@ public final class MemoryBuffer {
     return new MemoryBuffer(offHeapAddress, size, buffer, streamReader);
   }
 
+  /**
+   * Creates a new memory buffer that represents the direct <code>buffer</code> allocated by <code>
+   * allocator</code>. The buffer will grow into memory allocated by <code>allocator</code> if not
+   * enough.
+   */
+  public static MemoryBuffer fromDirectByteBuffer(ByteBuffer buffer, MemoryAllocator allocator) {
+    checkArgument(buffer.isDirect(), "Not a direct buffer");
+    MemoryBuffer memoryBuffer =
+        new MemoryBuffer(
+            ByteBufferUtil.getAddress(buffer) + buffer.position(), buffer.remaining(), buffer);
+    memoryBuffer.allocator = allocator;
+    return memoryBuffer;
+  }
+
   /**
    * Creates a new memory buffer that represents the provided native memory. The buffer will change
    * into a heap buffer automatically if not enough.
@@ -2665,4 +2792,14 @@ public final class MemoryBuffer {
   public static MemoryBuffer newHeapBuffer(int initialSize) {
     return fromByteArray(new byte[initialSize]);
   }
+
+  /**
+   * Create a heap buffer of specified initial size, written data will be flushed to {@code
+   * streamWriter} when the buffer is full instead of growing the buffer.
+   */
+  public static MemoryBuffer newHeapBuffer(int initialSize, ForyStreamWriter streamWriter) {
+    MemoryBuffer buffer = fromByteArray(new byte[initialSize]);
+    buffer.streamWriter = streamWriter;
+    return buffer;
+  }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.memory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A {@link MemoryAllocator} which pools direct buffers by power-of-two size classes. Released
+ * buffers are cached by the releasing thread first, then by a pool shared by all threads, and
+ * dropped if both are full. Requests larger than the max size class are not pooled. Memory of
+ * dropped buffers is freed by GC as other direct buffers.
+ *
+ * <p>Buffers don't need to be released by the allocating thread, e.g. a buffer can be allocated by
+ * a business thread and released by an IO thread after its data is written to a socket. But a
+ * buffer must be released only once, and mustn't be used after it's released.
+ *
+ * <pre>{@code
+ * PooledMemoryAllocator allocator = new PooledMemoryAllocator();
+ * MemoryBuffer buffer = fory.serialize(obj, allocator);
+ * channel.write(buffer.sliceAsByteBuffer(0, buffer.writerIndex()));
+ * allocator.release(buffer);
+ * }</pre>
+ */
+public class PooledMemoryAllocator implements MemoryAllocator {
+  public static final int DEFAULT_MIN_SIZE = 1024;
+  public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+  public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+  public static final long DEFAULT_SHARED_CACHE_BYTES = 64L * 1024 * 1024;
+
+  private final int minSizeShift;
+  private final int maxSizeShift;
+  private final ArrayBlockingQueue<ByteBuffer>[] sharedCaches;
+  private final ThreadLocal<ThreadCache> threadCache;
+  // Size of last released buffer, which is used as the size of buffers for unknown data size.
+  private int sizeHint;
+
+  public PooledMemoryAllocator() {
+    this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_SHARED_CACHE_BYTES);
+  }
+
+  /**
+   * Create an allocator which pools buffers from <code>minSize</code> to <code>maxSize</code>
+   * bytes, both are rounded up to a power of two.
+   *
+   * @param threadCacheSize max number of buffers cached by a thread for every size class.
+   * @param sharedCacheBytes max bytes of buffers cached by the shared pool, which are distributed
+   *     to size classes evenly.
+   */
+  @SuppressWarnings("unchecked")
+  public PooledMemoryAllocator(
+      int minSize, int maxSize, int threadCacheSize, long sharedCacheBytes) {
+    Preconditions.checkArgument(
+        minSize > 0 && minSize <= maxSize && maxSize <= 1 << 30,
+        "Invalid size range [%s, %s]",
+        minSize,
+        maxSize);
+    Preconditions.checkArgument(threadCacheSize >= 0 && sharedCacheBytes >= 0);
+    minSizeShift = sizeShift(minSize);
+    maxSizeShift = sizeShift(maxSize);
+    int numSizeClasses = maxSizeShift - minSizeShift + 1;
+    sharedCaches = new ArrayBlockingQueue[numSizeClasses];
+    for (int i = 0; i < numSizeClasses; i++) {
+      long capacity = sharedCacheBytes / numSizeClasses >> (minSizeShift + i);
+      sharedCaches[i] = new ArrayBlockingQueue<>((int) Math.max(1, capacity));
+    }
+    threadCache = ThreadLocal.withInitial(() -> new ThreadCache(numSizeClasses, threadCacheSize));
+    sizeHint = 1 << minSizeShift;
+  }
+
+  private static int sizeShift(int size) {
+    return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  @Override
+  public MemoryBuffer allocate(int size) {
+    Preconditions.checkArgument(size >= 0, "Negative size %s", size);
+    return MemoryBuffer.fromDirectByteBuffer(allocateDirect(size), this);
+  }
+
+  @Override
+  public MemoryBuffer allocate() {
+    return allocate(sizeHint);
+  }
+
+  private ByteBuffer allocateDirect(int size) {
+    int shift = Math.max(sizeShift(size), minSizeShift);
+    if (shift > maxSizeShift) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    int sizeClass = shift - minSizeShift;
+    ByteBuffer buffer = threadCache.get().poll(sizeClass);
+    if (buffer == null) {
+      buffer = sharedCaches[sizeClass].poll();
+      if (buffer == null) {
+        buffer = ByteBuffer.allocateDirect(1 << shift);
+      }
+    }
+    return buffer;
+  }
+
+  @Override
+  public void grow(MemoryBuffer buffer, int length) {
+    int size = buffer.size();
+    int newSize = (int) Math.min(Math.max(length, (long) size << 1), Integer.MAX_VALUE - 8);
+    ByteBuffer newBuffer = allocateDirect(newSize);
+    long address = ByteBufferUtil.getAddress(newBuffer);
+    buffer.copyToUnsafe(0, null, address, size);
+    ByteBuffer oldBuffer = buffer.isOffHeap() ? buffer.getOffHeapBuffer() : null;
+    buffer.initDirectBuffer(address, newBuffer.capacity(), newBuffer);
+    if (oldBuffer != null) {
+      recycle(oldBuffer);
+    }
+  }
+
+  @Override
+  public void release(MemoryBuffer buffer) {
+    Preconditions.checkArgument(
+        buffer.getAllocator() == this, "Buffer is not allocated by %s", this);
+    sizeHint = Math.max(buffer.writerIndex(), 1 << minSizeShift);
+    if (buffer.isOffHeap()) {
+      recycle(buffer.getOffHeapBuffer());
+    }
+  }
+
+  private void recycle(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    int shift = sizeShift(capacity);
+    if (capacity != 1 << shift || shift < minSizeShift || shift > maxSizeShift) {
+      // Not pooled.
+      return;
+    }
+    int sizeClass = shift - minSizeShift;
+    buffer.clear();
+    if (!threadCache.get().offer(sizeClass, buffer)) {
+      sharedCaches[sizeClass].offer(buffer);
+    }
+  }
+
+  private static final class ThreadCache {
+    private final ByteBuffer[][] buffers;
+    private final int[] sizes;
+
+    private ThreadCache(int numSizeClasses, int threadCacheSize) {
+      buffers = new ByteBuffer[numSizeClasses][threadCacheSize];
+      sizes = new int[numSizeClasses];
+    }
+
+    private ByteBuffer poll(int sizeClass) {
+      int size = sizes[sizeClass];
+      if (size == 0) {
+        return null;
+      }
+      ByteBuffer[] cache = buffers[sizeClass];
+      ByteBuffer buffer = cache[--size];
+      cache[size] = null;
+      sizes[sizeClass] = size;
+      return buffer;
+    }
+
+    private boolean offer(int sizeClass, ByteBuffer buffer) {
+      int size = sizes[sizeClass];
+      ByteBuffer[] cache = buffers[sizeClass];
+      if (size == cache.length) {
+        return false;
+      }
+      cache[size] = buffer;
+      sizes[sizeClass] = size + 1;
+      return true;
+    }
+  }
+}
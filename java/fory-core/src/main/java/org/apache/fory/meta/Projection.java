@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.meta;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import org.apache.fory.Fory;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A set of field paths to read when deserializing objects by {@link ClassDef}. Fields which are
+ * not in the projection are skipped and left as default values, a path such as
+ * <code>"user.name"</code> reads only <code>name</code> of field <code>user</code>.
+ *
+ * <p>Paths are resolved by field names of object fields only, a path into a collection, map or
+ * array field reads the whole field. Projection requires {@link CompatibleMode#COMPATIBLE} with
+ * meta share enabled, classes which are not serialized with field meta are always read fully.
+ *
+ * @see Fory#deserialize(org.apache.fory.memory.MemoryBuffer, Class, Projection)
+ */
+public final class Projection {
+  private static final Projection ALL = new Projection(Collections.emptyMap());
+
+  // Empty children means all fields are read.
+  private final Map<String, Projection> children;
+
+  private Projection(Map<String, Projection> children) {
+    this.children = children;
+  }
+
+  public static Projection of(String... paths) {
+    return of(Arrays.asList(paths));
+  }
+
+  public static Projection of(Collection<String> paths) {
+    Preconditions.checkArgument(!paths.isEmpty(), "Projection paths are empty");
+    Map<String, Object> tree = new TreeMap<>();
+    for (String path : paths) {
+      Preconditions.checkNotNull(path);
+      String[] names = path.split("\\.", -1);
+      Map<String, Object> node = tree;
+      for (int i = 0; i < names.length; i++) {
+        String name = names[i];
+        Preconditions.checkArgument(!name.isEmpty(), "Invalid projection path %s", path);
+        if (i == names.length - 1) {
+          // A shorter path reads the whole field and overrides longer paths.
+          node.put(name, ALL);
+        } else {
+          Object child = node.get(name);
+          if (child == ALL) {
+            break;
+          }
+          if (child == null) {
+            child = new TreeMap<String, Object>();
+            node.put(name, child);
+          }
+          node = castTree(child);
+        }
+      }
+    }
+    return build(tree);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> castTree(Object node) {
+    return (Map<String, Object>) node;
+  }
+
+  private static Projection build(Map<String, Object> tree) {
+    Map<String, Projection> children = new TreeMap<>();
+    for (Map.Entry<String, Object> entry : tree.entrySet()) {
+      Object child = entry.getValue();
+      children.put(entry.getKey(), child == ALL ? ALL : build(castTree(child)));
+    }
+    return new Projection(Collections.unmodifiableMap(children));
+  }
+
+  /** Returns true if all fields are read. */
+  public boolean isAll() {
+    return children.isEmpty();
+  }
+
+  /**
+   * Returns projection of field <code>name</code>, or null if the field is not projected and should
+   * be skipped.
+   */
+  public Projection getChild(String name) {
+    return isAll() ? ALL : children.get(name);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return children.equals(((Projection) o).children);
+  }
+
+  @Override
+  public int hashCode() {
+    return children.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    if (isAll()) {
+      return "*";
+    }
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    children.forEach(
+        (name, child) -> joiner.add(child.isAll() ? name : name + ": " + child.toString()));
+    return joiner.toString();
+  }
+}
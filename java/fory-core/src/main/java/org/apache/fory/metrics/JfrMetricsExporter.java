@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emit {@link SerializationMetrics} as periodic JDK Flight Recorder events: an <code>
+ * org.apache.fory.TypeMetrics</code> event per type and an <code>org.apache.fory.JITMetrics</code>
+ * event. Events are emitted every 10 seconds by default, which can be changed by the
+ * <code>period</code> setting of a recording. Values are accumulated since creation or last {@link
+ * SerializationMetrics#reset()}.
+ *
+ * <p>This class requires JFR, which is available since JDK 11 and backported to JDK 8u262.
+ */
+public class JfrMetricsExporter implements AutoCloseable {
+  private final Runnable typeMetricsHook;
+  private final Runnable jitMetricsHook;
+
+  public JfrMetricsExporter(SerializationMetrics metrics) {
+    typeMetricsHook =
+        () -> {
+          for (TypeMetrics m : metrics.getTypeMetrics()) {
+            TypeMetricsEvent event = new TypeMetricsEvent();
+            event.typeName = m.getTypeName();
+            event.writeCount = m.getWriteCount();
+            event.writeBytes = m.getWriteBytes();
+            event.writeNanos = m.getWriteNanos();
+            event.readCount = m.getReadCount();
+            event.readBytes = m.getReadBytes();
+            event.readNanos = m.getReadNanos();
+            event.commit();
+          }
+        };
+    jitMetricsHook =
+        () -> {
+          JITMetricsEvent event = new JITMetricsEvent();
+          event.compileCount = metrics.getJITCompileCount();
+          event.compileNanos = metrics.getJITCompileNanos();
+          event.maxCompileNanos = metrics.getMaxJITCompileNanos();
+          event.commit();
+        };
+    FlightRecorder.addPeriodicEvent(TypeMetricsEvent.class, typeMetricsHook);
+    FlightRecorder.addPeriodicEvent(JITMetricsEvent.class, jitMetricsHook);
+  }
+
+  @Override
+  public void close() {
+    FlightRecorder.removePeriodicEvent(typeMetricsHook);
+    FlightRecorder.removePeriodicEvent(jitMetricsHook);
+  }
+
+  @Name("org.apache.fory.TypeMetrics")
+  @Label("Fory Type Metrics")
+  @Description("Serialization metrics of a type")
+  @Category({"Apache Fory", "Serialization"})
+  @Period("10 s")
+  @StackTrace(false)
+  public static class TypeMetricsEvent extends Event {
+    @Label("Type")
+    String typeName;
+
+    @Label("Write Count")
+    long writeCount;
+
+    @Label("Write Bytes")
+    @DataAmount
+    long writeBytes;
+
+    @Label("Write Time")
+    @Timespan
+    long writeNanos;
+
+    @Label("Read Count")
+    long readCount;
+
+    @Label("Read Bytes")
+    @DataAmount
+    long readBytes;
+
+    @Label("Read Time")
+    @Timespan
+    long readNanos;
+  }
+
+  @Name("org.apache.fory.JITMetrics")
+  @Label("Fory JIT Metrics")
+  @Description("Serializer JIT compilation metrics")
+  @Category({"Apache Fory", "Serialization"})
+  @Period("10 s")
+  @StackTrace(false)
+  public static class JITMetricsEvent extends Event {
+    @Label("Compile Count")
+    long compileCount;
+
+    @Label("Compile Time")
+    @Timespan
+    long compileNanos;
+
+    @Label("Max Compile Time")
+    @Timespan
+    long maxCompileNanos;
+  }
+}
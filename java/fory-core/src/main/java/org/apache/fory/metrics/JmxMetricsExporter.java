@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.fory.exception.ForyException;
+
+/**
+ * Register {@link SerializationMetrics} as a platform MXBean named <code>
+ * org.apache.fory:type=SerializationMetrics,name=${name}</code>, and unregister it when closed.
+ *
+ * <pre>{@code
+ * JmxMetricsExporter exporter = new JmxMetricsExporter(metrics, "orderService");
+ * ...
+ * exporter.close();
+ * }</pre>
+ */
+public class JmxMetricsExporter implements AutoCloseable {
+  private final MBeanServer server;
+  private final ObjectName objectName;
+
+  public JmxMetricsExporter(SerializationMetrics metrics, String name) {
+    server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      objectName =
+          new ObjectName(
+              "org.apache.fory:type=SerializationMetrics,name=" + ObjectName.quote(name));
+      server.registerMBean(metrics, objectName);
+    } catch (JMException e) {
+      throw new ForyException("Failed to register serialization metrics " + name, e);
+    }
+  }
+
+  public ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+    } catch (JMException e) {
+      throw new ForyException("Failed to unregister serialization metrics " + objectName, e);
+    }
+  }
+}
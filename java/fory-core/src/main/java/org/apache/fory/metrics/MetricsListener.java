@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import org.apache.fory.config.ForyBuilder;
+
+/**
+ * Listener notified of serialization metrics, see {@link ForyBuilder#withMetricsListener}. Every
+ * object whose type is resolved at runtime by {@link org.apache.fory.Fory} is reported with its
+ * type and size in bytes, such as root objects, elements of collections of different types and
+ * fields of non-final types read by interpreter serializers. Objects which are written inline by
+ * their parents, such as fields of final types, elements of collections of the same type and all
+ * fields of serializers generated by JIT, are not reported separately but counted in the size of
+ * their parents. Since reading the clock is much more expensive than serializing small objects,
+ * latency is measured for one in {@link #timeSampleInterval()} objects only.
+ *
+ * <p>Implementations must be thread safe and cheap, they are invoked on serialization threads.
+ *
+ * @see SerializationMetrics
+ */
+public interface MetricsListener {
+  /**
+   * Latency is measured every <code>timeSampleInterval</code> objects, must be a power of two.
+   * Return 1 to measure all objects.
+   */
+  default int timeSampleInterval() {
+    return 64;
+  }
+
+  /**
+   * Invoked after an object of type <code>cls</code> is serialized.
+   *
+   * @param numBytes serialized bytes of the object, including nested objects.
+   * @param nanos elapsed nanoseconds, or -1 if not sampled.
+   */
+  void onWrite(Class<?> cls, int numBytes, long nanos);
+
+  /**
+   * Invoked after an object of type <code>cls</code> is deserialized.
+   *
+   * @param numBytes deserialized bytes of the object, including nested objects.
+   * @param nanos elapsed nanoseconds, or -1 if not sampled.
+   */
+  void onRead(Class<?> cls, int numBytes, long nanos);
+
+  /**
+   * Invoked after a serializer is generated by JIT, possibly on the JIT thread.
+   *
+   * @param serializerClass the generated class.
+   * @param nanos elapsed nanoseconds of code generation and compilation.
+   */
+  default void onJITCompile(Class<?> serializerClass, long nanos) {}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A thread safe {@link MetricsListener} which aggregates metrics per type. One instance can be
+ * shared by multiple {@link org.apache.fory.Fory} instances. Metrics can be exported by {@link
+ * JmxMetricsExporter} or {@link JfrMetricsExporter}.
+ *
+ * <pre>{@code
+ * SerializationMetrics metrics = new SerializationMetrics();
+ * ThreadSafeFory fory = Fory.builder().withMetricsListener(metrics).buildThreadSafeFory();
+ * ...
+ * for (TypeMetrics m : metrics.getTypeMetrics()) {
+ *   System.out.println(m);
+ * }
+ * }</pre>
+ */
+public class SerializationMetrics implements MetricsListener, SerializationMetricsMXBean {
+  private final int timeSampleInterval;
+  // Keyed by name to avoid holding classes strongly, which may prevent class unloading.
+  private final ConcurrentMap<String, Counters> countersMap = new ConcurrentHashMap<>();
+  private final ClassValue<Counters> classCounters =
+      new ClassValue<Counters>() {
+        @Override
+        protected Counters computeValue(Class<?> type) {
+          return countersMap.computeIfAbsent(type.getName(), k -> new Counters());
+        }
+      };
+  private final LongAdder jitCompileCount = new LongAdder();
+  private final LongAdder jitCompileNanos = new LongAdder();
+  private final LongAccumulator maxJITCompileNanos = new LongAccumulator(Math::max, 0);
+
+  public SerializationMetrics() {
+    this(64);
+  }
+
+  public SerializationMetrics(int timeSampleInterval) {
+    Preconditions.checkArgument(
+        timeSampleInterval > 0 && (timeSampleInterval & (timeSampleInterval - 1)) == 0,
+        "timeSampleInterval must be a power of two: %s",
+        timeSampleInterval);
+    this.timeSampleInterval = timeSampleInterval;
+  }
+
+  @Override
+  public int timeSampleInterval() {
+    return timeSampleInterval;
+  }
+
+  @Override
+  public void onWrite(Class<?> cls, int numBytes, long nanos) {
+    Counters counters = classCounters.get(cls);
+    counters.writeCount.increment();
+    counters.writeBytes.add(numBytes);
+    if (nanos >= 0) {
+      counters.writeSamples.increment();
+      counters.writeSampledNanos.add(nanos);
+    }
+  }
+
+  @Override
+  public void onRead(Class<?> cls, int numBytes, long nanos) {
+    Counters counters = classCounters.get(cls);
+    counters.readCount.increment();
+    counters.readBytes.add(numBytes);
+    if (nanos >= 0) {
+      counters.readSamples.increment();
+      counters.readSampledNanos.add(nanos);
+    }
+  }
+
+  @Override
+  public void onJITCompile(Class<?> serializerClass, long nanos) {
+    jitCompileCount.increment();
+    jitCompileNanos.add(nanos);
+    maxJITCompileNanos.accumulate(nanos);
+  }
+
+  /** Returns metrics of <code>cls</code>, or null if no object of this type is seen. */
+  public TypeMetrics getTypeMetrics(Class<?> cls) {
+    Counters counters = countersMap.get(cls.getName());
+    return counters == null ? null : counters.snapshot(cls.getName());
+  }
+
+  @Override
+  public List<TypeMetrics> getTypeMetrics() {
+    List<TypeMetrics> metrics = new ArrayList<>(countersMap.size());
+    countersMap.forEach((name, counters) -> metrics.add(counters.snapshot(name)));
+    metrics.sort(
+        Comparator.comparingLong((TypeMetrics m) -> m.getWriteBytes() + m.getReadBytes())
+            .reversed());
+    return metrics;
+  }
+
+  @Override
+  public long getJITCompileCount() {
+    return jitCompileCount.sum();
+  }
+
+  @Override
+  public long getJITCompileNanos() {
+    return jitCompileNanos.sum();
+  }
+
+  @Override
+  public long getMaxJITCompileNanos() {
+    return maxJITCompileNanos.get();
+  }
+
+  @Override
+  public void reset() {
+    // Counters are cached by `classCounters`, reset them in place instead of removing.
+    countersMap.values().forEach(Counters::reset);
+    jitCompileCount.reset();
+    jitCompileNanos.reset();
+    maxJITCompileNanos.reset();
+  }
+
+  private static final class Counters {
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder writeBytes = new LongAdder();
+    private final LongAdder writeSamples = new LongAdder();
+    private final LongAdder writeSampledNanos = new LongAdder();
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder readBytes = new LongAdder();
+    private final LongAdder readSamples = new LongAdder();
+    private final LongAdder readSampledNanos = new LongAdder();
+
+    private TypeMetrics snapshot(String typeName) {
+      long writes = writeCount.sum();
+      long reads = readCount.sum();
+      return new TypeMetrics(
+          typeName,
+          writes,
+          writeBytes.sum(),
+          estimate(writeSampledNanos.sum(), writeSamples.sum(), writes),
+          reads,
+          readBytes.sum(),
+          estimate(readSampledNanos.sum(), readSamples.sum(), reads));
+    }
+
+    private static long estimate(long sampledNanos, long samples, long count) {
+      if (samples == 0) {
+        return 0;
+      }
+      return (long) ((double) sampledNanos / samples * count);
+    }
+
+    private void reset() {
+      writeCount.reset();
+      writeBytes.reset();
+      writeSamples.reset();
+      writeSampledNanos.reset();
+      readCount.reset();
+      readBytes.reset();
+      readSamples.reset();
+      readSampledNanos.reset();
+    }
+  }
+}
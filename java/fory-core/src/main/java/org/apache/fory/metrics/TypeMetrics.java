@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Snapshot of serialization metrics of a type. Latencies are estimated from sampled objects, see
+ * {@link MetricsListener#timeSampleInterval()}.
+ */
+public final class TypeMetrics {
+  private final String typeName;
+  private final long writeCount;
+  private final long writeBytes;
+  private final long writeNanos;
+  private final long readCount;
+  private final long readBytes;
+  private final long readNanos;
+
+  public TypeMetrics(
+      String typeName,
+      long writeCount,
+      long writeBytes,
+      long writeNanos,
+      long readCount,
+      long readBytes,
+      long readNanos) {
+    this.typeName = typeName;
+    this.writeCount = writeCount;
+    this.writeBytes = writeBytes;
+    this.writeNanos = writeNanos;
+    this.readCount = readCount;
+    this.readBytes = readBytes;
+    this.readNanos = readNanos;
+  }
+
+  /** Reconstruct metrics from the open type data of {@link SerializationMetricsMXBean}. */
+  public static TypeMetrics from(CompositeData data) {
+    return new TypeMetrics(
+        (String) data.get("typeName"),
+        (Long) data.get("writeCount"),
+        (Long) data.get("writeBytes"),
+        (Long) data.get("writeNanos"),
+        (Long) data.get("readCount"),
+        (Long) data.get("readBytes"),
+        (Long) data.get("readNanos"));
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  /** Returns number of serialized objects. */
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  /** Returns serialized bytes, including bytes of nested objects. */
+  public long getWriteBytes() {
+    return writeBytes;
+  }
+
+  /** Returns estimated serialization nanoseconds, including time of nested objects. */
+  public long getWriteNanos() {
+    return writeNanos;
+  }
+
+  /** Returns number of deserialized objects. */
+  public long getReadCount() {
+    return readCount;
+  }
+
+  /** Returns deserialized bytes, including bytes of nested objects. */
+  public long getReadBytes() {
+    return readBytes;
+  }
+
+  /** Returns estimated deserialization nanoseconds, including time of nested objects. */
+  public long getReadNanos() {
+    return readNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "TypeMetrics{"
+        + "typeName='"
+        + typeName
+        + '\''
+        + ", writeCount="
+        + writeCount
+        + ", writeBytes="
+        + writeBytes
+        + ", writeNanos="
+        + writeNanos
+        + ", readCount="
+        + readCount
+        + ", readBytes="
+        + readBytes
+        + ", readNanos="
+        + readNanos
+        + '}';
+  }
+}
@@ -24,6 +24,7 @@ import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -32,19 +33,50 @@ import org.apache.fory.Fory;
 import org.apache.fory.logging.Logger;
 import org.apache.fory.logging.LoggerFactory;
 
-/** A thread-safe object pool of {@link Fory}. */
+/**
+ * A thread-safe object pool of {@link Fory}.
+ *
+ * <p>Idle instances are kept in a striped array of slots. Each thread has a home slot derived from
+ * its id, so a thread which serializes repeatedly will normally get back the instance it returned
+ * last time with a single atomic swap and without touching any state shared with other threads.
+ * When the home slot is empty, the other slots are scanned to steal an idle instance before a new
+ * one is created. Only when {@code maxPoolSize} instances are in use does a thread fall back to
+ * blocking on {@link #idleCacheQueue}, and returned instances are handed to the queue directly
+ * while such waiters exist.
+ */
 public class ClassLoaderForyPooled {
 
   private static final Logger LOG = LoggerFactory.getLogger(ClassLoaderForyPooled.class);
 
+  /**
+   * Distance between two used slots in {@link #idleSlots}, keeps every used slot on its own cache
+   * line to avoid false sharing between stripes.
+   */
+  private static final int SLOT_STRIDE = 16;
+
+  private static final int MAX_STRIPES =
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+
   private final Function<ClassLoader, Fory> foryFactory;
   private Consumer<Fory> factoryCallback = f -> {};
 
   private final ClassLoader classLoader;
 
-  /** idle Fory cache change. by : 1. init() 2. getFory() 3.returnFory() */
+  /** Idle Fory slots, only every {@link #SLOT_STRIDE}th element is used. */
+  private final AtomicReferenceArray<Fory> idleSlots;
+
+  /** Number of used slots in {@link #idleSlots}, always a power of two. */
+  private final int stripes;
+
+  /**
+   * Overflow queue for idle Fory which doesn't fit into {@link #idleSlots}, and the queue threads
+   * wait on when the pool is exhausted.
+   */
   private final BlockingQueue<Fory> idleCacheQueue;
 
+  /** Number of threads blocked in {@link #getFory()} waiting for a returned Fory. */
+  private final AtomicInteger waiters = new AtomicInteger(0);
+
   final WeakHashMap<Fory, Object> allFory = new WeakHashMap<>();
 
   /**
@@ -70,55 +102,114 @@ public class ClassLoaderForyPooled {
     this.maxPoolSize = maxPoolSize;
     this.foryFactory = foryFactory;
     this.classLoader = classLoader;
-    idleCacheQueue = new LinkedBlockingQueue<>(maxPoolSize);
-    while (idleCacheQueue.size() < minPoolSize) {
-      addFory(true);
+    int stripes = Integer.highestOneBit(Math.max(1, maxPoolSize * 2 - 1));
+    this.stripes = Math.min(stripes, MAX_STRIPES);
+    idleSlots = new AtomicReferenceArray<>(this.stripes * SLOT_STRIDE);
+    idleCacheQueue = new LinkedBlockingQueue<>(Math.max(1, maxPoolSize));
+    for (int i = 0; i < minPoolSize; i++) {
+      Fory fory = addFory();
+      if (fory == null) {
+        break;
+      }
+      returnFory(fory);
     }
   }
 
   public Fory getFory() {
+    int home = homeStripe();
+    Fory fory = pollIdle(home);
+    if (fory != null) {
+      return fory;
+    }
     if (activeCacheNumber.get() < maxPoolSize) {
-      Fory fory = idleCacheQueue.poll();
+      // new Fory return directly, it will be added to the pool by returnFory()
+      fory = addFory();
       if (fory != null) {
         return fory;
-      } else {
-        // new Fory return directly, no need to add to queue, it will be added by returnFory()
-        fory = addFory(false);
+      }
+    }
+    return awaitFory(home);
+  }
+
+  public void returnFory(Fory fory) {
+    Objects.requireNonNull(fory);
+    if (waiters.get() > 0) {
+      idleCacheQueue.offer(fory);
+      return;
+    }
+    int home = homeStripe();
+    int mask = stripes - 1;
+    for (int i = 0; i < stripes; i++) {
+      int index = ((home + i) & mask) * SLOT_STRIDE;
+      if (idleSlots.get(index) == null && idleSlots.compareAndSet(index, null, fory)) {
+        // A thread may have started waiting after the check above and missed this slot, move the
+        // instance to the queue it blocks on. If another thread took it already, nothing to do.
+        if (waiters.get() > 0 && idleSlots.compareAndSet(index, fory, null)) {
+          idleCacheQueue.offer(fory);
+        }
+        return;
+      }
+    }
+    idleCacheQueue.offer(fory);
+  }
+
+  private Fory pollIdle(int home) {
+    int mask = stripes - 1;
+    for (int i = 0; i < stripes; i++) {
+      int index = ((home + i) & mask) * SLOT_STRIDE;
+      if (idleSlots.get(index) != null) {
+        Fory fory = idleSlots.getAndSet(index, null);
         if (fory != null) {
           return fory;
         }
       }
     }
+    return idleCacheQueue.poll();
+  }
+
+  private Fory awaitFory(int home) {
+    waiters.incrementAndGet();
     try {
+      // Rescan after registering as a waiter: an instance returned before the registration is
+      // visible here, an instance returned after it is put into the queue.
+      Fory fory = pollIdle(home);
+      if (fory != null) {
+        return fory;
+      }
       return idleCacheQueue.take();
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
+    } finally {
+      waiters.decrementAndGet();
     }
   }
 
-  public void returnFory(Fory fory) {
-    Objects.requireNonNull(fory);
-    idleCacheQueue.offer(fory);
+  private int homeStripe() {
+    long id = Thread.currentThread().getId();
+    int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & (stripes - 1);
   }
 
-  private Fory addFory(boolean addQueue) {
+  private Fory addFory() {
     // only activeCacheNumber increment success, can lock and create new Fory, otherwise return
-    // null, and block in getFory(), wait for other thread to release idleCacheQueue.
+    // null, and block in getFory(), wait for other thread to return a Fory.
     int after = activeCacheNumber.incrementAndGet();
     if (after > maxPoolSize) {
       activeCacheNumber.decrementAndGet();
       return null;
     }
+    boolean success = false;
     try {
       lock.lock();
       Fory fory = foryFactory.apply(classLoader);
       factoryCallback.accept(fory);
       allFory.put(fory, null);
-      if (addQueue) {
-        idleCacheQueue.add(fory);
-      }
+      success = true;
       return fory;
     } finally {
+      if (!success) {
+        activeCacheNumber.decrementAndGet();
+      }
       lock.unlock();
     }
   }
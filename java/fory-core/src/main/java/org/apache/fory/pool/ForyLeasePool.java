@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.pool;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.fory.Fory;
+
+/**
+ * A non-blocking pool of idle {@link Fory} instances bound to a {@link ClassLoader}.
+ *
+ * <p>Unlike {@link ClassLoaderForyPooled}, {@link #lease()} never waits: if no idle instance is
+ * available, a new one is created. Instances returned when all idle slots are occupied are dropped
+ * and left to gc, so the number of retained instances is bounded by the slot count while the number
+ * of live instances follows the real serialization concurrency, which is bounded by carrier threads
+ * for virtual threads.
+ */
+final class ForyLeasePool {
+  /** Distance between two used slots, keeps every used slot on its own cache line. */
+  private static final int SLOT_STRIDE = 16;
+
+  private final ClassLoader classLoader;
+  private final Function<ClassLoader, Fory> foryFactory;
+  private final AtomicReferenceArray<Fory> idleSlots;
+  private final int slots;
+  // `Fory` doesn't reference this pool, dropped instances can be gc.
+  private final Set<Fory> allFory = Collections.newSetFromMap(new WeakHashMap<>());
+  private Consumer<Fory> factoryCallback;
+  private final Lock lock = new ReentrantLock();
+
+  ForyLeasePool(
+      ClassLoader classLoader,
+      Function<ClassLoader, Fory> foryFactory,
+      Consumer<Fory> factoryCallback,
+      int maxIdleSize) {
+    this.classLoader = classLoader;
+    this.foryFactory = Objects.requireNonNull(foryFactory);
+    this.factoryCallback = factoryCallback;
+    slots = Integer.highestOneBit(Math.max(1, maxIdleSize * 2 - 1));
+    idleSlots = new AtomicReferenceArray<>(slots * SLOT_STRIDE);
+  }
+
+  ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  Fory lease() {
+    int home = homeSlot();
+    int mask = slots - 1;
+    for (int i = 0; i < slots; i++) {
+      int index = ((home + i) & mask) * SLOT_STRIDE;
+      if (idleSlots.get(index) != null) {
+        Fory fory = idleSlots.getAndSet(index, null);
+        if (fory != null) {
+          return fory;
+        }
+      }
+    }
+    return newFory();
+  }
+
+  void release(Fory fory) {
+    int home = homeSlot();
+    int mask = slots - 1;
+    for (int i = 0; i < slots; i++) {
+      int index = ((home + i) & mask) * SLOT_STRIDE;
+      if (idleSlots.get(index) == null && idleSlots.compareAndSet(index, null, fory)) {
+        return;
+      }
+    }
+  }
+
+  private int homeSlot() {
+    long id = Thread.currentThread().getId();
+    int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & (slots - 1);
+  }
+
+  private Fory newFory() {
+    try {
+      lock.lock();
+      Fory fory = foryFactory.apply(classLoader);
+      factoryCallback.accept(fory);
+      allFory.add(fory);
+      return fory;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set the callback applied to every new instance, and apply <code>callback</code> to the
+   * instances created so far.
+   */
+  void registerCallback(Consumer<Fory> factoryCallback, Consumer<Fory> callback) {
+    try {
+      lock.lock();
+      this.factoryCallback = factoryCallback;
+      allFory.forEach(callback);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
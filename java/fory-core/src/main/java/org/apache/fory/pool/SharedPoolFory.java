@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.pool;
+
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.fory.AbstractThreadSafeFory;
+import org.apache.fory.Fory;
+import org.apache.fory.annotation.Internal;
+import org.apache.fory.io.ForyInputStream;
+import org.apache.fory.io.ForyReadableChannel;
+import org.apache.fory.memory.MemoryAllocator;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.meta.Projection;
+import org.apache.fory.resolver.ClassChecker;
+import org.apache.fory.serializer.BufferCallback;
+import org.apache.fory.util.LoaderBinding.StagingType;
+
+/**
+ * A thread safe serialization entrance for {@link Fory} which leases a {@link Fory} from a shared
+ * non-blocking pool for every call, designed for a large number of short-lived threads such as
+ * virtual threads.
+ *
+ * <p>Compared with {@link org.apache.fory.ThreadLocalFory}, no {@link Fory} is bound to a thread,
+ * so creating millions of threads doesn't create millions of {@link Fory}. Compared with {@link
+ * ThreadPoolFory}, a lease never blocks: when no idle instance is available a new one is created
+ * instead of waiting for a returned one, so a virtual thread never parks and pins its carrier in
+ * the pool. Leased instances are returned to thread-affine idle slots and reused by later calls
+ * together with their resolved serializers and class info, and JIT serializer classes are shared
+ * by all instances of the same classloader.
+ *
+ * <p>The classloader set by {@link #setClassLoader} applies to all threads, which is different
+ * from {@link org.apache.fory.ThreadLocalFory} and {@link ThreadPoolFory}.
+ *
+ * <p>Parallel serialization enabled by {@link
+ * org.apache.fory.config.ForyBuilder#withParallelSerialization} leases segment workers from this
+ * pool.
+ */
+@ThreadSafe
+public class SharedPoolFory extends AbstractThreadSafeFory {
+  public static final int DEFAULT_MAX_IDLE_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+  private final Function<ClassLoader, Fory> foryFactory;
+  private final int maxIdleSize;
+  // leases never block, so instances can lease segment workers from this pool when serializing.
+  private Consumer<Fory> factoryCallback = f -> f.setSegmentWorkers(this);
+  private volatile ForyLeasePool pool;
+  // `WeakHashMap` won't work for strong staging, since `Fory` hold classes which reference
+  // `ClassLoader`, see `LoaderBinding`.
+  private final HashMap<ClassLoader, ForyLeasePool> poolMap = new HashMap<>();
+  private final WeakHashMap<ClassLoader, SoftReference<ForyLeasePool>> poolSoftMap =
+      new WeakHashMap<>();
+
+  public SharedPoolFory(Function<ClassLoader, Fory> foryFactory) {
+    this(foryFactory, DEFAULT_MAX_IDLE_SIZE);
+  }
+
+  public SharedPoolFory(Function<ClassLoader, Fory> foryFactory, int maxIdleSize) {
+    this.foryFactory = foryFactory;
+    this.maxIdleSize = maxIdleSize;
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    pool = newPool(loader == null ? Fory.class.getClassLoader() : loader);
+    // init and warm, see `ThreadLocalFory`.
+    pool.release(pool.lease());
+  }
+
+  @Internal
+  @Override
+  public synchronized void registerCallback(Consumer<Fory> callback) {
+    factoryCallback = factoryCallback.andThen(callback);
+    Set<ForyLeasePool> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+    pools.add(pool);
+    pools.addAll(poolMap.values());
+    for (SoftReference<ForyLeasePool> ref : poolSoftMap.values()) {
+      ForyLeasePool p = ref.get();
+      if (p != null) {
+        pools.add(p);
+      }
+    }
+    for (ForyLeasePool p : pools) {
+      p.registerCallback(factoryCallback, callback);
+    }
+  }
+
+  @Override
+  public <R> R execute(Function<Fory, R> action) {
+    ForyLeasePool pool = this.pool;
+    Fory fory = pool.lease();
+    try {
+      return action.apply(fory);
+    } finally {
+      pool.release(fory);
+    }
+  }
+
+  @Override
+  public byte[] serialize(Object obj) {
+    return execute(fory -> fory.serialize(obj));
+  }
+
+  @Override
+  public byte[] serialize(Object obj, BufferCallback callback) {
+    return execute(fory -> fory.serialize(obj, callback));
+  }
+
+  @Override
+  public MemoryBuffer serialize(Object obj, long address, int size) {
+    return execute(fory -> fory.serialize(obj, address, size));
+  }
+
+  @Override
+  public MemoryBuffer serialize(MemoryBuffer buffer, Object obj) {
+    return execute(fory -> fory.serialize(buffer, obj));
+  }
+
+  @Override
+  public MemoryBuffer serialize(Object obj, MemoryAllocator allocator) {
+    return execute(fory -> fory.serialize(obj, allocator));
+  }
+
+  @Override
+  public MemoryBuffer serialize(MemoryBuffer buffer, Object obj, BufferCallback callback) {
+    return execute(fory -> fory.serialize(buffer, obj, callback));
+  }
+
+  @Override
+  public void serialize(OutputStream outputStream, Object obj) {
+    execute(
+        fory -> {
+          fory.serialize(outputStream, obj);
+          return null;
+        });
+  }
+
+  @Override
+  public void serialize(OutputStream outputStream, Object obj, BufferCallback callback) {
+    execute(
+        fory -> {
+          fory.serialize(outputStream, obj, callback);
+          return null;
+        });
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    return execute(fory -> fory.deserialize(bytes));
+  }
+
+  @Override
+  public <T> T deserialize(byte[] bytes, Class<T> type) {
+    return execute(fory -> fory.deserialize(bytes, type));
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes, Iterable<MemoryBuffer> outOfBandBuffers) {
+    return execute(fory -> fory.deserialize(bytes, outOfBandBuffers));
+  }
+
+  @Override
+  public <T> T deserialize(byte[] bytes, Class<T> type, Projection projection) {
+    return execute(fory -> fory.deserialize(bytes, type, projection));
+  }
+
+  @Override
+  public <T> T deserialize(MemoryBuffer buffer, Class<T> type, Projection projection) {
+    return execute(fory -> fory.deserialize(buffer, type, projection));
+  }
+
+  @Override
+  public Object deserialize(long address, int size) {
+    return execute(fory -> fory.deserialize(address, size));
+  }
+
+  @Override
+  public Object deserialize(MemoryBuffer buffer) {
+    return execute(fory -> fory.deserialize(buffer));
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer byteBuffer) {
+    return execute(fory -> fory.deserialize(MemoryUtils.wrap(byteBuffer)));
+  }
+
+  @Override
+  public Object deserialize(MemoryBuffer buffer, Iterable<MemoryBuffer> outOfBandBuffers) {
+    return execute(fory -> fory.deserialize(buffer, outOfBandBuffers));
+  }
+
+  @Override
+  public Object deserialize(ForyInputStream inputStream) {
+    return execute(fory -> fory.deserialize(inputStream));
+  }
+
+  @Override
+  public Object deserialize(ForyInputStream inputStream, Iterable<MemoryBuffer> outOfBandBuffers) {
+    return execute(fory -> fory.deserialize(inputStream, outOfBandBuffers));
+  }
+
+  @Override
+  public Object deserialize(ForyReadableChannel channel) {
+    return execute(fory -> fory.deserialize(channel));
+  }
+
+  @Override
+  public Object deserialize(ForyReadableChannel channel, Iterable<MemoryBuffer> outOfBandBuffers) {
+    return execute(fory -> fory.deserialize(channel, outOfBandBuffers));
+  }
+
+  @Override
+  public byte[] serializeJavaObject(Object obj) {
+    return execute(fory -> fory.serializeJavaObject(obj));
+  }
+
+  @Override
+  public void serializeJavaObject(MemoryBuffer buffer, Object obj) {
+    execute(
+        fory -> {
+          fory.serializeJavaObject(buffer, obj);
+          return null;
+        });
+  }
+
+  @Override
+  public void serializeJavaObject(OutputStream outputStream, Object obj) {
+    execute(
+        fory -> {
+          fory.serializeJavaObject(outputStream, obj);
+          return null;
+        });
+  }
+
+  @Override
+  public <T> T deserializeJavaObject(byte[] data, Class<T> cls) {
+    return execute(fory -> fory.deserializeJavaObject(data, cls));
+  }
+
+  @Override
+  public <T> T deserializeJavaObject(MemoryBuffer buffer, Class<T> cls) {
+    return execute(fory -> fory.deserializeJavaObject(buffer, cls));
+  }
+
+  @Override
+  public <T> T deserializeJavaObject(ForyInputStream inputStream, Class<T> cls) {
+    return execute(fory -> fory.deserializeJavaObject(inputStream, cls));
+  }
+
+  @Override
+  public <T> T deserializeJavaObject(ForyReadableChannel channel, Class<T> cls) {
+    return execute(fory -> fory.deserializeJavaObject(channel, cls));
+  }
+
+  @Override
+  public byte[] serializeJavaObjectAndClass(Object obj) {
+    return execute(fory -> fory.serializeJavaObjectAndClass(obj));
+  }
+
+  @Override
+  public void serializeJavaObjectAndClass(MemoryBuffer buffer, Object obj) {
+    execute(
+        fory -> {
+          fory.serializeJavaObjectAndClass(buffer, obj);
+          return null;
+        });
+  }
+
+  @Override
+  public void serializeJavaObjectAndClass(OutputStream outputStream, Object obj) {
+    execute(
+        fory -> {
+          fory.serializeJavaObjectAndClass(outputStream, obj);
+          return null;
+        });
+  }
+
+  @Override
+  public Object deserializeJavaObjectAndClass(byte[] data) {
+    return execute(fory -> fory.deserializeJavaObjectAndClass(data));
+  }
+
+  @Override
+  public Object deserializeJavaObjectAndClass(MemoryBuffer buffer) {
+    return execute(fory -> fory.deserializeJavaObjectAndClass(buffer));
+  }
+
+  @Override
+  public Object deserializeJavaObjectAndClass(ForyInputStream inputStream) {
+    return execute(fory -> fory.deserializeJavaObjectAndClass(inputStream));
+  }
+
+  @Override
+  public Object deserializeJavaObjectAndClass(ForyReadableChannel channel) {
+    return execute(fory -> fory.deserializeJavaObjectAndClass(channel));
+  }
+
+  @Override
+  public <T> T copy(T obj) {
+    return execute(fory -> fory.copy(obj));
+  }
+
+  @Override
+  public void setClassLoader(ClassLoader classLoader) {
+    setClassLoader(classLoader, StagingType.SOFT_STAGING);
+  }
+
+  @Override
+  public synchronized void setClassLoader(ClassLoader classLoader, StagingType stagingType) {
+    if (classLoader == null) {
+      // may be used to clear some classloader
+      classLoader = Fory.class.getClassLoader();
+    }
+    if (pool.getClassLoader() == classLoader) {
+      return;
+    }
+    switch (stagingType) {
+      case NO_STAGING:
+        pool = newPool(classLoader);
+        break;
+      case SOFT_STAGING:
+        {
+          SoftReference<ForyLeasePool> ref = poolSoftMap.get(classLoader);
+          ForyLeasePool p = ref == null ? null : ref.get();
+          if (p == null) {
+            p = newPool(classLoader);
+            poolSoftMap.put(classLoader, new SoftReference<>(p));
+          }
+          pool = p;
+          break;
+        }
+      case STRONG_STAGING:
+        pool = poolMap.computeIfAbsent(classLoader, this::newPool);
+        break;
+      default:
+        throw new IllegalArgumentException();
+    }
+  }
+
+  @Override
+  public ClassLoader getClassLoader() {
+    return pool.getClassLoader();
+  }
+
+  @Override
+  public void setClassChecker(ClassChecker classChecker) {
+    registerCallback(fory -> fory.getClassResolver().setClassChecker(classChecker));
+  }
+
+  @Override
+  public synchronized void clearClassLoader(ClassLoader loader) {
+    poolMap.remove(loader);
+    SoftReference<ForyLeasePool> softReference = poolSoftMap.remove(loader);
+    if (softReference != null) {
+      softReference.clear();
+    }
+    if (pool.getClassLoader() == loader) {
+      pool = newPool(Fory.class.getClassLoader());
+    }
+  }
+
+  private ForyLeasePool newPool(ClassLoader classLoader) {
+    return new ForyLeasePool(classLoader, foryFactory, factoryCallback, maxIdleSize);
+  }
+}
@@ -32,8 +32,10 @@ import org.apache.fory.io.ForyInputStream;
 import org.apache.fory.io.ForyReadableChannel;
 import org.apache.fory.logging.Logger;
 import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.memory.MemoryAllocator;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.meta.Projection;
 import org.apache.fory.resolver.ClassChecker;
 import org.apache.fory.serializer.BufferCallback;
 import org.apache.fory.util.LoaderBinding;
@@ -110,6 +112,11 @@ public class ThreadPoolFory extends AbstractThreadSafeFory {
     return execute(fory -> fory.serialize(buffer, obj));
   }
 
+  @Override
+  public MemoryBuffer serialize(Object obj, MemoryAllocator allocator) {
+    return execute(fory -> fory.serialize(obj, allocator));
+  }
+
   @Override
   public MemoryBuffer serialize(MemoryBuffer buffer, Object obj, BufferCallback callback) {
     return execute(fory -> fory.serialize(buffer, obj, callback));
@@ -148,6 +155,16 @@ public class ThreadPoolFory extends AbstractThreadSafeFory {
     return execute(fory -> fory.deserialize(bytes, outOfBandBuffers));
   }
 
+  @Override
+  public <T> T deserialize(byte[] bytes, Class<T> type, Projection projection) {
+    return execute(fory -> fory.deserialize(bytes, type, projection));
+  }
+
+  @Override
+  public <T> T deserialize(MemoryBuffer buffer, Class<T> type, Projection projection) {
+    return execute(fory -> fory.deserialize(buffer, type, projection));
+  }
+
   @Override
   public Object deserialize(long address, int size) {
     return execute(fory -> fory.deserialize(address, size));
@@ -133,6 +133,11 @@ public class ClassInfo {
     return xtypeId;
   }
 
+  /** Returns class def read from peer in meta share mode, or null if not read by class def. */
+  public ClassDef getClassDef() {
+    return classDef;
+  }
+
   @SuppressWarnings("unchecked")
   public <T> Serializer<T> getSerializer() {
     return (Serializer<T>) serializer;
@@ -89,6 +89,7 @@ import org.apache.fory.annotation.Internal;
 import org.apache.fory.builder.CodecUtils;
 import org.apache.fory.builder.Generated;
 import org.apache.fory.builder.JITContext;
+import org.apache.fory.builder.PrecompiledCodecs;
 import org.apache.fory.codegen.CodeGenerator;
 import org.apache.fory.codegen.Expression;
 import org.apache.fory.codegen.Expression.Invoke;
@@ -110,6 +111,7 @@ import org.apache.fory.meta.ClassDef;
 import org.apache.fory.meta.ClassSpec;
 import org.apache.fory.meta.Encoders;
 import org.apache.fory.meta.MetaString;
+import org.apache.fory.meta.Projection;
 import org.apache.fory.meta.TypeExtMeta;
 import org.apache.fory.reflect.ReflectionUtils;
 import org.apache.fory.reflect.TypeRef;
@@ -240,6 +242,10 @@ public class ClassResolver implements TypeResolver {
   private final MetaStringResolver metaStringResolver;
   private final boolean metaContextShareEnabled;
   private final Map<Class<?>, ClassDef> classDefMap = new HashMap<>();
+  // Whether class defs are written/read inline with class ids instead of after the serialized
+  // data, which is used for streaming write where written data can't be patched.
+  private boolean writeClassDefsInline;
+  private boolean readClassDefsInline;
   private Class<?> currentReadClass;
   // class id of last default registered class.
   private short innerEndClassId;
@@ -266,6 +272,9 @@ public class ClassResolver implements TypeResolver {
     private final Map<Class<?>, ClassDef> currentLayerClassDef = new HashMap<>();
     // Tuple2<Class, Class>: Tuple2<From Class, To Class>
     private final Map<Tuple2<Class<?>, Class<?>>, ClassInfo> transformedClassInfo = new HashMap<>();
+    // Tuple2<ClassDef id, Projection>: projected serializer
+    private final Map<Tuple2<Long, Projection>, Serializer<?>> projectedSerializers =
+        new HashMap<>();
     // TODO(chaokunyang) Better to  use soft reference, see ObjectStreamClass.
     private final ConcurrentHashMap<Tuple2<Class<?>, Boolean>, SortedMap<Member, Descriptor>>
         descriptorsCache = new ConcurrentHashMap<>();
@@ -1116,7 +1125,17 @@ public class ClassResolver implements TypeResolver {
       } else {
         try {
           extRegistry.getClassCtx.add(cls);
-          Class<? extends Serializer> sc;
+          Class<? extends Serializer> sc =
+              PrecompiledCodecs.loadCodecClass(
+                  fory,
+                  cls,
+                  fory.getCompatibleMode() == CompatibleMode.COMPATIBLE && !shareMeta
+                      ? "Compatible"
+                      : "",
+                  0);
+          if (sc != null) {
+            return sc;
+          }
           switch (fory.getCompatibleMode()) {
             case SCHEMA_CONSISTENT:
               sc =
@@ -1516,12 +1535,27 @@ public class ClassResolver implements TypeResolver {
     int id = classMap.putOrGet(classInfo.cls, newId);
     if (id >= 0) {
       buffer.writeVarUint32(id << 1 | 0b1);
+      metaContext.recordClassWrite(id);
     } else {
       buffer.writeVarUint32(newId << 1 | 0b1);
+      metaContext.recordClassWrite(newId);
       ClassDef classDef = classInfo.classDef;
       if (classDef == null) {
         classDef = buildClassDef(classInfo);
       }
+      addWritingClassDef(buffer, metaContext, classDef);
+    }
+  }
+
+  /**
+   * Add a new class def which needs sending to peer, the class def will be written at last by
+   * {@link #writeClassDefs(MemoryBuffer)}, or be written immediately if class defs are written
+   * inline.
+   */
+  public void addWritingClassDef(MemoryBuffer buffer, MetaContext metaContext, ClassDef classDef) {
+    if (writeClassDefsInline) {
+      classDef.writeClassDef(buffer);
+    } else {
       metaContext.writingClassDefs.add(classDef);
     }
   }
@@ -1553,6 +1587,30 @@ public class ClassResolver implements TypeResolver {
             || serializer instanceof MetaSharedSerializer);
   }
 
+  /**
+   * Returns a serializer which reads only fields in <code>projection</code> for objects of <code>
+   * classInfo</code>. Objects which are not serialized with field meta are always read fully by the
+   * serializer of <code>classInfo</code>.
+   */
+  public Serializer<?> getProjectedSerializer(ClassInfo classInfo, Projection projection) {
+    ClassDef classDef = classInfo.classDef;
+    Serializer<?> serializer = classInfo.serializer;
+    if (projection.isAll()
+        || classDef == null
+        || !classDef.hasFieldsMeta()
+        || !(serializer instanceof MetaSharedSerializer
+            || serializer instanceof Generated.GeneratedMetaSharedSerializer)) {
+      return serializer;
+    }
+    Tuple2<Long, Projection> key = Tuple2.of(classDef.getId(), projection);
+    Serializer<?> projectedSerializer = extRegistry.projectedSerializers.get(key);
+    if (projectedSerializer == null) {
+      projectedSerializer = new MetaSharedSerializer<>(fory, classInfo.cls, classDef, projection);
+      extRegistry.projectedSerializers.put(key, projectedSerializer);
+    }
+    return projectedSerializer;
+  }
+
   private ClassInfo readClassInfoWithMetaShare(MemoryBuffer buffer, MetaContext metaContext) {
     assert metaContext != null : SET_META__CONTEXT_MSG;
     int header = buffer.readVarUint32Small14();
@@ -1560,6 +1618,9 @@ public class ClassResolver implements TypeResolver {
     if ((header & 0b1) == 0) {
       return getOrUpdateClassInfo((short) id);
     }
+    if (readClassDefsInline && id == metaContext.readClassDefs.size) {
+      readClassDef(buffer, metaContext);
+    }
     ClassInfo classInfo = metaContext.readClassInfos.get(id);
     if (classInfo == null) {
       classInfo = readClassInfoWithMetaShare(metaContext, id);
@@ -1647,6 +1708,9 @@ public class ClassResolver implements TypeResolver {
     }
     Class<? extends Serializer> sc =
         getMetaSharedDeserializerClassFromGraalvmRegistry(cls, classDef);
+    if (sc == null && fory.getConfig().isCodeGenEnabled()) {
+      sc = PrecompiledCodecs.loadCodecClass(fory, cls, "MetaShared", classDef.getId());
+    }
     if (sc == null) {
       if (GraalvmSupport.isGraalRuntime()) {
         sc = MetaSharedSerializer.class;
@@ -1660,7 +1724,19 @@ public class ClassResolver implements TypeResolver {
                 .registerSerializerJITCallback(
                     () -> MetaSharedSerializer.class,
                     () -> CodecUtils.loadOrGenMetaSharedCodecClass(fory, cls, classDef),
-                    c -> classInfo.setSerializer(this, Serializers.newSerializer(fory, cls, c)));
+                    new JITContext.SerializerJITCallback<Class<? extends Serializer>>() {
+                      @Override
+                      public void onSuccess(Class<? extends Serializer> result) {
+                        classInfo.setSerializer(
+                            ClassResolver.this, Serializers.newSerializer(fory, cls, result));
+                      }
+
+                      @Override
+                      public Object id() {
+                        // `MetaSharedSerializer` finds its jit hotness by class def.
+                        return classDef;
+                      }
+                    });
       }
     }
     if (sc == MetaSharedSerializer.class) {
@@ -1715,16 +1791,37 @@ public class ClassResolver implements TypeResolver {
     assert metaContext != null : SET_META__CONTEXT_MSG;
     int numClassDefs = buffer.readVarUint32Small7();
     for (int i = 0; i < numClassDefs; i++) {
-      long id = buffer.readInt64();
-      Tuple2<ClassDef, ClassInfo> tuple2 = extRegistry.classIdToDef.get(id);
-      if (tuple2 != null) {
-        ClassDef.skipClassDef(buffer, id);
-      } else {
-        tuple2 = readClassDef(buffer, id);
-      }
-      metaContext.readClassDefs.add(tuple2.f0);
-      metaContext.readClassInfos.add(tuple2.f1);
+      readClassDef(buffer, metaContext);
+    }
+  }
+
+  private void readClassDef(MemoryBuffer buffer, MetaContext metaContext) {
+    long id = buffer.readInt64();
+    Tuple2<ClassDef, ClassInfo> tuple2 = extRegistry.classIdToDef.get(id);
+    if (tuple2 != null) {
+      ClassDef.skipClassDef(buffer, id);
+    } else {
+      tuple2 = readClassDef(buffer, id);
     }
+    metaContext.readClassDefs.add(tuple2.f0);
+    metaContext.readClassInfos.add(tuple2.f1);
+  }
+
+  /**
+   * Write class defs inline with class ids in current serialization instead of writing them by
+   * {@link #writeClassDefs(MemoryBuffer)} after the serialized data.
+   */
+  public void setWriteClassDefsInline(boolean writeClassDefsInline) {
+    this.writeClassDefsInline = writeClassDefsInline;
+  }
+
+  /** Read class defs inline with class ids in current deserialization. */
+  public void setReadClassDefsInline(boolean readClassDefsInline) {
+    this.readClassDefsInline = readClassDefsInline;
+  }
+
+  public boolean isReadClassDefsInline() {
+    return readClassDefsInline;
   }
 
   private Tuple2<ClassDef, ClassInfo> readClassDef(MemoryBuffer buffer, long header) {
@@ -2028,9 +2125,13 @@ public class ClassResolver implements TypeResolver {
     resetWrite();
   }
 
-  public void resetRead() {}
+  public void resetRead() {
+    readClassDefsInline = false;
+  }
 
-  public void resetWrite() {}
+  public void resetWrite() {
+    writeClassDefsInline = false;
+  }
 
   @CodegenInvoke
   public GenericType getGenericTypeInStruct(Class<?> cls, String genericTypeStr) {
@@ -20,6 +20,7 @@
 package org.apache.fory.resolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,6 +30,7 @@ import org.apache.fory.collection.IdentityObjectIntMap;
 import org.apache.fory.collection.IntArray;
 import org.apache.fory.collection.MapStatistics;
 import org.apache.fory.collection.ObjectArray;
+import org.apache.fory.collection.StampedIdentityObjectIntMap;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.util.Preconditions;
 
@@ -42,6 +44,18 @@ public final class MapRefResolver implements RefResolver {
   // Map clean will zero all key array elements, which is unnecessary for
   private static final int DEFAULT_MAP_CAPACITY = 4;
   private static final int DEFAULT_ARRAY_CAPACITY = 4;
+  // Sample every serialization at first, then sample once every `SAMPLE_INTERVAL`.
+  private static final int NUM_WARMUP_SAMPLES = 16;
+  private static final int SAMPLE_INTERVAL = 64;
+  // A type or field won't be tracked by the map after written by so many sampled serializations
+  // without sharing.
+  private static final int MIN_UNSHARED_SAMPLES = 8;
+  private static final int SHARED = -1;
+  // Site for ref values which aren't written by a field of a generated serializer.
+  private static final int NO_SITE = 0;
+  private static final int DEFAULT_CACHE_CAPACITY = 64;
+  private static final int MAX_CACHE_CAPACITY = 1 << 16;
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
   // use average size to amortise resize/clear cost.
   // exponential smoothing can't reflect overall reference size, thus not
   // suitable for amortization.
@@ -52,32 +66,250 @@ public final class MapRefResolver implements RefResolver {
   private long writeTotalObjectSize = 0;
   private long readCounter;
   private long readTotalObjectSize = 0;
-  private final IdentityObjectIntMap<Object> writtenObjects =
-      new IdentityObjectIntMap<>(DEFAULT_MAP_CAPACITY, 0.51f);
+  // Stamped by generation so that `resetWrite` won't need to clear the whole table.
+  private final StampedIdentityObjectIntMap<Object> writtenObjects =
+      new StampedIdentityObjectIntMap<>(DEFAULT_MAP_CAPACITY, 0.51f);
+  private final boolean adaptive;
+  // Adaptive tracking state of every sampled type and field: `SHARED` if a value written by it
+  // has ever been written more than once, otherwise number of sampled serializations which write
+  // it without sharing.
+  private final IdentityObjectIntMap<Class<?>> refTypeStates;
+  private final Map<String, Integer> refSites;
+  private int[] refSiteStates;
+  // Serialization counter when a site is last updated, used to update a site once per sample.
+  private int[] refSiteStamps;
+  // Site of every ref id written by a sampled serialization.
+  private int[] sampledRefSites;
+  private IdentityObjectIntMap<Class<?>> sampledTypes;
+  private long numWrites;
+  private boolean sampling = true;
+  // Direct-mapped identity cache for ref values of types and fields which are never shared in
+  // sampled serializations. It is cheaper than `writtenObjects` since there is no probing and
+  // stamping. An entry evicted by a conflict is moved to `writtenObjects`, so every written ref
+  // value is in exactly one of them, and sharing is still detected on every write.
+  private Object[] cachedObjects;
+  private int[] cachedRefIds;
+  private int[] cachedRefSites;
+  // slots used by current serialization, the first `numCachedRefs` elements are valid.
+  private int[] usedCacheSlots;
+  private int numCachedRefs;
+  private int cacheShift;
   private final ObjectArray readObjects = new ObjectArray(DEFAULT_ARRAY_CAPACITY);
   private final IntArray readRefIds = new IntArray(DEFAULT_ARRAY_CAPACITY);
 
   // last read object which is not a reference
   private Object readObject;
 
-  public MapRefResolver() {}
+  public MapRefResolver() {
+    this(false);
+  }
 
-  @Override
-  public boolean writeRefOrNull(MemoryBuffer buffer, Object obj) {
+  /**
+   * Create a ref resolver.
+   *
+   * @param adaptive whether track types and fields which are never shared in sampled
+   *     serializations by a cheaper cache.
+   * @see org.apache.fory.config.ForyBuilder#withAdaptiveRefTracking
+   */
+  public MapRefResolver(boolean adaptive) {
+    this.adaptive = adaptive;
+    if (adaptive) {
+      refTypeStates = new IdentityObjectIntMap<>(8, 0.5f);
+      refSites = new HashMap<>();
+      refSiteStates = new int[8];
+      refSiteStamps = new int[8];
+      sampledRefSites = new int[DEFAULT_MAP_CAPACITY];
+      cachedObjects = new Object[DEFAULT_CACHE_CAPACITY];
+      cachedRefIds = new int[DEFAULT_CACHE_CAPACITY];
+      cachedRefSites = new int[DEFAULT_CACHE_CAPACITY];
+      usedCacheSlots = new int[DEFAULT_CACHE_CAPACITY / 2];
+      cacheShift = Long.SIZE - Integer.numberOfTrailingZeros(DEFAULT_CACHE_CAPACITY);
+    } else {
+      refTypeStates = null;
+      refSites = null;
+    }
+  }
+
+  /**
+   * Register a field of a generated serializer which writes ref values, and returns the site id
+   * which should be passed to {@link #writeRefOrNull(MemoryBuffer, Object, int)}, so that whether
+   * to track values of this field can be decided by the field instead of the value type.
+   */
+  public int registerRefSite(String name) {
+    if (!adaptive) {
+      return NO_SITE;
+    }
+    // Serializers may be created by jit threads, site states are only accessed by the thread
+    // which writes refs, and are grown when a site is written for the first time.
+    synchronized (refSites) {
+      Integer site = refSites.get(name);
+      if (site == null) {
+        // site `NO_SITE` is reserved.
+        site = refSites.size() + 1;
+        refSites.put(name, site);
+      }
+      return site;
+    }
+  }
+
+  /** Returns id for a ref value written for the first time, or a non-negative ref id if written. */
+  private int trackRef(Object obj, int site) {
+    // The id should be consistent with `#nextReadRefId`
+    int newWriteRefId = writtenObjects.size + numCachedRefs;
+    if (adaptive) {
+      if (site >= refSiteStates.length) {
+        growRefSites(site);
+      }
+      if (sampling) {
+        return sampleRef(obj, site, newWriteRefId);
+      }
+      return adaptiveTrackRef(obj, site, newWriteRefId);
+    }
+    if (ENABLE_FORY_REF_PROFILING) {
+      // replaceRef is rare, just ignore it for profiling.
+      return writtenObjects.profilingPutOrGet(obj, newWriteRefId);
+    } else {
+      return writtenObjects.putOrGet(obj, newWriteRefId);
+    }
+  }
+
+  private void growRefSites(int site) {
+    int size = Math.max(site + 1, refSiteStates.length * 2);
+    refSiteStates = Arrays.copyOf(refSiteStates, size);
+    refSiteStamps = Arrays.copyOf(refSiteStamps, size);
+  }
+
+  private int sampleRef(Object obj, int site, int newWriteRefId) {
+    int writtenRefId = writtenObjects.putOrGet(obj, newWriteRefId);
+    if (writtenRefId >= 0) {
+      markShared(obj, site);
+      int[] sampledRefSites = this.sampledRefSites;
+      if (writtenRefId < sampledRefSites.length) {
+        markShared(obj, sampledRefSites[writtenRefId]);
+      }
+    } else {
+      int[] sampledRefSites = this.sampledRefSites;
+      if (newWriteRefId >= sampledRefSites.length) {
+        this.sampledRefSites = sampledRefSites = Arrays.copyOf(sampledRefSites, newWriteRefId * 2);
+      }
+      sampledRefSites[newWriteRefId] = site;
+    }
+    return writtenRefId;
+  }
+
+  private int adaptiveTrackRef(Object obj, int site, int newWriteRefId) {
+    Object[] cachedObjects = this.cachedObjects;
+    int slot = (int) (System.identityHashCode(obj) * HASH_MULTIPLIER >>> cacheShift);
+    Object cached = cachedObjects[slot];
+    if (cached == obj) {
+      markShared(obj, site);
+      markShared(obj, cachedRefSites[slot]);
+      return cachedRefIds[slot];
+    }
+    int state = site == NO_SITE ? refTypeStates.get(obj.getClass(), 0) : refSiteStates[site];
+    if (state < MIN_UNSHARED_SAMPLES) {
+      return writtenObjects.putOrGet(obj, newWriteRefId);
+    }
+    // `obj` may be written by a tracked type or field, or evicted from the cache.
+    if (writtenObjects.size != 0) {
+      int writtenRefId = writtenObjects.get(obj, -1);
+      if (writtenRefId >= 0) {
+        markShared(obj, site);
+        return writtenRefId;
+      }
+    }
+    if (cached != null) {
+      writtenObjects.put(cached, cachedRefIds[slot]);
+    } else {
+      if (numCachedRefs == usedCacheSlots.length) {
+        if (growCache()) {
+          return adaptiveTrackRef(obj, site, newWriteRefId);
+        }
+        writtenObjects.put(obj, newWriteRefId);
+        return Integer.MIN_VALUE;
+      }
+      usedCacheSlots[numCachedRefs++] = slot;
+    }
+    cachedObjects[slot] = obj;
+    cachedRefIds[slot] = newWriteRefId;
+    cachedRefSites[slot] = site;
+    return Integer.MIN_VALUE;
+  }
+
+  /** Double the cache capacity, returns false if the cache can't grow. */
+  private boolean growCache() {
+    Object[] oldObjects = cachedObjects;
+    int capacity = oldObjects.length << 1;
+    if (capacity > MAX_CACHE_CAPACITY) {
+      return false;
+    }
+    int[] oldRefIds = cachedRefIds;
+    int[] oldRefSites = cachedRefSites;
+    int[] oldUsedSlots = usedCacheSlots;
+    int numOldRefs = numCachedRefs;
+    Object[] cachedObjects = this.cachedObjects = new Object[capacity];
+    int[] cachedRefIds = this.cachedRefIds = new int[capacity];
+    int[] cachedRefSites = this.cachedRefSites = new int[capacity];
+    int[] usedSlots = this.usedCacheSlots = new int[capacity >> 1];
+    int cacheShift = --this.cacheShift;
+    int numCachedRefs = 0;
+    for (int i = 0; i < numOldRefs; i++) {
+      int oldSlot = oldUsedSlots[i];
+      Object obj = oldObjects[oldSlot];
+      int slot = (int) (System.identityHashCode(obj) * HASH_MULTIPLIER >>> cacheShift);
+      if (cachedObjects[slot] != null) {
+        writtenObjects.put(obj, oldRefIds[oldSlot]);
+      } else {
+        cachedObjects[slot] = obj;
+        cachedRefIds[slot] = oldRefIds[oldSlot];
+        cachedRefSites[slot] = oldRefSites[oldSlot];
+        usedSlots[numCachedRefs++] = slot;
+      }
+    }
+    this.numCachedRefs = numCachedRefs;
+    return true;
+  }
+
+  private void markShared(Object obj, int site) {
+    if (site == NO_SITE) {
+      refTypeStates.put(obj.getClass(), SHARED);
+    } else {
+      refSiteStates[site] = SHARED;
+    }
+  }
+
+  /**
+   * Write ref or null flag like {@link #writeRefOrNull(MemoryBuffer, Object)}, but the value is
+   * written by a field registered by {@link #registerRefSite}.
+   */
+  public boolean writeRefOrNull(MemoryBuffer buffer, Object obj, int site) {
     buffer.grow(10);
     if (obj == null) {
       buffer._unsafeWriteByte(Fory.NULL_FLAG);
       return true;
     } else {
-      // The id should be consistent with `#nextReadRefId`
-      int newWriteRefId = writtenObjects.size;
-      int writtenRefId;
-      if (ENABLE_FORY_REF_PROFILING) {
-        // replaceRef is rare, just ignore it for profiling.
-        writtenRefId = writtenObjects.profilingPutOrGet(obj, newWriteRefId);
+      int writtenRefId = trackRef(obj, site);
+      if (writtenRefId >= 0) {
+        // The obj has been written previously.
+        buffer._unsafeWriteByte(Fory.REF_FLAG);
+        buffer._unsafeWriteVarUint32(writtenRefId);
+        return true;
       } else {
-        writtenRefId = writtenObjects.putOrGet(obj, newWriteRefId);
+        // The object is being written for the first time.
+        buffer._unsafeWriteByte(Fory.REF_VALUE_FLAG);
+        return false;
       }
+    }
+  }
+
+  @Override
+  public boolean writeRefOrNull(MemoryBuffer buffer, Object obj) {
+    buffer.grow(10);
+    if (obj == null) {
+      buffer._unsafeWriteByte(Fory.NULL_FLAG);
+      return true;
+    } else {
+      int writtenRefId = trackRef(obj, NO_SITE);
       if (writtenRefId >= 0) {
         // The obj has been written previously.
         buffer._unsafeWriteByte(Fory.REF_FLAG);
@@ -95,15 +327,7 @@ public final class MapRefResolver implements RefResolver {
   public boolean writeRefValueFlag(MemoryBuffer buffer, Object obj) {
     assert obj != null;
     buffer.grow(10);
-    // The id should be consistent with `#nextReadRefId`
-    int newWriteRefId = writtenObjects.size;
-    int writtenRefId;
-    if (ENABLE_FORY_REF_PROFILING) {
-      // replaceRef is rare, just ignore it for profiling.
-      writtenRefId = writtenObjects.profilingPutOrGet(obj, newWriteRefId);
-    } else {
-      writtenRefId = writtenObjects.putOrGet(obj, newWriteRefId);
-    }
+    int writtenRefId = trackRef(obj, NO_SITE);
     if (writtenRefId >= 0) {
       // The obj has been written previously.
       buffer._unsafeWriteByte(Fory.REF_FLAG);
@@ -128,6 +352,12 @@ public final class MapRefResolver implements RefResolver {
   @Override
   public void replaceRef(Object original, Object newObject) {
     int newObjectId = writtenObjects.get(newObject, -1);
+    if (newObjectId == -1 && numCachedRefs > 0) {
+      int slot = (int) (System.identityHashCode(newObject) * HASH_MULTIPLIER >>> cacheShift);
+      if (cachedObjects[slot] == newObject) {
+        newObjectId = cachedRefIds[slot];
+      }
+    }
     Preconditions.checkArgument(newObjectId != -1);
     writtenObjects.put(original, newObjectId);
   }
@@ -228,7 +458,7 @@ public final class MapRefResolver implements RefResolver {
 
   @Override
   public void resetWrite() {
-    IdentityObjectIntMap<Object> writtenObjects = this.writtenObjects;
+    StampedIdentityObjectIntMap<Object> writtenObjects = this.writtenObjects;
     // TODO handle outlier big size.
     long writeTotalObjectSize = this.writeTotalObjectSize + writtenObjects.size;
     long writeCounter = this.writeCounter + 1;
@@ -242,7 +472,53 @@ public final class MapRefResolver implements RefResolver {
     if (avg <= DEFAULT_MAP_CAPACITY) {
       avg = DEFAULT_MAP_CAPACITY;
     }
-    writtenObjects.clearApproximate(avg);
+    if (adaptive) {
+      updateRefTypeStates();
+    }
+    writtenObjects.resetApproximate(avg);
+  }
+
+  private void updateRefTypeStates() {
+    if (sampling) {
+      IdentityObjectIntMap<Class<?>> sampledTypes = this.sampledTypes;
+      if (sampledTypes == null) {
+        sampledTypes = this.sampledTypes = new IdentityObjectIntMap<>(8, 0.5f);
+      }
+      IdentityObjectIntMap<Class<?>> refTypeStates = this.refTypeStates;
+      IdentityObjectIntMap<Class<?>> types = sampledTypes;
+      int[] sampledRefSites = this.sampledRefSites;
+      int[] refSiteStates = this.refSiteStates;
+      int[] refSiteStamps = this.refSiteStamps;
+      int stamp = (int) numWrites + 1;
+      writtenObjects.forEach(
+          (obj, refId) -> {
+            types.put(obj.getClass(), 0);
+            int site = refId < sampledRefSites.length ? sampledRefSites[refId] : NO_SITE;
+            if (site != NO_SITE && refSiteStamps[site] != stamp) {
+              refSiteStamps[site] = stamp;
+              if (refSiteStates[site] != SHARED) {
+                refSiteStates[site]++;
+              }
+            }
+          });
+      types.forEach(
+          (type, ignored) -> {
+            int state = refTypeStates.get(type, 0);
+            if (state != SHARED) {
+              refTypeStates.put(type, state + 1);
+            }
+          });
+      sampledTypes.clear();
+    } else {
+      Object[] cachedObjects = this.cachedObjects;
+      int[] usedSlots = this.usedCacheSlots;
+      for (int i = 0; i < numCachedRefs; i++) {
+        cachedObjects[usedSlots[i]] = null;
+      }
+      numCachedRefs = 0;
+    }
+    long numWrites = ++this.numWrites;
+    sampling = numWrites < NUM_WARMUP_SAMPLES || numWrites % SAMPLE_INTERVAL == 0;
   }
 
   @Override
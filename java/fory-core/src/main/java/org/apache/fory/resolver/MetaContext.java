@@ -19,6 +19,7 @@
 
 package org.apache.fory.resolver;
 
+import java.util.Arrays;
 import org.apache.fory.collection.IdentityObjectIntMap;
 import org.apache.fory.collection.ObjectArray;
 import org.apache.fory.memory.MemoryBuffer;
@@ -44,4 +45,23 @@ public class MetaContext {
    * @see ClassResolver#writeClassDefs(MemoryBuffer)
    */
   public final ObjectArray<ClassDef> writingClassDefs = new ObjectArray<>();
+
+  /**
+   * Stamp of the serialization which wrote each class in {@link #classMap} last time, indexed by
+   * class id. Only maintained when not null, see {@link MetaShareSession}.
+   */
+  int[] classWriteStamps;
+
+  int writeStamp;
+
+  /** Record that class with <code>id</code> in {@link #classMap} is written by current stamp. */
+  public void recordClassWrite(int id) {
+    int[] stamps = classWriteStamps;
+    if (stamps != null) {
+      if (id >= stamps.length) {
+        stamps = classWriteStamps = Arrays.copyOf(stamps, Math.max(id + 1, stamps.length << 1));
+      }
+      stamps[id] = writeStamp;
+    }
+  }
 }
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.resolver;
+
+import java.util.Arrays;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.fory.Fory;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.collection.IdentityObjectIntMap;
+import org.apache.fory.collection.ObjectArray;
+import org.apache.fory.config.Config;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.meta.ClassDef;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * A meta share session for a connection, class definitions are sent only once by all messages
+ * serialized by the session, and class definitions received are reused by all messages
+ * deserialized by the peer session. The session holds a {@link MetaContext} for every direction,
+ * so it's not needed to set meta context by {@link SerializationContext#setMetaContext} around
+ * every serialization.
+ *
+ * <p>Class definitions kept by the session are bounded. If definitions of more than {@code
+ * maxClassDefs} classes have been sent, least recently written classes will be evicted before next
+ * message is serialized, and the ids of retained classes will be written ahead of that message so
+ * that the peer session can evict the same class definitions. Every message is prefixed by such a
+ * renegotiation header, which takes only one byte if nothing is evicted.
+ *
+ * <p>If a message failed to be deserialized, the session rejects later messages until the peer
+ * session is renegotiated by {@link #renegotiate}, since they may reference class definitions
+ * which are never read.
+ *
+ * <p>Messages must be deserialized by the peer session in the same order as they are serialized.
+ * Serialization and deserialization are synchronized separately, so the session can be used with
+ * a {@link ThreadSafeFory} which is shared by multiple threads. Meta share must be enabled by
+ * {@link ForyBuilder#withMetaShare} and scoped meta share must be disabled.
+ */
+@ThreadSafe
+public class MetaShareSession {
+  public static final int DEFAULT_MAX_CLASS_DEFS = 1024;
+
+  private final int maxClassDefs;
+  private final MetaContext writeContext = new MetaContext();
+  private final MetaContext readContext = new MetaContext();
+  // Set when class ids may be assigned by a message which is never sent to peer.
+  private boolean resetWriteContext;
+  // Set when a message failed to be deserialized, class defs read by it may be missing.
+  private boolean readFailed;
+  private Fory lastReadFory;
+  private int numEvictions;
+
+  public MetaShareSession() {
+    this(DEFAULT_MAX_CLASS_DEFS);
+  }
+
+  /**
+   * Create a session which keeps definitions of at most {@code maxClassDefs} classes between
+   * messages, a single message can still write more class definitions.
+   */
+  public MetaShareSession(int maxClassDefs) {
+    Preconditions.checkArgument(maxClassDefs > 0, "maxClassDefs must be positive");
+    this.maxClassDefs = maxClassDefs;
+    writeContext.classWriteStamps = new int[16];
+  }
+
+  public byte[] serialize(Fory fory, Object obj) {
+    MemoryBuffer buf = fory.getBuffer();
+    buf.writerIndex(0);
+    serialize(fory, buf, obj);
+    byte[] bytes = buf.getBytes(0, buf.writerIndex());
+    fory.resetBuffer();
+    return bytes;
+  }
+
+  public void serialize(Fory fory, MemoryBuffer buffer, Object obj) {
+    checkConfig(fory.getConfig());
+    synchronized (writeContext) {
+      writeRenegotiation(buffer);
+      boolean success = false;
+      try {
+        fory.getSerializationContext().setMetaContext(writeContext);
+        fory.serialize(buffer, obj);
+        success = true;
+      } finally {
+        if (!success) {
+          // Peer won't receive class defs written by this message.
+          resetWriteContext = true;
+        }
+      }
+    }
+  }
+
+  public byte[] serialize(ThreadSafeFory fory, Object obj) {
+    return fory.execute(f -> serialize(f, obj));
+  }
+
+  public Object deserialize(Fory fory, byte[] bytes) {
+    return deserialize(fory, MemoryUtils.wrap(bytes));
+  }
+
+  public Object deserialize(Fory fory, MemoryBuffer buffer) {
+    checkConfig(fory.getConfig());
+    synchronized (readContext) {
+      boolean reset = readRenegotiation(buffer);
+      if (readFailed) {
+        if (!reset) {
+          throw new IllegalStateException(
+              "A previous message failed to be deserialized, the peer session must renegotiate "
+                  + "by MetaShareSession#renegotiate before sending more messages");
+        }
+        readFailed = false;
+      }
+      if (fory != lastReadFory) {
+        // Class infos are bound to the class resolver which creates them.
+        ObjectArray<ClassInfo> readClassInfos = readContext.readClassInfos;
+        for (int i = 0; i < readClassInfos.size; i++) {
+          readClassInfos.set(i, null);
+        }
+        lastReadFory = fory;
+      }
+      fory.getSerializationContext().setMetaContext(readContext);
+      boolean success = false;
+      try {
+        Object obj = fory.deserialize(buffer);
+        success = true;
+        return obj;
+      } finally {
+        if (!success) {
+          // Later messages may reference class defs which this message failed to read.
+          readFailed = true;
+        }
+      }
+    }
+  }
+
+  public Object deserialize(ThreadSafeFory fory, byte[] bytes) {
+    return fory.execute(f -> deserialize(f, bytes));
+  }
+
+  /**
+   * Discard all class definitions sent by this session, the next serialized message will ask the
+   * peer session to discard all class definitions too. This should be invoked if the peer failed
+   * to deserialize a message, otherwise the peer session will reject later messages.
+   */
+  public void renegotiate() {
+    synchronized (writeContext) {
+      resetWriteContext = true;
+    }
+  }
+
+  /** Returns number of class definitions which have been sent and are still kept by peer. */
+  public int getNumWrittenClassDefs() {
+    synchronized (writeContext) {
+      return writeContext.classMap.size;
+    }
+  }
+
+  /** Returns number of class definitions which have been received and are still kept. */
+  public int getNumReadClassDefs() {
+    synchronized (readContext) {
+      return readContext.readClassDefs.size;
+    }
+  }
+
+  /** Returns how many times class definitions have been evicted by this session. */
+  public int getNumEvictions() {
+    synchronized (writeContext) {
+      return numEvictions;
+    }
+  }
+
+  private static void checkConfig(Config config) {
+    Preconditions.checkArgument(
+        config.isMetaShareEnabled() && !config.isScopedMetaShareEnabled(),
+        "MetaShareSession requires meta share enabled and scoped meta share disabled");
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private void writeRenegotiation(MemoryBuffer buffer) {
+    MetaContext context = writeContext;
+    context.writeStamp++;
+    if (resetWriteContext) {
+      resetWriteContext = false;
+      context.classMap.clear();
+      context.writingClassDefs.clear();
+      numEvictions++;
+      // Renegotiate with no class retained.
+      buffer.writeVarUint32Small7(1);
+      return;
+    }
+    int numClasses = context.classMap.size;
+    if (numClasses <= maxClassDefs) {
+      buffer.writeByte(0);
+      return;
+    }
+    Object[] classes = new Object[numClasses];
+    context.classMap.forEach((cls, id) -> classes[id] = cls);
+    int[] stamps = context.classWriteStamps;
+    // Sort by how many messages ago the class was written, with id in the low bits.
+    long[] agedIds = new long[numClasses];
+    for (int i = 0; i < numClasses; i++) {
+      int age = i < stamps.length ? context.writeStamp - stamps[i] : Integer.MAX_VALUE;
+      agedIds[i] = ((long) age << 32) | i;
+    }
+    Arrays.sort(agedIds);
+    int numRetained = maxClassDefs >>> 1;
+    int[] retainedIds = new int[numRetained];
+    for (int i = 0; i < numRetained; i++) {
+      retainedIds[i] = (int) agedIds[i];
+    }
+    // Keep relative order of retained classes.
+    Arrays.sort(retainedIds);
+    IdentityObjectIntMap classMap = context.classMap;
+    classMap.clear();
+    int[] newStamps = new int[Math.max(16, numRetained)];
+    buffer.writeVarUint32Small7(numRetained + 1);
+    for (int i = 0; i < numRetained; i++) {
+      int id = retainedIds[i];
+      buffer.writeVarUint32Small7(id);
+      // Key is class def id instead of class for nonexistent classes.
+      classMap.put(classes[id], i);
+      newStamps[i] = id < stamps.length ? stamps[id] : 0;
+    }
+    context.classWriteStamps = newStamps;
+    numEvictions++;
+  }
+
+  /** Returns true if all class definitions read previously are discarded. */
+  private boolean readRenegotiation(MemoryBuffer buffer) {
+    int header = buffer.readVarUint32Small7();
+    if (header == 0) {
+      return false;
+    }
+    int numRetained = header - 1;
+    ObjectArray<ClassDef> readClassDefs = readContext.readClassDefs;
+    ObjectArray<ClassInfo> readClassInfos = readContext.readClassInfos;
+    ClassDef[] retainedDefs = new ClassDef[numRetained];
+    ClassInfo[] retainedInfos = new ClassInfo[numRetained];
+    for (int i = 0; i < numRetained; i++) {
+      int id = buffer.readVarUint32Small7();
+      retainedDefs[i] = readClassDefs.get(id);
+      retainedInfos[i] = readClassInfos.get(id);
+    }
+    readClassDefs.clear();
+    readClassInfos.clear();
+    for (int i = 0; i < numRetained; i++) {
+      readClassDefs.add(retainedDefs[i]);
+      readClassInfos.add(retainedInfos[i]);
+    }
+    return numRetained == 0;
+  }
+}
@@ -561,8 +561,10 @@ public class XtypeResolver implements TypeResolver {
     int id = classMap.putOrGet(classInfo.cls, newId);
     if (id >= 0) {
       buffer.writeVarUint32(id);
+      metaContext.recordClassWrite(id);
     } else {
       buffer.writeVarUint32(newId);
+      metaContext.recordClassWrite(newId);
       ClassDef classDef = classInfo.classDef;
       if (classDef == null) {
         classDef = buildClassDef(classInfo);
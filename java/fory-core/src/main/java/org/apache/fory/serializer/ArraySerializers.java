@@ -48,6 +48,8 @@ public class ArraySerializers {
     private final ClassInfoHolder classInfoHolder;
     private final int[] stubDims;
     private final GenericType componentGenericType;
+    // header has a segmented bit if parallel serialization is enabled.
+    private final boolean segmentable;
 
     public ObjectArraySerializer(Fory fory, Class<T[]> cls) {
       super(fory, cls);
@@ -78,6 +80,7 @@ public class ArraySerializers {
       }
       this.stubDims = new int[dimension];
       classInfoHolder = fory.getClassResolver().nilClassInfoHolder();
+      segmentable = fory.getConfig().parallelSerializationThreshold() > 0;
     }
 
     @Override
@@ -86,7 +89,16 @@ public class ArraySerializers {
       RefResolver refResolver = fory.getRefResolver();
       Serializer componentSerializer = this.componentTypeSerializer;
       int header = componentSerializer != null ? 0b1 : 0b0;
-      buffer.writeVarUint32Small7(len << 1 | header);
+      if (segmentable) {
+        if (ParallelSegments.shouldSegment(fory, len)) {
+          buffer.writeVarUint32Small7(len << 2 | 0b10);
+          ParallelSegments.writeArray(fory, buffer, arr);
+          return;
+        }
+        buffer.writeVarUint32Small7(len << 2 | header);
+      } else {
+        buffer.writeVarUint32Small7(len << 1 | header);
+      }
       if (componentSerializer != null) {
         for (T t : arr) {
           if (!refResolver.writeRefOrNull(buffer, t)) {
@@ -149,10 +161,20 @@ public class ArraySerializers {
     public T[] read(MemoryBuffer buffer) {
       int numElements = buffer.readVarUint32Small7();
       boolean isFinal = (numElements & 0b1) != 0;
-      numElements >>>= 1;
+      boolean segmented = false;
+      if (segmentable) {
+        segmented = (numElements & 0b10) != 0;
+        numElements >>>= 2;
+      } else {
+        numElements >>>= 1;
+      }
       Object[] value = newArray(numElements);
       RefResolver refResolver = fory.getRefResolver();
       refResolver.reference(value);
+      if (segmented) {
+        ParallelSegments.readArray(fory, buffer, value);
+        return (T[]) value;
+      }
       if (isFinal) {
         final Serializer componentTypeSerializer = this.componentTypeSerializer;
         for (int i = 0; i < numElements; i++) {
@@ -444,14 +466,20 @@ public class ArraySerializers {
   }
 
   public static final class IntArraySerializer extends PrimitiveArraySerializer<int[]> {
+    private final boolean compressArray;
 
     public IntArraySerializer(Fory fory) {
       super(fory, int[].class);
+      compressArray = fory.getConfig().compressIntArray();
     }
 
     @Override
     public void write(MemoryBuffer buffer, int[] value) {
       if (fory.getBufferCallback() == null) {
+        if (compressArray) {
+          PackedArrayCodec.writeInt32s(buffer, value);
+          return;
+        }
         int size = Math.multiplyExact(value.length, elemSize);
         buffer.writePrimitiveArrayWithSize(value, offset, size);
       } else {
@@ -474,6 +502,8 @@ public class ArraySerializers {
         int[] values = new int[numElements];
         buf.copyToUnsafe(0, values, offset, size);
         return values;
+      } else if (compressArray) {
+        return PackedArrayCodec.readInt32s(buffer);
       } else {
         int size = buffer.readVarUint32Small7();
         int numElements = size / elemSize;
@@ -485,14 +515,20 @@ public class ArraySerializers {
   }
 
   public static final class LongArraySerializer extends PrimitiveArraySerializer<long[]> {
+    private final boolean compressArray;
 
     public LongArraySerializer(Fory fory) {
       super(fory, long[].class);
+      compressArray = fory.getConfig().compressLongArray();
     }
 
     @Override
     public void write(MemoryBuffer buffer, long[] value) {
       if (fory.getBufferCallback() == null) {
+        if (compressArray) {
+          PackedArrayCodec.writeInt64s(buffer, value);
+          return;
+        }
         int size = Math.multiplyExact(value.length, elemSize);
         buffer.writePrimitiveArrayWithSize(value, offset, size);
       } else {
@@ -515,6 +551,8 @@ public class ArraySerializers {
         long[] values = new long[numElements];
         buf.copyToUnsafe(0, values, offset, size);
         return values;
+      } else if (compressArray) {
+        return PackedArrayCodec.readInt64s(buffer);
       } else {
         int size = buffer.readVarUint32Small7();
         int numElements = size / elemSize;
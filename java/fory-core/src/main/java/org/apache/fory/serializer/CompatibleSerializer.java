@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.fory.Fory;
+import org.apache.fory.builder.JITContext;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.Platform;
 import org.apache.fory.reflect.FieldAccessor;
@@ -50,6 +51,8 @@ public final class CompatibleSerializer<T> extends CompatibleSerializerBase<T> {
   private static final int INDEX_FOR_SKIP_FILL_VALUES = -1;
   private final FieldResolver fieldResolver;
   private final RecordInfo recordInfo;
+  // null if no jit serializer pending for this type.
+  private final JITContext.JITHotness jitHotness;
 
   public CompatibleSerializer(Fory fory, Class<T> cls) {
     super(fory, cls);
@@ -66,6 +69,7 @@ public final class CompatibleSerializer<T> extends CompatibleSerializerBase<T> {
     } else {
       recordInfo = null;
     }
+    jitHotness = fory.getJITContext().getPendingJITHotness(cls);
   }
 
   public CompatibleSerializer(Fory fory, Class<T> cls, FieldResolver fieldResolver) {
@@ -73,10 +77,22 @@ public final class CompatibleSerializer<T> extends CompatibleSerializerBase<T> {
     Preconditions.checkArgument(!isRecord, cls);
     recordInfo = null;
     this.fieldResolver = fieldResolver;
+    jitHotness = null;
   }
 
   @Override
   public void write(MemoryBuffer buffer, T value) {
+    JITContext.JITHotness jitHotness = this.jitHotness;
+    if (jitHotness == null) {
+      writeValue(buffer, value);
+    } else {
+      int writerIndex = buffer.writerIndex();
+      writeValue(buffer, value);
+      jitHotness.record(buffer.writerIndex() - writerIndex);
+    }
+  }
+
+  private void writeValue(MemoryBuffer buffer, T value) {
     for (FieldResolver.FieldInfo fieldInfo : fieldResolver.getEmbedTypes4Fields()) {
       buffer.writeInt32((int) fieldInfo.getEncodedFieldInfo());
       readAndWriteFieldValue(buffer, fieldInfo, value);
@@ -305,6 +321,17 @@ public final class CompatibleSerializer<T> extends CompatibleSerializerBase<T> {
   @SuppressWarnings("unchecked")
   @Override
   public T read(MemoryBuffer buffer) {
+    JITContext.JITHotness jitHotness = this.jitHotness;
+    if (jitHotness == null) {
+      return readValue(buffer);
+    }
+    int readerIndex = buffer.readerIndex();
+    T obj = readValue(buffer);
+    jitHotness.record(buffer.readerIndex() - readerIndex);
+    return obj;
+  }
+
+  private T readValue(MemoryBuffer buffer) {
     if (isRecord) {
       Object[] fieldValues = new Object[fieldResolver.getNumFields()];
       readFields(buffer, fieldValues);
@@ -22,22 +22,29 @@ package org.apache.fory.serializer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import org.apache.fory.Fory;
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.builder.JITContext;
 import org.apache.fory.builder.MetaSharedCodecBuilder;
 import org.apache.fory.collection.Tuple2;
 import org.apache.fory.collection.Tuple3;
 import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.Config;
 import org.apache.fory.config.ForyBuilder;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.Platform;
 import org.apache.fory.meta.ClassDef;
+import org.apache.fory.meta.Projection;
 import org.apache.fory.reflect.FieldAccessor;
+import org.apache.fory.resolver.ClassInfo;
 import org.apache.fory.resolver.ClassInfoHolder;
 import org.apache.fory.resolver.ClassResolver;
 import org.apache.fory.resolver.RefResolver;
 import org.apache.fory.resolver.TypeResolver;
 import org.apache.fory.type.Descriptor;
+import org.apache.fory.type.DescriptorBuilder;
 import org.apache.fory.type.DescriptorGrouper;
 import org.apache.fory.type.Generics;
 import org.apache.fory.util.Preconditions;
@@ -55,6 +62,14 @@ import org.apache.fory.util.record.RecordUtils;
  * all non-inner final types as non-final, so that fory can write class definition when write class
  * info for those types.
  *
+ * <p>If created with a {@link Projection}, fields not in the projection are skipped like fields
+ * which don't exist in current class, and object fields with nested paths are read by projected
+ * serializers of their class defs. Unprojected components of a record take default values.
+ *
+ * <p>If {@link ForyBuilder#withObjectSizePrefix object size prefix} is enabled and ref tracking is
+ * disabled, object fields which don't exist in current class or aren't projected are skipped by
+ * their size prefix instead of being parsed.
+ *
  * @see CompatibleMode
  * @see ForyBuilder#withMetaShare
  * @see MetaSharedCodecBuilder
@@ -72,13 +87,28 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
   private final boolean[] isFinal;
 
   private final ObjectSerializer.GenericTypeField[] otherFields;
+  // Nested projection of other fields, null if the field is read fully.
+  private final Projection[] otherFieldProjections;
   private final ObjectSerializer.GenericTypeField[] containerFields;
   private final RecordInfo recordInfo;
   private Serializer<T> serializer;
   private final ClassInfoHolder classInfoHolder;
   private final SerializationBinding binding;
+  private final boolean sizePrefixed;
+  private final boolean skipBySizePrefix;
+  // null if no jit serializer pending for this class def.
+  private final JITContext.JITHotness jitHotness;
 
   public MetaSharedSerializer(Fory fory, Class<T> type, ClassDef classDef) {
+    this(fory, type, classDef, null);
+  }
+
+  /**
+   * Create a serializer which reads only fields in <code>projection</code>, or all fields if
+   * <code>projection</code> is null.
+   */
+  public MetaSharedSerializer(
+      Fory fory, Class<T> type, ClassDef classDef, Projection projection) {
     super(fory, type);
     Preconditions.checkArgument(
         !fory.getConfig().checkClassVersion(),
@@ -89,6 +119,9 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
     Collection<Descriptor> descriptors =
         consolidateFields(
             xlang ? fory.getXtypeResolver() : fory.getClassResolver(), type, classDef);
+    if (projection != null) {
+      descriptors = skipUnprojectedFields(descriptors, projection);
+    }
     DescriptorGrouper descriptorGrouper = classResolver.createDescriptorGrouper(descriptors, false);
     // d.getField() may be null if not exists in this class when meta share enabled.
     Tuple3<
@@ -100,17 +133,53 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
     isFinal = infos.f0.f1;
     otherFields = infos.f1;
     containerFields = infos.f2;
+    otherFieldProjections = projection == null ? null : buildProjections(otherFields, projection);
     classInfoHolder = this.classResolver.nilClassInfoHolder();
     if (isRecord) {
+      // Unprojected components are mapped to nothing so that they take default values.
       List<String> fieldNames =
           descriptorGrouper.getSortedDescriptors().stream()
               .map(Descriptor::getName)
+              .map(name -> projection == null || projection.getChild(name) != null ? name : null)
               .collect(Collectors.toList());
       recordInfo = new RecordInfo(type, fieldNames);
     } else {
       recordInfo = null;
     }
     binding = SerializationBinding.createBinding(fory);
+    Config config = fory.getConfig();
+    sizePrefixed = config.isObjectSizePrefixEnabled();
+    skipBySizePrefix = ObjectSizePrefix.canSkip(config);
+    // Projected serializers are never replaced by jit serializers.
+    jitHotness = projection == null ? fory.getJITContext().getPendingJITHotness(classDef) : null;
+  }
+
+  private static Collection<Descriptor> skipUnprojectedFields(
+      Collection<Descriptor> descriptors, Projection projection) {
+    return descriptors.stream()
+        .map(
+            d ->
+                d.getField() == null || projection.getChild(d.getName()) != null
+                    ? d
+                    : new DescriptorBuilder(d).field(null).build())
+        .collect(Collectors.toList());
+  }
+
+  private static Projection[] buildProjections(
+      ObjectSerializer.GenericTypeField[] fields, Projection projection) {
+    Projection[] projections = new Projection[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      ObjectSerializer.GenericTypeField field = fields[i];
+      if (field.fieldAccessor != null) {
+        String qualifiedName = field.qualifiedFieldName;
+        Projection child =
+            projection.getChild(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+        if (child != null && !child.isAll()) {
+          projections[i] = child;
+        }
+      }
+    }
+    return Arrays.stream(projections).allMatch(Objects::isNull) ? null : projections;
   }
 
   @Override
@@ -129,6 +198,17 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
 
   @Override
   public T read(MemoryBuffer buffer) {
+    JITContext.JITHotness jitHotness = this.jitHotness;
+    if (jitHotness == null) {
+      return readValue(buffer);
+    }
+    int readerIndex = buffer.readerIndex();
+    T obj = readValue(buffer);
+    jitHotness.record(buffer.readerIndex() - readerIndex);
+    return obj;
+  }
+
+  private T readValue(MemoryBuffer buffer) {
     if (isRecord) {
       Object[] fieldValues =
           new Object[finalFields.length + otherFields.length + containerFields.length];
@@ -148,6 +228,9 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
     ClassResolver classResolver = this.classResolver;
     SerializationBinding binding = this.binding;
     refResolver.reference(obj);
+    if (sizePrefixed) {
+      buffer.increaseReaderIndex(ObjectSizePrefix.SIZE_BYTES);
+    }
     // read order: primitive,boxed,final,other,collection,map
     ObjectSerializer.FinalTypeField[] finalFields = this.finalFields;
     for (int i = 0; i < finalFields.length; i++) {
@@ -175,6 +258,9 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
           if (fieldInfo.classInfo == null) {
             // TODO(chaokunyang) support registered serializer in peer with ref tracking disabled.
             fory.readRef(buffer, classInfoHolder);
+          } else if (skipBySizePrefix && !isFinal) {
+            // Class info is written for final types, so that the value can be skipped by size.
+            skipFieldValue(fory, buffer, classInfoHolder, fieldInfo.nullable);
           } else {
             AbstractObjectSerializer.readFinalObjectFieldValue(
                 binding, refResolver, classResolver, fieldInfo, isFinal, buffer);
@@ -182,8 +268,20 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
         }
       }
     }
-    for (ObjectSerializer.GenericTypeField fieldInfo : otherFields) {
-      Object fieldValue = AbstractObjectSerializer.readOtherFieldValue(binding, fieldInfo, buffer);
+    ObjectSerializer.GenericTypeField[] otherFields = this.otherFields;
+    Projection[] otherFieldProjections = this.otherFieldProjections;
+    for (int i = 0; i < otherFields.length; i++) {
+      ObjectSerializer.GenericTypeField fieldInfo = otherFields[i];
+      Object fieldValue;
+      if (skipBySizePrefix && fieldInfo.fieldAccessor == null) {
+        skipFieldValue(fory, buffer, fieldInfo.classInfoHolder, fieldInfo.nullable);
+        continue;
+      }
+      if (otherFieldProjections == null || otherFieldProjections[i] == null) {
+        fieldValue = AbstractObjectSerializer.readOtherFieldValue(binding, fieldInfo, buffer);
+      } else {
+        fieldValue = readProjectedFieldValue(fieldInfo, otherFieldProjections[i], buffer);
+      }
       FieldAccessor fieldAccessor = fieldInfo.fieldAccessor;
       if (fieldAccessor != null) {
         fieldAccessor.putObject(obj, fieldValue);
@@ -212,6 +310,9 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
     RefResolver refResolver = this.refResolver;
     ClassResolver classResolver = this.classResolver;
     SerializationBinding binding = this.binding;
+    if (sizePrefixed) {
+      buffer.increaseReaderIndex(ObjectSizePrefix.SIZE_BYTES);
+    }
     // read order: primitive,boxed,final,other,collection,map
     ObjectSerializer.FinalTypeField[] finalFields = this.finalFields;
     for (int i = 0; i < finalFields.length; i++) {
@@ -235,6 +336,9 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
           if (fieldInfo.classInfo == null) {
             // TODO(chaokunyang) support registered serializer in peer with ref tracking disabled.
             fory.readRef(buffer, classInfoHolder);
+          } else if (skipBySizePrefix && !isFinal) {
+            // Class info is written for final types, so that the value can be skipped by size.
+            skipFieldValue(fory, buffer, classInfoHolder, fieldInfo.nullable);
           } else {
             AbstractObjectSerializer.readFinalObjectFieldValue(
                 binding, refResolver, classResolver, fieldInfo, isFinal, buffer);
@@ -243,8 +347,21 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
         fields[counter++] = null;
       }
     }
-    for (ObjectSerializer.GenericTypeField fieldInfo : otherFields) {
-      Object fieldValue = AbstractObjectSerializer.readOtherFieldValue(binding, fieldInfo, buffer);
+    ObjectSerializer.GenericTypeField[] otherFields = this.otherFields;
+    Projection[] otherFieldProjections = this.otherFieldProjections;
+    for (int i = 0; i < otherFields.length; i++) {
+      ObjectSerializer.GenericTypeField fieldInfo = otherFields[i];
+      if (skipBySizePrefix && fieldInfo.fieldAccessor == null) {
+        skipFieldValue(fory, buffer, fieldInfo.classInfoHolder, fieldInfo.nullable);
+        fields[counter++] = null;
+        continue;
+      }
+      Object fieldValue;
+      if (otherFieldProjections == null || otherFieldProjections[i] == null) {
+        fieldValue = AbstractObjectSerializer.readOtherFieldValue(binding, fieldInfo, buffer);
+      } else {
+        fieldValue = readProjectedFieldValue(fieldInfo, otherFieldProjections[i], buffer);
+      }
       fields[counter++] = fieldValue;
     }
     Generics generics = fory.getGenerics();
@@ -255,6 +372,77 @@ public class MetaSharedSerializer<T> extends AbstractObjectSerializer<T> {
     }
   }
 
+  /**
+   * Skip value of a field which is written without ref tracking. Objects serialized with field
+   * meta are skipped by their size prefix, other objects are still parsed.
+   */
+  @CodegenInvoke
+  public static void skipFieldValue(
+      Fory fory, MemoryBuffer buffer, ClassInfoHolder classInfoHolder, boolean nullable) {
+    fory.getRefResolver().preserveRefId(-1);
+    if (nullable && buffer.readByte() == Fory.NULL_FLAG) {
+      return;
+    }
+    ClassResolver classResolver = fory.getClassResolver();
+    ClassInfo classInfo = classResolver.readClassInfo(buffer, classInfoHolder);
+    ClassDef classDef = classInfo.getClassDef();
+    // Class defs read inline and out-of-band buffers are consumed in order by the skipped data.
+    if (classDef != null
+        && classDef.hasFieldsMeta()
+        && !classResolver.isReadClassDefsInline()
+        && !fory.isPeerOutOfBandEnabled()) {
+      ObjectSizePrefix.skip(buffer);
+    } else {
+      fory.readData(buffer, classInfo);
+    }
+  }
+
+  private Object readProjectedFieldValue(
+      ObjectSerializer.GenericTypeField fieldInfo, Projection projection, MemoryBuffer buffer) {
+    if (fieldInfo.trackingRef) {
+      return readProjectedRef(fory, buffer, fieldInfo.classInfoHolder, projection);
+    }
+    refResolver.preserveRefId(-1);
+    if (fieldInfo.nullable) {
+      byte headFlag = buffer.readByte();
+      if (headFlag == Fory.NULL_FLAG) {
+        return null;
+      }
+    }
+    ClassInfo classInfo = classResolver.readClassInfo(buffer, fieldInfo.classInfoHolder);
+    return readProjectedData(fory, buffer, classInfo, projection);
+  }
+
+  /**
+   * Read an object with ref meta, only fields in <code>projection</code> will be read if the object
+   * is serialized with field meta.
+   *
+   * @see ClassResolver#getProjectedSerializer
+   */
+  public static Object readProjectedRef(
+      Fory fory, MemoryBuffer buffer, ClassInfoHolder classInfoHolder, Projection projection) {
+    RefResolver refResolver = fory.getRefResolver();
+    int nextReadRefId = refResolver.tryPreserveRefId(buffer);
+    if (nextReadRefId >= Fory.NOT_NULL_VALUE_FLAG) {
+      ClassInfo classInfo = fory.getClassResolver().readClassInfo(buffer, classInfoHolder);
+      Object o = readProjectedData(fory, buffer, classInfo, projection);
+      refResolver.setReadObject(nextReadRefId, o);
+      return o;
+    } else {
+      return refResolver.getReadObject();
+    }
+  }
+
+  private static Object readProjectedData(
+      Fory fory, MemoryBuffer buffer, ClassInfo classInfo, Projection projection) {
+    Serializer<?> serializer =
+        fory.getClassResolver().getProjectedSerializer(classInfo, projection);
+    fory.incDepth(1);
+    Object o = serializer.read(buffer);
+    fory.incDepth(-1);
+    return o;
+  }
+
   /** Skip primitive primitive field value since it doesn't write null flag. */
   static boolean skipPrimitiveFieldValueFailed(Fory fory, short classId, MemoryBuffer buffer) {
     switch (classId) {
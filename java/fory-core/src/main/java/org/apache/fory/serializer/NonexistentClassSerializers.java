@@ -30,6 +30,7 @@ import org.apache.fory.collection.LongMap;
 import org.apache.fory.collection.MapEntry;
 import org.apache.fory.collection.Tuple2;
 import org.apache.fory.collection.Tuple3;
+import org.apache.fory.inspector.PayloadRecorder;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.meta.ClassDef;
 import org.apache.fory.resolver.ClassInfo;
@@ -74,6 +75,7 @@ public final class NonexistentClassSerializers {
     private final ClassInfoHolder classInfoHolder;
     private final LongMap<ClassFieldsInfo> fieldsInfoMap;
     private final SerializationBinding binding;
+    private final boolean sizePrefixed;
 
     public NonexistentClassSerializer(Fory fory, ClassDef classDef) {
       super(fory, NonexistentClass.NonexistentMetaShared.class);
@@ -81,6 +83,7 @@ public final class NonexistentClassSerializers {
       classInfoHolder = fory.getClassResolver().nilClassInfoHolder();
       fieldsInfoMap = new LongMap<>();
       binding = SerializationBinding.createBinding(fory);
+      sizePrefixed = fory.getConfig().isObjectSizePrefixEnabled();
       Preconditions.checkArgument(fory.getConfig().isMetaShareEnabled());
     }
 
@@ -101,9 +104,11 @@ public final class NonexistentClassSerializers {
       int id = classMap.putOrGet(value.classDef.getId(), newId);
       if (id >= 0) {
         buffer.writeVarUint32(id << 1 | 0b1);
+        metaContext.recordClassWrite(id);
       } else {
         buffer.writeVarUint32(newId << 1 | 0b1);
-        metaContext.writingClassDefs.add(value.classDef);
+        metaContext.recordClassWrite(newId);
+        fory.getClassResolver().addWritingClassDef(buffer, metaContext, value.classDef);
       }
     }
 
@@ -111,6 +116,17 @@ public final class NonexistentClassSerializers {
     public void write(MemoryBuffer buffer, Object v) {
       NonexistentClass.NonexistentMetaShared value = (NonexistentClass.NonexistentMetaShared) v;
       writeClassDef(buffer, value);
+      if (sizePrefixed) {
+        int sizeIndex = ObjectSizePrefix.writePlaceholder(buffer);
+        int barrier = buffer.holdFlushBarrier(sizeIndex);
+        writeFields(buffer, value);
+        ObjectSizePrefix.writeSize(buffer, sizeIndex, barrier);
+      } else {
+        writeFields(buffer, value);
+      }
+    }
+
+    private void writeFields(MemoryBuffer buffer, NonexistentClass.NonexistentMetaShared value) {
       ClassDef classDef = value.classDef;
       ClassFieldsInfo fieldsInfo = getClassFieldsInfo(classDef);
       Fory fory = this.fory;
@@ -191,6 +207,14 @@ public final class NonexistentClassSerializers {
       RefResolver refResolver = fory.getRefResolver();
       ClassResolver classResolver = fory.getClassResolver();
       refResolver.reference(obj);
+      PayloadRecorder recorder =
+          (PayloadRecorder) fory.getSerializationContext().get(PayloadRecorder.class);
+      if (recorder != null) {
+        recorder.enterObject(classDef.getClassName(), buffer.readerIndex());
+      }
+      if (sizePrefixed) {
+        buffer.increaseReaderIndex(ObjectSizePrefix.SIZE_BYTES);
+      }
       List<MapEntry> entries = new ArrayList<>();
       // read order: primitive,boxed,final,other,collection,map
       ClassFieldsInfo fieldsInfo = getClassFieldsInfo(classDef);
@@ -198,6 +222,9 @@ public final class NonexistentClassSerializers {
       boolean[] isFinal = fieldsInfo.isFinal;
       for (int i = 0; i < finalFields.length; i++) {
         ObjectSerializer.FinalTypeField fieldInfo = finalFields[i];
+        if (recorder != null) {
+          recorder.enterField(fieldInfo.qualifiedFieldName, buffer.readerIndex());
+        }
         Object fieldValue;
         if (fieldInfo.classInfo == null) {
           // TODO(chaokunyang) support registered serializer in peer with ref tracking disabled.
@@ -211,20 +238,38 @@ public final class NonexistentClassSerializers {
                     binding, refResolver, classResolver, fieldInfo, isFinal[i], buffer);
           }
         }
+        if (recorder != null) {
+          recorder.exit(buffer.readerIndex());
+        }
         entries.add(new MapEntry(fieldInfo.qualifiedFieldName, fieldValue));
       }
       for (ObjectSerializer.GenericTypeField fieldInfo : fieldsInfo.otherFields) {
+        if (recorder != null) {
+          recorder.enterField(fieldInfo.qualifiedFieldName, buffer.readerIndex());
+        }
         Object fieldValue =
             AbstractObjectSerializer.readOtherFieldValue(binding, fieldInfo, buffer);
+        if (recorder != null) {
+          recorder.exit(buffer.readerIndex());
+        }
         entries.add(new MapEntry(fieldInfo.qualifiedFieldName, fieldValue));
       }
       Generics generics = fory.getGenerics();
       for (ObjectSerializer.GenericTypeField fieldInfo : fieldsInfo.containerFields) {
+        if (recorder != null) {
+          recorder.enterField(fieldInfo.qualifiedFieldName, buffer.readerIndex());
+        }
         Object fieldValue =
             AbstractObjectSerializer.readContainerFieldValue(binding, generics, fieldInfo, buffer);
+        if (recorder != null) {
+          recorder.exit(buffer.readerIndex());
+        }
         entries.add(new MapEntry(fieldInfo.qualifiedFieldName, fieldValue));
       }
       obj.setEntries(entries);
+      if (recorder != null) {
+        recorder.exit(buffer.readerIndex());
+      }
       return obj;
     }
   }
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.fory.Fory;
+import org.apache.fory.builder.JITContext;
 import org.apache.fory.collection.Tuple2;
 import org.apache.fory.collection.Tuple3;
 import org.apache.fory.exception.ForyException;
@@ -75,8 +76,11 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
   private final GenericTypeField[] otherFields;
   private final GenericTypeField[] containerFields;
   private final int classVersionHash;
+  private final boolean sizePrefixed;
   private final SerializationBinding binding;
   private final TypeResolver typeResolver;
+  // null if no jit serializer pending for this type.
+  private final JITContext.JITHotness jitHotness;
 
   public ObjectSerializer(Fory fory, Class<T> cls) {
     this(fory, cls, true);
@@ -92,6 +96,7 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
       classResolver.setSerializerIfAbsent(cls, this);
     }
     typeResolver = fory.isCrossLanguage() ? fory.getXtypeResolver() : classResolver;
+    jitHotness = fory.getJITContext().getPendingJITHotness(cls);
     Collection<Descriptor> descriptors;
     boolean shareMeta = fory.getConfig().isMetaShareEnabled();
     if (shareMeta) {
@@ -114,6 +119,7 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
     } else {
       classVersionHash = 0;
     }
+    sizePrefixed = fory.getConfig().isObjectSizePrefixEnabled();
     Tuple3<Tuple2<FinalTypeField[], boolean[]>, GenericTypeField[], GenericTypeField[]> infos =
         buildFieldInfos(fory, descriptorGrouper);
     finalFields = infos.f0.f0;
@@ -124,6 +130,28 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
 
   @Override
   public void write(MemoryBuffer buffer, T value) {
+    JITContext.JITHotness jitHotness = this.jitHotness;
+    if (jitHotness == null) {
+      writeValue(buffer, value);
+    } else {
+      int writerIndex = buffer.writerIndex();
+      writeValue(buffer, value);
+      jitHotness.record(buffer.writerIndex() - writerIndex);
+    }
+  }
+
+  private void writeValue(MemoryBuffer buffer, T value) {
+    if (sizePrefixed) {
+      int sizeIndex = ObjectSizePrefix.writePlaceholder(buffer);
+      int barrier = buffer.holdFlushBarrier(sizeIndex);
+      writeFields(buffer, value);
+      ObjectSizePrefix.writeSize(buffer, sizeIndex, barrier);
+    } else {
+      writeFields(buffer, value);
+    }
+  }
+
+  private void writeFields(MemoryBuffer buffer, T value) {
     Fory fory = this.fory;
     RefResolver refResolver = this.refResolver;
     if (fory.checkClassVersion()) {
@@ -240,6 +268,17 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
 
   @Override
   public T read(MemoryBuffer buffer) {
+    JITContext.JITHotness jitHotness = this.jitHotness;
+    if (jitHotness == null) {
+      return readValue(buffer);
+    }
+    int readerIndex = buffer.readerIndex();
+    T obj = readValue(buffer);
+    jitHotness.record(buffer.readerIndex() - readerIndex);
+    return obj;
+  }
+
+  private T readValue(MemoryBuffer buffer) {
     if (isRecord) {
       Object[] fields = readFields(buffer);
       fields = RecordUtils.remapping(recordInfo, fields);
@@ -265,6 +304,9 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
     Fory fory = this.fory;
     RefResolver refResolver = this.refResolver;
     TypeResolver typeResolver = this.typeResolver;
+    if (sizePrefixed) {
+      buffer.increaseReaderIndex(ObjectSizePrefix.SIZE_BYTES);
+    }
     if (fory.checkClassVersion()) {
       int hash = buffer.readInt32();
       checkClassVersion(fory, hash, classVersionHash);
@@ -305,6 +347,9 @@ public final class ObjectSerializer<T> extends AbstractObjectSerializer<T> {
     Fory fory = this.fory;
     RefResolver refResolver = this.refResolver;
     TypeResolver typeResolver = this.typeResolver;
+    if (sizePrefixed) {
+      buffer.increaseReaderIndex(ObjectSizePrefix.SIZE_BYTES);
+    }
     if (fory.checkClassVersion()) {
       int hash = buffer.readInt32();
       checkClassVersion(fory, hash, classVersionHash);
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.config.Config;
+import org.apache.fory.memory.MemoryBuffer;
+
+/**
+ * Size prefix of java bean data, written when {@link
+ * org.apache.fory.config.ForyBuilder#withObjectSizePrefix} is enabled.
+ *
+ * <p>Format: <code>| int32 size | fields |</code>. The size is unknown before the fields are
+ * written, so a fixed-width placeholder is reserved first and patched in place after the fields
+ * are written. Nested objects never move data of the objects which contain them.
+ */
+public final class ObjectSizePrefix {
+  /** Number of bytes of the size prefix. */
+  public static final int SIZE_BYTES = 4;
+
+  /**
+   * Reserve {@link #SIZE_BYTES} bytes for the size of data written after it. Callers must hold
+   * {@link MemoryBuffer#holdFlushBarrier flush barrier} at the returned index until the size is
+   * patched.
+   *
+   * @return index of the reserved bytes, which must be passed to {@link #writeSize}.
+   */
+  @CodegenInvoke
+  public static int writePlaceholder(MemoryBuffer buffer) {
+    int index = buffer.writerIndex();
+    buffer.writeInt32(0);
+    return index;
+  }
+
+  /**
+   * Patch the size of data written after the placeholder at {@code index}, then restore flush
+   * barrier returned by {@link MemoryBuffer#holdFlushBarrier}.
+   */
+  @CodegenInvoke
+  public static void writeSize(MemoryBuffer buffer, int index, int barrier) {
+    buffer.putInt32(index, buffer.writerIndex() - index - SIZE_BYTES);
+    buffer.releaseFlushBarrier(barrier);
+  }
+
+  /**
+   * Whether readers can skip size prefixed data without parsing it. Skipped data must not contain
+   * refs or meta strings which may be used by later data.
+   */
+  public static boolean canSkip(Config config) {
+    return config.isObjectSizePrefixEnabled()
+        && !config.trackingRef()
+        && !config.serializeEnumByName();
+  }
+
+  /** Skip data prefixed by size without parsing it. */
+  public static void skip(MemoryBuffer buffer) {
+    buffer.increaseReaderIndex(buffer.readInt32());
+  }
+}
@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import org.apache.fory.exception.DeserializationException;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.Platform;
+
+/**
+ * Compressed encoding for <code>int[]</code> and <code>long[]</code>, used when {@link
+ * org.apache.fory.config.ForyBuilder#withIntArrayCompressed} or {@link
+ * org.apache.fory.config.ForyBuilder#withLongArrayCompressed} is enabled.
+ *
+ * <p>Format: <code>| varuint32 length | codec byte | data |</code>, the codec byte is absent for
+ * empty arrays. The codec is selected per array by sampling the first, middle and last blocks:
+ *
+ * <ul>
+ *   <li>{@link #RAW}: little-endian fixed-width elements, used when packing saves less than a
+ *       quarter of the raw size.
+ *   <li>{@link #DELTA}: the first element as varint, then zigzag deltas between adjacent elements,
+ *       bit-packed per block of 128 deltas as <code>| bit width | bits |</code>. This suits
+ *       sorted data such as timestamps and ids.
+ *   <li>{@link #FOR}: frame of reference, every block of 128 elements is written as <code>
+ *       | varint min | bit width | bits of element - min |</code>. This suits unsorted data whose
+ *       elements are close to each other.
+ * </ul>
+ *
+ * <p>Bits are packed into little-endian 64-bit words directly in the buffer and unpacked directly
+ * into the result array, neither direction allocates temporary objects.
+ */
+public final class PackedArrayCodec {
+  static final byte RAW = 0;
+  static final byte DELTA = 1;
+  static final byte FOR = 2;
+
+  private static final int BLOCK_SIZE = 128;
+  // Block headers outweigh savings for small arrays.
+  private static final int MIN_PACKED_LENGTH = 16;
+
+  public static void writeInt32s(MemoryBuffer buffer, int[] values) {
+    int length = values.length;
+    buffer.writeVarUint32Small7(length);
+    if (length == 0) {
+      return;
+    }
+    byte codec = selectInt32Codec(values);
+    buffer.writeByte(codec);
+    if (codec == RAW) {
+      int size = Math.multiplyExact(length, 4);
+      buffer.writePrimitiveArray(values, Platform.INT_ARRAY_OFFSET, size);
+      return;
+    }
+    int start = 0;
+    if (codec == DELTA) {
+      buffer.writeVarInt32(values[0]);
+      start = 1;
+    }
+    while (start < length) {
+      int end = length - start > BLOCK_SIZE ? start + BLOCK_SIZE : length;
+      writeInt32Block(buffer, values, start, end, codec);
+      start = end;
+    }
+  }
+
+  public static int[] readInt32s(MemoryBuffer buffer) {
+    int length = buffer.readVarUint32Small7();
+    int[] values = new int[length];
+    if (length == 0) {
+      return values;
+    }
+    byte codec = buffer.readByte();
+    if (codec == RAW) {
+      int size = Math.multiplyExact(length, 4);
+      buffer.readToUnsafe(values, Platform.INT_ARRAY_OFFSET, size);
+      return values;
+    }
+    int start = 0;
+    if (codec == DELTA) {
+      values[0] = buffer.readVarInt32();
+      start = 1;
+    } else if (codec != FOR) {
+      throw new DeserializationException("Unknown array codec " + codec);
+    }
+    while (start < length) {
+      int end = length - start > BLOCK_SIZE ? start + BLOCK_SIZE : length;
+      readInt32Block(buffer, values, start, end, codec);
+      start = end;
+    }
+    return values;
+  }
+
+  public static void writeInt64s(MemoryBuffer buffer, long[] values) {
+    int length = values.length;
+    buffer.writeVarUint32Small7(length);
+    if (length == 0) {
+      return;
+    }
+    byte codec = selectInt64Codec(values);
+    buffer.writeByte(codec);
+    if (codec == RAW) {
+      int size = Math.multiplyExact(length, 8);
+      buffer.writePrimitiveArray(values, Platform.LONG_ARRAY_OFFSET, size);
+      return;
+    }
+    int start = 0;
+    if (codec == DELTA) {
+      buffer.writeVarInt64(values[0]);
+      start = 1;
+    }
+    while (start < length) {
+      int end = length - start > BLOCK_SIZE ? start + BLOCK_SIZE : length;
+      writeInt64Block(buffer, values, start, end, codec);
+      start = end;
+    }
+  }
+
+  public static long[] readInt64s(MemoryBuffer buffer) {
+    int length = buffer.readVarUint32Small7();
+    long[] values = new long[length];
+    if (length == 0) {
+      return values;
+    }
+    byte codec = buffer.readByte();
+    if (codec == RAW) {
+      int size = Math.multiplyExact(length, 8);
+      buffer.readToUnsafe(values, Platform.LONG_ARRAY_OFFSET, size);
+      return values;
+    }
+    int start = 0;
+    if (codec == DELTA) {
+      values[0] = buffer.readVarInt64();
+      start = 1;
+    } else if (codec != FOR) {
+      throw new DeserializationException("Unknown array codec " + codec);
+    }
+    while (start < length) {
+      int end = length - start > BLOCK_SIZE ? start + BLOCK_SIZE : length;
+      readInt64Block(buffer, values, start, end, codec);
+      start = end;
+    }
+    return values;
+  }
+
+  static byte selectInt32Codec(int[] values) {
+    int length = values.length;
+    if (length < MIN_PACKED_LENGTH) {
+      return RAW;
+    }
+    long deltaBits = 0;
+    long forBits = 0;
+    long rawBits = 0;
+    int lastBlock = (length - 1) / BLOCK_SIZE;
+    int prevBlock = -1;
+    for (int i = 0; i < 3; i++) {
+      int block = i * lastBlock / 2;
+      if (block == prevBlock) {
+        continue;
+      }
+      prevBlock = block;
+      int start = block * BLOCK_SIZE;
+      int end = Math.min(start + BLOCK_SIZE, length);
+      deltaBits += (long) int32DeltaWidth(values, Math.max(start, 1), end) * (end - start);
+      forBits += (long) int32ForWidth(values, start, end) * (end - start);
+      rawBits += 32L * (end - start);
+    }
+    return selectCodec(deltaBits, forBits, rawBits);
+  }
+
+  static byte selectInt64Codec(long[] values) {
+    int length = values.length;
+    if (length < MIN_PACKED_LENGTH) {
+      return RAW;
+    }
+    long deltaBits = 0;
+    long forBits = 0;
+    long rawBits = 0;
+    int lastBlock = (length - 1) / BLOCK_SIZE;
+    int prevBlock = -1;
+    for (int i = 0; i < 3; i++) {
+      int block = i * lastBlock / 2;
+      if (block == prevBlock) {
+        continue;
+      }
+      prevBlock = block;
+      int start = block * BLOCK_SIZE;
+      int end = Math.min(start + BLOCK_SIZE, length);
+      deltaBits += (long) int64DeltaWidth(values, Math.max(start, 1), end) * (end - start);
+      forBits += (long) int64ForWidth(values, start, end) * (end - start);
+      rawBits += 64L * (end - start);
+    }
+    return selectCodec(deltaBits, forBits, rawBits);
+  }
+
+  private static byte selectCodec(long deltaBits, long forBits, long rawBits) {
+    if (Math.min(deltaBits, forBits) * 4 > rawBits * 3) {
+      return RAW;
+    }
+    // Prefer FOR on tie since its decoding has no dependency between elements.
+    return deltaBits < forBits ? DELTA : FOR;
+  }
+
+  private static int int32DeltaWidth(int[] values, int start, int end) {
+    int bits = 0;
+    for (int i = start; i < end; i++) {
+      int delta = values[i] - values[i - 1];
+      bits |= (delta << 1) ^ (delta >> 31);
+    }
+    return 32 - Integer.numberOfLeadingZeros(bits);
+  }
+
+  private static int int32ForWidth(int[] values, int start, int end) {
+    int min = values[start];
+    int max = min;
+    for (int i = start + 1; i < end; i++) {
+      int v = values[i];
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+    // Subtraction may overflow, but the unsigned range is still right.
+    return 32 - Integer.numberOfLeadingZeros(max - min);
+  }
+
+  private static int int64DeltaWidth(long[] values, int start, int end) {
+    long bits = 0;
+    for (int i = start; i < end; i++) {
+      long delta = values[i] - values[i - 1];
+      bits |= (delta << 1) ^ (delta >> 63);
+    }
+    return 64 - Long.numberOfLeadingZeros(bits);
+  }
+
+  private static int int64ForWidth(long[] values, int start, int end) {
+    long min = values[start];
+    long max = min;
+    for (int i = start + 1; i < end; i++) {
+      long v = values[i];
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+    return 64 - Long.numberOfLeadingZeros(max - min);
+  }
+
+  private static void writeInt32Block(
+      MemoryBuffer buffer, int[] values, int start, int end, byte codec) {
+    int min = 0;
+    int width;
+    if (codec == DELTA) {
+      width = int32DeltaWidth(values, start, end);
+    } else {
+      min = values[start];
+      for (int i = start + 1; i < end; i++) {
+        min = Math.min(min, values[i]);
+      }
+      width = int32ForWidth(values, start, end);
+      buffer.writeVarInt32(min);
+    }
+    buffer.writeByte(width);
+    if (width == 0) {
+      return;
+    }
+    long acc = 0;
+    int bits = 0;
+    for (int i = start; i < end; i++) {
+      int v;
+      if (codec == DELTA) {
+        int delta = values[i] - values[i - 1];
+        v = (delta << 1) ^ (delta >> 31);
+      } else {
+        v = values[i] - min;
+      }
+      long value = v & 0xFFFFFFFFL;
+      acc |= value << bits;
+      bits += width;
+      if (bits >= 64) {
+        buffer.writeInt64(acc);
+        bits -= 64;
+        acc = bits == 0 ? 0 : value >>> (width - bits);
+      }
+    }
+    writeTail(buffer, acc, bits);
+  }
+
+  private static void writeInt64Block(
+      MemoryBuffer buffer, long[] values, int start, int end, byte codec) {
+    long min = 0;
+    int width;
+    if (codec == DELTA) {
+      width = int64DeltaWidth(values, start, end);
+    } else {
+      min = values[start];
+      for (int i = start + 1; i < end; i++) {
+        min = Math.min(min, values[i]);
+      }
+      width = int64ForWidth(values, start, end);
+      buffer.writeVarInt64(min);
+    }
+    buffer.writeByte(width);
+    if (width == 0) {
+      return;
+    }
+    long acc = 0;
+    int bits = 0;
+    for (int i = start; i < end; i++) {
+      long value;
+      if (codec == DELTA) {
+        long delta = values[i] - values[i - 1];
+        value = (delta << 1) ^ (delta >> 63);
+      } else {
+        value = values[i] - min;
+      }
+      acc |= value << bits;
+      bits += width;
+      if (bits >= 64) {
+        buffer.writeInt64(acc);
+        bits -= 64;
+        acc = bits == 0 ? 0 : value >>> (width - bits);
+      }
+    }
+    writeTail(buffer, acc, bits);
+  }
+
+  private static void writeTail(MemoryBuffer buffer, long acc, int bits) {
+    for (; bits > 0; bits -= 8) {
+      buffer.writeByte((byte) acc);
+      acc >>>= 8;
+    }
+  }
+
+  private static void readInt32Block(
+      MemoryBuffer buffer, int[] values, int start, int end, byte codec) {
+    int min = codec == FOR ? buffer.readVarInt32() : 0;
+    int width = readWidth(buffer, 32);
+    long totalBits = (long) (end - start) * width;
+    long numWords = totalBits >>> 6;
+    int tailBits = (int) (totalBits & 63);
+    long mask = (1L << width) - 1;
+    long acc = 0;
+    int bits = 0;
+    for (int i = start; i < end; i++) {
+      long value;
+      if (bits >= width) {
+        value = acc & mask;
+        acc >>>= width;
+        bits -= width;
+      } else {
+        long next = numWords-- > 0 ? buffer.readInt64() : readTail(buffer, tailBits);
+        value = (acc | (next << bits)) & mask;
+        int used = width - bits;
+        acc = next >>> used;
+        bits = 64 - used;
+      }
+      int v = (int) value;
+      if (codec == DELTA) {
+        values[i] = values[i - 1] + ((v >>> 1) ^ -(v & 1));
+      } else {
+        values[i] = min + v;
+      }
+    }
+  }
+
+  private static void readInt64Block(
+      MemoryBuffer buffer, long[] values, int start, int end, byte codec) {
+    long min = codec == FOR ? buffer.readVarInt64() : 0;
+    int width = readWidth(buffer, 64);
+    long totalBits = (long) (end - start) * width;
+    long numWords = totalBits >>> 6;
+    int tailBits = (int) (totalBits & 63);
+    long mask = width == 64 ? -1L : (1L << width) - 1;
+    long acc = 0;
+    int bits = 0;
+    for (int i = start; i < end; i++) {
+      long value;
+      if (bits >= width) {
+        value = acc & mask;
+        acc >>>= width;
+        bits -= width;
+      } else {
+        long next = numWords-- > 0 ? buffer.readInt64() : readTail(buffer, tailBits);
+        value = (acc | (next << bits)) & mask;
+        int used = width - bits;
+        acc = used == 64 ? 0 : next >>> used;
+        bits = 64 - used;
+      }
+      if (codec == DELTA) {
+        values[i] = values[i - 1] + ((value >>> 1) ^ -(value & 1));
+      } else {
+        values[i] = min + value;
+      }
+    }
+  }
+
+  private static int readWidth(MemoryBuffer buffer, int maxWidth) {
+    int width = buffer.readByte();
+    if (width < 0 || width > maxWidth) {
+      throw new DeserializationException("Invalid packed bit width " + width);
+    }
+    return width;
+  }
+
+  private static long readTail(MemoryBuffer buffer, int tailBits) {
+    long tail = 0;
+    for (int shift = 0; shift < tailBits; shift += 8) {
+      tail |= (buffer.readByte() & 0xFFL) << shift;
+    }
+    return tail;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.fory.Fory;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.config.Config;
+import org.apache.fory.exception.DeserializationException;
+import org.apache.fory.memory.MemoryBuffer;
+
+/**
+ * Parallel serialization of large root collections and object arrays, enabled by {@link
+ * org.apache.fory.config.ForyBuilder#withParallelSerialization}.
+ *
+ * <p>Elements are split into segments, every segment is serialized on a {@link ForkJoinPool} by a
+ * {@link Fory} leased from {@link Fory#getSegmentWorkers()} as an independent payload, so segments
+ * can be deserialized in parallel too, or one after another by a {@link Fory} without segment
+ * workers. A segment holds an {@link ArrayList} of the elements for collections, or an array of
+ * the same type for arrays.
+ *
+ * <p>Format: <code>
+ * | varuint32 segments | (varuint32 elements | varuint32 bytes) * segments | payloads |</code>.
+ */
+public final class ParallelSegments {
+
+  /**
+   * Whether <code>numElements</code> elements of the object being written should be serialized in
+   * parallel. Only the root object is segmented, nested collections may be read by generated
+   * serializers which don't support segments.
+   */
+  public static boolean shouldSegment(Fory fory, int numElements) {
+    Config config = fory.getConfig();
+    int threshold = config.parallelSerializationThreshold();
+    return threshold > 0
+        && numElements > threshold
+        && fory.getDepth() == 1
+        && fory.getSegmentWorkers() != null
+        && fory.getBufferCallback() == null
+        // segments can't share meta with the enclosing payload.
+        && (!config.isMetaShareEnabled() || config.isScopedMetaShareEnabled());
+  }
+
+  public static void writeCollection(Fory fory, MemoryBuffer buffer, Collection<?> collection) {
+    List<Object> elements = Arrays.asList(collection.toArray());
+    writeSegments(
+        fory, buffer, elements.size(), (from, to) -> new ArrayList<>(elements.subList(from, to)));
+  }
+
+  public static void writeArray(Fory fory, MemoryBuffer buffer, Object[] array) {
+    writeSegments(fory, buffer, array.length, (from, to) -> Arrays.copyOfRange(array, from, to));
+  }
+
+  /** Read segments written by {@link #writeCollection} into <code>collection</code>. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public static void readCollection(
+      Fory fory, MemoryBuffer buffer, Collection collection, int numElements) {
+    for (Object segment : readSegments(fory, buffer, numElements)) {
+      collection.addAll((Collection) segment);
+    }
+  }
+
+  /** Read segments written by {@link #writeArray} into <code>array</code>. */
+  public static void readArray(Fory fory, MemoryBuffer buffer, Object[] array) {
+    int index = 0;
+    for (Object segment : readSegments(fory, buffer, array.length)) {
+      Object[] elements = (Object[]) segment;
+      System.arraycopy(elements, 0, array, index, elements.length);
+      index += elements.length;
+    }
+  }
+
+  private interface RangeFunction {
+    Object apply(int from, int to);
+  }
+
+  private static void writeSegments(
+      Fory fory, MemoryBuffer buffer, int numElements, RangeFunction range) {
+    ThreadSafeFory workers = fory.getSegmentWorkers();
+    int threshold = fory.getConfig().parallelSerializationThreshold();
+    ForkJoinPool pool = ForkJoinTask.getPool();
+    int parallelism =
+        pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    // segments are not larger than threshold, so workers won't split them again.
+    int numSegments = Math.max(parallelism, (numElements - 1) / threshold + 1);
+    int segmentSize = (numElements - 1) / numSegments + 1;
+    numSegments = (numElements - 1) / segmentSize + 1;
+    List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(numSegments);
+    for (int i = 0; i < numSegments; i++) {
+      int from = i * segmentSize;
+      int to = Math.min(numElements, from + segmentSize);
+      tasks.add(ForkJoinTask.adapt(() -> workers.serialize(range.apply(from, to))));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    buffer.writeVarUint32Small7(numSegments);
+    for (int i = 0; i < numSegments; i++) {
+      int from = i * segmentSize;
+      buffer.writeVarUint32Small7(Math.min(numElements, from + segmentSize) - from);
+      buffer.writeVarUint32(tasks.get(i).join().length);
+    }
+    for (ForkJoinTask<byte[]> task : tasks) {
+      buffer.writeBytes(task.join());
+    }
+  }
+
+  private static List<Object> readSegments(Fory fory, MemoryBuffer buffer, int numElements) {
+    int numSegments = buffer.readVarUint32Small7();
+    int[] segmentElements = new int[numSegments];
+    int[] segmentBytes = new int[numSegments];
+    long totalElements = 0;
+    int totalBytes = 0;
+    for (int i = 0; i < numSegments; i++) {
+      segmentElements[i] = buffer.readVarUint32Small7();
+      segmentBytes[i] = buffer.readVarUint32();
+      totalElements += segmentElements[i];
+      totalBytes = Math.addExact(totalBytes, segmentBytes[i]);
+    }
+    if (totalElements != numElements) {
+      throw new DeserializationException(
+          String.format("Expect %s elements, but segments have %s", numElements, totalElements));
+    }
+    buffer.checkReadableBytes(totalBytes);
+    List<Object> segments = new ArrayList<>(numSegments);
+    ThreadSafeFory workers = fory.getSegmentWorkers();
+    int offset = buffer.readerIndex();
+    if (workers == null) {
+      // Read by a fory which isn't from a shared pool, such as a `ThreadLocalFory`.
+      for (int i = 0; i < numSegments; i++) {
+        segments.add(fory.readNestedPayload(buffer.slice(offset, segmentBytes[i])));
+        offset += segmentBytes[i];
+      }
+    } else {
+      List<ForkJoinTask<Object>> tasks = new ArrayList<>(numSegments);
+      for (int i = 0; i < numSegments; i++) {
+        MemoryBuffer segment = buffer.slice(offset, segmentBytes[i]);
+        tasks.add(ForkJoinTask.adapt(() -> workers.deserialize(segment)));
+        offset += segmentBytes[i];
+      }
+      ForkJoinTask.invokeAll(tasks);
+      for (ForkJoinTask<Object> task : tasks) {
+        segments.add(task.join());
+      }
+    }
+    buffer.increaseReaderIndex(totalBytes);
+    for (int i = 0; i < numSegments; i++) {
+      Object segment = segments.get(i);
+      int size =
+          segment instanceof Collection
+              ? ((Collection<?>) segment).size()
+              : ((Object[]) segment).length;
+      if (size != segmentElements[i]) {
+        throw new DeserializationException(
+            String.format("Expect %s elements in segment %s, got %s", segmentElements[i], i, size));
+      }
+    }
+    return segments;
+  }
+}
@@ -944,7 +944,7 @@ public final class StringSerializer extends ImmutableSerializer<String> {
         }
       }
     }
-    for (int i = vectorizedBytes; vectorizedBytes < sampleNum; vectorizedBytes += 2) {
+    for (int i = vectorizedBytes; i < sampleNum; i += 2) {
       if (Platform.getChar(bytes, Platform.BYTE_ARRAY_OFFSET + i) < 0x80) {
         asciiCount++;
       }
@@ -31,6 +31,7 @@ import org.apache.fory.resolver.ClassResolver;
 import org.apache.fory.resolver.RefResolver;
 import org.apache.fory.resolver.TypeResolver;
 import org.apache.fory.serializer.CompatibleSerializer;
+import org.apache.fory.serializer.ParallelSegments;
 import org.apache.fory.serializer.Serializer;
 import org.apache.fory.type.GenericType;
 import org.apache.fory.util.Preconditions;
@@ -316,6 +317,12 @@ public abstract class AbstractCollectionSerializer<T> extends Serializer<T> {
   }
 
   protected final void writeElements(Fory fory, MemoryBuffer buffer, Collection value) {
+    if (ParallelSegments.shouldSegment(fory, value.size())) {
+      this.elemSerializer = null;
+      buffer.writeByte(CollectionFlags.SEGMENTED);
+      ParallelSegments.writeCollection(fory, buffer, value);
+      return;
+    }
     int flags = writeElementsHeader(buffer, value);
     Serializer serializer = this.elemSerializer;
     // clear the elemSerializer to avoid conflict if the nested
@@ -415,8 +422,11 @@ public abstract class AbstractCollectionSerializer<T> extends Serializer<T> {
       }
     } else {
       if ((flags & CollectionFlags.HAS_NULL) != CollectionFlags.HAS_NULL) {
-        for (Object elem : collection) {
-          binding.write(buffer, serializer, elem);
+        if (fory.isCrossLanguage()
+            || !PackedPrimitiveElements.tryWrite(fory, buffer, serializer, collection)) {
+          for (Object elem : collection) {
+            binding.write(buffer, serializer, elem);
+          }
         }
       } else {
         for (Object elem : collection) {
@@ -567,6 +577,10 @@ public abstract class AbstractCollectionSerializer<T> extends Serializer<T> {
     // serialization has collection field.
     // TODO use generics for compatible serializer.
     this.elemSerializer = null;
+    if (flags == CollectionFlags.SEGMENTED) {
+      ParallelSegments.readCollection(fory, buffer, collection, numElements);
+      return;
+    }
     if (serializer == null) {
       GenericType elemGenericType = getElementGenericType(fory);
       if (elemGenericType != null) {
@@ -669,8 +683,12 @@ public abstract class AbstractCollectionSerializer<T> extends Serializer<T> {
       }
     } else {
       if ((flags & CollectionFlags.HAS_NULL) != CollectionFlags.HAS_NULL) {
-        for (int i = 0; i < numElements; i++) {
-          collection.add(binding.read(buffer, serializer));
+        if (fory.isCrossLanguage()
+            || !PackedPrimitiveElements.tryRead(
+                fory, buffer, serializer, collection, numElements)) {
+          for (int i = 0; i < numElements; i++) {
+            collection.add(binding.read(buffer, serializer));
+          }
         }
       } else {
         for (int i = 0; i < numElements; i++) {
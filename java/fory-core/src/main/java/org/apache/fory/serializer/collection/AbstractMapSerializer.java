@@ -359,6 +359,8 @@ public abstract class AbstractMapSerializer<T> extends Serializer<T> {
     // place holder for chunk header and size.
     buffer.writeInt16((short) -1);
     int chunkSizeOffset = buffer.writerIndex() - 1;
+    // chunk header and size will be patched, keep them in buffer for streaming write.
+    int flushBarrier = buffer.holdFlushBarrier(chunkSizeOffset - 1);
     int chunkHeader = 0;
     if (keySerializer != null) {
       chunkHeader |= KEY_DECL_TYPE;
@@ -406,11 +408,13 @@ public abstract class AbstractMapSerializer<T> extends Serializer<T> {
         entry = null;
         break;
       }
-      if (chunkSize == MAX_CHUNK_SIZE) {
+      // finish chunk early if streaming write is blocked by this chunk.
+      if (chunkSize == MAX_CHUNK_SIZE || buffer.isFlushBlocked()) {
         break;
       }
     }
     buffer.putByte(chunkSizeOffset, (byte) chunkSize);
+    buffer.releaseFlushBarrier(flushBarrier);
     return entry;
   }
 
@@ -470,6 +474,8 @@ public abstract class AbstractMapSerializer<T> extends Serializer<T> {
     // place holder for chunk header and size.
     buffer.writeInt16((short) -1);
     int chunkSizeOffset = buffer.writerIndex() - 1;
+    // chunk header and size will be patched, keep them in buffer for streaming write.
+    int flushBarrier = buffer.holdFlushBarrier(chunkSizeOffset - 1);
     int chunkHeader = 0;
     // noinspection Duplicates
     if (keyGenericTypeFinal) {
@@ -527,11 +533,13 @@ public abstract class AbstractMapSerializer<T> extends Serializer<T> {
         entry = null;
         break;
       }
-      if (chunkSize == MAX_CHUNK_SIZE) {
+      // finish chunk early if streaming write is blocked by this chunk.
+      if (chunkSize == MAX_CHUNK_SIZE || buffer.isFlushBlocked()) {
         break;
       }
     }
     buffer.putByte(chunkSizeOffset, (byte) chunkSize);
+    buffer.releaseFlushBarrier(flushBarrier);
     return entry;
   }
 
@@ -41,4 +41,10 @@ public class CollectionFlags {
 
   /** Whether collection elements type different. */
   public static int NOT_SAME_TYPE = 0b1000;
+
+  /**
+   * Header of elements serialized in parallel by {@link
+   * org.apache.fory.serializer.ParallelSegments}, which is not combined with other flags.
+   */
+  public static int SEGMENTED = 0b1000000;
 }
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer.collection;
+
+import java.util.Collection;
+import java.util.Iterator;
+import org.apache.fory.Fory;
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.config.LongEncoding;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.serializer.PrimitiveSerializers.DoubleSerializer;
+import org.apache.fory.serializer.PrimitiveSerializers.FloatSerializer;
+import org.apache.fory.serializer.PrimitiveSerializers.IntSerializer;
+import org.apache.fory.serializer.PrimitiveSerializers.LongSerializer;
+import org.apache.fory.serializer.Serializer;
+
+/**
+ * Packed read/write loops for collections whose elements are all non-null boxed {@link Integer},
+ * {@link Long}, {@link Float} or {@link Double} and don't track ref. For such collections the
+ * elements header already tells that there is no per-element null/ref flag, so elements form a
+ * contiguous block of varint or fixed-width values. These loops write and read that block
+ * directly: buffer bounds are checked once per block of elements instead of once per element, and
+ * serializer dispatch is skipped. The bytes are exactly the same as the per-element path, so data
+ * written by the interpreter and by jit serializers stay interchangeable.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public final class PackedPrimitiveElements {
+  // Elements are processed in blocks to avoid over-allocating buffer for small varints.
+  private static final int BLOCK_SIZE = 64;
+
+  /**
+   * Write <code>collection</code> elements in packed layout if <code>serializer</code> is a default
+   * boxed number serializer.
+   *
+   * @return false if elements can't be packed, nothing is written in such case.
+   */
+  public static boolean tryWrite(
+      Fory fory, MemoryBuffer buffer, Serializer serializer, Collection collection) {
+    Class<?> serializerClass = serializer.getClass();
+    if (serializerClass == IntSerializer.class) {
+      if (fory.compressInt()) {
+        writeVarInt32s(buffer, collection);
+      } else {
+        writeInt32s(buffer, collection);
+      }
+    } else if (serializerClass == LongSerializer.class) {
+      LongEncoding longEncoding = fory.longEncoding();
+      if (longEncoding == LongEncoding.SLI) {
+        writeSliInt64s(buffer, collection);
+      } else if (longEncoding == LongEncoding.LE_RAW_BYTES) {
+        writeInt64s(buffer, collection);
+      } else {
+        writeVarInt64s(buffer, collection);
+      }
+    } else if (serializerClass == FloatSerializer.class) {
+      writeFloat32s(buffer, collection);
+    } else if (serializerClass == DoubleSerializer.class) {
+      writeFloat64s(buffer, collection);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read <code>numElements</code> packed elements into <code>collection</code> if <code>serializer
+   * </code> is a default boxed number serializer.
+   *
+   * @return false if elements aren't packed, nothing is read in such case.
+   */
+  public static boolean tryRead(
+      Fory fory,
+      MemoryBuffer buffer,
+      Serializer serializer,
+      Collection collection,
+      int numElements) {
+    Class<?> serializerClass = serializer.getClass();
+    if (serializerClass == IntSerializer.class) {
+      if (fory.compressInt()) {
+        readVarInt32s(buffer, collection, numElements);
+      } else {
+        readInt32s(buffer, collection, numElements);
+      }
+    } else if (serializerClass == LongSerializer.class) {
+      LongEncoding longEncoding = fory.longEncoding();
+      if (longEncoding == LongEncoding.SLI) {
+        readSliInt64s(buffer, collection, numElements);
+      } else if (longEncoding == LongEncoding.LE_RAW_BYTES) {
+        readInt64s(buffer, collection, numElements);
+      } else {
+        readVarInt64s(buffer, collection, numElements);
+      }
+    } else if (serializerClass == FloatSerializer.class) {
+      readFloat32s(buffer, collection, numElements);
+    } else if (serializerClass == DoubleSerializer.class) {
+      readFloat64s(buffer, collection, numElements);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  @CodegenInvoke
+  public static void writeVarInt32s(MemoryBuffer buffer, Collection<Integer> collection) {
+    Iterator<Integer> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      // `_unsafeWriteVarInt32` needs 8 bytes of room for a 5 bytes varint.
+      buffer.grow(BLOCK_SIZE * 8);
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafeWriteVarInt32(iterator.next());
+      }
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeInt32s(MemoryBuffer buffer, Collection<Integer> collection) {
+    Iterator<Integer> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 4);
+      int writerIndex = buffer.writerIndex();
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafePutInt32(writerIndex, iterator.next());
+        writerIndex += 4;
+      }
+      buffer._unsafeWriterIndex(writerIndex);
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeVarInt64s(MemoryBuffer buffer, Collection<Long> collection) {
+    Iterator<Long> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 9);
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafeWriteVarInt64(iterator.next());
+      }
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeSliInt64s(MemoryBuffer buffer, Collection<Long> collection) {
+    Iterator<Long> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 9);
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafeWriteSliInt64(iterator.next());
+      }
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeInt64s(MemoryBuffer buffer, Collection<Long> collection) {
+    Iterator<Long> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 8);
+      int writerIndex = buffer.writerIndex();
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafePutInt64(writerIndex, iterator.next());
+        writerIndex += 8;
+      }
+      buffer._unsafeWriterIndex(writerIndex);
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeFloat32s(MemoryBuffer buffer, Collection<Float> collection) {
+    Iterator<Float> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 4);
+      int writerIndex = buffer.writerIndex();
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafePutInt32(writerIndex, Float.floatToRawIntBits(iterator.next()));
+        writerIndex += 4;
+      }
+      buffer._unsafeWriterIndex(writerIndex);
+    }
+  }
+
+  @CodegenInvoke
+  public static void writeFloat64s(MemoryBuffer buffer, Collection<Double> collection) {
+    Iterator<Double> iterator = collection.iterator();
+    while (iterator.hasNext()) {
+      buffer.grow(BLOCK_SIZE * 8);
+      int writerIndex = buffer.writerIndex();
+      for (int i = 0; i < BLOCK_SIZE && iterator.hasNext(); i++) {
+        buffer._unsafePutInt64(writerIndex, Double.doubleToRawLongBits(iterator.next()));
+        writerIndex += 8;
+      }
+      buffer._unsafeWriterIndex(writerIndex);
+    }
+  }
+
+  @CodegenInvoke
+  public static void readVarInt32s(
+      MemoryBuffer buffer, Collection<Integer> collection, int numElements) {
+    for (int i = 0; i < numElements; i++) {
+      collection.add(buffer.readVarInt32());
+    }
+  }
+
+  @CodegenInvoke
+  public static void readInt32s(
+      MemoryBuffer buffer, Collection<Integer> collection, int numElements) {
+    while (numElements > 0) {
+      int n = Math.min(numElements, BLOCK_SIZE);
+      buffer.checkReadableBytes(n << 2);
+      int readerIndex = buffer.readerIndex();
+      for (int i = 0; i < n; i++) {
+        collection.add(buffer._unsafeGetInt32(readerIndex));
+        readerIndex += 4;
+      }
+      buffer.readerIndex(readerIndex);
+      numElements -= n;
+    }
+  }
+
+  @CodegenInvoke
+  public static void readVarInt64s(
+      MemoryBuffer buffer, Collection<Long> collection, int numElements) {
+    for (int i = 0; i < numElements; i++) {
+      collection.add(buffer.readVarInt64());
+    }
+  }
+
+  @CodegenInvoke
+  public static void readSliInt64s(
+      MemoryBuffer buffer, Collection<Long> collection, int numElements) {
+    for (int i = 0; i < numElements; i++) {
+      collection.add(buffer.readSliInt64());
+    }
+  }
+
+  @CodegenInvoke
+  public static void readInt64s(MemoryBuffer buffer, Collection<Long> collection, int numElements) {
+    while (numElements > 0) {
+      int n = Math.min(numElements, BLOCK_SIZE);
+      buffer.checkReadableBytes(n << 3);
+      int readerIndex = buffer.readerIndex();
+      for (int i = 0; i < n; i++) {
+        collection.add(buffer._unsafeGetInt64(readerIndex));
+        readerIndex += 8;
+      }
+      buffer.readerIndex(readerIndex);
+      numElements -= n;
+    }
+  }
+
+  @CodegenInvoke
+  public static void readFloat32s(
+      MemoryBuffer buffer, Collection<Float> collection, int numElements) {
+    while (numElements > 0) {
+      int n = Math.min(numElements, BLOCK_SIZE);
+      buffer.checkReadableBytes(n << 2);
+      int readerIndex = buffer.readerIndex();
+      for (int i = 0; i < n; i++) {
+        collection.add(Float.intBitsToFloat(buffer._unsafeGetInt32(readerIndex)));
+        readerIndex += 4;
+      }
+      buffer.readerIndex(readerIndex);
+      numElements -= n;
+    }
+  }
+
+  @CodegenInvoke
+  public static void readFloat64s(
+      MemoryBuffer buffer, Collection<Double> collection, int numElements) {
+    while (numElements > 0) {
+      int n = Math.min(numElements, BLOCK_SIZE);
+      buffer.checkReadableBytes(n << 3);
+      int readerIndex = buffer.readerIndex();
+      for (int i = 0; i < n; i++) {
+        collection.add(Double.longBitsToDouble(buffer._unsafeGetInt64(readerIndex)));
+        readerIndex += 8;
+      }
+      buffer.readerIndex(readerIndex);
+      numElements -= n;
+    }
+  }
+}
@@ -25,11 +25,25 @@ import org.apache.fory.memory.Platform;
 
 /** String Encoding Utils. */
 public class StringEncodingUtils {
+  private static final long MULTI_BYTES_NON_ASCII_MASK = 0x8080808080808080L;
 
   /** A fast convert algorithm to convert an utf16 char array into an utf8 byte array. */
   public static int convertUTF16ToUTF8(char[] src, byte[] dst, int dp) {
     int numChars = src.length;
     for (int charOffset = 0, arrayOffset = Platform.CHAR_ARRAY_OFFSET; charOffset < numChars; ) {
+      if (Platform.IS_LITTLE_ENDIAN && charOffset + 8 <= numChars) {
+        long chars0 = Platform.getLong(src, arrayOffset);
+        long chars1 = Platform.getLong(src, arrayOffset + 8);
+        if (((chars0 | chars1) & MULTI_CHARS_NON_ASCII_MASK) == 0) {
+          // ascii only, write 8 chars as 8 bytes by a single store.
+          long bytes = compressAsciiChars(chars0) | (compressAsciiChars(chars1) << 32);
+          Platform.putLong(dst, Platform.BYTE_ARRAY_OFFSET + dp, bytes);
+          dp += 8;
+          charOffset += 8;
+          arrayOffset += 16;
+          continue;
+        }
+      }
       if (charOffset + 4 <= numChars
           && (Platform.getLong(src, arrayOffset) & MULTI_CHARS_NON_ASCII_MASK) == 0) {
         // ascii only
@@ -69,16 +83,14 @@ public class StringEncodingUtils {
   public static int convertUTF16ToUTF8(byte[] src, byte[] dst, int dp) {
     int numBytes = src.length;
     for (int offset = 0; offset < numBytes; ) {
+      long chars;
       if (offset + 8 <= numBytes
-          && (Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset)
+          && ((chars = Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset))
                   & MULTI_CHARS_NON_ASCII_MASK)
               == 0) {
         // ascii only
         if (Platform.IS_LITTLE_ENDIAN) {
-          dst[dp] = src[offset];
-          dst[dp + 1] = src[offset + 2];
-          dst[dp + 2] = src[offset + 4];
-          dst[dp + 3] = src[offset + 6];
+          Platform.putInt(dst, Platform.BYTE_ARRAY_OFFSET + dp, (int) compressAsciiChars(chars));
         } else {
           dst[dp] = src[offset + 1];
           dst[dp + 1] = src[offset + 3];
@@ -125,19 +137,16 @@ public class StringEncodingUtils {
     int dp = 0;
 
     while (offset < end) {
+      long bytes;
       if (offset + 8 <= end
-          && (Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset) & 0x8080808080808080L)
+          && ((bytes = Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset))
+                  & MULTI_BYTES_NON_ASCII_MASK)
               == 0) {
         // ascii only
         if (Platform.IS_LITTLE_ENDIAN) {
-          dst[dp] = src[offset];
-          dst[dp + 2] = src[offset + 1];
-          dst[dp + 4] = src[offset + 2];
-          dst[dp + 6] = src[offset + 3];
-          dst[dp + 8] = src[offset + 4];
-          dst[dp + 10] = src[offset + 5];
-          dst[dp + 12] = src[offset + 6];
-          dst[dp + 14] = src[offset + 7];
+          long dstOffset = Platform.BYTE_ARRAY_OFFSET + dp;
+          Platform.putLong(dst, dstOffset, inflateAsciiBytes(bytes));
+          Platform.putLong(dst, dstOffset + 8, inflateAsciiBytes(bytes >>> 32));
         } else {
           dst[dp + 1] = src[offset];
           dst[dp + 3] = src[offset + 1];
@@ -248,18 +257,26 @@ public class StringEncodingUtils {
     int end = offset + len;
     int dp = 0;
     while (offset < end) {
+      long bytes;
       if (offset + 8 <= end
-          && (Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset) & 0x8080808080808080L)
+          && ((bytes = Platform.getLong(src, Platform.BYTE_ARRAY_OFFSET + offset))
+                  & MULTI_BYTES_NON_ASCII_MASK)
               == 0) {
         // ascii only
-        dst[dp] = (char) src[offset];
-        dst[dp + 1] = (char) src[offset + 1];
-        dst[dp + 2] = (char) src[offset + 2];
-        dst[dp + 3] = (char) src[offset + 3];
-        dst[dp + 4] = (char) src[offset + 4];
-        dst[dp + 5] = (char) src[offset + 5];
-        dst[dp + 6] = (char) src[offset + 6];
-        dst[dp + 7] = (char) src[offset + 7];
+        if (Platform.IS_LITTLE_ENDIAN) {
+          long dstOffset = Platform.CHAR_ARRAY_OFFSET + ((long) dp << 1);
+          Platform.putLong(dst, dstOffset, inflateAsciiBytes(bytes));
+          Platform.putLong(dst, dstOffset + 8, inflateAsciiBytes(bytes >>> 32));
+        } else {
+          dst[dp] = (char) src[offset];
+          dst[dp + 1] = (char) src[offset + 1];
+          dst[dp + 2] = (char) src[offset + 2];
+          dst[dp + 3] = (char) src[offset + 3];
+          dst[dp + 4] = (char) src[offset + 4];
+          dst[dp + 5] = (char) src[offset + 5];
+          dst[dp + 6] = (char) src[offset + 6];
+          dst[dp + 7] = (char) src[offset + 7];
+        }
         dp += 8;
         offset += 8;
       } else {
@@ -344,6 +361,25 @@ public class StringEncodingUtils {
     return dp;
   }
 
+  /**
+   * Pack 4 ascii chars of a little-endian long into the low 4 bytes, every char takes 16 bits in
+   * <code>chars</code> and its high byte must be zero.
+   */
+  private static long compressAsciiChars(long chars) {
+    long packed = (chars | (chars >>> 8)) & 0x0000FFFF0000FFFFL;
+    return (packed | (packed >>> 16)) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Expand the low 4 bytes of <code>bytes</code> into 4 little-endian 16-bit chars, it's the
+   * inverse of {@link #compressAsciiChars}.
+   */
+  private static long inflateAsciiBytes(long bytes) {
+    long chars = bytes & 0xFFFFFFFFL;
+    chars = (chars | (chars << 16)) & 0x0000FFFF0000FFFFL;
+    return (chars | (chars << 8)) & 0x00FF00FF00FF00FFL;
+  }
+
   /** convert two utf16 char c and src[charOffset] to a four byte utf8 bytes. */
   private static void utf8ToChar2(char[] src, int charOffset, char c, byte[] dst, int dp) {
     char d;
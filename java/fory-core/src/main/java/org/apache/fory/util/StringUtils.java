@@ -275,32 +275,31 @@ public class StringUtils {
   }
 
   public static boolean isLatin(char[] chars, int start) {
-    if (start > chars.length) {
+    int numChars = chars.length;
+    if (start > numChars) {
       return false;
     }
-    int byteOffset = start << 1;
-    int numChars = chars.length;
-    int vectorizedLen = numChars >> 2;
-    int vectorizedChars = vectorizedLen << 2;
-    int endOffset = Platform.CHAR_ARRAY_OFFSET + (vectorizedChars << 1);
-    boolean isLatin = true;
-    for (int offset = Platform.CHAR_ARRAY_OFFSET + byteOffset; offset < endOffset; offset += 8) {
-      // check 4 chars in a vectorized way, 4 times faster than scalar check loop.
-      // See benchmark in CompressStringSuite.latinSuperWordCheck.
-      long multiChars = Platform.getLong(chars, offset);
+    int i = start;
+    long offset = Platform.CHAR_ARRAY_OFFSET + ((long) start << 1);
+    // check 8 chars in a SWAR way, which is much faster than scalar check loop.
+    // See benchmark in CompressStringSuite.latinSuperWordCheck.
+    for (; i + 8 <= numChars; i += 8, offset += 16) {
+      long multiChars = Platform.getLong(chars, offset) | Platform.getLong(chars, offset + 8);
       if ((multiChars & MULTI_CHARS_NON_LATIN_MASK) != 0) {
-        isLatin = false;
-        break;
+        return false;
       }
     }
-    if (isLatin) {
-      for (int i = vectorizedChars; i < numChars; i++) {
-        if (chars[i] > 0xFF) {
-          isLatin = false;
-          break;
-        }
+    if (i + 4 <= numChars) {
+      if ((Platform.getLong(chars, offset) & MULTI_CHARS_NON_LATIN_MASK) != 0) {
+        return false;
       }
+      i += 4;
     }
-    return isLatin;
+    for (; i < numChars; i++) {
+      if (chars[i] > 0xFF) {
+        return false;
+      }
+    }
+    return true;
   }
 }
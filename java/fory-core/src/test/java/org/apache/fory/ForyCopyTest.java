@@ -78,6 +78,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
+import org.apache.fory.builder.Generated;
 import org.apache.fory.collection.LazyMap;
 import org.apache.fory.serializer.EnumSerializerTest;
 import org.apache.fory.serializer.EnumSerializerTest.EnumFoo;
@@ -394,4 +395,28 @@ public class ForyCopyTest extends ForyTestBase {
       assertEquals(fory.copy(collectionFields).toCanEqual(), collectionFields.toCanEqual());
     }
   }
+
+  @Test(dataProvider = "twoBoolOptions")
+  public void testCodegenBeanCopy(boolean enableCodegen, boolean refCopy) {
+    Fory fory = builder().withRefCopy(refCopy).withCodegen(enableCodegen).build();
+    BeanA beanA = BeanA.createBeanA(2);
+    BeanA copy = fory.copy(beanA);
+    assertEquals(copy, beanA);
+    Assert.assertNotSame(copy, beanA);
+    Assert.assertNotSame(copy.getBeanB(), beanA.getBeanB());
+    if (enableCodegen) {
+      Assert.assertTrue(fory.getClassResolver().getSerializer(BeanA.class) instanceof Generated);
+    }
+    if (refCopy) {
+      A a = new A();
+      B b = new B();
+      a.setName("a");
+      a.setB(b);
+      b.setA(a);
+      A copyA = fory.copy(a);
+      Assert.assertNotSame(copyA, a);
+      assertEquals(copyA.getName(), "a");
+      Assert.assertSame(copyA.getB().getA(), copyA);
+    }
+  }
 }
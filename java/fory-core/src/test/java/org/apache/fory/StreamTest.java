@@ -29,6 +29,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -37,8 +38,10 @@ import java.util.List;
 import java.util.Map;
 import org.apache.fory.config.CompatibleMode;
 import org.apache.fory.io.ForyInputStream;
+import org.apache.fory.io.ForyOutputStream;
 import org.apache.fory.io.ForyReadableChannel;
 import org.apache.fory.io.ForyStreamReader;
+import org.apache.fory.io.ForyStreamWriter;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.reflect.ReflectionUtils;
 import org.apache.fory.test.bean.BeanA;
@@ -380,6 +383,74 @@ public class StreamTest extends ForyTestBase {
     assertEquals(fory.deserialize(stream), new int[5000]);
   }
 
+  @Test(dataProvider = "twoBoolOptions")
+  public void testStreamingWrite(boolean codegen, boolean compatible) throws IOException {
+    Fory fory =
+        builder()
+            .withCodegen(codegen)
+            .withCompatibleMode(
+                compatible ? CompatibleMode.COMPATIBLE : CompatibleMode.SCHEMA_CONSISTENT)
+            .withStreamWriteBufferSize(256)
+            .build();
+    List<BeanA> list = new ArrayList<>();
+    Map<Integer, BeanA> map = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      BeanA beanA = BeanA.createBeanA(2);
+      list.add(beanA);
+      map.put(i, beanA);
+    }
+    ByteArrayOutputStream bas = new ByteArrayOutputStream();
+    int[] maxWriteSize = new int[1];
+    OutputStream stream =
+        new OutputStream() {
+          @Override
+          public void write(int b) {
+            bas.write(b);
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) {
+            maxWriteSize[0] = Math.max(maxWriteSize[0], len);
+            bas.write(b, off, len);
+          }
+        };
+    fory.serialize(stream, list);
+    fory.serialize(stream, map);
+    fory.serialize(stream, list);
+    // data should be flushed to stream in small chunks instead of as a whole.
+    assertTrue(maxWriteSize[0] < fory.serialize(list).length, String.valueOf(maxWriteSize[0]));
+    ForyInputStream input = of(new ByteArrayInputStream(bas.toByteArray()));
+    assertEquals(fory.deserialize(input), list);
+    assertEquals(fory.deserialize(input), map);
+    assertEquals(fory.deserialize(input), list);
+  }
+
+  @Test
+  public void testStreamBuffer() throws IOException {
+    ByteArrayOutputStream bas = new ByteArrayOutputStream();
+    ForyOutputStream stream = ForyStreamWriter.of(bas);
+    MemoryBuffer buffer = stream.getBuffer();
+    for (int i = 0; i < 10000; i++) {
+      buffer.writeInt32(i);
+      int offset = buffer.writerIndex();
+      int barrier = buffer.holdFlushBarrier(offset);
+      buffer.writeInt64(-1);
+      buffer.writeVarInt64(i);
+      buffer.writeBytes(new byte[i % 100]);
+      buffer.putInt64(offset, i);
+      buffer.releaseFlushBarrier(barrier);
+    }
+    stream.flush();
+    assertTrue(buffer.size() <= 4096);
+    MemoryBuffer readBuffer = MemoryBuffer.fromByteArray(bas.toByteArray());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(readBuffer.readInt32(), i);
+      assertEquals(readBuffer.readInt64(), i);
+      assertEquals(readBuffer.readVarInt64(), i);
+      assertEquals(readBuffer.readBytes(i % 100), new byte[i % 100]);
+    }
+  }
+
   @Test
   public void testReadNullChunkMapOnFillBound() {
     Fory fory = builder().build();
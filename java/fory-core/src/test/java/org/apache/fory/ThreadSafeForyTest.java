@@ -23,6 +23,9 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -74,6 +77,43 @@ public class ThreadSafeForyTest extends ForyTestBase {
     assertFalse(hasException);
   }
 
+  @Test
+  public void testSharedPoolSerialize() throws Exception {
+    BeanA beanA = BeanA.createBeanA(2);
+    ThreadSafeFory fory =
+        Fory.builder()
+            .withLanguage(Language.JAVA)
+            .withRefTracking(true)
+            .requireClassRegistration(false)
+            .withAsyncCompilation(true)
+            .buildSharedPoolFory(2);
+    ExecutorService executorService = Executors.newFixedThreadPool(12);
+    for (int i = 0; i < 2000; i++) {
+      executorService.execute(
+          () -> {
+            for (int j = 0; j < 10; j++) {
+              try {
+                assertEquals(fory.deserialize(fory.serialize(beanA)), beanA);
+              } catch (Exception e) {
+                hasException = true;
+                e.printStackTrace();
+              }
+            }
+          });
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+    assertFalse(hasException);
+    Set<Fory> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = 0; i < 10; i++) {
+      // nested calls must not share an instance.
+      assertTrue(fory.execute(f -> fory.execute(f2 -> f2 != f)));
+      fory.execute(leased::add);
+    }
+    // idle instances are reused instead of creating new ones.
+    assertTrue(leased.size() <= 2, String.valueOf(leased.size()));
+  }
+
   @Test
   public void testRegistration() throws Exception {
     BeanB bean = BeanB.createBeanB(2);
@@ -320,7 +360,8 @@ public class ThreadSafeForyTest extends ForyTestBase {
     for (ThreadSafeFory fory :
         new ThreadSafeFory[] {
           Fory.builder().requireClassRegistration(false).buildThreadSafeFory(),
-          Fory.builder().requireClassRegistration(false).buildThreadSafeForyPool(2, 2)
+          Fory.builder().requireClassRegistration(false).buildThreadSafeForyPool(2, 2),
+          Fory.builder().requireClassRegistration(false).buildSharedPoolFory()
         }) {
       byte[] bytes = fory.serializeJavaObject("abc");
       Assert.assertEquals(fory.deserializeJavaObject(bytes, String.class), "abc");
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.builder;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.annotation.ForyField;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.config.Language;
+import org.apache.fory.serializer.Serializer;
+import org.apache.fory.test.bean.BeanA;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CodecPrecompilerTest extends ForyTestBase {
+
+  @DataProvider
+  public static Object[][] config() {
+    return Sets.cartesianProduct(
+            ImmutableSet.of(true, false), // referenceTracking
+            ImmutableSet.of(true, false), // scoped meta share
+            ImmutableSet.of(CompatibleMode.COMPATIBLE, CompatibleMode.SCHEMA_CONSISTENT))
+        .stream()
+        .map(List::toArray)
+        .toArray(Object[][]::new);
+  }
+
+  private static ForyBuilder builder(
+      boolean referenceTracking, boolean scopedMetaShare, CompatibleMode compatibleMode) {
+    return Fory.builder()
+        .withLanguage(Language.JAVA)
+        .withRefTracking(referenceTracking)
+        .withCompatibleMode(compatibleMode)
+        .withScopedMetaShare(scopedMetaShare)
+        .requireClassRegistration(false)
+        .withAsyncCompilation(true);
+  }
+
+  @Test(dataProvider = "config")
+  public void testPrecompile(
+      boolean referenceTracking, boolean scopedMetaShare, CompatibleMode compatibleMode)
+      throws Exception {
+    Path dir = Files.createTempDirectory("fory_precompiled");
+    Fory fory = builder(referenceTracking, scopedMetaShare, compatibleMode).build();
+    List<String> names = CodecPrecompiler.precompile(fory, dir, BeanA.class);
+    assertTrue(Files.exists(dir.resolve(PrecompiledCodecs.INDEX_RESOURCE)));
+    assertEquals(
+        Files.readAllLines(dir.resolve(PrecompiledCodecs.INDEX_RESOURCE)).size(), names.size());
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader())) {
+      Fory fory2 =
+          builder(referenceTracking, scopedMetaShare, compatibleMode)
+              .withClassLoader(loader)
+              .build();
+      BeanA beanA = BeanA.createBeanA(2);
+      // Precompiled serializer is used at first serialization without waiting async jit.
+      assertEquals(fory2.deserialize(fory2.serialize(beanA)), beanA);
+      Serializer<?> serializer = fory2.getClassResolver().getSerializer(BeanA.class);
+      assertSame(serializer.getClass().getClassLoader(), loader);
+      assertTrue(names.contains(serializer.getClass().getName()));
+      // Different config doesn't use precompiled serializers.
+      Fory fory3 =
+          builder(!referenceTracking, scopedMetaShare, compatibleMode)
+              .withClassLoader(loader)
+              .withAsyncCompilation(false)
+              .build();
+      assertEquals(fory3.deserialize(fory3.serialize(beanA)), beanA);
+      assertTrue(
+          fory3.getClassResolver().getSerializer(BeanA.class).getClass().getClassLoader()
+              != loader);
+    }
+  }
+
+  public static class Struct1 {
+    List<String> f1;
+    Map<String, Object> f2;
+  }
+
+  public static class Struct2 {
+    @ForyField(trackingRef = true)
+    List<String> f1;
+
+    Map<String, Object> f2;
+  }
+
+  public static class Struct3 {
+    List<Object> f1;
+    Map<String, Object> f2;
+  }
+
+  @Test
+  public void testClassStructure() {
+    Fory fory = builder(true, true, CompatibleMode.COMPATIBLE).build();
+    String structure = structure(fory, Struct1.class);
+    assertEquals(structure(fory, Struct1.class), structure);
+    // Annotations change generated code.
+    assertNotEquals(structure(fory, Struct2.class), structure);
+    // Monomorphic element types change generated code.
+    assertNotEquals(structure(fory, Struct3.class), structure);
+  }
+
+  @Test
+  public void testAdaptiveRefTrackingChangesConfigHash() {
+    // Fields of adaptive ref tracking serializers are registered as ref sites.
+    long hash =
+        builder(true, false, CompatibleMode.SCHEMA_CONSISTENT)
+            .build()
+            .getConfig()
+            .getStableConfigHash();
+    long adaptiveHash =
+        builder(true, false, CompatibleMode.SCHEMA_CONSISTENT)
+            .withAdaptiveRefTracking(true)
+            .build()
+            .getConfig()
+            .getStableConfigHash();
+    assertNotEquals(adaptiveHash, hash);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMainInvalidArgs() throws Exception {
+    CodecPrecompiler.main(new String[0]);
+  }
+
+  private static String structure(Fory fory, Class<?> cls) {
+    return PrecompiledCodecs.classStructure(fory, cls).replace(cls.getName(), "Struct");
+  }
+}
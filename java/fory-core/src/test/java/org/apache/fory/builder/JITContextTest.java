@@ -20,14 +20,22 @@
 package org.apache.fory.builder;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import lombok.Data;
 import org.apache.fory.Fory;
 import org.apache.fory.ForyTestBase;
+import org.apache.fory.codegen.CodeGenerator;
 import org.apache.fory.config.CompatibleMode;
 import org.apache.fory.config.Language;
 import org.apache.fory.logging.Logger;
@@ -167,6 +175,103 @@ public class JITContextTest extends ForyTestBase {
     serDeCheck(fory, o);
   }
 
+  @Test(timeOut = 60000)
+  public void testPendingJITHotness() throws InterruptedException {
+    Fory fory =
+        Fory.builder()
+            .withLanguage(Language.JAVA)
+            .requireClassRegistration(false)
+            .withAsyncCompilation(true)
+            .build();
+    // Occupy all compiler threads so that jit for BeanA stays pending.
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) CodeGenerator.getCompilationService();
+    int numThreads = executor.getMaximumPoolSize();
+    CountDownLatch started = new CountDownLatch(numThreads);
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < numThreads; i++) {
+      executor.execute(
+          () -> {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          });
+    }
+    BeanA beanA = BeanA.createBeanA(2);
+    byte[] bytes;
+    try {
+      started.await();
+      bytes = fory.serialize(beanA);
+      JITContext.JITHotness hotness = fory.getJITContext().getPendingJITHotness(BeanA.class);
+      // jit for BeanA not started yet, interpreter serialization should be counted.
+      assertNotNull(hotness);
+      assertTrue(hotness.get() > 0);
+    } finally {
+      release.countDown();
+    }
+    while (!(getSerializer(fory, BeanA.class) instanceof Generated)) {
+      Thread.sleep(10);
+    }
+    assertNull(fory.getJITContext().getPendingJITHotness(BeanA.class));
+    assertEquals(fory.deserialize(bytes), beanA);
+  }
+
+  @Test(dataProvider = "oneBoolOption", timeOut = 60000)
+  public void testTieredCompilation(boolean asyncCompilation) throws InterruptedException {
+    Fory fory =
+        Fory.builder()
+            .withLanguage(Language.JAVA)
+            .requireClassRegistration(false)
+            .withAsyncCompilation(asyncCompilation)
+            .withTieredCompilation(3, 1024)
+            .build();
+    JITContext jitContext = fory.getJITContext();
+    List<String> results = Collections.synchronizedList(new ArrayList<>());
+    JITContext.SerializerJITCallback<String> callback =
+        new JITContext.SerializerJITCallback<String>() {
+          @Override
+          public void onSuccess(String result) {
+            results.add(result);
+          }
+
+          @Override
+          public Object id() {
+            return "A";
+          }
+        };
+    String result;
+    try {
+      jitContext.lock();
+      result = jitContext.registerSerializerJITCallback(() -> "interpreter", () -> "jit", callback);
+      assertEquals(jitContext.getNumDeferredTypes(), 1);
+      assertTrue(jitContext.hasJITResult("A"));
+      JITContext.JITHotness hotness = jitContext.getPendingJITHotness("A");
+      hotness.record(10);
+      hotness.record(10);
+      assertTrue(results.isEmpty());
+      hotness.record(10);
+    } finally {
+      jitContext.unlock();
+    }
+    assertEquals(result, "interpreter");
+    if (!asyncCompilation) {
+      // Promoted jit is deferred to next top-level serialization.
+      assertTrue(results.isEmpty());
+      fory.serialize("abc");
+    }
+    while (results.isEmpty()) {
+      Thread.sleep(10);
+    }
+    assertEquals(results, Collections.singletonList("jit"));
+    assertEquals(jitContext.getNumDeferredTypes(), 0);
+    assertEquals(jitContext.getNumTieredUpTypes(), 1);
+    assertNull(jitContext.getPendingJITHotness("A"));
+    // Notify callbacks of finished jit are released.
+    assertFalse(jitContext.hasJITResult("A"));
+  }
+
   @Data
   public static final class TestAccessLevel {
     PkgAccessLevel f1;
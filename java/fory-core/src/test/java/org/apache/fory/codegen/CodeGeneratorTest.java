@@ -21,9 +21,12 @@ package org.apache.fory.codegen;
 
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertTrue;
 
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -213,4 +216,34 @@ public class CodeGeneratorTest {
     ClassLoader classLoader2 = codeGenerator.compile(unit1, unit2);
     Assert.assertSame(classLoader, classLoader2);
   }
+
+  @Test
+  public void testCodeCache() throws Exception {
+    Path dir = Files.createTempDirectory("fory_code_cache");
+    System.setProperty("FORY_CODE_CACHE_DIR", dir.toString());
+    try {
+      CompileUnit unit =
+          new CompileUnit(
+              "demo.pkg1", "CachedA", "package demo.pkg1;\npublic class CachedA { class B {} }");
+      unit.setCacheable(true);
+      ClassLoader loader = new CodeGenerator(getClass().getClassLoader()).compile(unit);
+      assertNotNull(loader.loadClass("demo.pkg1.CachedA"));
+      assertTrue(Files.exists(dir.resolve("demo.pkg1.CachedA.classes")));
+      // Load from cache in a new classloader without generating code.
+      CompileUnit unit2 =
+          new CompileUnit(
+              "demo.pkg1",
+              "CachedA",
+              () -> {
+                throw new IllegalStateException("Code shouldn't be generated");
+              });
+      unit2.setCacheable(true);
+      ClassLoader loader2 = new CodeGenerator(getClass().getClassLoader()).compile(unit2);
+      assertNotNull(loader2.loadClass("demo.pkg1.CachedA"));
+      assertNotNull(loader2.loadClass("demo.pkg1.CachedA$B"));
+      assertNotSame(loader2, loader);
+    } finally {
+      System.clearProperty("FORY_CODE_CACHE_DIR");
+    }
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.collection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.apache.fory.reflect.ReflectionUtils;
+import org.testng.annotations.Test;
+
+public class StampedIdentityObjectIntMapTest {
+
+  @Test
+  public void testPutOrGet() {
+    StampedIdentityObjectIntMap<Object> map = new StampedIdentityObjectIntMap<>(4, 0.51f);
+    Object[] objects = new Object[1000];
+    for (int i = 0; i < objects.length; i++) {
+      objects[i] = new Object();
+      assertEquals(map.putOrGet(objects[i], i), Integer.MIN_VALUE);
+    }
+    assertEquals(map.size, objects.length);
+    for (int i = 0; i < objects.length; i++) {
+      assertEquals(map.putOrGet(objects[i], -1), i);
+      assertEquals(map.get(objects[i], -1), i);
+    }
+    map.put(objects[0], 10);
+    assertEquals(map.get(objects[0], -1), 10);
+    assertEquals(map.size, objects.length);
+    Map<Object, Integer> entries = new IdentityHashMap<>();
+    map.forEach(entries::put);
+    assertEquals(entries.size(), objects.length);
+    assertEquals(entries.get(objects[1]).intValue(), 1);
+  }
+
+  @Test
+  public void testReset() {
+    StampedIdentityObjectIntMap<Object> map = new StampedIdentityObjectIntMap<>(4, 0.51f);
+    Object[] objects = new Object[100];
+    for (int i = 0; i < objects.length; i++) {
+      objects[i] = new Object();
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < objects.length; i++) {
+        assertEquals(map.putOrGet(objects[i], i + round), Integer.MIN_VALUE);
+      }
+      assertEquals(map.get(objects[10], -1), 10 + round);
+      if (round == 1) {
+        map.resetApproximate(4);
+      } else {
+        map.reset();
+      }
+      assertEquals(map.size, 0);
+      for (Object object : objects) {
+        assertEquals(map.get(object, -1), -1);
+      }
+      int[] count = {0};
+      map.forEach((k, v) -> count[0]++);
+      assertEquals(count[0], 0);
+    }
+    map.putOrGet(objects[0], 1);
+    map.clear();
+    assertEquals(map.get(objects[0], -1), -1);
+  }
+
+  @Test
+  public void testResetReleasesKeys() {
+    StampedIdentityObjectIntMap<Object> map = new StampedIdentityObjectIntMap<>(4, 0.51f);
+    for (int round = 0; round < 3; round++) {
+      // insert enough keys to resize table in first round.
+      for (int i = 0; i < 100; i++) {
+        map.putOrGet(new Object(), i);
+      }
+      map.reset();
+      Object[] keyTable = (Object[]) ReflectionUtils.getObjectFieldValue(map, "keyTable");
+      for (Object key : keyTable) {
+        assertNull(key);
+      }
+    }
+  }
+}
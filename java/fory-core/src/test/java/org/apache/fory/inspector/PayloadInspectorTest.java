@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.inspector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.resolver.MetaContext;
+import org.apache.fory.test.bean.BeanA;
+import org.apache.fory.test.bean.BeanB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PayloadInspectorTest extends ForyTestBase {
+
+  private static ForyBuilder compatibleBuilder(boolean scopedMetaShare) {
+    return Fory.builder()
+        .withCompatibleMode(CompatibleMode.COMPATIBLE)
+        .withMetaShare(true)
+        .withScopedMetaShare(scopedMetaShare)
+        .requireClassRegistration(false)
+        .withCodegen(false);
+  }
+
+  private static PayloadNode findField(PayloadNode object, String fieldName) {
+    for (PayloadNode field : object.getChildren()) {
+      if (fieldName.equals(field.getFieldName())) {
+        return field;
+      }
+    }
+    throw new AssertionError("Field " + fieldName + " not found in " + object);
+  }
+
+  private static PayloadNode inspectBeanA(int arrSize) {
+    Fory fory = compatibleBuilder(true).build();
+    byte[] bytes = fory.serialize(BeanA.createBeanA(arrSize));
+    PayloadNode root = new PayloadInspector(compatibleBuilder(true)).inspect(bytes);
+    Assert.assertEquals(root.getOffset(), 0);
+    Assert.assertEquals(root.getSize(), bytes.length);
+    Assert.assertEquals(root.getChildren().size(), 1);
+    return root.getChildren().get(0);
+  }
+
+  private static void checkFieldRanges(PayloadNode object) {
+    int end = object.getOffset();
+    for (PayloadNode field : object.getChildren()) {
+      // fields are attributed disjoint ranges within the object.
+      Assert.assertTrue(field.getOffset() >= end, field.toString());
+      end = field.getOffset() + field.getSize();
+    }
+    Assert.assertTrue(end <= object.getOffset() + object.getSize());
+  }
+
+  @Test
+  public void testInspect() {
+    PayloadNode beanA = inspectBeanA(3);
+    Assert.assertEquals(beanA.getTypeName(), BeanA.class.getName());
+    Assert.assertFalse(beanA.isField());
+    List<String> fieldNames =
+        beanA.getChildren().stream().map(PayloadNode::getFieldName).collect(Collectors.toList());
+    Assert.assertTrue(fieldNames.containsAll(Arrays.asList("beanB", "bytes", "beanBList")));
+    // transient fields are not serialized.
+    Assert.assertFalse(fieldNames.contains("f13"));
+    Assert.assertEquals(new TreeSet<>(fieldNames).size(), fieldNames.size());
+    checkFieldRanges(beanA);
+    PayloadNode beanBList = findField(beanA, "beanBList");
+    Assert.assertTrue(beanBList.isField());
+    Assert.assertEquals(beanBList.getChildren().size(), 3);
+    for (PayloadNode beanB : beanBList.getChildren()) {
+      Assert.assertEquals(beanB.getTypeName(), BeanB.class.getName());
+      Assert.assertTrue(beanB.getOffset() >= beanBList.getOffset());
+      Assert.assertTrue(
+          beanB.getOffset() + beanB.getSize() <= beanBList.getOffset() + beanBList.getSize());
+      Assert.assertEquals(findField(beanB, "f1").getChildren().size(), 0);
+      checkFieldRanges(beanB);
+    }
+    Assert.assertTrue(beanA.toString().contains(".beanBList"));
+  }
+
+  @Test
+  public void testFieldBytes() {
+    // ten more array elements are attributed to the `bytes` field exactly.
+    PayloadNode bytes10 = findField(inspectBeanA(10), "bytes");
+    PayloadNode bytes20 = findField(inspectBeanA(20), "bytes");
+    Assert.assertEquals(bytes20.getSize() - bytes10.getSize(), 10);
+  }
+
+  @Test
+  public void testStats() {
+    Fory fory = compatibleBuilder(false).build();
+    PayloadInspector inspector = new PayloadInspector(compatibleBuilder(false));
+    PayloadStats stats = new PayloadStats();
+    // Class defs are shared across payloads, which must be inspected in order.
+    MetaContext metaContext = new MetaContext();
+    long totalBytes = 0;
+    for (int i = 1; i <= 4; i++) {
+      fory.getSerializationContext().setMetaContext(metaContext);
+      byte[] bytes = fory.serialize(BeanA.createBeanA(i));
+      totalBytes += bytes.length;
+      stats.add(inspector.inspect(bytes));
+    }
+    Assert.assertEquals(stats.getNumPayloads(), 4);
+    Assert.assertEquals(stats.getTotalBytes(), totalBytes);
+    PayloadStats.Entry beanBListF1 = null;
+    for (PayloadStats.Entry entry : stats.getFieldStats()) {
+      if (entry.getName().equals(BeanA.class.getName() + ".beanBList.f1")) {
+        beanBListF1 = entry;
+      }
+    }
+    Assert.assertNotNull(beanBListF1);
+    Assert.assertEquals(beanBListF1.getCount(), 1 + 2 + 3 + 4);
+    Assert.assertTrue(beanBListF1.getBytes() > 0);
+    Assert.assertEquals(stats.getTypeStats().get(0).getName(), BeanA.class.getName());
+    Assert.assertEquals(stats.getTypeStats().get(0).getCount(), 4);
+  }
+
+  @Test
+  public void testUnsupported() {
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> new PayloadInspector(Fory.builder().withMetaShare(false)));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class MappedForyReaderTest extends ForyTestBase {
+
+  @DataProvider
+  public static Object[][] windowSize() {
+    return new Object[][] {{16}, {1000}, {MappedForyReader.DEFAULT_WINDOW_SIZE}};
+  }
+
+  @Test(dataProvider = "windowSize")
+  public void testDeserialize(int windowSize) throws IOException {
+    Fory fory = builder().withRefTracking(true).build();
+    Path path = Files.createTempFile("fory", ".bin");
+    try {
+      List<List<Object>> objects = new ArrayList<>();
+      try (OutputStream stream = Files.newOutputStream(path)) {
+        for (int i = 0; i < 1000; i++) {
+          List<Object> list = new ArrayList<>();
+          list.add(i);
+          list.add("str" + i);
+          list.add(new int[i % 100]);
+          list.add(ByteBuffer.wrap(new byte[i % 200]));
+          objects.add(list);
+          fory.serialize(stream, list);
+        }
+      }
+      try (MappedForyReader reader = new MappedForyReader(FileChannel.open(path), windowSize)) {
+        Iterator<Object> iterator = reader.iterator(fory);
+        for (List<Object> expected : objects) {
+          assertTrue(iterator.hasNext());
+          List<?> list = (List<?>) iterator.next();
+          assertEquals(list.get(0), expected.get(0));
+          assertEquals(list.get(1), expected.get(1));
+          assertEquals((int[]) list.get(2), (int[]) expected.get(2));
+          ByteBuffer buffer = (ByteBuffer) list.get(3);
+          // in-band buffer objects are slices of the mapping.
+          assertTrue(buffer.isDirect());
+          assertEquals(buffer, expected.get(3));
+        }
+        assertFalse(reader.hasRemaining());
+        assertEquals(reader.position(), Files.size(path));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    Path path = Files.createTempFile("fory", ".bin");
+    try (MappedForyReader reader = MappedForyReader.open(path)) {
+      assertFalse(reader.hasRemaining());
+      assertFalse(reader.iterator(getJavaFory()).hasNext());
+    } finally {
+      Files.delete(path);
+    }
+  }
+}
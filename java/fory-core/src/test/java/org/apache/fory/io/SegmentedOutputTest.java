@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.memory.MemoryBuffer;
+import org.testng.annotations.Test;
+
+public class SegmentedOutputTest extends ForyTestBase {
+
+  @Test
+  public void testWriteAcrossSegments() {
+    SegmentedOutput output = new SegmentedOutput(16);
+    MemoryBuffer buffer = output.getBuffer();
+    byte[] expected = new byte[1000];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte) i;
+    }
+    buffer.writeBytes(expected, 0, 10);
+    buffer.writeInt64(Long.MAX_VALUE);
+    // bigger than segment size.
+    buffer.writeBytes(expected, 0, 100);
+    output.flush();
+    buffer.writeBytes(expected, 0, 7);
+    assertEquals(output.size(), 125);
+    assertEquals(output.numSegments(), 8);
+    MemoryBuffer data = MemoryBuffer.fromByteArray(output.toByteArray());
+    byte[] bytes = new byte[10];
+    data.readBytes(bytes);
+    assertEquals(bytes, Arrays.copyOf(expected, 10));
+    assertEquals(data.readInt64(), Long.MAX_VALUE);
+    bytes = new byte[100];
+    data.readBytes(bytes);
+    assertEquals(bytes, Arrays.copyOf(expected, 100));
+    bytes = new byte[7];
+    data.readBytes(bytes);
+    assertEquals(bytes, Arrays.copyOf(expected, 7));
+    int numSegments = 0;
+    for (ByteBuffer segment : output) {
+      assertTrue(segment.remaining() <= 16);
+      numSegments++;
+    }
+    assertEquals(numSegments, 8);
+    output.reset();
+    assertEquals(output.size(), 0);
+    assertEquals(output.toByteBuffers().length, 0);
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testSerialize(boolean enableCodegen) {
+    Fory fory = builder().withCodegen(enableCodegen).withRefTracking(true).build();
+    List<Object> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add("str" + i);
+      list.add(new byte[i % 100]);
+      list.add(i);
+    }
+    list.add(list.get(0));
+    SegmentedOutput output = new SegmentedOutput(100);
+    fory.serialize(output.getBuffer(), list);
+    fory.serialize(output.getBuffer(), "abc");
+    assertTrue(output.numSegments() > 1);
+    MemoryBuffer buffer = MemoryBuffer.fromByteArray(output.toByteArray());
+    List<?> newList = (List<?>) fory.deserialize(buffer);
+    assertEquals(newList.size(), list.size());
+    for (int i = 0; i < list.size(); i++) {
+      assertEquals(newList.get(i), list.get(i));
+    }
+    assertEquals(fory.deserialize(buffer), "abc");
+    assertEquals(buffer.readerIndex(), output.size());
+  }
+
+  @Test
+  public void testWriteToChannel() throws Exception {
+    Fory fory = builder().build();
+    int[] array = new int[10000];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = i;
+    }
+    SegmentedOutput output = new SegmentedOutput(1024);
+    fory.serialize(output.getBuffer(), array);
+    // channel which writes at most 100 bytes by every call.
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    GatheringByteChannel channel =
+        new GatheringByteChannel() {
+          @Override
+          public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length && written < 100; i++) {
+              written += write(srcs[i], (int) (100 - written));
+            }
+            return written;
+          }
+
+          @Override
+          public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+          }
+
+          @Override
+          public int write(ByteBuffer src) {
+            return write(src, Integer.MAX_VALUE);
+          }
+
+          private int write(ByteBuffer src, int limit) {
+            int length = Math.min(src.remaining(), limit);
+            stream.write(src.array(), src.arrayOffset() + src.position(), length);
+            src.position(src.position() + length);
+            return length;
+          }
+
+          @Override
+          public boolean isOpen() {
+            return true;
+          }
+
+          @Override
+          public void close() {}
+        };
+    long size = output.size();
+    assertEquals(output.writeTo(channel), size);
+    assertEquals(stream.size(), size);
+    assertEquals(fory.deserialize(stream.toByteArray()), array);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.memory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.fory.Fory;
+import org.apache.fory.ThreadSafeFory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PooledMemoryAllocatorTest {
+
+  @Test
+  public void testAllocate() {
+    PooledMemoryAllocator allocator = new PooledMemoryAllocator(64, 1024, 4, 1024 * 1024);
+    MemoryBuffer buffer = allocator.allocate(10);
+    assertTrue(buffer.isOffHeap());
+    assertEquals(buffer.size(), 64);
+    assertSame(buffer.getAllocator(), allocator);
+    ByteBuffer byteBuffer = buffer.getOffHeapBuffer();
+    allocator.release(buffer);
+    // Reused from thread cache.
+    assertSame(allocator.allocate(64).getOffHeapBuffer(), byteBuffer);
+    assertEquals(allocator.allocate(100).size(), 128);
+    // Larger than max size class, not pooled.
+    MemoryBuffer large = allocator.allocate(3000);
+    assertEquals(large.size(), 3000);
+    allocator.release(large);
+    assertNotSame(allocator.allocate(3000).getOffHeapBuffer(), large.getOffHeapBuffer());
+    Assert.assertThrows(
+        IllegalArgumentException.class, () -> allocator.release(MemoryUtils.buffer(16)));
+  }
+
+  @Test
+  public void testGrow() {
+    PooledMemoryAllocator allocator = new PooledMemoryAllocator(64, 1024, 4, 1024 * 1024);
+    MemoryBuffer buffer = allocator.allocate(16);
+    ByteBuffer initialBuffer = buffer.getOffHeapBuffer();
+    for (int i = 0; i < 1000; i++) {
+      buffer.writeInt32(i);
+    }
+    assertTrue(buffer.isOffHeap());
+    assertEquals(buffer.size(), 4096);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(buffer.readInt32(), i);
+    }
+    // Memory before growing is released to the pool.
+    assertSame(allocator.allocate(64).getOffHeapBuffer(), initialBuffer);
+    allocator.release(buffer);
+  }
+
+  @Test
+  public void testReleaseByOtherThread() throws Exception {
+    PooledMemoryAllocator allocator = new PooledMemoryAllocator(64, 1024, 0, 1024 * 1024);
+    MemoryBuffer buffer = allocator.allocate(100);
+    ByteBuffer byteBuffer = buffer.getOffHeapBuffer();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> allocator.release(buffer)).get();
+    } finally {
+      executor.shutdown();
+    }
+    assertSame(allocator.allocate(100).getOffHeapBuffer(), byteBuffer);
+  }
+
+  @Test
+  public void testSerialize() {
+    PooledMemoryAllocator allocator = new PooledMemoryAllocator();
+    Fory fory = Fory.builder().requireClassRegistration(false).build();
+    ThreadSafeFory threadSafeFory =
+        Fory.builder().requireClassRegistration(false).buildThreadSafeFory();
+    List<String> list = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      list.add("str" + i);
+    }
+    for (Object obj : new Object[] {"abc", list}) {
+      MemoryBuffer buffer = fory.serialize(obj, allocator);
+      assertTrue(buffer.isOffHeap());
+      assertEquals(buffer.getBytes(0, buffer.writerIndex()), fory.serialize(obj));
+      assertEquals(fory.deserialize(buffer), obj);
+      allocator.release(buffer);
+      buffer = threadSafeFory.serialize(obj, allocator);
+      assertEquals(threadSafeFory.deserialize(buffer), obj);
+      allocator.release(buffer);
+    }
+  }
+}
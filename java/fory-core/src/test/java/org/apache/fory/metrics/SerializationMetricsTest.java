@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.test.bean.Foo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SerializationMetricsTest extends ForyTestBase {
+
+  @Test(dataProvider = "enableCodegen")
+  public void testTypeMetrics(boolean codegen) {
+    SerializationMetrics metrics = new SerializationMetrics(1);
+    Fory fory =
+        builder()
+            .withCodegen(codegen)
+            .withAsyncCompilation(false)
+            .withMetricsListener(metrics)
+            .build();
+    // Elements of different types are written by fory with their runtime types.
+    List<Object> list = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      list.add(Foo.create());
+      list.add("str" + i);
+    }
+    byte[] bytes = fory.serialize(list);
+    Assert.assertEquals(fory.deserialize(bytes), list);
+    TypeMetrics listMetrics = metrics.getTypeMetrics(ArrayList.class);
+    Assert.assertEquals(listMetrics.getWriteCount(), 1);
+    Assert.assertEquals(listMetrics.getReadCount(), 1);
+    Assert.assertEquals(listMetrics.getReadBytes(), listMetrics.getWriteBytes());
+    Assert.assertTrue(listMetrics.getWriteNanos() > 0);
+    Assert.assertTrue(listMetrics.getReadNanos() > 0);
+    TypeMetrics fooMetrics = metrics.getTypeMetrics(Foo.class);
+    Assert.assertEquals(fooMetrics.getWriteCount(), 10);
+    Assert.assertEquals(fooMetrics.getReadCount(), 10);
+    Assert.assertEquals(fooMetrics.getReadBytes(), fooMetrics.getWriteBytes());
+    TypeMetrics strMetrics = metrics.getTypeMetrics(String.class);
+    Assert.assertEquals(strMetrics.getWriteCount(), 10);
+    // Bytes of nested objects are included in their parents.
+    Assert.assertTrue(
+        listMetrics.getWriteBytes() > fooMetrics.getWriteBytes() + strMetrics.getWriteBytes());
+    Assert.assertEquals(metrics.getTypeMetrics().get(0).getTypeName(), ArrayList.class.getName());
+    if (codegen) {
+      Assert.assertTrue(metrics.getJITCompileCount() > 0);
+      Assert.assertTrue(metrics.getMaxJITCompileNanos() > 0);
+    }
+    metrics.reset();
+    Assert.assertEquals(metrics.getTypeMetrics(Foo.class).getWriteCount(), 0);
+    fory.serialize(Foo.create());
+    Assert.assertEquals(metrics.getTypeMetrics(Foo.class).getWriteCount(), 1);
+  }
+
+  @Test
+  public void testTimeSampling() {
+    AtomicInteger numWrites = new AtomicInteger();
+    AtomicInteger numSampledWrites = new AtomicInteger();
+    AtomicInteger numSampledReads = new AtomicInteger();
+    MetricsListener listener =
+        new MetricsListener() {
+          @Override
+          public int timeSampleInterval() {
+            return 4;
+          }
+
+          @Override
+          public void onWrite(Class<?> cls, int numBytes, long nanos) {
+            numWrites.incrementAndGet();
+            if (nanos >= 0) {
+              numSampledWrites.incrementAndGet();
+            }
+          }
+
+          @Override
+          public void onRead(Class<?> cls, int numBytes, long nanos) {
+            if (nanos >= 0) {
+              numSampledReads.incrementAndGet();
+            }
+          }
+        };
+    Fory fory = builder().withCodegen(false).withMetricsListener(listener).build();
+    List<byte[]> payloads = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      payloads.add(fory.serialize("str" + i));
+    }
+    Assert.assertEquals(numWrites.get(), 64);
+    Assert.assertEquals(numSampledWrites.get(), 16);
+    for (byte[] payload : payloads) {
+      fory.deserialize(payload);
+    }
+    Assert.assertEquals(numSampledReads.get(), 16);
+    Assert.assertThrows(IllegalArgumentException.class, () -> new SerializationMetrics(3));
+  }
+
+  @Test
+  public void testCustomListenerSampleInterval() {
+    for (int interval : new int[] {0, 3, -64}) {
+      MetricsListener listener =
+          new MetricsListener() {
+            @Override
+            public int timeSampleInterval() {
+              return interval;
+            }
+
+            @Override
+            public void onWrite(Class<?> cls, int numBytes, long nanos) {}
+
+            @Override
+            public void onRead(Class<?> cls, int numBytes, long nanos) {}
+          };
+      Assert.assertThrows(
+          IllegalArgumentException.class, () -> builder().withMetricsListener(listener));
+    }
+  }
+
+  @Test
+  public void testJmxExporter() throws Exception {
+    SerializationMetrics metrics = new SerializationMetrics();
+    Fory fory = builder().withCodegen(false).withMetricsListener(metrics).build();
+    fory.serialize(Foo.create());
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName;
+    try (JmxMetricsExporter exporter = new JmxMetricsExporter(metrics, "test")) {
+      objectName = exporter.getObjectName();
+      Assert.assertTrue(server.isRegistered(objectName));
+      SerializationMetricsMXBean proxy =
+          JMX.newMXBeanProxy(server, objectName, SerializationMetricsMXBean.class);
+      List<TypeMetrics> typeMetrics = proxy.getTypeMetrics();
+      Assert.assertEquals(typeMetrics.size(), metrics.getTypeMetrics().size());
+      Assert.assertEquals(typeMetrics.get(0).getTypeName(), Foo.class.getName());
+      Assert.assertEquals(typeMetrics.get(0).getWriteCount(), 1);
+      proxy.reset();
+      Assert.assertEquals(metrics.getTypeMetrics(Foo.class).getWriteCount(), 0);
+    }
+    Assert.assertFalse(server.isRegistered(objectName));
+  }
+}
@@ -19,6 +19,10 @@
 
 package org.apache.fory.pool;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.apache.fory.Fory;
 import org.apache.fory.config.Language;
@@ -141,4 +145,37 @@ public class ClassLoaderForyPooledTest {
     ClassLoaderForyPooled pooled = getPooled(4, 9);
     Assert.assertThrows(NullPointerException.class, () -> pooled.returnFory(null));
   }
+
+  @Test
+  public void testConcurrentGetReturn() throws InterruptedException {
+    int maxPoolSize = 4;
+    ClassLoaderForyPooled pooled = getPooled(2, maxPoolSize);
+    Set<Fory> leased =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    Set<Fory> created =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    AtomicInteger errors = new AtomicInteger();
+    Thread[] threads = new Thread[16];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 1000; j++) {
+                  Fory fory = pooled.getFory();
+                  created.add(fory);
+                  if (!leased.add(fory) || leased.size() > maxPoolSize) {
+                    errors.incrementAndGet();
+                  }
+                  leased.remove(fory);
+                  pooled.returnFory(fory);
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(errors.get(), 0);
+    Assert.assertTrue(created.size() <= maxPoolSize, String.valueOf(created.size()));
+  }
 }
@@ -21,9 +21,13 @@ package org.apache.fory.resolver;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import org.apache.fory.Fory;
 import org.apache.fory.memory.MemoryBuffer;
 import org.testng.annotations.Test;
 
@@ -67,4 +71,126 @@ public class MapRefResolverTest {
     // assertTrue(referenceStatistics.mapStatistics.maxProbeProfiled > 0);
     // assertTrue(referenceStatistics.referenceCount > 0);
   }
+
+  @Test
+  public void testAdaptiveRefTracking() {
+    MapRefResolver refResolver = new MapRefResolver(true);
+    MemoryBuffer buffer = MemoryBuffer.newHeapBuffer(32);
+    // warm up sampling with unshared objects only.
+    for (int i = 0; i < 32; i++) {
+      assertFalse(refResolver.writeRefOrNull(buffer, new Object()));
+      refResolver.resetWrite();
+    }
+    Object o = new Object();
+    assertFalse(refResolver.writeRefOrNull(buffer, "a"));
+    assertFalse(refResolver.writeRefOrNull(buffer, o));
+    // `Object` is tracked by the cache, sharing is still detected.
+    assertTrue(refResolver.writeRefOrNull(buffer, o));
+    buffer.readerIndex(buffer.writerIndex() - 1);
+    assertEquals(buffer.readVarUint32(), 1);
+    assertTrue(refResolver.writeRefOrNull(buffer, "a"));
+    buffer.readerIndex(buffer.writerIndex() - 1);
+    assertEquals(buffer.readVarUint32(), 0);
+    refResolver.resetWrite();
+    // evicted and overflowed cache entries are still detected.
+    Object[] objects = new Object[200000];
+    for (int i = 0; i < objects.length; i++) {
+      objects[i] = new Object();
+      assertFalse(refResolver.writeRefOrNull(buffer, objects[i]));
+    }
+    for (int i = 0; i < objects.length; i++) {
+      int writerIndex = buffer.writerIndex();
+      assertTrue(refResolver.writeRefOrNull(buffer, objects[i]));
+      buffer.readerIndex(writerIndex + 1);
+      assertEquals(buffer.readVarUint32(), i);
+    }
+    refResolver.resetWrite();
+    assertFalse(refResolver.writeRefOrNull(buffer, o));
+  }
+
+  @Test
+  public void testAdaptiveRefSite() {
+    MapRefResolver refResolver = new MapRefResolver(true);
+    MemoryBuffer buffer = MemoryBuffer.newHeapBuffer(32);
+    int unsharedSite = refResolver.registerRefSite("A.f1");
+    int sharedSite = refResolver.registerRefSite("A.f2");
+    assertEquals(refResolver.registerRefSite("A.f1"), unsharedSite);
+    for (int i = 0; i < 32; i++) {
+      Object o = new Object();
+      assertFalse(refResolver.writeRefOrNull(buffer, new Object(), unsharedSite));
+      assertFalse(refResolver.writeRefOrNull(buffer, o, sharedSite));
+      assertTrue(refResolver.writeRefOrNull(buffer, o, sharedSite));
+      refResolver.resetWrite();
+    }
+    // values written by both tracked and untracked sites are detected by either of them.
+    Object o1 = new Object();
+    Object o2 = new Object();
+    assertFalse(refResolver.writeRefOrNull(buffer, o1, unsharedSite));
+    assertFalse(refResolver.writeRefOrNull(buffer, o2, sharedSite));
+    assertTrue(refResolver.writeRefOrNull(buffer, o1, sharedSite));
+    assertTrue(refResolver.writeRefOrNull(buffer, o2, unsharedSite));
+    assertTrue(refResolver.writeRefOrNull(buffer, o1, unsharedSite));
+    assertTrue(refResolver.writeRefOrNull(buffer, o2, sharedSite));
+  }
+
+  @Test
+  public void testRegisterRefSiteConcurrently() throws InterruptedException {
+    MapRefResolver refResolver = new MapRefResolver(true);
+    MemoryBuffer buffer = MemoryBuffer.newHeapBuffer(32);
+    int[] sites = new int[100];
+    // Generated serializers register sites in jit threads.
+    Thread thread =
+        new Thread(
+            () -> {
+              for (int i = 0; i < sites.length; i++) {
+                sites[i] = refResolver.registerRefSite("A.f" + i);
+              }
+            });
+    thread.start();
+    thread.join();
+    for (int i = 0; i < 32; i++) {
+      for (int site : sites) {
+        assertFalse(refResolver.writeRefOrNull(buffer, new Object(), site));
+      }
+      refResolver.resetWrite();
+    }
+    Object o = new Object();
+    assertFalse(refResolver.writeRefOrNull(buffer, o, sites[sites.length - 1]));
+    assertTrue(refResolver.writeRefOrNull(buffer, o, sites[0]));
+  }
+
+  @Test(timeOut = 60000)
+  public void testAdaptiveRefTrackingSerialization() {
+    Fory fory =
+        Fory.builder()
+            .withRefTracking(true)
+            .withAdaptiveRefTracking(true)
+            .requireClassRegistration(false)
+            .build();
+    Fory reader = Fory.builder().withRefTracking(true).requireClassRegistration(false).build();
+    for (int i = 0; i < 100; i++) {
+      Cyclic tree = new Cyclic();
+      tree.children.add(new Cyclic());
+      tree.children.add(new Cyclic());
+      Cyclic copy = (Cyclic) reader.deserialize(fory.serialize(tree));
+      assertEquals(copy.children.size(), 2);
+    }
+    Cyclic tree = new Cyclic();
+    Cyclic child = new Cyclic();
+    tree.children.add(child);
+    tree.children.add(child);
+    Cyclic copy = (Cyclic) reader.deserialize(fory.serialize(tree));
+    assertSame(copy.children.get(0), copy.children.get(1));
+    Cyclic cyclic = new Cyclic();
+    cyclic.next = cyclic;
+    copy = (Cyclic) reader.deserialize(fory.serialize(cyclic));
+    assertSame(copy.next, copy);
+    copy = (Cyclic) fory.deserialize(fory.serialize(cyclic));
+    assertSame(copy.next, copy);
+  }
+
+  public static class Cyclic {
+    public Cyclic next;
+    public List<Cyclic> children = new ArrayList<>();
+  }
 }
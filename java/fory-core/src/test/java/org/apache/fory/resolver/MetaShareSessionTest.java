@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.resolver;
+
+import java.util.Arrays;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.ForyBuilder;
+import org.apache.fory.config.Language;
+import org.apache.fory.test.bean.BeanA;
+import org.apache.fory.test.bean.BeanB;
+import org.apache.fory.test.bean.Foo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetaShareSessionTest extends ForyTestBase {
+  private static ForyBuilder sessionForyBuilder(boolean enableCodegen) {
+    return Fory.builder()
+        .withLanguage(Language.JAVA)
+        .withRefTracking(true)
+        .withMetaShare(true)
+        .withScopedMetaShare(false)
+        .withCompatibleMode(CompatibleMode.COMPATIBLE)
+        .withCodegen(enableCodegen)
+        .requireClassRegistration(false);
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testShareClassDefs(boolean enableCodegen) {
+    Fory writer = sessionForyBuilder(enableCodegen).build();
+    Fory reader = sessionForyBuilder(enableCodegen).build();
+    MetaShareSession writeSession = new MetaShareSession();
+    MetaShareSession readSession = new MetaShareSession();
+    for (Object o : new Object[] {Foo.create(), BeanB.createBeanB(2), BeanA.createBeanA(2)}) {
+      byte[] bytes = writeSession.serialize(writer, o);
+      Assert.assertEquals(readSession.deserialize(reader, bytes), o);
+      byte[] bytes1 = writeSession.serialize(writer, o);
+      Assert.assertTrue(bytes1.length < bytes.length);
+      Assert.assertEquals(readSession.deserialize(reader, bytes1), o);
+    }
+    Assert.assertEquals(writeSession.getNumEvictions(), 0);
+    Assert.assertEquals(readSession.getNumReadClassDefs(), writeSession.getNumWrittenClassDefs());
+  }
+
+  @Test
+  public void testEvictClassDefs() {
+    Fory writer = sessionForyBuilder(false).build();
+    Fory reader = sessionForyBuilder(false).build();
+    MetaShareSession writeSession = new MetaShareSession(2);
+    MetaShareSession readSession = new MetaShareSession(2);
+    Object[] objects = {Foo.create(), BeanB.createBeanB(2), BeanA.createBeanA(2)};
+    for (int i = 0; i < 3; i++) {
+      for (Object o : objects) {
+        byte[] bytes = writeSession.serialize(writer, o);
+        Assert.assertEquals(readSession.deserialize(reader, bytes), o);
+        Assert.assertEquals(
+            readSession.getNumReadClassDefs(), writeSession.getNumWrittenClassDefs());
+      }
+    }
+    Assert.assertTrue(writeSession.getNumEvictions() > 0);
+  }
+
+  @Test
+  public void testThreadSafeFory() {
+    ThreadSafeFory writer = sessionForyBuilder(false).buildThreadSafeForyPool(2, 4);
+    ThreadSafeFory reader = sessionForyBuilder(false).buildThreadSafeForyPool(2, 4);
+    MetaShareSession writeSession = new MetaShareSession();
+    MetaShareSession readSession = new MetaShareSession();
+    BeanA beanA = BeanA.createBeanA(2);
+    for (int i = 0; i < 4; i++) {
+      byte[] bytes = writeSession.serialize(writer, beanA);
+      Assert.assertEquals(readSession.deserialize(reader, bytes), beanA);
+    }
+  }
+
+  @Test
+  public void testRenegotiateAfterReadFailure() {
+    Fory writer = sessionForyBuilder(false).build();
+    Fory reader = sessionForyBuilder(false).build();
+    MetaShareSession writeSession = new MetaShareSession();
+    MetaShareSession readSession = new MetaShareSession();
+    byte[] bytes = writeSession.serialize(writer, Foo.create());
+    Assert.assertThrows(
+        () -> readSession.deserialize(reader, Arrays.copyOf(bytes, bytes.length / 2)));
+    byte[] bytes1 = writeSession.serialize(writer, Foo.create());
+    Assert.assertThrows(IllegalStateException.class, () -> readSession.deserialize(reader, bytes1));
+    writeSession.renegotiate();
+    Foo foo = Foo.create();
+    Assert.assertEquals(readSession.deserialize(reader, writeSession.serialize(writer, foo)), foo);
+    BeanA bean = BeanA.createBeanA(2);
+    Assert.assertEquals(
+        readSession.deserialize(reader, writeSession.serialize(writer, bean)), bean);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testScopedMetaShareUnsupported() {
+    Fory fory =
+        builder()
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withMetaShare(true)
+            .withScopedMetaShare(true)
+            .build();
+    new MetaShareSession().serialize(fory, "abc");
+  }
+}
@@ -26,6 +26,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -174,6 +175,49 @@ public class ArraySerializersTest extends ForyTestBase {
             new double[] {1.0, 1.0}, (double[]) serDe(fory1, fory2, new double[] {1.0, 1.0})));
   }
 
+  @Test
+  public void testCompressedIntLongArray() {
+    Fory fory =
+        Fory.builder()
+            .withIntArrayCompressed(true)
+            .withLongArrayCompressed(true)
+            .requireClassRegistration(false)
+            .build();
+    Fory rawFory = Fory.builder().requireClassRegistration(false).build();
+    long[] timestamps = new long[1000];
+    long[] randomLongs = new long[1000];
+    int[] ids = new int[1000];
+    int[] smallRange = new int[1000];
+    Random random = new Random(17);
+    long ts = 1700000000000L;
+    for (int i = 0; i < timestamps.length; i++) {
+      ts += random.nextInt(100);
+      timestamps[i] = ts;
+      randomLongs[i] = random.nextLong();
+      ids[i] = 1000000 - i * 3;
+      smallRange[i] = Integer.MIN_VALUE + random.nextInt(1000);
+    }
+    for (long[] longs :
+        new long[][] {
+          timestamps, randomLongs, new long[0], new long[] {Long.MIN_VALUE, Long.MAX_VALUE}
+        }) {
+      assertEquals(serDe(fory, longs), longs);
+    }
+    for (int[] ints :
+        new int[][] {
+          ids, smallRange, new int[0], new int[] {Integer.MIN_VALUE, Integer.MAX_VALUE}
+        }) {
+      assertEquals(serDe(fory, ints), ints);
+    }
+    assertTrue(fory.serialize(timestamps).length * 4 < rawFory.serialize(timestamps).length);
+    assertTrue(fory.serialize(ids).length * 4 < rawFory.serialize(ids).length);
+    assertTrue(fory.serialize(smallRange).length * 2 < rawFory.serialize(smallRange).length);
+    // Incompressible arrays fall back to raw bytes.
+    assertTrue(fory.serialize(randomLongs).length <= rawFory.serialize(randomLongs).length + 1);
+    // Zero-copy buffers are kept raw.
+    assertEquals(serDeOutOfBand(new AtomicInteger(), fory, fory, timestamps), timestamps);
+  }
+
   @Test(dataProvider = "referenceTrackingConfig")
   public void testArrayZeroCopy(boolean referenceTracking) {
     ForyBuilder builder =
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.meta.Projection;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetaSharedProjectionTest extends ForyTestBase {
+
+  @Data
+  public static class Address {
+    private String city;
+    private String street;
+  }
+
+  @Data
+  public static class User {
+    private String name;
+    private int age;
+    private Address address;
+  }
+
+  @Data
+  public static class Message {
+    private long id;
+    private String title;
+    private double score;
+    private Integer count;
+    private List<String> tags;
+    private User user;
+  }
+
+  private static Message createMessage() {
+    Address address = new Address();
+    address.setCity("paris");
+    address.setStreet("rue de rivoli");
+    User user = new User();
+    user.setName("bob");
+    user.setAge(30);
+    user.setAddress(address);
+    Message message = new Message();
+    message.setId(7);
+    message.setTitle("hello");
+    message.setScore(2.5);
+    message.setCount(3);
+    message.setTags(Arrays.asList("a", "b"));
+    message.setUser(user);
+    return message;
+  }
+
+  private Fory createFory(boolean codegen, boolean refTracking) {
+    return builder()
+        .withCodegen(codegen)
+        .withRefTracking(refTracking)
+        .withCompatibleMode(CompatibleMode.COMPATIBLE)
+        .withScopedMetaShare(true)
+        .build();
+  }
+
+  @Test(dataProvider = "twoBoolOptions")
+  public void testProjection(boolean codegen, boolean refTracking) {
+    Fory fory = createFory(codegen, refTracking);
+    Message message = createMessage();
+    byte[] bytes = fory.serialize(message);
+    for (int i = 0; i < 2; i++) {
+      Message projected =
+          fory.deserialize(bytes, Message.class, Projection.of("id", "user.address.city"));
+      Assert.assertEquals(projected.getId(), 7);
+      Assert.assertNull(projected.getTitle());
+      Assert.assertEquals(projected.getScore(), 0.0);
+      Assert.assertNull(projected.getCount());
+      Assert.assertNull(projected.getTags());
+      Assert.assertNull(projected.getUser().getName());
+      Assert.assertEquals(projected.getUser().getAge(), 0);
+      Assert.assertEquals(projected.getUser().getAddress().getCity(), "paris");
+      Assert.assertNull(projected.getUser().getAddress().getStreet());
+    }
+    Message projected = fory.deserialize(bytes, Message.class, Projection.of("tags", "user"));
+    Assert.assertEquals(projected.getId(), 0);
+    Assert.assertEquals(projected.getTags(), message.getTags());
+    Assert.assertEquals(projected.getUser(), message.getUser());
+    // Projection doesn't change full deserialization.
+    Assert.assertEquals(fory.deserialize(bytes), message);
+  }
+
+  @Test
+  public void testNullNestedField() {
+    Fory fory = createFory(false, false);
+    Message message = createMessage();
+    message.setUser(null);
+    byte[] bytes = fory.serialize(message);
+    Message projected = fory.deserialize(bytes, Message.class, Projection.of("title", "user.name"));
+    Assert.assertEquals(projected.getTitle(), "hello");
+    Assert.assertNull(projected.getUser());
+  }
+
+  public static final class Counted {
+    int value;
+  }
+
+  // Number of `Counted` objects created by deserialization.
+  private static final AtomicInteger NUM_COUNTED_READS = new AtomicInteger();
+
+  private static final class CountedSerializer extends Serializer<Counted> {
+    CountedSerializer(Fory fory) {
+      super(fory, Counted.class);
+    }
+
+    @Override
+    public void write(MemoryBuffer buffer, Counted value) {
+      buffer.writeVarInt32(value.value);
+    }
+
+    @Override
+    public Counted read(MemoryBuffer buffer) {
+      NUM_COUNTED_READS.incrementAndGet();
+      Counted counted = new Counted();
+      counted.value = buffer.readVarInt32();
+      return counted;
+    }
+  }
+
+  @Data
+  public static class Inner {
+    private Counted counted;
+    private String name;
+  }
+
+  @Data
+  public static final class FinalInner {
+    private Counted counted;
+  }
+
+  @Data
+  public static class Outer {
+    private long id;
+    private Inner inner;
+    private FinalInner finalInner;
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testSkipUnprojectedObjects(boolean codegen) {
+    Fory fory =
+        builder()
+            .withCodegen(codegen)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withScopedMetaShare(true)
+            .withObjectSizePrefix(true)
+            .build();
+    fory.registerSerializer(Counted.class, new CountedSerializer(fory));
+    Outer outer = new Outer();
+    outer.setId(1);
+    outer.setInner(new Inner());
+    outer.getInner().setCounted(new Counted());
+    outer.getInner().setName("inner");
+    outer.setFinalInner(new FinalInner());
+    outer.getFinalInner().setCounted(new Counted());
+    byte[] bytes = fory.serialize(outer);
+    NUM_COUNTED_READS.set(0);
+    Outer projected = fory.deserialize(bytes, Outer.class, Projection.of("id"));
+    Assert.assertEquals(projected.getId(), 1);
+    Assert.assertNull(projected.getInner());
+    Assert.assertNull(projected.getFinalInner());
+    // Unprojected objects are skipped by size without creating their fields.
+    Assert.assertEquals(NUM_COUNTED_READS.get(), 0);
+    projected = fory.deserialize(bytes, Outer.class, Projection.of("inner.name"));
+    Assert.assertEquals(projected.getInner().getName(), "inner");
+    // `Counted` has no field meta, so it is read to skip it.
+    Assert.assertEquals(NUM_COUNTED_READS.get(), 1);
+    projected = fory.deserialize(bytes, Outer.class, Projection.of("finalInner"));
+    Assert.assertNull(projected.getInner());
+    Assert.assertNotNull(projected.getFinalInner().getCounted());
+    Assert.assertEquals(NUM_COUNTED_READS.get(), 2);
+  }
+
+  @Test
+  public void testProjectionPaths() {
+    Assert.assertEquals(
+        Projection.of("user.name", "id", "user.address.city"),
+        Projection.of("id", "user.address.city", "user.name"));
+    // A shorter path reads the whole field.
+    Assert.assertEquals(Projection.of("user.name", "user"), Projection.of("user"));
+    Assert.assertTrue(Projection.of("user").getChild("user").isAll());
+    Assert.assertNull(Projection.of("user").getChild("id"));
+    Assert.assertEquals(Projection.of("id", "user.name").toString(), "{id, user: {name}}");
+    Assert.assertThrows(IllegalArgumentException.class, () -> Projection.of("user..name"));
+  }
+
+  @Test
+  public void testProjectionRequiresMetaShare() {
+    Fory fory =
+        builder()
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withScopedMetaShare(false)
+            .build();
+    byte[] bytes = fory.serialize(createMessage());
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> fory.deserialize(bytes, Message.class, Projection.of("id")));
+  }
+}
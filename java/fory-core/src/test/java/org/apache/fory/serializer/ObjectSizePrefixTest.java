@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import lombok.Data;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.codegen.JaninoUtils;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.config.Language;
+import org.apache.fory.io.ForyInputStream;
+import org.apache.fory.io.ForyStreamReader;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.meta.Projection;
+import org.apache.fory.metrics.SerializationMetrics;
+import org.apache.fory.metrics.TypeMetrics;
+import org.apache.fory.test.bean.BeanA;
+import org.apache.fory.test.bean.Foo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ObjectSizePrefixTest extends ForyTestBase {
+
+  @Data
+  public static class Document {
+    private long id;
+    private Object attachment;
+    private String name;
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testPrefixSize(boolean codegen) {
+    Foo foo = Foo.create();
+    for (CompatibleMode mode : CompatibleMode.values()) {
+      for (boolean metaShare : new boolean[] {false, true}) {
+        if (metaShare && mode == CompatibleMode.SCHEMA_CONSISTENT) {
+          continue;
+        }
+        Fory plain =
+            builder()
+                .withCodegen(codegen)
+                .withCompatibleMode(mode)
+                .withScopedMetaShare(metaShare)
+                .build();
+        Fory prefixed =
+            builder()
+                .withCodegen(codegen)
+                .withCompatibleMode(mode)
+                .withScopedMetaShare(metaShare)
+                .withObjectSizePrefix(true)
+                .build();
+        byte[] bytes = prefixed.serialize(foo);
+        Assert.assertEquals(prefixed.deserialize(bytes), foo);
+        // CompatibleSerializer used without meta share doesn't write the size.
+        int prefixSize =
+            mode == CompatibleMode.COMPATIBLE && !metaShare ? 0 : ObjectSizePrefix.SIZE_BYTES;
+        Assert.assertEquals(bytes.length, plain.serialize(foo).length + prefixSize);
+      }
+    }
+  }
+
+  @Test
+  public void testSizePrefix() {
+    Fory fory = builder().withCodegen(false).withObjectSizePrefix(true).build();
+    Serializer<BeanA> serializer = fory.getSerializer(BeanA.class);
+    for (int size : new int[] {0, 10, 1000}) {
+      MemoryBuffer buffer = MemoryBuffer.newHeapBuffer(8);
+      serializer.write(buffer, BeanA.createBeanA(size));
+      fory.resetWrite();
+      int dataSize = buffer.readInt32();
+      Assert.assertEquals(buffer.readerIndex() + dataSize, buffer.writerIndex());
+    }
+  }
+
+  @Test(dataProvider = "twoBoolOptions")
+  public void testSkipUnprojectedFields(boolean codegen, boolean refTracking) {
+    SerializationMetrics metrics = new SerializationMetrics(1);
+    Fory fory =
+        builder()
+            .withCodegen(codegen)
+            .withRefTracking(refTracking)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withScopedMetaShare(true)
+            .withObjectSizePrefix(true)
+            .withMetricsListener(metrics)
+            .build();
+    Document document = new Document();
+    document.setId(7);
+    document.setAttachment(BeanA.createBeanA(10));
+    document.setName("doc");
+    byte[] bytes = fory.serialize(document);
+    metrics.reset();
+    Document projected = fory.deserialize(bytes, Document.class, Projection.of("id", "name"));
+    Assert.assertEquals(projected.getId(), 7);
+    Assert.assertNull(projected.getAttachment());
+    Assert.assertEquals(projected.getName(), "doc");
+    // skipped data may hold refs of later data, so it's parsed when tracking refs.
+    Assert.assertEquals(readCount(metrics, BeanA.class), refTracking ? 1 : 0);
+    projected = fory.deserialize(bytes, Document.class, Projection.of("attachment"));
+    Assert.assertEquals(projected.getAttachment(), document.getAttachment());
+  }
+
+  private static long readCount(SerializationMetrics metrics, Class<?> cls) {
+    // jit serializers write fields inline, which doesn't create type metrics.
+    TypeMetrics typeMetrics = metrics.getTypeMetrics(cls);
+    return typeMetrics == null ? 0 : typeMetrics.getReadCount();
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testSkipRemovedFields(boolean codegen) throws Exception {
+    String codeA =
+        "public class SizePrefixDoc {"
+            + "  public int id;"
+            + "  public Object node;"
+            + "  public String name;"
+            + "}";
+    String codeB =
+        "public class SizePrefixDoc {" + "  public int id;" + "  public String name;" + "}";
+    Class<?> cls1 =
+        JaninoUtils.compileClass(getClass().getClassLoader(), "", "SizePrefixDoc", codeA);
+    Class<?> cls2 =
+        JaninoUtils.compileClass(getClass().getClassLoader(), "", "SizePrefixDoc", codeB);
+    Fory fory1 =
+        builder()
+            .withCodegen(codegen)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withObjectSizePrefix(true)
+            .withClassLoader(cls1.getClassLoader())
+            .build();
+    SerializationMetrics metrics = new SerializationMetrics(1);
+    Fory fory2 =
+        builder()
+            .withCodegen(codegen)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withObjectSizePrefix(true)
+            .withClassLoader(cls2.getClassLoader())
+            .withMetricsListener(metrics)
+            .build();
+    Object doc = cls1.newInstance();
+    cls1.getField("id").setInt(doc, 7);
+    cls1.getField("node").set(doc, BeanA.createBeanA(1000));
+    cls1.getField("name").set(doc, "doc");
+    byte[] bytes = fory1.serialize(doc);
+    for (int i = 0; i < 2; i++) {
+      Object o = fory2.deserialize(bytes);
+      Assert.assertEquals(o.getClass(), cls2);
+      Assert.assertEquals(cls2.getField("id").getInt(o), 7);
+      Assert.assertEquals(cls2.getField("name").get(o), "doc");
+    }
+    Assert.assertEquals(readCount(metrics, BeanA.class), 0);
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testStreamingWrite(boolean codegen) {
+    Fory fory =
+        builder()
+            .withCodegen(codegen)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withStreamWriteBufferSize(256)
+            .withObjectSizePrefix(true)
+            .build();
+    ByteArrayOutputStream bas = new ByteArrayOutputStream();
+    BeanA beanA = BeanA.createBeanA(1000);
+    fory.serialize(bas, beanA);
+    fory.serialize(bas, beanA);
+    ForyInputStream input = ForyStreamReader.of(new ByteArrayInputStream(bas.toByteArray()));
+    Assert.assertEquals(fory.deserialize(input), beanA);
+    Assert.assertEquals(fory.deserialize(input), beanA);
+  }
+
+  @Test
+  public void testDisabledForXlang() {
+    Fory fory = builder().withLanguage(Language.XLANG).withObjectSizePrefix(true).build();
+    Assert.assertFalse(fory.getConfig().isObjectSizePrefixEnabled());
+  }
+}
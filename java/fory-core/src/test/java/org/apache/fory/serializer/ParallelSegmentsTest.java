@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.fory.Fory;
+import org.apache.fory.ForyTestBase;
+import org.apache.fory.ThreadSafeFory;
+import org.apache.fory.config.CompatibleMode;
+import org.apache.fory.io.ForyInputStream;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.test.bean.Foo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ParallelSegmentsTest extends ForyTestBase {
+
+  private static Foo createFoo(int id) {
+    Foo foo = Foo.create();
+    foo.setF1(id);
+    return foo;
+  }
+
+  private static List<Object> createElements(int size) {
+    List<Object> elements = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      if (i % 3 == 0) {
+        elements.add(createFoo(i));
+      } else if (i % 3 == 1) {
+        elements.add("str" + i);
+      } else {
+        elements.add(null);
+      }
+    }
+    return elements;
+  }
+
+  private static ThreadSafeFory buildFory(boolean codegen, int threshold) {
+    return builder()
+        .withCodegen(codegen)
+        .withParallelSerialization(threshold)
+        .buildSharedPoolFory();
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testCollection(boolean codegen) {
+    ThreadSafeFory fory = buildFory(codegen, 100);
+    ThreadSafeFory sequential = buildFory(codegen, Integer.MAX_VALUE);
+    List<Object> list = createElements(10000);
+    byte[] bytes = fory.serialize(list);
+    Assert.assertNotEquals(bytes.length, sequential.serialize(list).length);
+    Assert.assertEquals(fory.deserialize(bytes), list);
+    Set<Object> set = new HashSet<>(list);
+    Assert.assertEquals(fory.deserialize(fory.serialize(set)), set);
+    TreeSet<Integer> sortedSet = new TreeSet<>();
+    for (int i = 0; i < 1000; i++) {
+      sortedSet.add(i);
+    }
+    Assert.assertEquals(fory.deserialize(fory.serialize(sortedSet)), sortedSet);
+    // collections not larger than threshold aren't segmented.
+    List<Object> small = createElements(100);
+    Assert.assertEquals(fory.serialize(small), sequential.serialize(small));
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testArray(boolean codegen) {
+    ThreadSafeFory fory = buildFory(codegen, 100);
+    Object[] array = createElements(10000).toArray();
+    Assert.assertEquals((Object[]) fory.deserialize(fory.serialize(array)), array);
+    Foo[] foos = new Foo[1000];
+    for (int i = 0; i < foos.length; i++) {
+      foos[i] = createFoo(i);
+    }
+    Assert.assertEquals((Foo[]) fory.deserialize(fory.serialize(foos)), foos);
+    Object[] small = {1, "a", null};
+    Assert.assertEquals((Object[]) fory.deserialize(fory.serialize(small)), small);
+  }
+
+  @Test
+  public void testNested() {
+    ThreadSafeFory fory = buildFory(false, 100);
+    List<Object> list = new ArrayList<>();
+    list.add(createElements(1000));
+    list.add(createElements(1000).toArray());
+    byte[] bytes = fory.serialize(list);
+    Assert.assertEquals(bytes, buildFory(false, Integer.MAX_VALUE).serialize(list));
+    List<?> newList = (List<?>) fory.deserialize(bytes);
+    Assert.assertEquals(newList.get(0), list.get(0));
+    Assert.assertEquals((Object[]) newList.get(1), (Object[]) list.get(1));
+  }
+
+  @Test
+  public void testStream() {
+    ThreadSafeFory fory = buildFory(false, 100);
+    List<Object> list = createElements(10000);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    fory.serialize(bos, list);
+    fory.serialize(bos, "end");
+    ForyInputStream input = new ForyInputStream(new ByteArrayInputStream(bos.toByteArray()), 16);
+    Assert.assertEquals(fory.deserialize(input), list);
+    Assert.assertEquals(fory.deserialize(input), "end");
+  }
+
+  // Records threads which wrote or read `Foo`, and slows them down so idle workers steal segments.
+  private static final class ThreadRecordingSerializer extends Serializer<Foo> {
+    private final Serializer<Foo> serializer;
+    private final Set<Thread> threads;
+
+    ThreadRecordingSerializer(Fory fory, Set<Thread> threads) {
+      super(fory, Foo.class);
+      serializer = new ObjectSerializer<>(fory, Foo.class);
+      this.threads = threads;
+    }
+
+    @Override
+    public void write(MemoryBuffer buffer, Foo value) {
+      record();
+      serializer.write(buffer, value);
+    }
+
+    @Override
+    public Foo read(MemoryBuffer buffer) {
+      record();
+      return serializer.read(buffer);
+    }
+
+    private void record() {
+      threads.add(Thread.currentThread());
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  @Test
+  public void testCustomPool() throws Exception {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    ThreadSafeFory fory = buildFory(false, 10);
+    fory.registerSerializer(Foo.class, f -> new ThreadRecordingSerializer(f, threads));
+    List<Foo> list = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      list.add(createFoo(i));
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      byte[] bytes = pool.submit(() -> fory.serialize(list)).get();
+      // 40 segments are written by workers of the pool.
+      Assert.assertTrue(threads.size() > 1, threads.toString());
+      for (Thread thread : threads) {
+        Assert.assertTrue(thread.getName().startsWith("ForkJoinPool-"), thread.getName());
+      }
+      threads.clear();
+      Assert.assertEquals(pool.submit(() -> fory.deserialize(bytes)).get(), list);
+      Assert.assertTrue(threads.size() > 1, threads.toString());
+      threads.clear();
+      // a fory without segment workers reads segments on the calling thread.
+      Fory reader = builder().withCodegen(false).withParallelSerialization(10).build();
+      reader.registerSerializer(Foo.class, new ThreadRecordingSerializer(reader, threads));
+      Assert.assertEquals(reader.deserialize(bytes), list);
+      Assert.assertEquals(threads, Collections.singleton(Thread.currentThread()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(dataProvider = "enableCodegen")
+  public void testReadWithoutWorkers(boolean codegen) {
+    List<Object> list = createElements(10000);
+    Object[] array = list.toArray();
+    ThreadSafeFory fory = buildFory(codegen, 100);
+    byte[] listBytes = fory.serialize(list);
+    byte[] arrayBytes = fory.serialize(array);
+    ThreadSafeFory[] readers = {
+      builder().withCodegen(codegen).withParallelSerialization(100).buildThreadLocalFory(),
+      builder().withCodegen(codegen).withParallelSerialization(100).buildThreadSafeForyPool(1, 2)
+    };
+    for (ThreadSafeFory reader : readers) {
+      Assert.assertEquals(reader.deserialize(listBytes), list);
+      Assert.assertEquals((Object[]) reader.deserialize(arrayBytes), array);
+    }
+    Fory reader = builder().withCodegen(codegen).withParallelSerialization(100).build();
+    Assert.assertEquals(reader.deserialize(listBytes), list);
+    // the reader is reusable after reading segments.
+    Assert.assertEquals(reader.deserialize(reader.serialize(list)), list);
+  }
+
+  @Test
+  public void testReadWithoutWorkersMetaShare() {
+    // every segment has its own class defs.
+    ThreadSafeFory fory =
+        builder()
+            .withCodegen(false)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withScopedMetaShare(true)
+            .withParallelSerialization(100)
+            .buildSharedPoolFory();
+    List<Object> list = createElements(10000);
+    Fory reader =
+        builder()
+            .withCodegen(false)
+            .withCompatibleMode(CompatibleMode.COMPATIBLE)
+            .withScopedMetaShare(true)
+            .withParallelSerialization(100)
+            .build();
+    Assert.assertEquals(reader.deserialize(fory.serialize(list)), list);
+  }
+
+  @Test
+  public void testRefTracking() {
+    // ref tracking disables parallel serialization.
+    ThreadSafeFory refFory =
+        builder()
+            .withRefTracking(true)
+            .withCodegen(false)
+            .withParallelSerialization(100)
+            .buildSharedPoolFory();
+    List<Object> list = createElements(10000);
+    Assert.assertEquals(refFory.deserialize(refFory.serialize(list)), list);
+  }
+}
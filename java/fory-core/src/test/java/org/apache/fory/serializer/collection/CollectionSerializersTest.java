@@ -62,6 +62,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.apache.fory.Fory;
 import org.apache.fory.ForyTestBase;
+import org.apache.fory.config.ForyBuilder;
 import org.apache.fory.config.Language;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.MemoryUtils;
@@ -143,6 +144,49 @@ public class CollectionSerializersTest extends ForyTestBase {
     serDeCheckSerializer(fory, o, "Codec");
   }
 
+  @Data
+  public static class PackedElementsStruct {
+    public List<Integer> ints;
+    public List<Long> longs;
+    public Set<Double> doubles;
+    public ArrayList<Float> floats;
+    public Collection<Long> nullableLongs;
+  }
+
+  @Test(dataProvider = "twoBoolOptions")
+  public void testPackedPrimitiveElements(boolean codegen, boolean numberCompressed) {
+    ForyBuilder builder =
+        Fory.builder()
+            .withNumberCompressed(numberCompressed)
+            .requireClassRegistration(false);
+    Fory fory = builder.withCodegen(codegen).build();
+    Fory interpreterFory = builder.withCodegen(false).build();
+    List<Integer> ints = new ArrayList<>();
+    List<Long> longs = new LinkedList<>();
+    Set<Double> doubles = new HashSet<>();
+    ArrayList<Float> floats = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      ints.add(i % 2 == 0 ? i : -i << 20);
+      longs.add(i % 2 == 0 ? i : (long) -i << 40);
+      doubles.add(i / 3.0);
+      floats.add(i / 7.0f);
+    }
+    serDeCheck(fory, ints);
+    serDeCheck(fory, longs);
+    serDeCheck(fory, doubles);
+    serDeCheck(fory, floats);
+    PackedElementsStruct struct = new PackedElementsStruct();
+    struct.ints = ints;
+    struct.longs = longs;
+    struct.doubles = doubles;
+    struct.floats = floats;
+    struct.nullableLongs = new ArrayList<>(ofArrayList(1L, null, 3L));
+    serDeCheck(fory, struct);
+    // Packed elements must be byte compatible with jit serializers.
+    assertEquals(interpreterFory.deserialize(fory.serialize(struct)), struct);
+    assertEquals(fory.deserialize(interpreterFory.serialize(struct)), struct);
+  }
+
   @Test(dataProvider = "referenceTrackingConfig")
   public void testCollectionGenerics(boolean referenceTrackingConfig) {
     Fory fory =
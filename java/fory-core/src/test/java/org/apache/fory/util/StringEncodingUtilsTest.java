@@ -56,4 +56,30 @@ public class StringEncodingUtilsTest extends ForyTestBase {
     result = new String(utf8, 0, readLen, StandardCharsets.UTF_8);
     assertEquals(result, input);
   }
+
+  @Test
+  public void testSwarAsciiBlocks() {
+    // Cover ascii runs of every length around 4/8 chars blocks, followed by non-ascii chars.
+    for (int i = 0; i < 20; i++) {
+      for (String tail : new String[] {"", "ü", "你好", "\uD83D\uDE00"}) {
+        String input = StringUtils.random(i) + tail + StringUtils.random(i);
+        char[] utf16 = input.toCharArray();
+        byte[] utf8 = new byte[utf16.length * 3];
+        int len = StringEncodingUtils.convertUTF16ToUTF8(utf16, utf8, 0);
+        byte[] expected = input.getBytes(StandardCharsets.UTF_8);
+        assertEquals(new String(utf8, 0, len, StandardCharsets.UTF_8), input);
+        assertEquals(len, expected.length);
+        len =
+            StringEncodingUtils.convertUTF16ToUTF8(
+                input.getBytes(StandardCharsets.UTF_16LE), utf8, 0);
+        assertEquals(new String(utf8, 0, len, StandardCharsets.UTF_8), input);
+        char[] chars = new char[expected.length];
+        len = StringEncodingUtils.convertUTF8ToUTF16(expected, 0, expected.length, chars);
+        assertEquals(new String(chars, 0, len), input);
+        byte[] utf16Bytes = new byte[expected.length * 2];
+        len = StringEncodingUtils.convertUTF8ToUTF16(expected, 0, expected.length, utf16Bytes);
+        assertEquals(new String(utf16Bytes, 0, len, StandardCharsets.UTF_16LE), input);
+      }
+    }
+  }
 }
@@ -103,6 +103,18 @@ public class StringUtilsTest extends ForyTestBase {
     assertFalse(isLatin((StringUtils.random(8 * 10) + "1你好").toCharArray(), endian));
   }
 
+  @Test
+  public void testIsLatinFromStart() {
+    for (int i = 0; i < 20; i++) {
+      char[] chars = ("你" + StringUtils.random(i)).toCharArray();
+      assertFalse(StringUtils.isLatin(chars));
+      assertTrue(StringUtils.isLatin(chars, 1));
+      chars = (StringUtils.random(i) + "你").toCharArray();
+      assertFalse(StringUtils.isLatin(chars, i));
+      assertTrue(StringUtils.isLatin(chars, i + 1));
+    }
+  }
+
   private boolean isLatin(char[] chars, boolean isLittle) {
     boolean reverseBytes =
         (Platform.IS_LITTLE_ENDIAN && !isLittle) || (!Platform.IS_LITTLE_ENDIAN && !isLittle);
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Decoder to read java beans from arrow vectors column by column. Columns are looked up by field
+ * name, so the vectors may be in any order and may contain columns which aren't in {@link
+ * #schema()}.
+ */
+public interface ArrowDecoder<T> {
+  /** Returns schema of the decoded columns, which is a projection of the bean schema. */
+  Schema schema();
+
+  /** Decode all rows of <code>root</code> into new beans. */
+  List<T> decode(VectorSchemaRoot root);
+
+  /**
+   * Decode all rows of <code>root</code> into beans of <code>reuse</code>. New beans will be
+   * created and added to <code>reuse</code> if it has fewer beans than rows. Returns a view of the
+   * first <code>root.getRowCount()</code> beans of <code>reuse</code>.
+   *
+   * <p>Fields which are not decoded will keep the values of previous batch.
+   */
+  List<T> decode(VectorSchemaRoot root, List<T> reuse);
+
+  /** Returns a stream which loads and decodes batches of <code>reader</code> lazily. */
+  Stream<T> stream(ArrowReader reader);
+}
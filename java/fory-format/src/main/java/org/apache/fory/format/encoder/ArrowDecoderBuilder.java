@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import static org.apache.fory.type.TypeUtils.getRawType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.codegen.CodegenContext;
+import org.apache.fory.codegen.Expression;
+import org.apache.fory.codegen.Expression.AssignArrayElem;
+import org.apache.fory.codegen.Expression.Cast;
+import org.apache.fory.codegen.Expression.ForEach;
+import org.apache.fory.codegen.Expression.If;
+import org.apache.fory.codegen.Expression.Invoke;
+import org.apache.fory.codegen.Expression.Literal;
+import org.apache.fory.codegen.Expression.ListExpression;
+import org.apache.fory.codegen.Expression.Reference;
+import org.apache.fory.codegen.Expression.StaticInvoke;
+import org.apache.fory.codegen.ExpressionUtils;
+import org.apache.fory.format.type.TypeInference;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.reflect.TypeRef;
+import org.apache.fory.type.Descriptor;
+import org.apache.fory.type.TypeUtils;
+import org.apache.fory.util.DateTimeUtils;
+import org.apache.fory.util.MurmurHash3;
+import org.apache.fory.util.Preconditions;
+import org.apache.fory.util.StringUtils;
+
+/**
+ * Expression builder for building jit arrow decoder class, which reads arrow vectors column by
+ * column into java beans. Every projected field is decoded by a separate method, which loops over
+ * all beans of the batch.
+ *
+ * <p>Only fields supported by {@link ArrowEncoderBuilder} for direct writing can be decoded, other
+ * fields should be excluded by projection.
+ */
+public class ArrowDecoderBuilder extends BaseBinaryEncoderBuilder {
+  private static final Logger LOG = LoggerFactory.getLogger(ArrowDecoderBuilder.class);
+  static final String VECTORS_NAME = "vectors";
+  static final String VECTOR_NAME = "vector";
+  static final String BEANS_NAME = "beans";
+
+  private final String className;
+  private final SortedMap<String, Descriptor> descriptorsMap;
+  private final Schema schema;
+  private final Reference beans = new Reference(BEANS_NAME, TypeRef.of(Object[].class), false);
+
+  /**
+   * Create a builder to decode fields of <code>schema</code>, which must be a projection of the
+   * schema inferred from <code>beanClass</code>.
+   */
+  public ArrowDecoderBuilder(Class<?> beanClass, Schema schema) {
+    super(new CodegenContext(), beanClass);
+    Preconditions.checkArgument(TypeUtils.isBean(beanType, typeCtx));
+    Preconditions.checkArgument(
+        !isRecord && !isInterface,
+        "Record and interface %s can't be decoded from arrow column by column.",
+        beanClass);
+    this.schema = schema;
+    String prefix = "";
+    if (!schema.equals(TypeInference.inferSchema(beanClass))) {
+      // different projections of same bean need different classes.
+      StringJoiner names = new StringJoiner(",");
+      schema.getFields().forEach(f -> names.add(f.getName()));
+      byte[] bytes = names.toString().getBytes(StandardCharsets.UTF_8);
+      long[] hash = MurmurHash3.murmurhash3_x64_128(bytes, 0, bytes.length, 47);
+      prefix = "Projection" + Long.toHexString(hash[0] & Long.MAX_VALUE);
+    }
+    className = codecClassName(beanClass, prefix);
+    this.descriptorsMap = Descriptor.getDescriptorsMap(beanClass);
+    ctx.reserveName(VECTORS_NAME);
+    ctx.reserveName(VECTOR_NAME);
+    ctx.reserveName(BEANS_NAME);
+  }
+
+  @Override
+  protected String codecSuffix() {
+    return "ArrowDecoderCodec";
+  }
+
+  /** Returns generated class name, which includes a hash of projected fields if any. */
+  public String codecClassName() {
+    return className;
+  }
+
+  @Override
+  public String genCode() {
+    ctx.setPackage(CodeGenerator.getPackage(beanClass));
+    ctx.setClassName(className);
+    // janino don't support generics, so GeneratedCodec has no generics
+    ctx.implementsInterfaces(ctx.type(GeneratedArrowDecoder.class));
+    String decodeCode = buildDecodeExpression().genCode(ctx).code();
+    StringBuilder code = new StringBuilder(decodeCode).append('\n');
+    List<Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      addColumnDecodeMethod(i, fields.get(i));
+      code.append(
+          String.format("%s(%s[%d], %s);\n", decodeMethodName(i), VECTORS_NAME, i, BEANS_NAME));
+    }
+    ctx.overrideMethod(
+        "decode",
+        code.toString(),
+        void.class,
+        FieldVector[].class,
+        VECTORS_NAME,
+        Object[].class,
+        BEANS_NAME);
+    ctx.addConstructor("", Object[].class, REFERENCES_NAME);
+
+    long startTime = System.nanoTime();
+    String genCode = ctx.genCode();
+    long durationMs = (System.nanoTime() - startTime) / 1000;
+    LOG.info("Generate arrow decoder codec for class {} take {} us", beanClass, durationMs);
+    return genCode;
+  }
+
+  @Override
+  public Expression buildEncodeExpression() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Returns an expression that fill null elements of <code>beans</code> with new beans. */
+  @Override
+  public Expression buildDecodeExpression() {
+    return new ForEach(
+        beans,
+        TypeUtils.OBJECT_TYPE,
+        (i, bean) ->
+            new If(ExpressionUtils.eqNull(bean), new AssignArrayElem(beans, newBean(), i)));
+  }
+
+  @Override
+  protected Expression beanClassExpr() {
+    return staticBeanClassExpr();
+  }
+
+  private void addColumnDecodeMethod(int ordinal, Field field) {
+    Descriptor d = getDescriptorByFieldName(field.getName());
+    Preconditions.checkNotNull(d);
+    TypeRef<?> fieldType = d.getTypeRef();
+    Class<?> rawType = getRawType(fieldType);
+    Class<?> vectorClass = null;
+    if (customTypeHandler.replacementTypeFor(beanClass, rawType) == null) {
+      vectorClass = ArrowEncoderBuilder.vectorClass(rawType);
+    }
+    if (vectorClass == null) {
+      throw new UnsupportedOperationException(
+          String.format(
+              "Field %s of type %s can't be decoded from arrow, exclude it by projection.",
+              d.getName(), fieldType));
+    }
+    Reference vectorParam = new Reference(VECTOR_NAME, TypeRef.of(FieldVector.class), false);
+    Expression vector = new Cast(vectorParam, TypeRef.of(vectorClass), "typedVector");
+    Expression loop =
+        new ForEach(
+            beans,
+            TypeUtils.OBJECT_TYPE,
+            (i, element) -> {
+              Expression bean = new Cast(element, beanType, ctx.newName(beanClass));
+              // null values of primitive fields are decoded as default value.
+              Expression.Variable value =
+                  new Expression.Variable(d.getName(), defaultValue(fieldType));
+              Expression isNull =
+                  new Invoke(vector, "isNull", TypeUtils.PRIMITIVE_BOOLEAN_TYPE, i);
+              Expression read =
+                  new If(
+                      ExpressionUtils.not(isNull),
+                      new Expression.Assign(value, readValue(vector, i, fieldType)));
+              return new ListExpression(value, read, setFieldValue(bean, d, value));
+            });
+    ctx.addMethod(
+        "private",
+        decodeMethodName(ordinal),
+        new ListExpression(vector, loop).genCode(ctx).code(),
+        void.class,
+        FieldVector.class,
+        VECTOR_NAME,
+        Object[].class,
+        BEANS_NAME);
+  }
+
+  /** Returns the value of a field which is null in vector, zero for primitive fields. */
+  private static Literal defaultValue(TypeRef<?> type) {
+    Class<?> rawType = getRawType(type);
+    Object value = null;
+    if (rawType == boolean.class) {
+      value = false;
+    } else if (rawType == byte.class) {
+      value = (byte) 0;
+    } else if (rawType == short.class) {
+      value = (short) 0;
+    } else if (rawType == int.class) {
+      value = 0;
+    } else if (rawType == long.class) {
+      value = 0L;
+    } else if (rawType == float.class) {
+      value = 0f;
+    } else if (rawType == double.class) {
+      value = 0d;
+    }
+    return new Literal(value, type);
+  }
+
+  /** Returns an expression that reads non-null value at <code>index</code> of vector. */
+  private Expression readValue(Expression vector, Expression index, TypeRef<?> fieldType) {
+    Class<?> type = TypeUtils.unwrap(getRawType(fieldType));
+    if (type == boolean.class) {
+      return new StaticInvoke(
+          ArrowDecoderBuilder.class,
+          "readBoolean",
+          TypeUtils.PRIMITIVE_BOOLEAN_TYPE,
+          false,
+          vector,
+          index);
+    } else if (type.isPrimitive()) {
+      return new Invoke(vector, "get", TypeRef.of(type), index);
+    } else if (type == BigDecimal.class) {
+      return new Invoke(vector, "getObject", TypeRef.of(BigDecimal.class), index);
+    } else if (type == String.class || type.isEnum()) {
+      Expression str =
+          new StaticInvoke(
+              ArrowDecoderBuilder.class,
+              "readString",
+              TypeUtils.STRING_TYPE,
+              false,
+              vector,
+              index);
+      return type == String.class ? str : ExpressionUtils.valueOf(fieldType, str);
+    } else if (type == java.time.LocalDate.class) {
+      return new StaticInvoke(
+          DateTimeUtils.class,
+          "daysToLocalDate",
+          TypeUtils.LOCAL_DATE_TYPE,
+          false,
+          getInt(vector, index));
+    } else if (type == java.sql.Date.class) {
+      return new StaticInvoke(
+          DateTimeUtils.class, "toJavaDate", TypeUtils.DATE_TYPE, false, getInt(vector, index));
+    } else if (type == java.sql.Timestamp.class) {
+      return new StaticInvoke(
+          DateTimeUtils.class,
+          "toJavaTimestamp",
+          TypeUtils.TIMESTAMP_TYPE,
+          false,
+          getLong(vector, index));
+    } else if (type == java.time.Instant.class) {
+      return new StaticInvoke(
+          DateTimeUtils.class,
+          "microsToInstant",
+          TypeUtils.INSTANT_TYPE,
+          false,
+          getLong(vector, index));
+    }
+    throw new IllegalStateException("Unreachable type " + fieldType);
+  }
+
+  private static Expression getInt(Expression vector, Expression index) {
+    return new Invoke(vector, "get", TypeUtils.PRIMITIVE_INT_TYPE, index);
+  }
+
+  private static Expression getLong(Expression vector, Expression index) {
+    return new Invoke(vector, "get", TypeUtils.PRIMITIVE_LONG_TYPE, index);
+  }
+
+  private Descriptor getDescriptorByFieldName(String fieldName) {
+    String name = StringUtils.lowerUnderscoreToLowerCamelCase(fieldName);
+    return descriptorsMap.get(name);
+  }
+
+  private String decodeMethodName(int i) {
+    return "decode" + i + "_" + schema.getFields().get(i).getName();
+  }
+
+  @CodegenInvoke
+  public static boolean readBoolean(BitVector vector, int index) {
+    return vector.get(index) != 0;
+  }
+
+  @CodegenInvoke
+  public static String readString(VarCharVector vector, int index) {
+    return new String(vector.get(index), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Encoder to append java beans to arrow vectors directly, without writing them to a {@link
+ * org.apache.fory.format.row.binary.BinaryRow} first. The schema is the same as {@link
+ * RowEncoder#schema()} of the same bean class.
+ *
+ * <p>Beans are appended to a batch until {@link #finish} or {@link #finishAsRecordBatch} is
+ * called, then {@link #reset} can be called to start next batch with the same vectors.
+ */
+public interface ArrowEncoder<T> {
+  Schema schema();
+
+  /** Append <code>obj</code> as the next row of current batch. */
+  void write(T obj);
+
+  /** Returns number of rows in current batch. */
+  int rowCount();
+
+  VectorSchemaRoot finish();
+
+  ArrowRecordBatch finishAsRecordBatch();
+
+  void reset();
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import static org.apache.fory.type.TypeUtils.getRawType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.codegen.CodegenContext;
+import org.apache.fory.codegen.Expression;
+import org.apache.fory.codegen.Expression.If;
+import org.apache.fory.codegen.Expression.Invoke;
+import org.apache.fory.codegen.Expression.ListExpression;
+import org.apache.fory.codegen.Expression.Reference;
+import org.apache.fory.codegen.Expression.StaticInvoke;
+import org.apache.fory.codegen.ExpressionUtils;
+import org.apache.fory.format.type.TypeInference;
+import org.apache.fory.logging.Logger;
+import org.apache.fory.logging.LoggerFactory;
+import org.apache.fory.reflect.TypeRef;
+import org.apache.fory.type.Descriptor;
+import org.apache.fory.type.TypeUtils;
+import org.apache.fory.util.DateTimeUtils;
+import org.apache.fory.util.Preconditions;
+import org.apache.fory.util.StringUtils;
+
+/**
+ * Expression builder for building jit arrow encoder class, which writes fields of java bean to
+ * arrow vectors of a {@link VectorSchemaRoot} directly. The schema is inferred by {@link
+ * TypeInference#inferSchema}, so it's the same as the schema of {@link RowEncoderBuilder}.
+ *
+ * <p>Only fields of primitive/boxed types, String, Enum, BigDecimal and date/time types are written
+ * directly. Other fields such as nested beans, collections and fields handled by custom codecs are
+ * reported by {@link GeneratedArrowEncoder#rowEncodedFields}, and should be written from the row of
+ * bean.
+ */
+public class ArrowEncoderBuilder extends BaseBinaryEncoderBuilder {
+  private static final Logger LOG = LoggerFactory.getLogger(ArrowEncoderBuilder.class);
+  static final String ROOT_NAME = "root";
+  static final String ROW_INDEX_NAME = "rowIndex";
+
+  private final String className;
+  private final SortedMap<String, Descriptor> descriptorsMap;
+  private final Schema schema;
+  private final Reference rowIndex =
+      new Reference(ROW_INDEX_NAME, TypeUtils.PRIMITIVE_INT_TYPE, false);
+  private final StringBuilder constructorCode = new StringBuilder();
+  private final List<Integer> rowEncodedFields = new ArrayList<>();
+
+  public ArrowEncoderBuilder(Class<?> beanClass) {
+    this(TypeRef.of(beanClass));
+  }
+
+  public ArrowEncoderBuilder(TypeRef<?> beanType) {
+    super(new CodegenContext(), beanType);
+    Preconditions.checkArgument(beanClass.isInterface() || TypeUtils.isBean(beanType, typeCtx));
+    className = codecClassName(beanClass);
+    this.schema = TypeInference.inferSchema(getRawType(beanType));
+    this.descriptorsMap = Descriptor.getDescriptorsMap(beanClass);
+    ctx.reserveName(ROOT_NAME);
+    ctx.reserveName(ROW_INDEX_NAME);
+  }
+
+  @Override
+  protected String codecSuffix() {
+    return "ArrowCodec";
+  }
+
+  @Override
+  public String genCode() {
+    ctx.setPackage(CodeGenerator.getPackage(beanClass));
+    ctx.setClassName(className);
+    // janino don't support generics, so GeneratedCodec has no generics
+    ctx.implementsInterfaces(ctx.type(GeneratedArrowEncoder.class));
+    String rootType = ctx.type(VectorSchemaRoot.class);
+    ctx.addField(rootType, ROOT_NAME);
+    constructorCode.append(
+        StringUtils.format(
+            "${root} = (${rootType})${references}[0];\n",
+            "root",
+            ROOT_NAME,
+            "rootType",
+            rootType,
+            "references",
+            REFERENCES_NAME));
+    String encodeCode = buildEncodeExpression().genCode(ctx).code();
+    ctx.overrideMethod(
+        "write",
+        encodeCode == null ? "" : encodeCode,
+        void.class,
+        Object.class,
+        ROOT_OBJECT_NAME,
+        int.class,
+        ROW_INDEX_NAME);
+    StringJoiner ordinals = new StringJoiner(", ", "return new int[] {", "};");
+    rowEncodedFields.forEach(i -> ordinals.add(String.valueOf(i)));
+    ctx.overrideMethod("rowEncodedFields", ordinals.toString(), int[].class);
+    ctx.addConstructor(constructorCode.toString(), Object[].class, REFERENCES_NAME);
+
+    long startTime = System.nanoTime();
+    String code = ctx.genCode();
+    long durationMs = (System.nanoTime() - startTime) / 1000;
+    LOG.info("Generate arrow codec for class {} take {} us", beanClass, durationMs);
+    return code;
+  }
+
+  /**
+   * Returns an expression that writes fields of java bean of type {@code beanClass} to vectors at
+   * position <code>rowIndex</code>.
+   */
+  @Override
+  public Expression buildEncodeExpression() {
+    Reference inputObject = new Reference(ROOT_OBJECT_NAME, TypeUtils.OBJECT_TYPE, false);
+    Expression bean = new Expression.Cast(inputObject, beanType, ctx.newName(beanClass));
+    CustomCodec<?, ?> customCodec = customTypeHandler.findCodec(beanClass, beanClass);
+    boolean customEncoded = customCodec != null && customCodec.encodedType().equals(beanType);
+    ListExpression expressions = new ListExpression();
+    List<Field> fields = schema.getFields();
+    // schema field's name must correspond to descriptor's name.
+    for (int i = 0; i < fields.size(); i++) {
+      Descriptor d = getDescriptorByFieldName(fields.get(i).getName());
+      Preconditions.checkNotNull(d);
+      Class<?> vectorClass = customEncoded ? null : vectorClass(d.getTypeRef());
+      if (vectorClass == null) {
+        rowEncodedFields.add(i);
+        continue;
+      }
+      Reference vector = addVectorField(i, vectorClass);
+      expressions.add(writeField(vector, getFieldValue(bean, d), d.getRawType()));
+    }
+    return expressions;
+  }
+
+  @Override
+  public Expression buildDecodeExpression() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  protected Expression beanClassExpr() {
+    return staticBeanClassExpr();
+  }
+
+  /** Returns the vector class for a field which can be written directly, or null otherwise. */
+  private Class<?> vectorClass(TypeRef<?> typeRef) {
+    Class<?> rawType = getRawType(typeRef);
+    if (customTypeHandler.replacementTypeFor(beanClass, rawType) != null) {
+      return null;
+    }
+    return vectorClass(rawType);
+  }
+
+  /**
+   * Returns the vector class for a field of <code>rawType</code> which can be accessed directly, or
+   * null otherwise.
+   */
+  static Class<?> vectorClass(Class<?> rawType) {
+    Class<?> type = TypeUtils.unwrap(rawType);
+    if (type == boolean.class) {
+      return BitVector.class;
+    } else if (type == byte.class) {
+      return TinyIntVector.class;
+    } else if (type == short.class) {
+      return SmallIntVector.class;
+    } else if (type == int.class) {
+      return IntVector.class;
+    } else if (type == long.class) {
+      return BigIntVector.class;
+    } else if (type == float.class) {
+      return Float4Vector.class;
+    } else if (type == double.class) {
+      return Float8Vector.class;
+    } else if (type == BigDecimal.class) {
+      return DecimalVector.class;
+    } else if (type == java.time.LocalDate.class || type == java.sql.Date.class) {
+      return DateDayVector.class;
+    } else if (type == java.sql.Timestamp.class || type == java.time.Instant.class) {
+      return TimeStampVector.class;
+    } else if (type == String.class || type.isEnum()) {
+      return VarCharVector.class;
+    }
+    return null;
+  }
+
+  private Reference addVectorField(int ordinal, Class<?> vectorClass) {
+    String name = ctx.newName("vector" + ordinal);
+    String type = ctx.type(vectorClass);
+    ctx.addField(type, name);
+    constructorCode.append(
+        String.format("%s = (%s) %s.getVector(%d);\n", name, type, ROOT_NAME, ordinal));
+    return new Reference(name, TypeRef.of(vectorClass), false);
+  }
+
+  private Expression writeField(Reference vector, Expression value, Class<?> rawType) {
+    Class<?> type = TypeUtils.unwrap(rawType);
+    Expression write;
+    if (type == boolean.class) {
+      write = new StaticInvoke(ArrowEncoderBuilder.class, "writeBoolean", vector, rowIndex, value);
+    } else if (type == String.class) {
+      write = new StaticInvoke(ArrowEncoderBuilder.class, "writeString", vector, rowIndex, value);
+    } else if (type.isEnum()) {
+      Invoke name = new Invoke(value, "name", TypeUtils.STRING_TYPE);
+      write = new StaticInvoke(ArrowEncoderBuilder.class, "writeString", vector, rowIndex, name);
+    } else if (type == java.time.LocalDate.class) {
+      write = new Invoke(vector, "setSafe", rowIndex, toInt("localDateToDays", value));
+    } else if (type == java.sql.Date.class) {
+      write = new Invoke(vector, "setSafe", rowIndex, toInt("fromJavaDate", value));
+    } else if (type == java.sql.Timestamp.class) {
+      write = new Invoke(vector, "setSafe", rowIndex, toLong("fromJavaTimestamp", value));
+    } else if (type == java.time.Instant.class) {
+      write = new Invoke(vector, "setSafe", rowIndex, toLong("instantToMicros", value));
+    } else {
+      // janino support autoboxing and unboxing, so we don't need to call intValue/longValue....
+      write = new Invoke(vector, "setSafe", rowIndex, value);
+    }
+    if (rawType.isPrimitive()) {
+      return write;
+    }
+    return new If(ExpressionUtils.eqNull(value), new Invoke(vector, "setNull", rowIndex), write);
+  }
+
+  private static Expression toInt(String func, Expression value) {
+    return new StaticInvoke(DateTimeUtils.class, func, TypeUtils.PRIMITIVE_INT_TYPE, false, value);
+  }
+
+  private static Expression toLong(String func, Expression value) {
+    return new StaticInvoke(DateTimeUtils.class, func, TypeUtils.PRIMITIVE_LONG_TYPE, false, value);
+  }
+
+  private Descriptor getDescriptorByFieldName(String fieldName) {
+    String name = StringUtils.lowerUnderscoreToLowerCamelCase(fieldName);
+    return descriptorsMap.get(name);
+  }
+
+  @CodegenInvoke
+  public static void writeBoolean(BitVector vector, int index, boolean value) {
+    vector.setSafe(index, value ? 1 : 0);
+  }
+
+  @CodegenInvoke
+  public static void writeString(VarCharVector vector, int index, String value) {
+    vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+  }
+}
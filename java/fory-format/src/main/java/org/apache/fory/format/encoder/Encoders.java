@@ -22,12 +22,30 @@ package org.apache.fory.format.encoder;
 import static org.apache.fory.type.TypeUtils.OBJECT_TYPE;
 import static org.apache.fory.type.TypeUtils.getRawType;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.util.Preconditions;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.fory.Fory;
@@ -44,10 +62,13 @@ import org.apache.fory.format.type.CustomTypeEncoderRegistry;
 import org.apache.fory.format.type.CustomTypeRegistration;
 import org.apache.fory.format.type.DataTypes;
 import org.apache.fory.format.type.TypeInference;
+import org.apache.fory.format.vectorized.ArrowUtils;
+import org.apache.fory.format.vectorized.ArrowWriter;
 import org.apache.fory.logging.Logger;
 import org.apache.fory.logging.LoggerFactory;
 import org.apache.fory.memory.MemoryBuffer;
 import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.memory.Platform;
 import org.apache.fory.reflect.TypeRef;
 import org.apache.fory.type.TypeResolutionContext;
 import org.apache.fory.type.TypeUtils;
@@ -230,6 +251,263 @@ public class Encoders {
     }
   }
 
+  public static <T> ArrowEncoder<T> arrowEncoder(Class<T> beanClass) {
+    return arrowEncoder(beanClass, ArrowUtils.allocator);
+  }
+
+  public static <T> ArrowEncoder<T> arrowEncoder(Class<T> beanClass, BufferAllocator allocator) {
+    return arrowEncoder(beanClass, allocator, null);
+  }
+
+  /**
+   * Creates an encoder which writes java beans of type T to arrow vectors allocated from <code>
+   * allocator</code>, the schema is the same as {@link #bean(Class, BinaryRowWriter, Fory)}.
+   *
+   * <p>Fields of primitive/boxed types, String, Enum, BigDecimal and date/time types are written to
+   * vectors directly. Other fields such as nested beans and collections are written from the row
+   * of the bean, the row is skipped if there is no such field.
+   */
+  public static <T> ArrowEncoder<T> arrowEncoder(
+      Class<T> beanClass, BufferAllocator allocator, Fory fory) {
+    Schema schema = TypeInference.inferSchema(beanClass);
+    VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+    try {
+      Class<?> arrowCodecClass = loadOrGenArrowCodecClass(beanClass);
+      Object references = new Object[] {root};
+      GeneratedArrowEncoder codec =
+          arrowCodecClass
+              .asSubclass(GeneratedArrowEncoder.class)
+              .getConstructor(Object[].class)
+              .newInstance(references);
+      int[] rowEncodedFields = codec.rowEncodedFields();
+      List<FieldVector> vectors = new ArrayList<>(root.getFieldVectors());
+      for (int i = rowEncodedFields.length - 1; i >= 0; i--) {
+        vectors.remove(rowEncodedFields[i]);
+      }
+      vectors.forEach(ValueVector::allocateNew);
+      BinaryRowWriter rowWriter;
+      RowEncoder<T> rowEncoder;
+      ArrowWriter arrowWriter;
+      if (rowEncodedFields.length > 0) {
+        rowWriter = new BinaryRowWriter(schema);
+        rowEncoder = bean(beanClass, rowWriter, fory);
+        arrowWriter = new ArrowWriter(root, rowEncodedFields);
+      } else {
+        rowWriter = null;
+        rowEncoder = null;
+        arrowWriter = null;
+      }
+      VectorUnloader unloader = new VectorUnloader(root);
+
+      return new ArrowEncoder<T>() {
+        private int rowCount;
+
+        @Override
+        public Schema schema() {
+          return schema;
+        }
+
+        @Override
+        public void write(T obj) {
+          codec.write(obj, rowCount);
+          if (arrowWriter != null) {
+            rowWriter.reset();
+            arrowWriter.write(rowEncoder.toRow(obj));
+          }
+          rowCount++;
+        }
+
+        @Override
+        public int rowCount() {
+          return rowCount;
+        }
+
+        @Override
+        public VectorSchemaRoot finish() {
+          finishVectors();
+          return root;
+        }
+
+        @Override
+        public ArrowRecordBatch finishAsRecordBatch() {
+          finishVectors();
+          return unloader.getRecordBatch();
+        }
+
+        private void finishVectors() {
+          // Should set vector count before set root count.
+          for (FieldVector vector : vectors) {
+            vector.setValueCount(rowCount);
+          }
+          if (arrowWriter != null) {
+            arrowWriter.finish();
+          }
+          root.setRowCount(rowCount);
+        }
+
+        @Override
+        public void reset() {
+          vectors.forEach(ValueVector::reset);
+          if (arrowWriter != null) {
+            arrowWriter.reset();
+          }
+          root.setRowCount(0);
+          rowCount = 0;
+        }
+      };
+    } catch (Exception e) {
+      root.close();
+      String msg = String.format("Create arrow encoder failed, \nbeanClass: %s", beanClass);
+      throw new EncoderException(msg, e);
+    }
+  }
+
+  /** Creates a decoder which decodes all fields of bean. See {@link #arrowDecoder(Class, List)}. */
+  public static <T> ArrowDecoder<T> arrowDecoder(Class<T> beanClass) {
+    Schema schema = TypeInference.inferSchema(beanClass);
+    List<String> fieldNames = new ArrayList<>();
+    schema.getFields().forEach(f -> fieldNames.add(f.getName()));
+    return arrowDecoder(beanClass, fieldNames);
+  }
+
+  /**
+   * Creates a decoder which reads java beans of type T from arrow vectors column by column. Only
+   * fields in <code>fieldNames</code> are decoded, the names are field names of {@link
+   * RowEncoder#schema()}.
+   *
+   * <p>Fields of primitive/boxed types, String, Enum, BigDecimal and date/time types are supported,
+   * record and interface types are not supported.
+   */
+  public static <T> ArrowDecoder<T> arrowDecoder(Class<T> beanClass, List<String> fieldNames) {
+    Schema beanSchema = TypeInference.inferSchema(beanClass);
+    List<Field> fields = new ArrayList<>(fieldNames.size());
+    for (String name : fieldNames) {
+      Field field = null;
+      for (Field f : beanSchema.getFields()) {
+        if (f.getName().equals(name)) {
+          field = f;
+          break;
+        }
+      }
+      if (field == null) {
+        throw new IllegalArgumentException(
+            String.format("Field %s doesn't exist in schema %s", name, beanSchema));
+      }
+      fields.add(field);
+    }
+    Schema schema = new Schema(fields);
+    GeneratedArrowDecoder codec;
+    try {
+      Class<?> arrowCodecClass = loadOrGenArrowDecoderClass(beanClass, schema);
+      Object references = new Object[0];
+      codec =
+          arrowCodecClass
+              .asSubclass(GeneratedArrowDecoder.class)
+              .getConstructor(Object[].class)
+              .newInstance(references);
+    } catch (Exception e) {
+      String msg = String.format("Create arrow decoder failed, \nbeanClass: %s", beanClass);
+      throw new EncoderException(msg, e);
+    }
+
+    return new ArrowDecoder<T>() {
+      @Override
+      public Schema schema() {
+        return schema;
+      }
+
+      @Override
+      public List<T> decode(VectorSchemaRoot root) {
+        return decode(root, new ArrayList<>(root.getRowCount()));
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public List<T> decode(VectorSchemaRoot root, List<T> reuse) {
+        FieldVector[] vectors = new FieldVector[fields.size()];
+        for (int i = 0; i < vectors.length; i++) {
+          vectors[i] = getVector(root, fields.get(i));
+        }
+        int rowCount = root.getRowCount();
+        Object[] beans = new Object[rowCount];
+        int numReused = Math.min(rowCount, reuse.size());
+        for (int i = 0; i < numReused; i++) {
+          beans[i] = reuse.get(i);
+        }
+        codec.decode(vectors, beans);
+        for (int i = numReused; i < rowCount; i++) {
+          reuse.add((T) beans[i]);
+        }
+        return reuse.size() == rowCount ? reuse : reuse.subList(0, rowCount);
+      }
+
+      @Override
+      public Stream<T> stream(ArrowReader reader) {
+        Iterator<List<T>> batches =
+            new Iterator<List<T>>() {
+              private Boolean hasNext;
+
+              @Override
+              public boolean hasNext() {
+                if (hasNext == null) {
+                  try {
+                    hasNext = reader.loadNextBatch();
+                  } catch (IOException e) {
+                    Platform.throwException(e);
+                  }
+                }
+                return hasNext;
+              }
+
+              @Override
+              public List<T> next() {
+                if (!hasNext()) {
+                  throw new NoSuchElementException();
+                }
+                hasNext = null;
+                try {
+                  return decode(reader.getVectorSchemaRoot());
+                } catch (IOException e) {
+                  Platform.throwException(e);
+                  throw new IllegalStateException("unreachable");
+                }
+              }
+            };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+            .flatMap(List::stream);
+      }
+    };
+  }
+
+  private static FieldVector getVector(VectorSchemaRoot root, Field field) {
+    FieldVector vector = root.getVector(field.getName());
+    if (vector == null) {
+      throw new IllegalArgumentException(
+          String.format("Column %s doesn't exist in schema %s", field.getName(), root.getSchema()));
+    }
+    ArrowType expected = field.getType();
+    ArrowType actual = vector.getField().getType();
+    boolean compatible;
+    if (expected instanceof ArrowType.Timestamp) {
+      // timezone doesn't affect the stored micros.
+      compatible =
+          actual instanceof ArrowType.Timestamp
+              && ((ArrowType.Timestamp) actual).getUnit() == TimeUnit.MICROSECOND;
+    } else if (expected instanceof ArrowType.Decimal) {
+      compatible =
+          actual instanceof ArrowType.Decimal && ((ArrowType.Decimal) actual).getBitWidth() == 128;
+    } else {
+      compatible = expected.equals(actual);
+    }
+    if (!compatible) {
+      throw new ClassNotCompatibleException(
+          String.format(
+              "Column %s of type %s is not compatible with %s", field.getName(), actual, expected));
+    }
+    return vector;
+  }
+
   /**
    * Register a custom codec handling a given type, when it is enclosed in the given beanType.
    *
@@ -701,6 +979,28 @@ public class Encoders {
     return loadCls(compileUnits);
   }
 
+  private static Class<?> loadOrGenArrowCodecClass(Class<?> beanClass) {
+    LOG.info("Create ArrowCodec for class {}", beanClass);
+    ArrowEncoderBuilder codecBuilder = new ArrowEncoderBuilder(beanClass);
+    CompileUnit compileUnit =
+        new CompileUnit(
+            CodeGenerator.getPackage(beanClass),
+            codecBuilder.codecClassName(beanClass),
+            codecBuilder::genCode);
+    return loadCls(compileUnit);
+  }
+
+  private static Class<?> loadOrGenArrowDecoderClass(Class<?> beanClass, Schema schema) {
+    LOG.info("Create ArrowDecoderCodec for class {}", beanClass);
+    ArrowDecoderBuilder codecBuilder = new ArrowDecoderBuilder(beanClass, schema);
+    CompileUnit compileUnit =
+        new CompileUnit(
+            CodeGenerator.getPackage(beanClass),
+            codecBuilder.codecClassName(),
+            codecBuilder::genCode);
+    return loadCls(compileUnit);
+  }
+
   private static <B> Class<?> loadOrGenArrayCodecClass(
       TypeRef<? extends Collection> arrayCls, TypeRef<B> elementType) {
     LOG.info("Create ArrayCodec for classes {}", elementType);
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import org.apache.fory.builder.Generated;
+
+/** A codec which writes fields of java bean to arrow vectors. */
+public interface GeneratedArrowEncoder extends Generated {
+
+  /** Write fields of <code>obj</code> to position <code>rowIndex</code> of vectors. */
+  void write(Object obj, int rowIndex);
+
+  /**
+   * Returns ordinals of fields which can't be written to vectors directly, those fields should be
+   * written from a row encoded by {@link GeneratedRowEncoder}.
+   */
+  int[] rowEncodedFields();
+}
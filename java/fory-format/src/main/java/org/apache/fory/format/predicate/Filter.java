@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.predicate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * An immutable filter expression over top-level fields of a row, created by {@link Filters} and
+ * compiled into a {@link RowPredicate} by {@link Filters#compile}.
+ *
+ * <p>Comparisons on a null field are always false, and {@link Filters#not} negates the result of
+ * its operand.
+ */
+public abstract class Filter {
+
+  Filter() {}
+
+  public Filter and(Filter other) {
+    return Filters.and(this, other);
+  }
+
+  public Filter or(Filter other) {
+    return Filters.or(this, other);
+  }
+
+  @Override
+  public final String toString() {
+    return toString(false);
+  }
+
+  /**
+   * Returns the filter string. If <code>exact</code> is true, numeric and temporal values are
+   * written with their types and exact bits, so that different values never have same string.
+   */
+  abstract String toString(boolean exact);
+
+  enum Op {
+    EQ("="),
+    NOT_EQ("!="),
+    LT("<"),
+    LT_EQ("<="),
+    GT(">"),
+    GT_EQ(">=");
+
+    final String symbol;
+
+    Op(String symbol) {
+      this.symbol = symbol;
+    }
+  }
+
+  static String literal(Object value, boolean exact) {
+    if (value instanceof String) {
+      return "'" + ((String) value).replace("'", "''") + "'";
+    }
+    if (value instanceof byte[]) {
+      StringBuilder builder = new StringBuilder("X'");
+      for (byte b : (byte[]) value) {
+        builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+        builder.append(Character.forDigit(b & 0xF, 16));
+      }
+      return builder.append("'").toString();
+    }
+    if (!exact || value == null) {
+      return String.valueOf(value);
+    }
+    String bits;
+    if (value instanceof Float) {
+      bits = Integer.toHexString(Float.floatToRawIntBits((Float) value));
+    } else if (value instanceof Double) {
+      bits = Long.toHexString(Double.doubleToRawLongBits((Double) value));
+    } else if (value instanceof Timestamp) {
+      bits = ((Timestamp) value).getTime() + "." + ((Timestamp) value).getNanos();
+    } else if (value instanceof Date) {
+      bits = String.valueOf(((Date) value).getTime());
+    } else {
+      bits = String.valueOf(value);
+    }
+    return value.getClass().getName() + "(" + bits + ")";
+  }
+
+  static final class Comparison extends Filter {
+    final String field;
+    final Op op;
+    final Object value;
+
+    Comparison(String field, Op op, Object value) {
+      this.field = field;
+      this.op = op;
+      this.value = value;
+    }
+
+    @Override
+    String toString(boolean exact) {
+      return field + " " + op.symbol + " " + literal(value, exact);
+    }
+  }
+
+  static final class In extends Filter {
+    final String field;
+    final List<Object> values;
+
+    In(String field, List<Object> values) {
+      this.field = field;
+      this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    @Override
+    String toString(boolean exact) {
+      StringJoiner joiner = new StringJoiner(", ", field + " IN (", ")");
+      for (Object value : values) {
+        joiner.add(literal(value, exact));
+      }
+      return joiner.toString();
+    }
+  }
+
+  static final class StartsWith extends Filter {
+    final String field;
+    final String prefix;
+
+    StartsWith(String field, String prefix) {
+      this.field = field;
+      this.prefix = prefix;
+    }
+
+    @Override
+    String toString(boolean exact) {
+      return field + " STARTS WITH " + literal(prefix, exact);
+    }
+  }
+
+  static final class IsNull extends Filter {
+    final String field;
+
+    IsNull(String field) {
+      this.field = field;
+    }
+
+    @Override
+    String toString(boolean exact) {
+      return field + " IS NULL";
+    }
+  }
+
+  static final class Not extends Filter {
+    final Filter operand;
+
+    Not(Filter operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    String toString(boolean exact) {
+      return "NOT (" + operand.toString(exact) + ")";
+    }
+  }
+
+  /** Conjunction if <code>and</code> is true, otherwise disjunction. */
+  static final class Junction extends Filter {
+    final boolean and;
+    final List<Filter> operands;
+
+    Junction(boolean and, List<Filter> operands) {
+      this.and = and;
+      this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+    }
+
+    @Override
+    String toString(boolean exact) {
+      StringJoiner joiner = new StringJoiner(and ? " AND " : " OR ", "(", ")");
+      for (Filter operand : operands) {
+        joiner.add(operand.toString(exact));
+      }
+      return joiner.toString();
+    }
+  }
+}
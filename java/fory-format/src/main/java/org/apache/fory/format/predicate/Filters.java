@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.predicate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.codegen.CompileUnit;
+import org.apache.fory.format.encoder.EncoderException;
+import org.apache.fory.format.predicate.Filter.Comparison;
+import org.apache.fory.format.predicate.Filter.In;
+import org.apache.fory.format.predicate.Filter.IsNull;
+import org.apache.fory.format.predicate.Filter.Junction;
+import org.apache.fory.format.predicate.Filter.Not;
+import org.apache.fory.format.predicate.Filter.Op;
+import org.apache.fory.format.predicate.Filter.StartsWith;
+import org.apache.fory.util.Preconditions;
+
+/**
+ * Factory of {@link Filter} and entry to compile a filter into a {@link RowPredicate}. Fields are
+ * referenced by name of top-level fields in the row schema. Null checks work on fields of any type,
+ * other filters support boolean, signed integers, floating points, date, timestamp, string and
+ * binary fields:
+ *
+ * <ul>
+ *   <li>numbers are compared by numeric value, integer fields only accept integer values.
+ *   <li>date fields accept days since epoch, {@link java.time.LocalDate} or {@link java.sql.Date}.
+ *   <li>timestamp fields accept microseconds since epoch, {@link java.time.Instant} or {@link
+ *       java.sql.Timestamp}.
+ *   <li>strings are compared by utf8 bytes lexicographically, which is same as unicode code point
+ *       order. Binary fields accept <code>byte[]</code> values.
+ * </ul>
+ *
+ * <pre>{@code
+ * RowPredicate predicate = Filters.compile(schema,
+ *     Filters.gtEq("ts", startMicros).and(Filters.in("city", "paris", "tokyo")));
+ * boolean matched = predicate.test(row);
+ * }</pre>
+ */
+public class Filters {
+
+  public static Filter eq(String field, Object value) {
+    return compare(field, Op.EQ, value);
+  }
+
+  public static Filter notEq(String field, Object value) {
+    return compare(field, Op.NOT_EQ, value);
+  }
+
+  public static Filter lt(String field, Object value) {
+    return compare(field, Op.LT, value);
+  }
+
+  public static Filter ltEq(String field, Object value) {
+    return compare(field, Op.LT_EQ, value);
+  }
+
+  public static Filter gt(String field, Object value) {
+    return compare(field, Op.GT, value);
+  }
+
+  public static Filter gtEq(String field, Object value) {
+    return compare(field, Op.GT_EQ, value);
+  }
+
+  private static Filter compare(String field, Op op, Object value) {
+    Preconditions.checkNotNull(field);
+    Preconditions.checkNotNull(value, "Use isNull/isNotNull to check null values");
+    return new Comparison(field, op, value);
+  }
+
+  public static Filter in(String field, Object... values) {
+    return in(field, Arrays.asList(values));
+  }
+
+  public static Filter in(String field, Collection<?> values) {
+    Preconditions.checkNotNull(field);
+    Preconditions.checkArgument(!values.isEmpty(), "IN list of %s is empty", field);
+    for (Object value : values) {
+      Preconditions.checkNotNull(value, "Use isNull to check null values");
+    }
+    return new In(field, Arrays.asList(values.toArray()));
+  }
+
+  public static Filter startsWith(String field, String prefix) {
+    Preconditions.checkNotNull(field);
+    Preconditions.checkNotNull(prefix);
+    return new StartsWith(field, prefix);
+  }
+
+  public static Filter isNull(String field) {
+    Preconditions.checkNotNull(field);
+    return new IsNull(field);
+  }
+
+  public static Filter isNotNull(String field) {
+    return not(isNull(field));
+  }
+
+  public static Filter not(Filter filter) {
+    Preconditions.checkNotNull(filter);
+    return new Not(filter);
+  }
+
+  public static Filter and(Filter... filters) {
+    return junction(true, filters);
+  }
+
+  public static Filter or(Filter... filters) {
+    return junction(false, filters);
+  }
+
+  private static Filter junction(boolean and, Filter... filters) {
+    Preconditions.checkArgument(filters.length > 0);
+    if (filters.length == 1) {
+      return Preconditions.checkNotNull(filters[0]);
+    }
+    List<Filter> operands = Arrays.asList(filters);
+    for (Filter filter : operands) {
+      Preconditions.checkNotNull(filter);
+    }
+    return new Junction(and, operands);
+  }
+
+  /**
+   * Compile <code>filter</code> into a {@link RowPredicate} for rows of <code>schema</code>. The
+   * generated class is shared by same schema and filter.
+   *
+   * @throws IllegalArgumentException if a field doesn't exist in schema, or the field type doesn't
+   *     support the filter or value.
+   */
+  public static RowPredicate compile(Schema schema, Filter filter) {
+    RowPredicateBuilder builder = new RowPredicateBuilder(schema, filter);
+    CompileUnit compileUnit =
+        new CompileUnit(
+            CodeGenerator.getPackage(RowPredicate.class),
+            builder.predicateClassName(),
+            builder::genCode);
+    CodeGenerator codeGenerator =
+        CodeGenerator.getSharedCodeGenerator(Thread.currentThread().getContextClassLoader());
+    try {
+      ClassLoader classLoader = codeGenerator.compile(compileUnit);
+      Class<?> cls = classLoader.loadClass(compileUnit.getQualifiedClassName());
+      return cls.asSubclass(RowPredicate.class)
+          .getConstructor(Object[].class)
+          .newInstance((Object) builder.references());
+    } catch (Exception e) {
+      throw new EncoderException("Create row predicate failed for filter " + filter, e);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.predicate;
+
+import org.apache.fory.format.row.binary.BinaryRow;
+import org.apache.fory.memory.MemoryBuffer;
+
+/**
+ * A predicate over binary rows compiled from a {@link Filter}. It reads fields from the row bytes
+ * by fixed offsets, without creating a {@link BinaryRow} or decoding the row to a java bean.
+ *
+ * @see Filters#compile
+ */
+public interface RowPredicate {
+
+  /**
+   * Returns whether the row starting at <code>baseOffset</code> of <code>buffer</code> satisfies
+   * this predicate. The row must be written with the schema this predicate is compiled with.
+   */
+  boolean test(MemoryBuffer buffer, int baseOffset);
+
+  default boolean test(BinaryRow row) {
+    return test(row.getBuffer(), row.getBaseOffset());
+  }
+}
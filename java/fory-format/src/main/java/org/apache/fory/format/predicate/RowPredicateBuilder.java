@@ -0,0 +1,528 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.predicate;
+
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_BOOLEAN_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_BYTE_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_DOUBLE_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_FLOAT_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_INT_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_LONG_TYPE;
+import static org.apache.fory.type.TypeUtils.PRIMITIVE_SHORT_TYPE;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.fory.annotation.CodegenInvoke;
+import org.apache.fory.codegen.Code.ExprCode;
+import org.apache.fory.codegen.CodeGenerator;
+import org.apache.fory.codegen.CodegenContext;
+import org.apache.fory.codegen.Expression;
+import org.apache.fory.codegen.Expression.Add;
+import org.apache.fory.codegen.Expression.BitAnd;
+import org.apache.fory.codegen.Expression.Comparator;
+import org.apache.fory.codegen.Expression.Invoke;
+import org.apache.fory.codegen.Expression.Literal;
+import org.apache.fory.codegen.Expression.LogicalAnd;
+import org.apache.fory.codegen.Expression.LogicalOr;
+import org.apache.fory.codegen.Expression.Not;
+import org.apache.fory.codegen.Expression.Reference;
+import org.apache.fory.codegen.ExpressionUtils;
+import org.apache.fory.format.predicate.Filter.Op;
+import org.apache.fory.format.row.binary.BinaryRow;
+import org.apache.fory.memory.BitUtils;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.reflect.TypeRef;
+import org.apache.fory.util.DateTimeUtils;
+import org.apache.fory.util.MurmurHash3;
+
+/**
+ * Generate a {@link RowPredicate} class for a {@link Filter}. The generated code reads null bits
+ * and fixed-width slots of a {@link BinaryRow} from the underlying buffer directly, and compares
+ * strings and binaries as utf8 bytes without creating any objects.
+ *
+ * <p>All expressions are inlined, so that <code>&&</code>/<code>||</code> keep short-circuit
+ * semantics and a field value won't be read if the null check before it failed.
+ */
+public class RowPredicateBuilder {
+  private static final String BUFFER_NAME = "buffer";
+  private static final String BASE_OFFSET_NAME = "baseOffset";
+  private static final String REFERENCES_NAME = "references";
+  // IN lists larger than this threshold are evaluated by binary search on a sorted array.
+  private static final int MAX_INLINE_IN_VALUES = 8;
+
+  private enum Kind {
+    BOOL,
+    INTEGRAL,
+    DATE,
+    TIMESTAMP,
+    FLOATING,
+    STRING,
+    BINARY
+  }
+
+  private static final class FieldAccess {
+    private final String name;
+    private final int ordinal;
+    private final Kind kind;
+    private final String getter;
+    private final TypeRef<?> type;
+
+    private FieldAccess(String name, int ordinal, Kind kind, String getter, TypeRef<?> type) {
+      this.name = name;
+      this.ordinal = ordinal;
+      this.kind = kind;
+      this.getter = getter;
+      this.type = type;
+    }
+  }
+
+  private final Schema schema;
+  private final int bitmapWidthInBytes;
+  private final CodegenContext ctx = new CodegenContext();
+  private final Reference buffer = new Reference(BUFFER_NAME, TypeRef.of(MemoryBuffer.class));
+  private final Reference baseOffset = new Reference(BASE_OFFSET_NAME, PRIMITIVE_INT_TYPE);
+  private final List<Object> references = new ArrayList<>();
+  private final StringBuilder constructorCode = new StringBuilder();
+  // Exact filter string and layout of accessed fields, which decide the generated code.
+  private final StringBuilder codeKey;
+  private final Expression predicate;
+
+  public RowPredicateBuilder(Schema schema, Filter filter) {
+    this.schema = schema;
+    int numFields = schema.getFields().size();
+    this.bitmapWidthInBytes = BitUtils.calculateBitmapWidthInBytes(numFields);
+    ctx.setPackage(CodeGenerator.getPackage(RowPredicate.class));
+    ctx.reserveName(BUFFER_NAME);
+    ctx.reserveName(BASE_OFFSET_NAME);
+    ctx.reserveName(REFERENCES_NAME);
+    codeKey = new StringBuilder(filter.toString(true)).append('#').append(numFields);
+    predicate = buildExpression(filter);
+  }
+
+  public String predicateClassName() {
+    byte[] bytes = codeKey.toString().getBytes(StandardCharsets.UTF_8);
+    long[] hash = MurmurHash3.murmurhash3_x64_128(bytes, 0, bytes.length, 47);
+    return "RowPredicate_"
+        + Long.toHexString(hash[0] & Long.MAX_VALUE)
+        + "_"
+        + Long.toHexString(hash[1] & Long.MAX_VALUE);
+  }
+
+  /** Constants referenced by generated code, which should be passed to the constructor. */
+  public Object[] references() {
+    return references.toArray();
+  }
+
+  public String genCode() {
+    ctx.setClassName(predicateClassName());
+    ctx.implementsInterfaces(ctx.type(RowPredicate.class));
+    ctx.addConstructor(constructorCode.toString(), Object[].class, REFERENCES_NAME);
+    ExprCode exprCode = predicate.genCode(ctx);
+    StringBuilder code = new StringBuilder();
+    if (exprCode.code() != null && !exprCode.code().isEmpty()) {
+      code.append(exprCode.code()).append('\n');
+    }
+    code.append("return ").append(exprCode.value()).append(';');
+    ctx.overrideMethod(
+        "test",
+        code.toString(),
+        boolean.class,
+        MemoryBuffer.class,
+        BUFFER_NAME,
+        int.class,
+        BASE_OFFSET_NAME);
+    return ctx.genCode();
+  }
+
+  private Expression buildExpression(Filter filter) {
+    if (filter instanceof Filter.Comparison) {
+      Filter.Comparison comparison = (Filter.Comparison) filter;
+      FieldAccess field = field(comparison.field);
+      return new LogicalAnd(
+          true, notNull(field), compare(field, comparison.op, comparison.value));
+    } else if (filter instanceof Filter.In) {
+      Filter.In in = (Filter.In) filter;
+      FieldAccess field = field(in.field);
+      return new LogicalAnd(true, notNull(field), in(field, in.values));
+    } else if (filter instanceof Filter.StartsWith) {
+      Filter.StartsWith startsWith = (Filter.StartsWith) filter;
+      FieldAccess field = field(startsWith.field);
+      if (field.kind != Kind.STRING) {
+        throw new IllegalArgumentException(
+            String.format("STARTS WITH is not supported for non-string field %s", field.name));
+      }
+      Expression startsWithExpr =
+          ExpressionUtils.invokeStaticInline(
+              RowPredicateBuilder.class,
+              "startsWith",
+              PRIMITIVE_BOOLEAN_TYPE,
+              buffer,
+              baseOffset,
+              getValue(field),
+              bytesConstant(startsWith.prefix.getBytes(StandardCharsets.UTF_8)));
+      return new LogicalAnd(true, notNull(field), startsWithExpr);
+    } else if (filter instanceof Filter.IsNull) {
+      // null bits exist for fields of all types, no need to read the field value.
+      return isNull(ordinal(((Filter.IsNull) filter).field));
+    } else if (filter instanceof Filter.Not) {
+      return new Not(buildExpression(((Filter.Not) filter).operand));
+    } else if (filter instanceof Filter.Junction) {
+      Filter.Junction junction = (Filter.Junction) filter;
+      Expression expr = null;
+      for (Filter operand : junction.operands) {
+        Expression operandExpr = buildExpression(operand);
+        if (expr == null) {
+          expr = operandExpr;
+        } else if (junction.and) {
+          expr = new LogicalAnd(true, expr, operandExpr);
+        } else {
+          expr = new LogicalOr(true, expr, operandExpr);
+        }
+      }
+      return expr;
+    } else {
+      throw new IllegalArgumentException("Unsupported filter " + filter);
+    }
+  }
+
+  private Expression compare(FieldAccess field, Op op, Object value) {
+    switch (field.kind) {
+      case BOOL:
+        if (op != Op.EQ && op != Op.NOT_EQ) {
+          throw new IllegalArgumentException(
+              String.format("Operator %s is not supported for bool field %s", op, field.name));
+        }
+        return new Comparator(
+            javaOperator(op), getValue(field), Literal.ofBoolean(boolValue(field, value)), true);
+      case INTEGRAL:
+      case DATE:
+      case TIMESTAMP:
+        return new Comparator(
+            javaOperator(op), getValue(field), Literal.ofLong(longValue(field, value)), true);
+      case FLOATING:
+        return new Comparator(
+            javaOperator(op), getValue(field), doubleLiteral(doubleValue(field, value)), true);
+      case STRING:
+      case BINARY:
+        Reference constant = bytesConstant(bytesValue(field, value));
+        if (op == Op.EQ || op == Op.NOT_EQ) {
+          Expression equal = bytesEqual(field, constant);
+          return op == Op.EQ ? equal : new Not(equal);
+        }
+        Expression compared =
+            ExpressionUtils.invokeStaticInline(
+                RowPredicateBuilder.class,
+                "compareBytes",
+                PRIMITIVE_INT_TYPE,
+                buffer,
+                baseOffset,
+                getValue(field),
+                constant);
+        return new Comparator(javaOperator(op), compared, Literal.ofInt(0), true);
+      default:
+        throw new IllegalStateException("Unreachable kind " + field.kind);
+    }
+  }
+
+  private Expression in(FieldAccess field, List<Object> values) {
+    if (values.size() > MAX_INLINE_IN_VALUES) {
+      if (field.kind == Kind.INTEGRAL
+          || field.kind == Kind.DATE
+          || field.kind == Kind.TIMESTAMP) {
+        long[] sorted = values.stream().mapToLong(v -> longValue(field, v)).sorted().toArray();
+        return binarySearch(field, addReference(sorted, long[].class));
+      }
+      if (field.kind == Kind.FLOATING) {
+        double[] sorted =
+            values.stream().mapToDouble(v -> doubleValue(field, v)).sorted().toArray();
+        return binarySearch(field, addReference(sorted, double[].class));
+      }
+    }
+    Expression expr = null;
+    for (Object value : values) {
+      Expression eq = compare(field, Op.EQ, value);
+      expr = expr == null ? eq : new LogicalOr(true, expr, eq);
+    }
+    return expr;
+  }
+
+  private Expression binarySearch(FieldAccess field, Reference sortedValues) {
+    Expression index =
+        ExpressionUtils.invokeStaticInline(
+            Arrays.class, "binarySearch", PRIMITIVE_INT_TYPE, sortedValues, getValue(field));
+    return new Comparator(">=", index, Literal.ofInt(0), true);
+  }
+
+  private Expression bytesEqual(FieldAccess field, Reference constant) {
+    return ExpressionUtils.invokeStaticInline(
+        RowPredicateBuilder.class,
+        "bytesEqual",
+        PRIMITIVE_BOOLEAN_TYPE,
+        buffer,
+        baseOffset,
+        getValue(field),
+        constant);
+  }
+
+  private int ordinal(String name) {
+    List<Field> fields = schema.getFields();
+    int ordinal = -1;
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i).getName().equals(name)) {
+        ordinal = i;
+        break;
+      }
+    }
+    if (ordinal < 0) {
+      throw new IllegalArgumentException(
+          String.format("Field %s doesn't exist in schema %s", name, schema));
+    }
+    codeKey.append('#').append(ordinal);
+    return ordinal;
+  }
+
+  private FieldAccess field(String name) {
+    int ordinal = ordinal(name);
+    ArrowType type = schema.getFields().get(ordinal).getType();
+    codeKey.append(':').append(type);
+    switch (type.getTypeID()) {
+      case Bool:
+        return new FieldAccess(name, ordinal, Kind.BOOL, "getBoolean", PRIMITIVE_BOOLEAN_TYPE);
+      case Int:
+        {
+          ArrowType.Int intType = (ArrowType.Int) type;
+          if (intType.getIsSigned()) {
+            switch (intType.getBitWidth()) {
+              case 8:
+                return new FieldAccess(
+                    name, ordinal, Kind.INTEGRAL, "getByte", PRIMITIVE_BYTE_TYPE);
+              case 16:
+                return new FieldAccess(
+                    name, ordinal, Kind.INTEGRAL, "getInt16", PRIMITIVE_SHORT_TYPE);
+              case 32:
+                return new FieldAccess(
+                    name, ordinal, Kind.INTEGRAL, "getInt32", PRIMITIVE_INT_TYPE);
+              case 64:
+                return new FieldAccess(
+                    name, ordinal, Kind.INTEGRAL, "getInt64", PRIMITIVE_LONG_TYPE);
+              default:
+                break;
+            }
+          }
+          break;
+        }
+      case FloatingPoint:
+        {
+          FloatingPointPrecision precision = ((ArrowType.FloatingPoint) type).getPrecision();
+          if (precision == FloatingPointPrecision.SINGLE) {
+            return new FieldAccess(
+                name, ordinal, Kind.FLOATING, "getFloat32", PRIMITIVE_FLOAT_TYPE);
+          }
+          if (precision == FloatingPointPrecision.DOUBLE) {
+            return new FieldAccess(
+                name, ordinal, Kind.FLOATING, "getFloat64", PRIMITIVE_DOUBLE_TYPE);
+          }
+          break;
+        }
+      case Date:
+        if (((ArrowType.Date) type).getUnit() == DateUnit.DAY) {
+          return new FieldAccess(name, ordinal, Kind.DATE, "getInt32", PRIMITIVE_INT_TYPE);
+        }
+        break;
+      case Timestamp:
+        return new FieldAccess(name, ordinal, Kind.TIMESTAMP, "getInt64", PRIMITIVE_LONG_TYPE);
+      case Utf8:
+        return new FieldAccess(name, ordinal, Kind.STRING, "getInt64", PRIMITIVE_LONG_TYPE);
+      case Binary:
+        return new FieldAccess(name, ordinal, Kind.BINARY, "getInt64", PRIMITIVE_LONG_TYPE);
+      default:
+        break;
+    }
+    throw new IllegalArgumentException(
+        String.format("Filter on field %s of type %s is not supported", name, type));
+  }
+
+  /** Read fixed-width slot of field, which is offset and size for string and binary. */
+  private Expression getValue(FieldAccess field) {
+    int slotOffset = bitmapWidthInBytes + field.ordinal * 8;
+    Expression offset = new Add(true, baseOffset, Literal.ofInt(slotOffset));
+    return Invoke.inlineInvoke(buffer, field.getter, field.type, offset);
+  }
+
+  private Expression isNull(int ordinal) {
+    Expression offset = new Add(true, baseOffset, Literal.ofInt(ordinal >> 3));
+    Expression bits = Invoke.inlineInvoke(buffer, "getByte", PRIMITIVE_BYTE_TYPE, offset);
+    Expression nullBit = new BitAnd(true, bits, Literal.ofInt(1 << (ordinal & 7)));
+    return new Comparator("!=", nullBit, Literal.ofInt(0), true);
+  }
+
+  private Expression notNull(FieldAccess field) {
+    return new Not(isNull(field.ordinal));
+  }
+
+  // Literal code of double loses precision, use raw bits instead.
+  private static Expression doubleLiteral(double value) {
+    return ExpressionUtils.invokeStaticInline(
+        Double.class,
+        "longBitsToDouble",
+        PRIMITIVE_DOUBLE_TYPE,
+        Literal.ofLong(Double.doubleToRawLongBits(value)));
+  }
+
+  private Reference bytesConstant(byte[] bytes) {
+    return addReference(MemoryUtils.wrap(bytes), MemoryBuffer.class);
+  }
+
+  private Reference addReference(Object value, Class<?> type) {
+    String name = ctx.newName("value");
+    String typeName = ctx.type(type);
+    ctx.addField(typeName, name);
+    constructorCode.append(
+        String.format(
+            "%s = (%s) %s[%d];\n", name, typeName, REFERENCES_NAME, references.size()));
+    references.add(value);
+    return new Reference(name, TypeRef.of(type), false, true);
+  }
+
+  private static String javaOperator(Op op) {
+    switch (op) {
+      case EQ:
+        return "==";
+      case NOT_EQ:
+        return "!=";
+      default:
+        return op.symbol;
+    }
+  }
+
+  private static boolean boolValue(FieldAccess field, Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw unsupportedValue(field, value);
+  }
+
+  private static long longValue(FieldAccess field, Object value) {
+    if (field.kind == Kind.DATE) {
+      if (value instanceof LocalDate) {
+        return DateTimeUtils.localDateToDays((LocalDate) value);
+      }
+      if (value instanceof java.sql.Date) {
+        return DateTimeUtils.fromJavaDate((java.sql.Date) value);
+      }
+    }
+    if (field.kind == Kind.TIMESTAMP) {
+      if (value instanceof Instant) {
+        return DateTimeUtils.instantToMicros((Instant) value);
+      }
+      if (value instanceof java.sql.Timestamp) {
+        return DateTimeUtils.fromJavaTimestamp((java.sql.Timestamp) value);
+      }
+    }
+    if (value instanceof Long
+        || value instanceof Integer
+        || value instanceof Short
+        || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    throw unsupportedValue(field, value);
+  }
+
+  private static double doubleValue(FieldAccess field, Object value) {
+    if (value instanceof Number) {
+      // Round to float for float32 fields, otherwise `0.1` will never equal to a stored `0.1f`.
+      return field.type == PRIMITIVE_FLOAT_TYPE
+          ? ((Number) value).floatValue()
+          : ((Number) value).doubleValue();
+    }
+    throw unsupportedValue(field, value);
+  }
+
+  private static byte[] bytesValue(FieldAccess field, Object value) {
+    if (field.kind == Kind.STRING && value instanceof String) {
+      return ((String) value).getBytes(StandardCharsets.UTF_8);
+    }
+    if (field.kind == Kind.BINARY && value instanceof byte[]) {
+      return (byte[]) value;
+    }
+    throw unsupportedValue(field, value);
+  }
+
+  private static IllegalArgumentException unsupportedValue(FieldAccess field, Object value) {
+    return new IllegalArgumentException(
+        String.format(
+            "Value %s of %s is not supported for field %s",
+            value, value == null ? null : value.getClass(), field.name));
+  }
+
+  /** Returns true if the string/binary at <code>offsetAndSize</code> equals to value. */
+  @CodegenInvoke
+  public static boolean bytesEqual(
+      MemoryBuffer buffer, int baseOffset, long offsetAndSize, MemoryBuffer value) {
+    int size = value.size();
+    if ((int) offsetAndSize != size) {
+      return false;
+    }
+    int offset = baseOffset + (int) (offsetAndSize >> 32);
+    return size == 0 || buffer.equalTo(value, offset, 0, size);
+  }
+
+  /** Returns true if the string/binary at <code>offsetAndSize</code> starts with prefix. */
+  @CodegenInvoke
+  public static boolean startsWith(
+      MemoryBuffer buffer, int baseOffset, long offsetAndSize, MemoryBuffer prefix) {
+    int size = prefix.size();
+    if ((int) offsetAndSize < size) {
+      return false;
+    }
+    int offset = baseOffset + (int) (offsetAndSize >> 32);
+    return size == 0 || buffer.equalTo(prefix, offset, 0, size);
+  }
+
+  /**
+   * Compare the string/binary at <code>offsetAndSize</code> with value by unsigned bytes
+   * lexicographically.
+   */
+  @CodegenInvoke
+  public static int compareBytes(
+      MemoryBuffer buffer, int baseOffset, long offsetAndSize, MemoryBuffer value) {
+    int offset = baseOffset + (int) (offsetAndSize >> 32);
+    int size = (int) offsetAndSize;
+    int valueSize = value.size();
+    int len = Math.min(size, valueSize);
+    for (int i = 0; i < len; i++) {
+      int c = (buffer.getByte(offset + i) & 0xFF) - (value.getByte(i) & 0xFF);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return size - valueSize;
+  }
+}
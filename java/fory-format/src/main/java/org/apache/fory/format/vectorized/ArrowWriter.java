@@ -57,14 +57,25 @@ public class ArrowWriter {
   private final VectorSchemaRoot root;
   private final VectorUnloader unloader;
   private final ArrowArrayWriter[] fieldWriters;
+  private final int[] fieldOrdinals;
 
   public ArrowWriter(VectorSchemaRoot root) {
+    this(root, IntStream.range(0, root.getFieldVectors().size()).toArray());
+  }
+
+  /**
+   * Create a writer which only writes vectors of fields at <code>fieldOrdinals</code>, other
+   * vectors of <code>root</code> should be written and finished by the caller.
+   */
+  public ArrowWriter(VectorSchemaRoot root, int[] fieldOrdinals) {
     this.root = root;
     this.unloader = new VectorUnloader(root);
+    this.fieldOrdinals = fieldOrdinals;
     this.fieldWriters =
-        root.getFieldVectors().stream()
-            .map(
-                valueVector -> {
+        Arrays.stream(fieldOrdinals)
+            .mapToObj(
+                i -> {
+                  ValueVector valueVector = root.getVector(i);
                   valueVector.allocateNew();
                   return createFieldWriter(valueVector);
                 })
@@ -73,7 +84,7 @@ public class ArrowWriter {
 
   public void write(Row row) {
     for (int i = 0; i < fieldWriters.length; i++) {
-      fieldWriters[i].write(row, i);
+      fieldWriters[i].write(row, fieldOrdinals[i]);
     }
     rowCount++;
   }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import static org.apache.fory.format.encoder.ArrowEncoderTest.createFlatBean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.fory.format.encoder.ArrowEncoderTest.FlatBean;
+import org.apache.fory.format.vectorized.ArrowUtils;
+import org.apache.fory.io.MemoryBufferReadableChannel;
+import org.apache.fory.io.MemoryBufferWritableChannel;
+import org.apache.fory.memory.MemoryBuffer;
+import org.apache.fory.memory.MemoryUtils;
+import org.apache.fory.test.bean.BeanA;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ArrowDecoderTest {
+
+  private static List<FlatBean> createBeans(int start, int num) {
+    List<FlatBean> beans = new ArrayList<>();
+    for (int i = start; i < start + num; i++) {
+      beans.add(createFlatBean(i));
+    }
+    return beans;
+  }
+
+  private static <T> VectorSchemaRoot encode(ArrowEncoder<T> encoder, List<T> beans) {
+    encoder.reset();
+    beans.forEach(encoder::write);
+    return encoder.finish();
+  }
+
+  @Test
+  public void testDecode() {
+    ArrowEncoder<FlatBean> encoder = Encoders.arrowEncoder(FlatBean.class);
+    ArrowDecoder<FlatBean> decoder = Encoders.arrowDecoder(FlatBean.class);
+    Assert.assertEquals(decoder.schema(), encoder.schema());
+    List<FlatBean> beans = createBeans(0, 10);
+    Assert.assertEquals(decoder.decode(encode(encoder, beans)), beans);
+    // nested fields can't be read from vectors directly.
+    Assert.assertThrows(EncoderException.class, () -> Encoders.arrowDecoder(BeanA.class));
+  }
+
+  @Test
+  public void testProjection() {
+    ArrowEncoder<BeanA> encoder = Encoders.arrowEncoder(BeanA.class);
+    ArrowDecoder<BeanA> decoder = Encoders.arrowDecoder(BeanA.class, Arrays.asList("f17", "f1"));
+    Assert.assertEquals(decoder.schema().getFields().size(), 2);
+    List<BeanA> beans = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      BeanA bean = BeanA.createBeanA(2);
+      bean.setF1((short) i);
+      beans.add(bean);
+    }
+    List<BeanA> decoded = decoder.decode(encode(encoder, beans));
+    Assert.assertEquals(decoded.size(), beans.size());
+    for (int i = 0; i < beans.size(); i++) {
+      // only projected columns are read, nested fields are left null.
+      BeanA expected = new BeanA();
+      expected.setF1(beans.get(i).getF1());
+      expected.f17 = beans.get(i).f17;
+      Assert.assertEquals(decoded.get(i), expected);
+    }
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Encoders.arrowDecoder(BeanA.class, Arrays.asList("f1", "not_exist")));
+  }
+
+  @Test
+  public void testReuse() {
+    ArrowEncoder<FlatBean> encoder = Encoders.arrowEncoder(FlatBean.class);
+    ArrowDecoder<FlatBean> decoder = Encoders.arrowDecoder(FlatBean.class);
+    List<FlatBean> reuse = new ArrayList<>();
+    List<FlatBean> decoded = decoder.decode(encode(encoder, createBeans(0, 10)), reuse);
+    Assert.assertSame(decoded, reuse);
+    FlatBean first = reuse.get(0);
+    decoded = decoder.decode(encode(encoder, createBeans(10, 5)), reuse);
+    Assert.assertEquals(decoded, createBeans(10, 5));
+    Assert.assertSame(decoded.get(0), first);
+    Assert.assertEquals(reuse.size(), 10);
+    decoded = decoder.decode(encode(encoder, createBeans(20, 12)), reuse);
+    Assert.assertEquals(decoded, createBeans(20, 12));
+    Assert.assertSame(decoded.get(0), first);
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    ArrowEncoder<FlatBean> encoder = Encoders.arrowEncoder(FlatBean.class);
+    MemoryBuffer buffer = MemoryUtils.buffer(32);
+    VectorSchemaRoot root = encode(encoder, createBeans(0, 10));
+    try (ArrowStreamWriter writer =
+        new ArrowStreamWriter(root, null, new MemoryBufferWritableChannel(buffer))) {
+      writer.start();
+      writer.writeBatch();
+      encode(encoder, createBeans(10, 7));
+      writer.writeBatch();
+      writer.end();
+    }
+    ArrowDecoder<FlatBean> decoder = Encoders.arrowDecoder(FlatBean.class);
+    try (ArrowStreamReader reader =
+        new ArrowStreamReader(new MemoryBufferReadableChannel(buffer), ArrowUtils.allocator)) {
+      List<FlatBean> beans = decoder.stream(reader).collect(Collectors.toList());
+      Assert.assertEquals(beans, createBeans(0, 17));
+    }
+  }
+}
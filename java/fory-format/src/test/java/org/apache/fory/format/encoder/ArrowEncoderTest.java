@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.encoder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import lombok.Data;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.fory.format.vectorized.ArrowUtils;
+import org.apache.fory.format.vectorized.ArrowWriter;
+import org.apache.fory.test.bean.BeanA;
+import org.apache.fory.util.DateTimeUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ArrowEncoderTest {
+
+  public enum Color {
+    RED,
+    GREEN
+  }
+
+  /** Bean of all types which are written to vectors directly. */
+  @Data
+  public static class FlatBean {
+    public int f1;
+    public Integer f2;
+    public long f3;
+    public Boolean f4;
+    public String f5;
+    public Color f6;
+    public BigDecimal f7;
+    public LocalDate f8;
+    public Instant f9;
+    public double f10;
+  }
+
+  // Nullable fields are null for odd `i`.
+  static FlatBean createFlatBean(int i) {
+    FlatBean bean = new FlatBean();
+    bean.f1 = i;
+    bean.f3 = i * 10L;
+    bean.f10 = i / 2.0;
+    if (i % 2 == 0) {
+      bean.f2 = i;
+      bean.f4 = i % 4 == 0;
+      bean.f5 = "str" + i;
+      bean.f6 = Color.values()[i % 4 / 2];
+      bean.f7 = BigDecimal.valueOf(i).setScale(18);
+      bean.f8 = LocalDate.of(2020, 1, 1).plusDays(i);
+      bean.f9 = Instant.ofEpochSecond(i);
+    }
+    return bean;
+  }
+
+  @Test
+  public void testFlatBean() {
+    ArrowEncoder<FlatBean> encoder = Encoders.arrowEncoder(FlatBean.class);
+    Assert.assertEquals(encoder.schema(), Encoders.bean(FlatBean.class).schema());
+    for (int batch = 0; batch < 2; batch++) {
+      for (int i = 0; i < 10; i++) {
+        encoder.write(createFlatBean(batch * 10 + i));
+      }
+      Assert.assertEquals(encoder.rowCount(), 10);
+      VectorSchemaRoot root = encoder.finish();
+      Assert.assertEquals(root.getRowCount(), 10);
+      for (int i = 0; i < 10; i++) {
+        FlatBean bean = createFlatBean(batch * 10 + i);
+        Assert.assertEquals(((IntVector) root.getVector("f1")).get(i), bean.f1);
+        Assert.assertEquals(((BigIntVector) root.getVector("f3")).get(i), bean.f3);
+        Assert.assertEquals(((Float8Vector) root.getVector("f10")).get(i), bean.f10);
+        if (bean.f2 == null) {
+          for (String name : new String[] {"f2", "f4", "f5", "f6", "f7", "f8", "f9"}) {
+            Assert.assertTrue(root.getVector(name).isNull(i), name);
+          }
+          continue;
+        }
+        Assert.assertEquals(((IntVector) root.getVector("f2")).get(i), (int) bean.f2);
+        Assert.assertEquals(((BitVector) root.getVector("f4")).get(i) == 1, (boolean) bean.f4);
+        Assert.assertEquals(
+            ((VarCharVector) root.getVector("f5")).getObject(i).toString(), bean.f5);
+        Assert.assertEquals(
+            ((VarCharVector) root.getVector("f6")).getObject(i).toString(), bean.f6.name());
+        Assert.assertEquals(
+            ((DecimalVector) root.getVector("f7")).getObject(i).compareTo(bean.f7), 0);
+        Assert.assertEquals(
+            ((DateDayVector) root.getVector("f8")).get(i),
+            DateTimeUtils.localDateToDays(bean.f8));
+        Assert.assertEquals(
+            ((TimeStampVector) root.getVector("f9")).get(i),
+            DateTimeUtils.instantToMicros(bean.f9));
+      }
+      encoder.reset();
+    }
+  }
+
+  @Test
+  public void testNestedBean() {
+    ArrowEncoder<BeanA> encoder = Encoders.arrowEncoder(BeanA.class);
+    RowEncoder<BeanA> rowEncoder = Encoders.bean(BeanA.class);
+    Assert.assertEquals(encoder.schema(), rowEncoder.schema());
+    // nested fields are written from the row, other fields are written directly.
+    ArrowWriter arrowWriter = ArrowUtils.createArrowWriter(rowEncoder.schema());
+    for (int i = 0; i < 10; i++) {
+      BeanA bean = BeanA.createBeanA(i % 3);
+      if (i % 2 == 0) {
+        bean.setF2(null);
+        bean.f17 = null;
+      }
+      encoder.write(bean);
+      arrowWriter.write(rowEncoder.toRow(bean));
+    }
+    Assert.assertEquals(
+        encoder.finish().contentToTSVString(), arrowWriter.finish().contentToTSVString());
+    encoder.reset();
+    encoder.write(BeanA.createBeanA(2));
+    ArrowRecordBatch recordBatch = encoder.finishAsRecordBatch();
+    Assert.assertEquals(recordBatch.getLength(), 1);
+    recordBatch.close();
+  }
+}
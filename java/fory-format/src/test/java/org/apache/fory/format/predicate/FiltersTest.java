@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.fory.format.predicate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.fory.format.encoder.Encoders;
+import org.apache.fory.format.encoder.RowEncoder;
+import org.apache.fory.format.row.binary.BinaryRow;
+import org.apache.fory.format.row.binary.writer.BinaryRowWriter;
+import org.apache.fory.format.type.DataTypes;
+import org.apache.fory.test.bean.BeanA;
+import org.apache.fory.util.DateTimeUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FiltersTest {
+
+  private static List<BeanA> createBeans() {
+    String[] strings = {"paris", "tokyo", "new york", "newark", "北京", null};
+    List<BeanA> beans = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      BeanA bean = BeanA.createBeanA(0);
+      bean.setF1((short) (i % 5 - 2));
+      bean.setF2(i % 4 == 0 ? null : i);
+      bean.setF3(i);
+      bean.setF4(i * 0.1f);
+      bean.setF5(i * 1.5);
+      bean.setF12(i % 2 == 0);
+      bean.f17 = strings[i % strings.length];
+      bean.setIntArray(i % 3 == 0 ? null : new int[] {i});
+      beans.add(bean);
+    }
+    return beans;
+  }
+
+  private static void check(Filter filter, Predicate<BeanA> expected) {
+    RowEncoder<BeanA> encoder = Encoders.bean(BeanA.class);
+    RowPredicate predicate = Filters.compile(encoder.schema(), filter);
+    int numMatched = 0;
+    for (BeanA bean : createBeans()) {
+      BinaryRow row = encoder.toRow(bean);
+      boolean result = expected.test(bean);
+      Assert.assertEquals(predicate.test(row), result, filter + " on " + bean);
+      Assert.assertEquals(predicate.test(row.getBuffer(), row.getBaseOffset()), result);
+      numMatched += result ? 1 : 0;
+    }
+    // every filter should both match and reject some rows.
+    Assert.assertTrue(numMatched > 0 && numMatched < 60, filter + " matched " + numMatched);
+  }
+
+  @Test
+  public void testComparison() {
+    check(Filters.eq("f3", 7), o -> o.getF3() == 7);
+    check(Filters.notEq("f3", 7L), o -> o.getF3() != 7);
+    check(Filters.lt("f1", 0), o -> o.getF1() < 0);
+    check(Filters.eq("f12", true), BeanA::isF12);
+    check(Filters.gtEq("f4", 0.3), o -> o.getF4() >= 0.3f);
+    check(Filters.eq("f4", 0.1), o -> o.getF4() == 0.1f);
+    check(Filters.gt("f5", 30.5), o -> o.getF5() > 30.5);
+    check(Filters.ltEq("f2", 10), o -> o.getF2() != null && o.getF2() <= 10);
+  }
+
+  @Test
+  public void testString() {
+    check(Filters.eq("f17", "tokyo"), o -> "tokyo".equals(o.f17));
+    check(Filters.notEq("f17", "tokyo"), o -> o.f17 != null && !"tokyo".equals(o.f17));
+    check(Filters.eq("f17", "北京"), o -> "北京".equals(o.f17));
+    check(Filters.lt("f17", "paris"), o -> o.f17 != null && o.f17.compareTo("paris") < 0);
+    check(Filters.gtEq("f17", "new"), o -> o.f17 != null && o.f17.compareTo("new") >= 0);
+    check(Filters.startsWith("f17", "new"), o -> o.f17 != null && o.f17.startsWith("new"));
+    check(Filters.startsWith("f17", ""), o -> o.f17 != null);
+    check(
+        Filters.in("f17", "paris", "北京"), o -> "paris".equals(o.f17) || "北京".equals(o.f17));
+  }
+
+  @Test
+  public void testDateTimeAndBinary() {
+    Schema schema =
+        new Schema(
+            Arrays.asList(
+                DataTypes.field("date", FieldType.nullable(DataTypes.date32())),
+                DataTypes.field("time", FieldType.nullable(DataTypes.timestamp())),
+                DataTypes.field("payload", FieldType.nullable(DataTypes.binary()))));
+    LocalDate date = LocalDate.of(2024, 2, 1);
+    Instant time = Instant.ofEpochSecond(1_700_000_000L);
+    RowPredicate afterDate = Filters.compile(schema, Filters.gt("date", date));
+    RowPredicate beforeTime = Filters.compile(schema, Filters.lt("time", time));
+    RowPredicate payloadEq = Filters.compile(schema, Filters.eq("payload", new byte[] {1, 0}));
+    RowPredicate payloadNull = Filters.compile(schema, Filters.isNull("payload"));
+    for (int i = -2; i <= 2; i++) {
+      BinaryRowWriter writer = new BinaryRowWriter(schema);
+      writer.reset();
+      writer.write(0, DateTimeUtils.localDateToDays(date.plusDays(i)));
+      writer.write(1, DateTimeUtils.instantToMicros(time.plusSeconds(i)));
+      if (i == 0) {
+        writer.setNullAt(2);
+      } else {
+        writer.write(2, new byte[] {(byte) i, 0});
+      }
+      BinaryRow row = writer.getRow();
+      Assert.assertEquals(afterDate.test(row), i > 0);
+      Assert.assertEquals(beforeTime.test(row), i < 0);
+      Assert.assertEquals(payloadEq.test(row), i == 1);
+      Assert.assertEquals(payloadNull.test(row), i == 0);
+    }
+  }
+
+  @Test
+  public void testInAndJunction() {
+    check(Filters.in("f3", 1, 3, 5), o -> o.getF3() == 1 || o.getF3() == 3 || o.getF3() == 5);
+    List<Object> ids = new ArrayList<>();
+    for (int i = 0; i < 20; i += 3) {
+      ids.add((long) i * 2);
+    }
+    check(Filters.in("f3", ids), o -> ids.contains(o.getF3()));
+    check(
+        Filters.in("f5", 0, 1.5, 3, 4.5, 6, 7.5, 9, 10.5, 12, 13.5), o -> o.getF5() <= 13.5);
+    check(
+        Filters.eq("f12", true).and(Filters.startsWith("f17", "new")).or(Filters.gt("f3", 50)),
+        o -> (o.isF12() && o.f17 != null && o.f17.startsWith("new")) || o.getF3() > 50);
+    check(Filters.isNull("f2"), o -> o.getF2() == null);
+    // null checks only read null bits, which works for array fields too.
+    check(Filters.isNotNull("int_array"), o -> o.getIntArray() != null);
+    check(Filters.not(Filters.eq("f17", "paris")), o -> !"paris".equals(o.f17));
+  }
+
+  @Test
+  public void testInvalidFilter() {
+    RowEncoder<BeanA> encoder = Encoders.bean(BeanA.class);
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Filters.compile(encoder.schema(), Filters.eq("not_exist", 1)));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Filters.compile(encoder.schema(), Filters.eq("f3", 1.5)));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Filters.compile(encoder.schema(), Filters.startsWith("f3", "1")));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Filters.compile(encoder.schema(), Filters.lt("f12", true)));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> Filters.compile(encoder.schema(), Filters.eq("int_array", 1)));
+    Assert.assertThrows(IllegalArgumentException.class, () -> Filters.in("f3"));
+  }
+
+  @Test
+  public void testCompiledClassShared() {
+    RowEncoder<BeanA> encoder = Encoders.bean(BeanA.class);
+    RowPredicate p1 = Filters.compile(encoder.schema(), Filters.in("f17", "paris", "tokyo"));
+    RowPredicate p2 = Filters.compile(encoder.schema(), Filters.in("f17", "paris", "tokyo"));
+    Assert.assertSame(p1.getClass(), p2.getClass());
+    RowPredicate p3 = Filters.compile(encoder.schema(), Filters.in("f17", "paris", "rome"));
+    Assert.assertNotSame(p1.getClass(), p3.getClass());
+  }
+
+  @Test
+  public void testCompiledClassKeyedByExactValue() {
+    RowEncoder<BeanA> encoder = Encoders.bean(BeanA.class);
+    // `0.1f` and `0.1` have same string, but are different values for a double field.
+    RowPredicate p1 = Filters.compile(encoder.schema(), Filters.eq("f5", 0.1f));
+    RowPredicate p2 = Filters.compile(encoder.schema(), Filters.eq("f5", 0.1));
+    Assert.assertNotSame(p1.getClass(), p2.getClass());
+    Assert.assertEquals(Filters.eq("f5", 0.1f).toString(), "f5 = 0.1");
+    check(Filters.lt("f5", 1.6f), o -> o.getF5() < 1.6f);
+    check(Filters.gt("f5", 1.6), o -> o.getF5() > 1.6);
+  }
+}